@@ -0,0 +1,242 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram;
+import org.elasticsearch.search.aggregations.bucket.terms.LongTerms;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the coordinating node side of the query phase: merging the top docs and reducing the aggregations of many synthetic
+ * shard level {@link QuerySearchResult}s. The benchmark lives in the same package as {@link SearchPhaseController} so that it can
+ * exercise the package private batched reduce path that is selected by {@link SearchRequest#setBatchedReduceSize(int)}.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchPhaseControllerBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    // a few representative shapes instead of individual @Params, whose cross product would take about a day to run. aggType is one of
+    // "none", "terms" or "histogram", aggCardinality is the number of buckets that each shard returns for the aggregation and the
+    // default of SearchRequest#getBatchedReduceSize is 512. Other shapes can be run with e.g. -p shape="100|10|terms|1000|32".
+    @Param({
+        // shards| topN|   aggType| aggCardinality| batchedReduceSize
+        "      10|   10|      none|              0|               512",
+        "     100|   10|     terms|           1000|               512",
+        "     100|  100|     terms|          10000|                32",
+        "     100|   10| histogram|           1000|               512",
+        "    1000|   10|     terms|           1000|                32",
+        "    1000|   10|     terms|           1000|               512",
+        "    1000|   10| histogram|           1000|               512",
+        "    1000| 1000|      none|              0|               512"
+    })
+    public String shape = "100|10|terms|1000|512";
+
+    public int numShards;
+    // the number of top docs (from + size) that each shard returns
+    public int topN;
+    public String aggType;
+    public int aggCardinality;
+    public int batchedReduceSize;
+
+    public long seed = 42L;
+
+    private SearchPhaseController controller;
+    private SearchRequest request;
+    private TopDocs[] shardTopDocs;
+    private InternalAggregations[] shardAggs;
+    private List<SearchPhaseResult> queryResults;
+
+    @Setup
+    public void setUp() throws Exception {
+        final String[] params = shape.split("\\|");
+        numShards = toInt(params[0]);
+        topN = toInt(params[1]);
+        aggType = params[2].trim();
+        aggCardinality = toInt(params[3]);
+        batchedReduceSize = toInt(params[4]);
+
+        controller = new SearchPhaseController(Settings.EMPTY,
+            isFinalReduce -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, isFinalReduce));
+
+        SearchSourceBuilder source = new SearchSourceBuilder().size(topN);
+        switch (aggType) {
+            case "none":
+                break;
+            case "terms":
+                source.aggregation(AggregationBuilders.terms("agg").field("field").size(10).shardSize(aggCardinality));
+                break;
+            case "histogram":
+                source.aggregation(AggregationBuilders.histogram("agg").field("field").interval(1));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown aggregation type [" + aggType + "]");
+        }
+        request = new SearchRequest("index").source(source);
+        request.setBatchedReduceSize(batchedReduceSize);
+
+        // shard level results are immutable during the reduce so we build them only once per trial
+        Random random = new Random(seed);
+        shardTopDocs = new TopDocs[numShards];
+        shardAggs = new InternalAggregations[numShards];
+        for (int shard = 0; shard < numShards; shard++) {
+            shardTopDocs[shard] = randomTopDocs(random);
+            switch (aggType) {
+                case "terms":
+                    shardAggs[shard] = new InternalAggregations(Collections.singletonList(randomTerms(random)));
+                    break;
+                case "histogram":
+                    shardAggs[shard] = new InternalAggregations(Collections.singletonList(randomHistogram(random)));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * {@link QuerySearchResult}s hand out their top docs and aggregations only once so we need fresh wrappers for every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void createQueryResults() {
+        Index index = new Index("index", "_na_");
+        queryResults = new ArrayList<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            QuerySearchResult result = new QuerySearchResult(shard, new SearchShardTarget("node", index, shard, null));
+            result.setShardIndex(shard);
+            result.from(0);
+            result.size(topN);
+            result.topDocs(shardTopDocs[shard], null);
+            if (shardAggs[shard] != null) {
+                result.aggregations(shardAggs[shard]);
+            }
+            queryResults.add(result);
+        }
+    }
+
+    private int toInt(String v) {
+        return Integer.valueOf(v.trim());
+    }
+
+    private TopDocs randomTopDocs(Random random) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[topN];
+        float score = 100.0f;
+        for (int i = 0; i < topN; i++) {
+            score -= random.nextFloat() * 0.1f;
+            scoreDocs[i] = new ScoreDoc(random.nextInt(Integer.MAX_VALUE), score);
+        }
+        return new TopDocs(topN * 10L, scoreDocs, scoreDocs.length == 0 ? Float.NaN : scoreDocs[0].score);
+    }
+
+    private LongTerms randomTerms(Random random) {
+        // shards see overlapping but not identical terms, similar to a high cardinality keyword field
+        long[] keys = random.longs(aggCardinality * 2, 0, aggCardinality * 4L).distinct().limit(aggCardinality).toArray();
+        long[] docCounts = new long[keys.length];
+        for (int i = 0; i < docCounts.length; i++) {
+            docCounts[i] = 1 + random.nextInt(1000);
+        }
+        Arrays.sort(docCounts);
+        List<LongTerms.Bucket> buckets = new ArrayList<>(keys.length);
+        // shards return their buckets sorted by descending doc count
+        for (int i = 0; i < keys.length; i++) {
+            buckets.add(new LongTerms.Bucket(keys[i], docCounts[docCounts.length - 1 - i], InternalAggregations.EMPTY, false, 0,
+                DocValueFormat.RAW));
+        }
+        return new LongTerms("agg", BucketOrder.count(false), 10, 1, Collections.emptyList(), null, DocValueFormat.RAW,
+            aggCardinality, false, 0, buckets, 0);
+    }
+
+    private InternalHistogram randomHistogram(Random random) {
+        // every shard has documents in every bucket, like a date histogram over a time range that all shards cover
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>(aggCardinality);
+        for (int key = 0; key < aggCardinality; key++) {
+            buckets.add(new InternalHistogram.Bucket(key, 1 + random.nextInt(1000), false, DocValueFormat.RAW,
+                InternalAggregations.EMPTY));
+        }
+        return new InternalHistogram("agg", buckets, BucketOrder.key(true), 1, null, DocValueFormat.RAW, false,
+            Collections.emptyList(), null);
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase reducedQueryPhase() {
+        return controller.reducedQueryPhase(queryResults, false);
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase batchedReduce() {
+        // uses QueryPhaseResultConsumer if batchedReduceSize is less than numShards and falls back to a single reduce otherwise
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(request, numShards);
+        for (SearchPhaseResult result : queryResults) {
+            consumer.consumeResult(result);
+        }
+        return consumer.reduce();
+    }
+
+    @Benchmark
+    public SearchPhaseController.SortedTopDocs sortDocs() {
+        return controller.sortDocs(false, queryResults, null, new SearchPhaseController.TopDocsStats(), 0, topN);
+    }
+
+    @Benchmark
+    public InternalAggregations reduceAggs() {
+        if (shardAggs[0] == null) {
+            return null;
+        }
+        return InternalAggregations.reduce(Arrays.asList(shardAggs),
+            new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, true));
+    }
+}
@@ -19,6 +19,7 @@
 package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -27,6 +28,8 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -106,10 +109,19 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // 100k shards
+        "     1000|     50|        1|   100",
+        "     1000|    100|        0|   200"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
+    // the factor of the write load in the weight function, the shards of every tenth index have a write load of 1.0 and the
+    // shards of all other indices a write load of 0.1. Run with e.g. -p writeLoadBalance=1.0 to take the write load into account.
+    @Param({"0.0"})
+    public String writeLoadBalance = "0.0";
+
     public int numTags = 2;
 
     private AllocationService strategy;
@@ -124,9 +136,20 @@ public class AllocationBenchmark {
         int numReplicas = toInt(params[2]);
         int numNodes = toInt(params[3]);
 
+        ImmutableOpenMap.Builder<String, Double> shardWriteLoads = ImmutableOpenMap.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            final double writeLoad = i % 10 == 0 ? 1.0d : 0.1d;
+            for (int shard = 0; shard < numShards; shard++) {
+                shardWriteLoads.put("[test_" + i + "][" + shard + "][p]", writeLoad);
+                shardWriteLoads.put("[test_" + i + "][" + shard + "][r]", writeLoad);
+            }
+        }
+        final ClusterInfo clusterInfo = new ClusterInfo(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), shardWriteLoads.build());
         strategy = Allocators.createAllocationService(Settings.builder()
                 .put("cluster.routing.allocation.awareness.attributes", "tag")
-                .build());
+                .put("cluster.routing.allocation.balance.write_load", Float.parseFloat(writeLoadBalance))
+                .build(), new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), () -> clusterInfo);
 
         MetaData.Builder mb = MetaData.builder();
         for (int i = 1; i <= numIndices; i++) {
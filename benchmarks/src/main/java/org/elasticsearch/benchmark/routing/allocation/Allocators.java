@@ -19,6 +19,7 @@
 package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterModule;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -79,9 +80,15 @@ public final class Allocators {
 
     public static AllocationService createAllocationService(Settings settings, ClusterSettings clusterSettings) throws
         InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return createAllocationService(settings, clusterSettings, EmptyClusterInfoService.INSTANCE);
+    }
+
+    public static AllocationService createAllocationService(Settings settings, ClusterSettings clusterSettings,
+                                                            ClusterInfoService clusterInfoService) throws
+        InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
         return new AllocationService(settings,
             defaultAllocationDeciders(settings, clusterSettings),
-            NoopGatewayAllocator.INSTANCE, new BalancedShardsAllocator(settings), EmptyClusterInfoService.INSTANCE);
+            NoopGatewayAllocator.INSTANCE, new BalancedShardsAllocator(settings), clusterInfoService);
     }
 
     public static AllocationDeciders defaultAllocationDeciders(Settings settings, ClusterSettings clusterSettings) throws
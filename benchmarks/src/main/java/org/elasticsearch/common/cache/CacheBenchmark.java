@@ -0,0 +1,161 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.cache;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the eviction policies of {@link Cache} on a skewed workload: keys are drawn from a Zipf distribution, so a few keys are
+ * accessed very often and most keys are accessed rarely, similar to the queries that hit the request cache. Every thread replays
+ * its own section of a pre-computed trace.
+ * <p>
+ * {@link #getOrPut} loads missing keys like {@link Cache#computeIfAbsent} would and reports the number of hits and misses next
+ * to the throughput, the hit rate is <code>hits / (hits + misses)</code>. {@link #get} only reads from a cache that was warmed up
+ * with the trace, which shows how well reads scale with the number of threads.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CacheBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"LRU", "TINY_LFU"})
+    public String evictionPolicy = "LRU";
+
+    // the exponent of the Zipf distribution, higher values are more skewed
+    @Param({"0.8", "1.0", "1.2"})
+    public double skew = 1.0;
+
+    // the number of entries that fit in the cache
+    @Param({"10000", "100000"})
+    public int maximumWeight = 10000;
+
+    // the number of distinct keys in the trace
+    public int numberOfKeys = 1_000_000;
+
+    // the length of the trace, a power of two
+    public int traceLength = 1 << 22;
+
+    public long seed = 42L;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] trace;
+
+    @Setup
+    public void setUp() {
+        cache = CacheBuilder.<Integer, Integer>builder()
+            .setEvictionPolicy(Cache.EvictionPolicy.valueOf(evictionPolicy))
+            .setMaximumWeight(maximumWeight)
+            .build();
+
+        // the cumulative distribution of the key ranks
+        double[] cdf = new double[numberOfKeys];
+        double sum = 0;
+        for (int rank = 0; rank < numberOfKeys; rank++) {
+            sum += 1.0d / Math.pow(rank + 1, skew);
+            cdf[rank] = sum;
+        }
+        // the keys are boxed upfront so that the benchmark does not measure the allocation of keys
+        Integer[] keys = new Integer[numberOfKeys];
+        for (int i = 0; i < numberOfKeys; i++) {
+            keys[i] = i;
+        }
+        Random random = new Random(seed);
+        trace = new Integer[traceLength];
+        for (int i = 0; i < traceLength; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            trace[i] = keys[rank < 0 ? -rank - 1 : rank];
+        }
+        for (Integer key : trace) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        cache.refresh();
+    }
+
+    @State(Scope.Thread)
+    public static class TraceState {
+        private int position;
+
+        @Setup
+        public void setUp(CacheBenchmark benchmark) {
+            // threads start at different positions so that they don't access the same keys in lock step
+            position = new Random(Thread.currentThread().getId()).nextInt(benchmark.traceLength);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HitCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    private Integer nextKey(TraceState state) {
+        return trace[state.position++ & (traceLength - 1)];
+    }
+
+    @Benchmark
+    public Integer getOrPut(TraceState state, HitCounters counters) {
+        Integer key = nextKey(state);
+        Integer value = cache.get(key);
+        if (value == null) {
+            counters.misses++;
+            cache.put(key, key);
+            return key;
+        }
+        counters.hits++;
+        return value;
+    }
+
+    @Benchmark
+    public Integer get(TraceState state) {
+        return cache.get(nextKey(state));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compression schemes that the transport layer and the cluster state publication can use. The payload is a JSON
+ * document that looks like the mappings and settings of many indices, which is what most of a large cluster state consists of.
+ * <p>
+ * Every operation compresses or decompresses {@link #payloadSize} bytes, so the CPU time per MB is
+ * <code>1MB / (payloadSize * ops/s)</code>. {@link #compress} reports the number of uncompressed and compressed bytes next to the
+ * throughput, the compression ratio is <code>uncompressedBytes / compressedBytes</code>.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CompressorBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"deflate", "lz4"})
+    public String compressionScheme = "deflate";
+
+    // the approximate size of the uncompressed payload in bytes
+    @Param({"16384", "1048576"})
+    public int payloadSize = 16384;
+
+    public long seed = 42L;
+
+    private Compressor compressor;
+    private BytesReference payload;
+    private BytesReference compressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        compressor = CompressorFactory.compressor(compressionScheme);
+        Random random = new Random(seed);
+        BytesStreamOutput bytesOut = new BytesStreamOutput();
+        XContentBuilder builder = XContentFactory.jsonBuilder(bytesOut).startObject();
+        for (int index = 0; bytesOut.size() < payloadSize; index++) {
+            builder.startObject("index-" + index);
+            builder.startObject("settings")
+                .field("index.number_of_shards", 1 + random.nextInt(10))
+                .field("index.number_of_replicas", random.nextInt(3))
+                .field("index.uuid", Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()))
+                .field("index.creation_date", 1500000000000L + random.nextInt())
+                .endObject();
+            builder.startObject("mappings").startObject("properties");
+            int numberOfFields = 1 + random.nextInt(20);
+            for (int field = 0; field < numberOfFields; field++) {
+                builder.startObject("field-" + random.nextInt(100))
+                    .field("type", random.nextBoolean() ? "keyword" : "long")
+                    .field("doc_values", random.nextBoolean())
+                    .endObject();
+            }
+            builder.endObject().endObject();
+            builder.endObject();
+            builder.flush();
+        }
+        builder.endObject();
+        builder.close();
+        payload = bytesOut.bytes();
+        compressed = compress(payload);
+    }
+
+    private BytesReference compress(BytesReference bytes) throws IOException {
+        BytesStreamOutput bytesOut = new BytesStreamOutput();
+        try (StreamOutput out = compressor.streamOutput(bytesOut)) {
+            bytes.writeTo(out);
+        }
+        return bytesOut.bytes();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class SizeCounters {
+        public long uncompressedBytes;
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uncompressedBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public BytesReference compress(SizeCounters counters) throws IOException {
+        BytesReference result = compress(payload);
+        counters.uncompressedBytes += payload.length();
+        counters.compressedBytes += result.length();
+        return result;
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        byte[] uncompressed = new byte[payload.length()];
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            in.readBytes(uncompressed, 0, uncompressed.length);
+        }
+        return uncompressed;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the heap and the paged {@link LiveVersionMap} (see <code>index.version_map.type</code>) on the engine's indexing path: every
+ * invocation puts the versions of a batch of documents with random ids like the engine does after indexing into Lucene. The map is
+ * refreshed whenever the configured number of documents were indexed since the last refresh. Run it with <code>-prof gc</code> to
+ * compare allocation rates and GC time next to the throughput.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class LiveVersionMapBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"heap", "paged"})
+    public String type = "heap";
+
+    @Param({"10000", "100000", "1000000"})
+    public int docsPerRefresh = 100000;
+
+    // the number of documents that are indexed per benchmark invocation
+    public int batchSize = 1000;
+
+    private LiveVersionMap versionMap;
+    private BytesRef[] uids;
+    private Translog.Location location;
+    private AtomicLong seqNoGenerator;
+
+    @Setup
+    public void setUp() {
+        // like the engine we don't recycle pages
+        versionMap = "paged".equals(type) ? new LiveVersionMap(BigArrays.NON_RECYCLING_INSTANCE) : new LiveVersionMap();
+        uids = new BytesRef[docsPerRefresh];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = new BytesRef(UUIDs.randomBase64UUID());
+        }
+        location = new Translog.Location(1, 0, 100);
+        seqNoGenerator = new AtomicLong();
+    }
+
+    @TearDown
+    public void tearDown() {
+        versionMap.clear();
+    }
+
+    @Benchmark
+    public LiveVersionMap indexAndRefresh() throws Exception {
+        for (int i = 0; i < batchSize; i++) {
+            final long seqNo = seqNoGenerator.getAndIncrement();
+            final BytesRef uid = uids[(int) (seqNo % uids.length)];
+            try (Releasable ignored = versionMap.acquireLock(uid)) {
+                versionMap.putIndexUnderLock(uid, new IndexVersionValue(location, 1, seqNo, 1));
+            }
+            if (seqNo % docsPerRefresh == docsPerRefresh - 1) {
+                // refresh like the engine would once its indexing buffer is full, refreshes never run concurrently
+                synchronized (this) {
+                    versionMap.beforeRefresh();
+                    versionMap.afterRefresh(true);
+                }
+            }
+        }
+        return versionMap;
+    }
+}
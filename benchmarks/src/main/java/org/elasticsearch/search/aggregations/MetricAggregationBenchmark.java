@@ -0,0 +1,259 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.min.MinAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.stats.StatsAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregatorFactory;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+import org.elasticsearch.search.fetch.subphase.DocValueFieldsContext;
+import org.elasticsearch.search.internal.FilteredSearchContext;
+import org.elasticsearch.search.internal.SearchContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares collecting the docs of a top level metric aggregation one by one with collecting them in blocks through
+ * {@link BlockBucketCollector}, like the aggregation phase does. Every invocation aggregates a numeric field over all docs of an
+ * index that is built once per trial. Building the index with 100M docs takes a few minutes and needs about 1GB of disk space, a
+ * quicker comparison runs with <code>-p numDocs=1000000</code>. The numbers are noisy on machines with few cores, so compare runs
+ * with several forks.
+ */
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class MetricAggregationBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"1000000", "100000000"})
+    public int numDocs = 1000000;
+
+    @Param({"sum", "avg", "min", "max", "stats"})
+    public String aggregation = "sum";
+
+    @Param({"doc", "block"})
+    public String collection = "doc";
+
+    public long seed = 42L;
+
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private SearchContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempDirectory("metric-aggregation-benchmark");
+        directory = new MMapDirectory(path);
+        IndexWriterConfig config = new IndexWriterConfig().setRAMBufferSizeMB(256);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            Random random = new Random(seed);
+            Document document = new Document();
+            NumericDocValuesField field = new NumericDocValuesField("value", 0);
+            document.add(field);
+            for (int i = 0; i < numDocs; i++) {
+                field.setLongValue(random.nextInt(1_000_000));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+        context = new BenchmarkSearchContext();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public InternalAggregation aggregate() throws IOException {
+        Aggregator aggregator = createAggregator();
+        BucketCollector collector = "block".equals(collection) ? BlockBucketCollector.wrap(aggregator) : aggregator;
+        collector.preCollection();
+        searcher.search(new MatchAllDocsQuery(), collector);
+        collector.postCollection();
+        InternalAggregation result = aggregator.buildAggregation(0);
+        aggregator.close();
+        return result;
+    }
+
+    private Aggregator createAggregator() throws IOException {
+        ValuesSourceConfig<ValuesSource.Numeric> config = new ValuesSourceConfig<>(ValuesSourceType.NUMERIC);
+        config.format(DocValueFormat.RAW);
+        final AggregatorFactory<?> factory;
+        switch (aggregation) {
+            case "sum":
+                factory = new SumAggregatorFactory(aggregation, config, context, null, AggregatorFactories.builder(), null) {
+                    @Override
+                    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
+                                                     List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+                        throws IOException {
+                        return doCreateInternal(VALUES, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+                    }
+                };
+                break;
+            case "avg":
+                factory = new AvgAggregatorFactory(aggregation, config, context, null, AggregatorFactories.builder(), null) {
+                    @Override
+                    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
+                                                     List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+                        throws IOException {
+                        return doCreateInternal(VALUES, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+                    }
+                };
+                break;
+            case "min":
+                factory = new MinAggregatorFactory(aggregation, config, context, null, AggregatorFactories.builder(), null) {
+                    @Override
+                    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
+                                                     List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+                        throws IOException {
+                        return doCreateInternal(VALUES, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+                    }
+                };
+                break;
+            case "max":
+                factory = new MaxAggregatorFactory(aggregation, config, context, null, AggregatorFactories.builder(), null) {
+                    @Override
+                    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
+                                                     List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+                        throws IOException {
+                        return doCreateInternal(VALUES, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+                    }
+                };
+                break;
+            case "stats":
+                factory = new StatsAggregatorFactory(aggregation, config, context, null, AggregatorFactories.builder(), null) {
+                    @Override
+                    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
+                                                     List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+                        throws IOException {
+                        return doCreateInternal(VALUES, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+                    }
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("unknown aggregation [" + aggregation + "]");
+        }
+        return factory.create(null, true);
+    }
+
+    /**
+     * Reads the values straight from the doc values of the benchmark field, like the values source of a mapped long field does.
+     */
+    private static final ValuesSource.Numeric VALUES = new ValuesSource.Numeric() {
+        @Override
+        public boolean isFloatingPoint() {
+            return false;
+        }
+
+        @Override
+        public SortedNumericDocValues longValues(LeafReaderContext context) throws IOException {
+            return DocValues.getSortedNumeric(context.reader(), "value");
+        }
+
+        @Override
+        public SortedNumericDoubleValues doubleValues(LeafReaderContext context) throws IOException {
+            return org.elasticsearch.index.fielddata.FieldData.castToDouble(longValues(context));
+        }
+
+        @Override
+        public SortedBinaryDocValues bytesValues(LeafReaderContext context) throws IOException {
+            return org.elasticsearch.index.fielddata.FieldData.toString(longValues(context));
+        }
+    };
+
+    /**
+     * The aggregators only need big arrays from the search context.
+     */
+    private static final class BenchmarkSearchContext extends FilteredSearchContext {
+        // aggregators account for their memory in the request circuit breaker
+        private final BigArrays bigArrays = new BigArrays(null, new NoneCircuitBreakerService(), false);
+
+        BenchmarkSearchContext() {
+            super(null);
+        }
+
+        @Override
+        public BigArrays bigArrays() {
+            return bigArrays;
+        }
+
+        @Override
+        public DocValueFieldsContext docValueFieldsContext() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SearchContext docValueFieldsContext(DocValueFieldsContext docValueFieldsContext) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.rest.StreamingRestResponse;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Writes a {@link StreamingRestResponse} as the head of the response followed by one HTTP chunk per chunk of the response. This is
+ * written by the {@link io.netty.handler.stream.ChunkedWriteHandler} which only reads the next chunk once the channel is writable again,
+ * so the body is serialized at the pace of the client instead of being buffered as a whole.
+ * <p>
+ * The chunks are serialized on the given executor rather than on the event loop, which only hands the serialized chunks to the
+ * channel. While a chunk is written the next one is serialized. If it isn't ready yet when the channel asks for it, the transfer is
+ * suspended and resumed once the chunk is ready.
+ */
+final class Netty4ChunkedHttpResponse extends AbstractReferenceCounted implements ChunkedInput<HttpObject> {
+
+    private final HttpResponse head;
+    private final StreamingRestResponse response;
+    private final ByteBufAllocator allocator;
+    private final Executor executor;
+    private final Runnable resumeTransfer;
+    private final Releasable onClose;
+
+    // all of the following are guarded by this
+    private boolean headWritten;
+    private boolean endOfInput;
+    private boolean closed;
+    private boolean released;
+    private boolean serializing;
+    private boolean lastChunkSerialized;
+    private HttpObject nextChunk;
+    private Exception failure;
+    private long progress;
+
+    /**
+     * @param allocator      the allocator of the buffers the chunks are copied to
+     * @param executor       the executor that serializes the chunks
+     * @param resumeTransfer resumes the transfer once a chunk is ready, see
+     *                       {@link io.netty.handler.stream.ChunkedWriteHandler#resumeTransfer()}
+     * @param onClose        releases the resources of the response once the response is closed and no chunk is serialized anymore
+     */
+    Netty4ChunkedHttpResponse(HttpResponse head, StreamingRestResponse response, ByteBufAllocator allocator, Executor executor,
+                              Runnable resumeTransfer, Releasable onClose) {
+        this.head = head;
+        this.response = response;
+        this.allocator = allocator;
+        this.executor = executor;
+        this.resumeTransfer = resumeTransfer;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public synchronized boolean isEndOfInput() {
+        return endOfInput;
+    }
+
+    @Override
+    public void close() {
+        final HttpObject discarded;
+        synchronized (this) {
+            endOfInput = true;
+            closed = true;
+            discarded = nextChunk;
+            nextChunk = null;
+        }
+        ReferenceCountUtil.release(discarded);
+        maybeRelease();
+    }
+
+    @Deprecated
+    @Override
+    public HttpObject readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public synchronized HttpObject readChunk(ByteBufAllocator channelAllocator) throws Exception {
+        if (endOfInput) {
+            return null;
+        }
+        if (headWritten == false) {
+            headWritten = true;
+            serializeNextChunk();
+            return head;
+        }
+        if (failure != null) {
+            // the head was already sent, failing the write closes the connection so the client sees the response is incomplete
+            throw failure;
+        }
+        final HttpObject chunk = nextChunk;
+        if (chunk == null) {
+            // the chunk isn't serialized yet, returning null suspends the transfer until it is resumed
+            return null;
+        }
+        nextChunk = null;
+        if (chunk instanceof LastHttpContent) {
+            endOfInput = true;
+        } else {
+            progress += ((DefaultHttpContent) chunk).content().readableBytes();
+            serializeNextChunk();
+        }
+        return chunk;
+    }
+
+    private void serializeNextChunk() {
+        assert Thread.holdsLock(this);
+        if (lastChunkSerialized || closed) {
+            return;
+        }
+        serializing = true;
+        executor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                final HttpObject chunk = toHttpContent(response.nextChunk());
+                final boolean discard;
+                synchronized (Netty4ChunkedHttpResponse.this) {
+                    discard = closed;
+                    if (discard == false) {
+                        nextChunk = chunk;
+                        lastChunkSerialized = chunk instanceof LastHttpContent;
+                    }
+                }
+                if (discard) {
+                    ReferenceCountUtil.release(chunk);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                synchronized (Netty4ChunkedHttpResponse.this) {
+                    failure = e;
+                }
+            }
+
+            @Override
+            public void onAfter() {
+                synchronized (Netty4ChunkedHttpResponse.this) {
+                    serializing = false;
+                }
+                maybeRelease();
+                resumeTransfer.run();
+            }
+        });
+    }
+
+    private HttpObject toHttpContent(BytesReference chunk) throws Exception {
+        if (chunk == null) {
+            return LastHttpContent.EMPTY_LAST_CONTENT;
+        }
+        // the bytes of a chunk are reused for the next chunk so they must be copied before they are handed to the channel
+        final ByteBuf buffer = allocator.buffer(chunk.length());
+        boolean success = false;
+        try {
+            final BytesRefIterator iterator = chunk.iterator();
+            BytesRef slice;
+            while ((slice = iterator.next()) != null) {
+                buffer.writeBytes(slice.bytes, slice.offset, slice.length);
+            }
+            success = true;
+            return new DefaultHttpContent(buffer);
+        } finally {
+            if (success == false) {
+                buffer.release();
+            }
+        }
+    }
+
+    private void maybeRelease() {
+        synchronized (this) {
+            if (closed == false || serializing || released) {
+                return;
+            }
+            released = true;
+        }
+        onClose.close();
+    }
+
+    @Override
+    public long length() {
+        // the length of the body is not known upfront
+        return -1;
+    }
+
+    @Override
+    public synchronized long progress() {
+        return progress;
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        close();
+    }
+}
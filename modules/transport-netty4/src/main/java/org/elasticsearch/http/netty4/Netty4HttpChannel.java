@@ -25,6 +25,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
@@ -32,9 +33,11 @@ import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
@@ -45,6 +48,7 @@ import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
 import org.elasticsearch.rest.AbstractRestChannel;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingRestResponse;
 import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import java.util.Collections;
@@ -90,6 +94,12 @@ final class Netty4HttpChannel extends AbstractRestChannel {
 
     @Override
     public void sendResponse(RestResponse response) {
+        if (response instanceof StreamingRestResponse && ((StreamingRestResponse) response).isChunked()
+                && HttpMethod.HEAD.equals(nettyRequest.method()) == false && isHttp10() == false
+                && channel.pipeline().get(ChunkedWriteHandler.class) != null) {
+            sendChunkedResponse((StreamingRestResponse) response);
+            return;
+        }
         // if the response object was created upstream, then use it;
         // otherwise, create a new one
         ByteBuf buffer = Netty4Utils.toByteBuf(response.content());
@@ -99,18 +109,7 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         } else {
             resp = newResponse(buffer);
         }
-        resp.setStatus(getStatus(response.status()));
-
-        Netty4CorsHandler.setCorsResponseHeaders(nettyRequest, resp, transport.getCorsConfig());
-
-        String opaque = nettyRequest.headers().get("X-Opaque-Id");
-        if (opaque != null) {
-            setHeaderField(resp, "X-Opaque-Id", opaque);
-        }
-
-        // Add all custom headers
-        addCustomHeaders(resp, response.getHeaders());
-        addCustomHeaders(resp, threadContext.getResponseHeaders());
+        setResponseHeaders(resp, response);
 
         BytesReference content = response.content();
         boolean releaseContent = content instanceof Releasable;
@@ -159,6 +158,67 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         }
     }
 
+    /**
+     * Sends a response that doesn't fit into a single chunk with chunked transfer encoding. Its chunks are serialized on a generic
+     * thread as the channel becomes writable, see {@link Netty4ChunkedHttpResponse}.
+     */
+    private void sendChunkedResponse(StreamingRestResponse response) {
+        boolean releaseBytesStreamOutput = bytesOutputOrNull() instanceof ReleasableBytesStreamOutput;
+        try {
+            final HttpResponse resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            setResponseHeaders(resp, response);
+            setHeaderField(resp, HttpHeaderNames.CONTENT_TYPE.toString(), response.contentType(), false);
+            HttpUtil.setTransferEncodingChunked(resp, true);
+            addCookies(resp);
+
+            final ChannelPromise promise = channel.newPromise();
+
+            if (isCloseConnection()) {
+                promise.addListener(ChannelFutureListener.CLOSE);
+            } else {
+                // the head was already sent when serializing a chunk fails, so the client can only learn about the failure this way
+                promise.addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+            }
+
+            // the chunks are serialized on a generic thread, which may still write to the bytes output when the write completes,
+            // so the response releases the output once it is closed and done serializing
+            final ChunkedWriteHandler chunkedWriteHandler = channel.pipeline().get(ChunkedWriteHandler.class);
+            final Releasable onClose = releaseBytesStreamOutput ? () -> bytesOutputOrNull().close() : () -> {};
+            final Netty4ChunkedHttpResponse chunkedResponse = new Netty4ChunkedHttpResponse(resp, response, channel.alloc(),
+                transport.threadPool.generic(), () -> channel.eventLoop().execute(chunkedWriteHandler::resumeTransfer), onClose);
+            final Object msg;
+            if (pipelinedRequest != null) {
+                msg = pipelinedRequest.createHttpResponse(chunkedResponse, promise);
+            } else {
+                msg = chunkedResponse;
+            }
+            channel.writeAndFlush(msg, promise);
+            releaseBytesStreamOutput = false;
+        } finally {
+            if (releaseBytesStreamOutput) {
+                bytesOutputOrNull().close();
+            }
+            if (pipelinedRequest != null) {
+                pipelinedRequest.release();
+            }
+        }
+    }
+
+    private void setResponseHeaders(HttpResponse resp, RestResponse response) {
+        resp.setStatus(getStatus(response.status()));
+
+        Netty4CorsHandler.setCorsResponseHeaders(nettyRequest, resp, transport.getCorsConfig());
+
+        String opaque = nettyRequest.headers().get("X-Opaque-Id");
+        if (opaque != null) {
+            setHeaderField(resp, "X-Opaque-Id", opaque);
+        }
+
+        // Add all custom headers
+        addCustomHeaders(resp, response.getHeaders());
+        addCustomHeaders(resp, threadContext.getResponseHeaders());
+    }
+
     private void setHeaderField(HttpResponse resp, String headerField, String value) {
         setHeaderField(resp, headerField, value, true);
     }
@@ -20,7 +20,6 @@
 package org.elasticsearch.http.netty4.pipelining;
 
 import io.netty.channel.ChannelPromise;
-import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.ReferenceCounted;
 
@@ -42,7 +41,7 @@ public class HttpPipelinedRequest implements ReferenceCounted {
         return last;
     }
 
-    public HttpPipelinedResponse createHttpResponse(final FullHttpResponse response, final ChannelPromise promise) {
+    public HttpPipelinedResponse createHttpResponse(final ReferenceCounted response, final ChannelPromise promise) {
         return new HttpPipelinedResponse(response, promise, sequence);
     }
 
@@ -20,22 +20,21 @@ package org.elasticsearch.http.netty4.pipelining;
  */
 
 import io.netty.channel.ChannelPromise;
-import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.util.ReferenceCounted;
 
 class HttpPipelinedResponse implements Comparable<HttpPipelinedResponse>, ReferenceCounted {
 
-    private final FullHttpResponse response;
+    private final ReferenceCounted response;
     private final ChannelPromise promise;
     private final int sequence;
 
-    HttpPipelinedResponse(FullHttpResponse response, ChannelPromise promise, int sequence) {
+    HttpPipelinedResponse(ReferenceCounted response, ChannelPromise promise, int sequence) {
         this.response = response;
         this.promise = promise;
         this.sequence = sequence;
     }
 
-    public FullHttpResponse response() {
+    public ReferenceCounted response() {
         return response;
     }
 
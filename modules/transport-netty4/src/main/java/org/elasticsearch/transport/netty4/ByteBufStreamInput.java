@@ -21,6 +21,7 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 
@@ -34,6 +35,7 @@ class ByteBufStreamInput extends StreamInput {
 
     private final ByteBuf buffer;
     private final int endIndex;
+    private boolean sharedBytes;
 
     ByteBufStreamInput(ByteBuf buffer, int length) {
         if (length > buffer.readableBytes()) {
@@ -54,6 +56,25 @@ class ByteBufStreamInput extends StreamInput {
         return super.readBytesReference(length);
     }
 
+    @Override
+    public BytesReference readSharedBytesReference(int length) throws IOException {
+        // The transport keeps the buffer of a request that shares it alive until the response to the request was sent, so the
+        // requests that opt in can share it for as long as they are processed.
+        if (length == 0) {
+            return BytesArray.EMPTY;
+        }
+        ensureCanReadBytes(length);
+        final BytesReference reference = Netty4Utils.toBytesReference(buffer.slice(buffer.readerIndex(), length));
+        buffer.skipBytes(length);
+        sharedBytes = true;
+        return reference;
+    }
+
+    @Override
+    public boolean hasSharedBytes() {
+        return sharedBytes;
+    }
+
     @Override
     public BytesRef readBytesRef(int length) throws IOException {
         // NOTE: It is unsafe to share a reference of the internal structure, so we
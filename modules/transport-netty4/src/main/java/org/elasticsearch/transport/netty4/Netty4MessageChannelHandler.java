@@ -25,7 +25,8 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.Attribute;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.transport.TcpHeader;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.transport.Transports;
 
 import java.net.InetSocketAddress;
@@ -52,18 +53,20 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
             return;
         }
         final ByteBuf buffer = (ByteBuf) msg;
-        final int remainingMessageSize = buffer.getInt(buffer.readerIndex() - TcpHeader.MESSAGE_LENGTH_SIZE);
-        final int expectedReaderIndex = buffer.readerIndex() + remainingMessageSize;
+        // the buffer is a retained slice of the inbound bytes, the transport releases it once the message was handled which is
+        // only once the response was sent for requests
+        final Releasable releasable = Releasables.releaseOnce(buffer::release);
+        boolean success = false;
         try {
             Channel channel = ctx.channel();
-            // netty always copies a buffer, either in NioWorker in its read handler, where it copies to a fresh
-            // buffer, or in the cumulative buffer, which is cleaned each time so it could be bigger than the actual size
-            BytesReference reference = Netty4Utils.toBytesReference(buffer, remainingMessageSize);
+            BytesReference reference = Netty4Utils.toBytesReference(buffer);
             Attribute<NettyTcpChannel> channelAttribute = channel.attr(Netty4Transport.CHANNEL_KEY);
-            transport.messageReceived(reference, channelAttribute.get());
+            transport.messageReceived(reference, channelAttribute.get(), releasable);
+            success = true;
         } finally {
-            // Set the expected position of the buffer, no matter what happened
-            buffer.readerIndex(expectedReaderIndex);
+            if (success == false) {
+                releasable.close();
+            }
         }
     }
 
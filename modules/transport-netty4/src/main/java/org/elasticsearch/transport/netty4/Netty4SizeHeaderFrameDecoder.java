@@ -37,15 +37,17 @@ final class Netty4SizeHeaderFrameDecoder extends ByteToMessageDecoder {
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         try {
             BytesReference networkBytes = Netty4Utils.toBytesReference(in);
-            int messageLength = TcpTransport.readMessageLength(networkBytes) + HEADER_SIZE;
+            int messageLength = TcpTransport.readMessageLength(networkBytes);
             // If the message length is -1, we have not read a complete header. If the message length is
             // greater than the network bytes available, we have not read a complete frame.
-            if (messageLength != -1 && messageLength <= networkBytes.length()) {
-                final ByteBuf message = in.skipBytes(HEADER_SIZE);
-                // 6 bytes would mean it is a ping. And we should ignore.
-                if (messageLength != 6) {
-                    out.add(message);
+            if (messageLength != -1 && messageLength + HEADER_SIZE <= networkBytes.length()) {
+                // 0 bytes would mean it is a ping. And we should ignore.
+                if (messageLength != 0) {
+                    // the message retains the bytes it was read from so that requests can share them instead of copying them, the
+                    // cumulation is only reused once all messages of it are released
+                    out.add(in.retainedSlice(in.readerIndex() + HEADER_SIZE, messageLength));
                 }
+                in.skipBytes(HEADER_SIZE + messageLength);
             }
 
         } catch (IllegalArgumentException ex) {
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ResourceLeakDetector;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingRestResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class Netty4ChunkedHttpResponseTests extends ESTestCase {
+
+    private static ResourceLeakDetector.Level leakDetectionLevel;
+
+    private ThreadPool threadPool;
+
+    @BeforeClass
+    public static void enableLeakDetection() {
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterClass
+    public static void resetLeakDetection() {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void shutDownThreadPool() throws InterruptedException {
+        terminate(threadPool);
+    }
+
+    public void testChunksAreSerializedOffTheEventLoop() throws Exception {
+        final SearchResponse searchResponse = searchResponse(randomIntBetween(1000, 5000));
+        final RestChannel restChannel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, restChannel.newBuilder(), restChannel.request(), searchResponse);
+        assertTrue(response.isChunked());
+
+        // the embedded channel runs everything on the test thread, which acts as the event loop
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(), new ChunkedWriteHandler());
+        final Thread eventLoop = Thread.currentThread();
+        final AtomicInteger serializedChunks = new AtomicInteger();
+        final AtomicBoolean serializedOnEventLoop = new AtomicBoolean();
+        final Executor executor = command -> threadPool.generic().execute(() -> {
+            if (Thread.currentThread() == eventLoop) {
+                serializedOnEventLoop.set(true);
+            }
+            serializedChunks.incrementAndGet();
+            command.run();
+        });
+        final Semaphore chunkReady = new Semaphore(0);
+        final AtomicInteger closed = new AtomicInteger();
+        final Netty4ChunkedHttpResponse chunkedResponse = new Netty4ChunkedHttpResponse(head(), response,
+            PooledByteBufAllocator.DEFAULT, executor, chunkReady::release, closed::incrementAndGet);
+
+        final ChannelFuture future = channel.writeAndFlush(chunkedResponse);
+        final ChunkedWriteHandler chunkedWriteHandler = channel.pipeline().get(ChunkedWriteHandler.class);
+        while (future.isDone() == false) {
+            assertTrue(chunkReady.tryAcquire(10, TimeUnit.SECONDS));
+            chunkedWriteHandler.resumeTransfer();
+        }
+        assertTrue(future.isSuccess());
+        assertBusy(() -> assertThat(closed.get(), equalTo(1)));
+        assertFalse(serializedOnEventLoop.get());
+        // one more for the last chunk that ends the response
+        assertThat(serializedChunks.get(), equalTo(numberOfChunks(searchResponse, restChannel) + 1));
+
+        final FullHttpResponse received = receive(channel);
+        try {
+            assertTrue(HttpUtil.isTransferEncodingChunked(received));
+            assertThat(received.content().toString(StandardCharsets.UTF_8),
+                equalTo(expectedContent(searchResponse).utf8ToString()));
+        } finally {
+            received.release();
+        }
+        assertFalse(channel.finish());
+    }
+
+    public void testClosingTheChannelReleasesTheResponse() throws Exception {
+        final SearchResponse searchResponse = searchResponse(randomIntBetween(1000, 5000));
+        final RestChannel restChannel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, restChannel.newBuilder(), restChannel.request(), searchResponse);
+
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(), new ChunkedWriteHandler());
+        final Semaphore chunkReady = new Semaphore(0);
+        final AtomicInteger closed = new AtomicInteger();
+        final Netty4ChunkedHttpResponse chunkedResponse = new Netty4ChunkedHttpResponse(head(), response,
+            PooledByteBufAllocator.DEFAULT, threadPool.generic(), chunkReady::release, closed::incrementAndGet);
+
+        final ChannelFuture future = channel.writeAndFlush(chunkedResponse);
+        final ChunkedWriteHandler chunkedWriteHandler = channel.pipeline().get(ChunkedWriteHandler.class);
+        final int chunksBeforeClose = randomIntBetween(0, 3);
+        for (int i = 0; i < chunksBeforeClose; i++) {
+            assertTrue(chunkReady.tryAcquire(10, TimeUnit.SECONDS));
+            chunkedWriteHandler.resumeTransfer();
+        }
+        // closing the channel while a chunk may still be serialized only releases the response once the chunk is done
+        channel.close();
+        assertTrue(future.isDone());
+        assertFalse(future.isSuccess());
+        assertBusy(() -> assertThat(closed.get(), equalTo(1)));
+        assertTrue(chunkReady.tryAcquire(10, TimeUnit.SECONDS));
+        assertThat(closed.get(), equalTo(1));
+        releaseOutbound(channel);
+    }
+
+    private static HttpResponse head() {
+        final HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setTransferEncodingChunked(head, true);
+        return head;
+    }
+
+    private static FullHttpResponse receive(EmbeddedChannel channel) {
+        final EmbeddedChannel client = new EmbeddedChannel(new HttpResponseDecoder(), new HttpObjectAggregator(Integer.MAX_VALUE));
+        for (ByteBuf buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+            client.writeInbound(buffer);
+        }
+        final FullHttpResponse response = client.readInbound();
+        assertNotNull(response);
+        assertFalse(client.finish());
+        return response;
+    }
+
+    private static void releaseOutbound(EmbeddedChannel channel) {
+        for (ByteBuf buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+            buffer.release();
+        }
+    }
+
+    private static int numberOfChunks(SearchResponse searchResponse, RestChannel restChannel) throws Exception {
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, restChannel.newBuilder(), restChannel.request(), searchResponse);
+        int numberOfChunks = 0;
+        while (response.nextChunk() != null) {
+            numberOfChunks++;
+        }
+        return numberOfChunks;
+    }
+
+    private static SearchResponse searchResponse(int numberOfHits) {
+        final SearchHit[] hits = new SearchHit[numberOfHits];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new SearchHit(i, Integer.toString(i), new Text("type"), Collections.emptyMap());
+            hits[i].score(randomFloat());
+            hits[i].sourceRef(new BytesArray("{\"field\":\"" + randomAlphaOfLength(100) + "\"}"));
+        }
+        final InternalSearchResponse internalResponse =
+            new InternalSearchResponse(new SearchHits(hits, numberOfHits, 1.0f), null, null, null, false, null, 1);
+        return new SearchResponse(internalResponse, null, 1, 1, 0, randomNonNegativeLong(), ShardSearchFailure.EMPTY_ARRAY,
+            SearchResponse.Clusters.EMPTY);
+    }
+
+    private static BytesReference expectedContent(SearchResponse searchResponse) throws Exception {
+        final RestChannel channel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        try (XContentBuilder builder = channel.newBuilder()) {
+            searchResponse.toXContent(builder, channel.request());
+            return BytesReference.bytes(builder);
+        }
+    }
+}
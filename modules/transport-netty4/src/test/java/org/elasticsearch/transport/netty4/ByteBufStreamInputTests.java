@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+import java.io.IOException;
+
+public class ByteBufStreamInputTests extends ESTestCase {
+
+    private static ResourceLeakDetector.Level leakDetectionLevel;
+
+    @BeforeClass
+    public static void enableLeakDetection() {
+        // track every buffer so that a buffer that is released too often or never fails loudly
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterClass
+    public static void resetLeakDetection() {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    public void testReadSharedBytesReference() throws IOException {
+        final byte[] bytes = randomBytes(randomIntBetween(1, 1024));
+        final ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            writeBytesReference(buffer, bytes);
+            final ByteBufStreamInput in = new ByteBufStreamInput(buffer, buffer.readableBytes());
+            assertFalse(in.hasSharedBytes());
+
+            final BytesReference reference = in.readSharedBytesReference();
+            assertTrue(in.hasSharedBytes());
+            assertEquals(new BytesArray(bytes), reference);
+            assertEquals(0, in.available());
+            // the reference is a view of the buffer rather than a copy and it doesn't retain the buffer
+            buffer.setByte(buffer.writerIndex() - bytes.length, bytes[0] + 1);
+            assertEquals((byte) (bytes[0] + 1), reference.get(0));
+            assertEquals(1, buffer.refCnt());
+        } finally {
+            assertTrue(buffer.release());
+        }
+        assertEquals(0, buffer.refCnt());
+    }
+
+    public void testReadBytesReferenceCopies() throws IOException {
+        final byte[] bytes = randomBytes(randomIntBetween(1, 1024));
+        final ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        final BytesReference reference;
+        try {
+            writeBytesReference(buffer, bytes);
+            final ByteBufStreamInput in = new ByteBufStreamInput(buffer, buffer.readableBytes());
+            reference = in.readBytesReference();
+            assertFalse(in.hasSharedBytes());
+        } finally {
+            assertTrue(buffer.release());
+        }
+        assertEquals(0, buffer.refCnt());
+        // the copy outlives the released buffer
+        assertEquals(new BytesArray(bytes), reference);
+    }
+
+    public void testReadEmptySharedBytesReference() throws IOException {
+        final ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            writeBytesReference(buffer, new byte[0]);
+            final ByteBufStreamInput in = new ByteBufStreamInput(buffer, buffer.readableBytes());
+            assertSame(BytesArray.EMPTY, in.readSharedBytesReference());
+            assertFalse(in.hasSharedBytes());
+        } finally {
+            assertTrue(buffer.release());
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeBytesReference(ByteBuf buffer, byte[] bytes) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeBytesReference(new BytesArray(bytes));
+            final BytesRef bytesRef = out.bytes().toBytesRef();
+            buffer.writeBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        }
+    }
+}
@@ -19,6 +19,11 @@
 
 package org.elasticsearch.transport.netty4;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ResourceLeakDetector;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Settings;
@@ -31,21 +36,27 @@ import org.elasticsearch.mocksocket.MockSocket;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TcpTransport;
+import org.elasticsearch.transport.TcpHeader;
 import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.BeforeClass;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 
 /**
  * This test checks, if a HTTP look-alike request (starting with a HTTP method and a space)
- * actually returns text response instead of just dropping the connection
+ * actually returns text response instead of just dropping the connection, and that the decoded
+ * messages keep the inbound bytes alive exactly as long as they are in use
  */
 public class Netty4SizeHeaderFrameDecoderTests extends ESTestCase {
 
@@ -55,11 +66,25 @@ public class Netty4SizeHeaderFrameDecoderTests extends ESTestCase {
         .put(TcpTransport.PORT.getKey(), "0")
         .build();
 
+    private static ResourceLeakDetector.Level leakDetectionLevel;
+
     private ThreadPool threadPool;
     private Netty4Transport nettyTransport;
     private int port;
     private InetAddress host;
 
+    @BeforeClass
+    public static void enableLeakDetection() {
+        // track every buffer so that a buffer that is released too often or never fails loudly
+        leakDetectionLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterClass
+    public static void resetLeakDetection() {
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
     @Before
     public void startThreadPool() {
         threadPool = new ThreadPool(settings);
@@ -106,4 +131,69 @@ public class Netty4SizeHeaderFrameDecoderTests extends ESTestCase {
         }
     }
 
+    public void testMessagesRetainTheInboundBytesUntilTheyAreReleased() {
+        final byte[] first = randomBytes(randomIntBetween(1, 1024));
+        final byte[] second = randomBytes(randomIntBetween(1, 1024));
+        final ByteBuffer frames = ByteBuffer.allocate(3 * TcpHeader.MARKER_BYTES_SIZE + 3 * TcpHeader.MESSAGE_LENGTH_SIZE
+            + first.length + second.length);
+        writeFrame(frames, first);
+        writePing(frames);
+        writeFrame(frames, second);
+        // the second message is cut in two, so the decoder has to cumulate its bytes while the first message is still in use
+        final int split = frames.capacity() - randomIntBetween(1, second.length);
+        final ByteBuf head = pooledBuffer(frames.array(), 0, split);
+        final ByteBuf tail = pooledBuffer(frames.array(), split, frames.capacity() - split);
+
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4SizeHeaderFrameDecoder());
+        assertTrue(channel.writeInbound(head));
+        final ByteBuf firstMessage = channel.readInbound();
+        assertNull(channel.readInbound());
+        assertEquals(new BytesArray(first), Netty4Utils.toBytesReference(firstMessage));
+
+        channel.writeInbound(tail);
+        final ByteBuf secondMessage = channel.readInbound();
+        assertNull(channel.readInbound());
+        assertEquals(new BytesArray(second), Netty4Utils.toBytesReference(secondMessage));
+        // cumulating the rest of the second message must not have reused the bytes that the first message still points to
+        assertEquals(new BytesArray(first), Netty4Utils.toBytesReference(firstMessage));
+        assertEquals(0, tail.refCnt());
+        assertThat(head.refCnt(), greaterThan(0));
+
+        assertTrue(firstMessage.release());
+        assertEquals(0, head.refCnt());
+        assertTrue(secondMessage.release());
+        assertFalse(channel.finish());
+    }
+
+    public void testPingsReleaseTheInboundBytes() {
+        final ByteBuffer frames = ByteBuffer.allocate(TcpHeader.MARKER_BYTES_SIZE + TcpHeader.MESSAGE_LENGTH_SIZE);
+        writePing(frames);
+        final ByteBuf inbound = pooledBuffer(frames.array(), 0, frames.capacity());
+
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4SizeHeaderFrameDecoder());
+        assertFalse(channel.writeInbound(inbound));
+        assertNull(channel.readInbound());
+        assertEquals(0, inbound.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    private static void writeFrame(ByteBuffer frames, byte[] message) {
+        frames.put((byte) 'E').put((byte) 'S').putInt(message.length).put(message);
+    }
+
+    private static void writePing(ByteBuffer frames) {
+        frames.put((byte) 'E').put((byte) 'S').putInt(TcpTransport.PING_DATA_SIZE);
+    }
+
+    private static ByteBuf pooledBuffer(byte[] bytes, int offset, int length) {
+        final ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer(length);
+        buffer.writeBytes(bytes, offset, length);
+        return buffer;
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random().nextBytes(bytes);
+        return bytes;
+    }
 }
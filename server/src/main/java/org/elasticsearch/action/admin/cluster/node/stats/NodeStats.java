@@ -21,14 +21,17 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.cluster.action.shard.ShardStateActionStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.PageCacheRecyclerStats;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.discovery.DiscoveryStats;
+import org.elasticsearch.index.IndexingPressureStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.NodeIndicesStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
@@ -91,6 +94,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
     @Nullable
     private AdaptiveSelectionStats adaptiveSelectionStats;
 
+    @Nullable
+    private PageCacheRecyclerStats pageCacheRecyclerStats;
+
+    @Nullable
+    private IndexingPressureStats indexingPressureStats;
+
+    @Nullable
+    private ShardStateActionStats shardStateActionStats;
+
     NodeStats() {
     }
 
@@ -101,7 +113,10 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
                      @Nullable ScriptStats scriptStats,
                      @Nullable DiscoveryStats discoveryStats,
                      @Nullable IngestStats ingestStats,
-                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats) {
+                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable PageCacheRecyclerStats pageCacheRecyclerStats,
+                     @Nullable IndexingPressureStats indexingPressureStats,
+                     @Nullable ShardStateActionStats shardStateActionStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -117,6 +132,9 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         this.discoveryStats = discoveryStats;
         this.ingestStats = ingestStats;
         this.adaptiveSelectionStats = adaptiveSelectionStats;
+        this.pageCacheRecyclerStats = pageCacheRecyclerStats;
+        this.indexingPressureStats = indexingPressureStats;
+        this.shardStateActionStats = shardStateActionStats;
     }
 
     public long getTimestamp() {
@@ -211,6 +229,21 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         return adaptiveSelectionStats;
     }
 
+    @Nullable
+    public PageCacheRecyclerStats getPageCacheRecyclerStats() {
+        return pageCacheRecyclerStats;
+    }
+
+    @Nullable
+    public IndexingPressureStats getIndexingPressureStats() {
+        return indexingPressureStats;
+    }
+
+    @Nullable
+    public ShardStateActionStats getShardStateActionStats() {
+        return shardStateActionStats;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -240,6 +273,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         } else {
             adaptiveSelectionStats = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            pageCacheRecyclerStats = in.readOptionalWriteable(PageCacheRecyclerStats::new);
+            indexingPressureStats = in.readOptionalWriteable(IndexingPressureStats::new);
+            shardStateActionStats = in.readOptionalWriteable(ShardStateActionStats::new);
+        } else {
+            pageCacheRecyclerStats = null;
+            indexingPressureStats = null;
+            shardStateActionStats = null;
+        }
     }
 
     @Override
@@ -266,6 +308,11 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeOptionalWriteable(adaptiveSelectionStats);
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeOptionalWriteable(pageCacheRecyclerStats);
+            out.writeOptionalWriteable(indexingPressureStats);
+            out.writeOptionalWriteable(shardStateActionStats);
+        }
     }
 
     @Override
@@ -329,6 +376,15 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         if (getAdaptiveSelectionStats() != null) {
             getAdaptiveSelectionStats().toXContent(builder, params);
         }
+        if (getPageCacheRecyclerStats() != null) {
+            getPageCacheRecyclerStats().toXContent(builder, params);
+        }
+        if (getIndexingPressureStats() != null) {
+            getIndexingPressureStats().toXContent(builder, params);
+        }
+        if (getShardStateActionStats() != null) {
+            getShardStateActionStats().toXContent(builder, params);
+        }
         return builder;
     }
 }
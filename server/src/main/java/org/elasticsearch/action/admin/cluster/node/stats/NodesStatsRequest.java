@@ -45,6 +45,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
     private boolean discovery;
     private boolean ingest;
     private boolean adaptiveSelection;
+    private boolean pageCacheRecycler;
+    private boolean indexingPressure;
+    private boolean shardState;
 
     public NodesStatsRequest() {
     }
@@ -74,6 +77,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = true;
         this.ingest = true;
         this.adaptiveSelection = true;
+        this.pageCacheRecycler = true;
+        this.indexingPressure = true;
+        this.shardState = true;
         return this;
     }
 
@@ -94,6 +100,9 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = false;
         this.ingest = false;
         this.adaptiveSelection = false;
+        this.pageCacheRecycler = false;
+        this.indexingPressure = false;
+        this.shardState = false;
         return this;
     }
 
@@ -281,6 +290,42 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         return this;
     }
 
+    public boolean pageCacheRecycler() {
+        return pageCacheRecycler;
+    }
+
+    /**
+     * Should page cache recycler statistics be returned.
+     */
+    public NodesStatsRequest pageCacheRecycler(boolean pageCacheRecycler) {
+        this.pageCacheRecycler = pageCacheRecycler;
+        return this;
+    }
+
+    public boolean indexingPressure() {
+        return indexingPressure;
+    }
+
+    /**
+     * Should indexing pressure statistics be returned.
+     */
+    public NodesStatsRequest indexingPressure(boolean indexingPressure) {
+        this.indexingPressure = indexingPressure;
+        return this;
+    }
+
+    public boolean shardState() {
+        return shardState;
+    }
+
+    /**
+     * Should statistics about the batches of started and failed shards applied on the master be returned.
+     */
+    public NodesStatsRequest shardState(boolean shardState) {
+        this.shardState = shardState;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -301,6 +346,15 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         } else {
             adaptiveSelection = false;
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            pageCacheRecycler = in.readBoolean();
+            indexingPressure = in.readBoolean();
+            shardState = in.readBoolean();
+        } else {
+            pageCacheRecycler = false;
+            indexingPressure = false;
+            shardState = false;
+        }
     }
 
     @Override
@@ -321,5 +375,10 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeBoolean(adaptiveSelection);
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeBoolean(pageCacheRecycler);
+            out.writeBoolean(indexingPressure);
+            out.writeBoolean(shardState);
+        }
     }
 }
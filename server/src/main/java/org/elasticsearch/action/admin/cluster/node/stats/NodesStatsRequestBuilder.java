@@ -148,4 +148,28 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         return this;
     }
 
+    /**
+     * Should page cache recycler statistics be returned.
+     */
+    public NodesStatsRequestBuilder setPageCacheRecycler(boolean pageCacheRecycler) {
+        request.pageCacheRecycler(pageCacheRecycler);
+        return this;
+    }
+
+    /**
+     * Should indexing pressure statistics be returned.
+     */
+    public NodesStatsRequestBuilder setIndexingPressure(boolean indexingPressure) {
+        request.indexingPressure(indexingPressure);
+        return this;
+    }
+
+    /**
+     * Should statistics about the batches of started and failed shards applied on the master be returned.
+     */
+    public NodesStatsRequestBuilder setShardState(boolean shardState) {
+        request.shardState(shardState);
+        return this;
+    }
+
 }
@@ -75,7 +75,8 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         }
         this.stats = new SnapshotStats(indexShardStatus.getStartTime(), indexShardStatus.getTotalTime(),
                                         indexShardStatus.getNumberOfFiles(), indexShardStatus.getProcessedFiles(),
-                                        indexShardStatus.getTotalSize(), indexShardStatus.getProcessedSize());
+                                        indexShardStatus.getTotalSize(), indexShardStatus.getProcessedSize(),
+                                        indexShardStatus.getFileTransferTime());
         this.failure = indexShardStatus.getFailure();
         this.nodeId = nodeId;
     }
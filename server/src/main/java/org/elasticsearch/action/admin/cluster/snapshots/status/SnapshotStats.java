@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.snapshots.status;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -38,17 +39,24 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
     private int processedFiles;
     private long totalSize;
     private long processedSize;
+    private long fileTransferTime;
 
     SnapshotStats() {
     }
 
     SnapshotStats(long startTime, long time, int numberOfFiles, int processedFiles, long totalSize, long processedSize) {
+        this(startTime, time, numberOfFiles, processedFiles, totalSize, processedSize, 0L);
+    }
+
+    SnapshotStats(long startTime, long time, int numberOfFiles, int processedFiles, long totalSize, long processedSize,
+                  long fileTransferTime) {
         this.startTime = startTime;
         this.time = time;
         this.numberOfFiles = numberOfFiles;
         this.processedFiles = processedFiles;
         this.totalSize = totalSize;
         this.processedSize = processedSize;
+        this.fileTransferTime = fileTransferTime;
     }
 
     /**
@@ -93,6 +101,21 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
         return processedSize;
     }
 
+    /**
+     * Returns the sum of the times it took to transfer the files that were processed so far. Files are transferred
+     * concurrently so this can be greater than the time the snapshot is running.
+     */
+    public long getFileTransferTime() {
+        return fileTransferTime;
+    }
+
+    /**
+     * Returns the average number of bytes per second at which a single file was transferred
+     */
+    public long getFileThroughput() {
+        return fileTransferTime == 0 ? 0 : processedSize * 1000 / fileTransferTime;
+    }
+
 
     public static SnapshotStats readSnapshotStats(StreamInput in) throws IOException {
         SnapshotStats stats = new SnapshotStats();
@@ -110,6 +133,10 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
 
         out.writeVLong(totalSize);
         out.writeVLong(processedSize);
+
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(fileTransferTime);
+        }
     }
 
     @Override
@@ -122,6 +149,10 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
 
         totalSize = in.readVLong();
         processedSize = in.readVLong();
+
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            fileTransferTime = in.readVLong();
+        }
     }
 
     static final class Fields {
@@ -135,6 +166,9 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
         static final String START_TIME_IN_MILLIS = "start_time_in_millis";
         static final String TIME_IN_MILLIS = "time_in_millis";
         static final String TIME = "time";
+        static final String FILE_TRANSFER_TIME_IN_MILLIS = "file_transfer_time_in_millis";
+        static final String FILE_TRANSFER_TIME = "file_transfer_time";
+        static final String FILE_THROUGHPUT_IN_BYTES_PER_SEC = "file_throughput_in_bytes_per_sec";
     }
 
     @Override
@@ -146,6 +180,8 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
         builder.humanReadableField(Fields.PROCESSED_SIZE_IN_BYTES, Fields.PROCESSED_SIZE, new ByteSizeValue(getProcessedSize()));
         builder.field(Fields.START_TIME_IN_MILLIS, getStartTime());
         builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(getTime()));
+        builder.humanReadableField(Fields.FILE_TRANSFER_TIME_IN_MILLIS, Fields.FILE_TRANSFER_TIME, new TimeValue(getFileTransferTime()));
+        builder.field(Fields.FILE_THROUGHPUT_IN_BYTES_PER_SEC, getFileThroughput());
         builder.endObject();
         return builder;
     }
@@ -156,7 +192,7 @@ public class SnapshotStats implements Streamable, ToXContentFragment {
 
         totalSize += stats.totalSize;
         processedSize += stats.processedSize;
-
+        fileTransferTime += stats.fileTransferTime;
 
         if (startTime == 0) {
             // First time here
@@ -156,8 +156,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         Objects.requireNonNull(request, "'request' must not be null");
         requests.add(request);
         addPayload(payload);
-        // lack of source is validated in validate() method
-        sizeInBytes += (request.source() != null ? request.source().length() : 0) + REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -177,15 +176,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         Objects.requireNonNull(request, "'request' must not be null");
         requests.add(request);
         addPayload(payload);
-        if (request.doc() != null) {
-            sizeInBytes += request.doc().source().length();
-        }
-        if (request.upsertRequest() != null) {
-            sizeInBytes += request.upsertRequest().source().length();
-        }
-        if (request.script() != null) {
-            sizeInBytes += request.script().getIdOrCode().length() * 2;
-        }
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -201,7 +192,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         Objects.requireNonNull(request, "'request' must not be null");
         requests.add(request);
         addPayload(payload);
-        sizeInBytes += REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -252,6 +243,32 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         return sizeInBytes;
     }
 
+    /**
+     * The estimated size in bytes of a single request of a bulk request.
+     */
+    static long estimatedSizeInBytes(DocWriteRequest request) {
+        if (request instanceof IndexRequest) {
+            final IndexRequest indexRequest = (IndexRequest) request;
+            // lack of source is validated in validate() method
+            return (indexRequest.source() != null ? indexRequest.source().length() : 0) + REQUEST_OVERHEAD;
+        } else if (request instanceof UpdateRequest) {
+            final UpdateRequest updateRequest = (UpdateRequest) request;
+            long sizeInBytes = 0;
+            if (updateRequest.doc() != null) {
+                sizeInBytes += updateRequest.doc().source().length();
+            }
+            if (updateRequest.upsertRequest() != null) {
+                sizeInBytes += updateRequest.upsertRequest().source().length();
+            }
+            if (updateRequest.script() != null) {
+                sizeInBytes += updateRequest.script().getIdOrCode().length() * 2;
+            }
+            return sizeInBytes;
+        } else {
+            return REQUEST_OVERHEAD;
+        }
+    }
+
     /**
      * Adds a framed data in binary format
      */
@@ -569,7 +586,9 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         waitForActiveShards = ActiveShardCount.readFrom(in);
         int size = in.readVInt();
         for (int i = 0; i < size; i++) {
-            requests.add(DocWriteRequest.readDocumentRequest(in));
+            DocWriteRequest request = DocWriteRequest.readDocumentRequest(in);
+            requests.add(request);
+            sizeInBytes += estimatedSizeInBytes(request);
         }
         refreshPolicy = RefreshPolicy.readFrom(in);
         timeout = in.readTimeValue();
@@ -46,6 +46,19 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
         return items;
     }
 
+    /**
+     * The estimated size in bytes of the items of this request, computed the same way as {@link BulkRequest#estimatedSizeInBytes()}.
+     */
+    public long estimatedSizeInBytes() {
+        long sizeInBytes = 0;
+        for (BulkItemRequest item : items) {
+            if (item != null) {
+                sizeInBytes += BulkRequest.estimatedSizeInBytes(item.request());
+            }
+        }
+        return sizeInBytes;
+    }
+
     @Override
     public String[] indices() {
         List<String> indices = new ArrayList<>();
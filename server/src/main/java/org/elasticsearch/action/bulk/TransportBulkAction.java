@@ -48,12 +48,15 @@ import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexClosedException;
@@ -91,17 +94,18 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
     private final TransportCreateIndexAction createIndexAction;
     private final LongSupplier relativeTimeProvider;
     private final IngestActionForwarder ingestForwarder;
+    private final IndexingPressure indexingPressure;
 
     @Inject
     public TransportBulkAction(Settings settings, ThreadPool threadPool, TransportService transportService,
                                ClusterService clusterService, IngestService ingestService,
                                TransportShardBulkAction shardBulkAction, TransportCreateIndexAction createIndexAction,
                                ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
-                               AutoCreateIndex autoCreateIndex) {
+                               AutoCreateIndex autoCreateIndex, IndexingPressure indexingPressure) {
         this(settings, threadPool, transportService, clusterService, ingestService,
                 shardBulkAction, createIndexAction,
                 actionFilters, indexNameExpressionResolver,
-                autoCreateIndex,
+                autoCreateIndex, indexingPressure,
                 System::nanoTime);
     }
 
@@ -109,7 +113,8 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                                ClusterService clusterService, IngestService ingestService,
                                TransportShardBulkAction shardBulkAction, TransportCreateIndexAction createIndexAction,
                                ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
-                               AutoCreateIndex autoCreateIndex, LongSupplier relativeTimeProvider) {
+                               AutoCreateIndex autoCreateIndex, IndexingPressure indexingPressure,
+                               LongSupplier relativeTimeProvider) {
         super(settings, BulkAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver, BulkRequest::new);
         Objects.requireNonNull(relativeTimeProvider);
         this.clusterService = clusterService;
@@ -117,6 +122,7 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
         this.shardBulkAction = shardBulkAction;
         this.createIndexAction = createIndexAction;
         this.autoCreateIndex = autoCreateIndex;
+        this.indexingPressure = indexingPressure;
         this.relativeTimeProvider = relativeTimeProvider;
         this.ingestForwarder = new IngestActionForwarder(transportService);
         clusterService.addStateApplier(this.ingestForwarder);
@@ -129,6 +135,37 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
 
     @Override
     protected void doExecute(Task task, BulkRequest bulkRequest, ActionListener<BulkResponse> listener) {
+        final Releasable releasable;
+        try {
+            releasable = indexingPressure.markCoordinatingOperationStarted(bulkRequest.estimatedSizeInBytes());
+        } catch (EsRejectedExecutionException e) {
+            listener.onFailure(e);
+            return;
+        }
+        final ActionListener<BulkResponse> releasingListener = new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(BulkResponse response) {
+                releasable.close();
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                releasable.close();
+                listener.onFailure(e);
+            }
+        };
+        try {
+            doInternalExecute(task, bulkRequest, releasingListener);
+        } catch (Exception e) {
+            releasingListener.onFailure(e);
+        }
+    }
+
+    /**
+     * Executes a bulk request whose bytes are already accounted for by the {@link IndexingPressure} of this node.
+     */
+    private void doInternalExecute(Task task, BulkRequest bulkRequest, ActionListener<BulkResponse> listener) {
         if (bulkRequest.hasIndexRequestsWithPipelines()) {
             if (clusterService.localNode().isIngestNode()) {
                 processBulkIndexIngestRequest(task, bulkRequest, listener);
@@ -510,7 +547,7 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                     // (this will happen if pre-processing all items in the bulk failed)
                     actionListener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
                 } else {
-                    doExecute(task, bulkRequest, actionListener);
+                    doInternalExecute(task, bulkRequest, actionListener);
                 }
             }
         });
@@ -46,25 +46,44 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.ESLoggerFactory;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.Mapping;
+import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TypeMissingException;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
 
 /** Performs shard-level bulk (index, delete or update) operations */
@@ -74,18 +93,27 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private static final Logger logger = ESLoggerFactory.getLogger(TransportShardBulkAction.class);
 
+    /**
+     * The maximum size of the sources of a run of index requests that are parsed before the first of them is indexed. This bounds
+     * the memory that is held by parsed documents while they wait for being indexed, runs of small documents are longer than runs of
+     * large documents.
+     */
+    static final long MAX_PREPARED_SOURCE_BYTES = new ByteSizeValue(1, ByteSizeUnit.MB).getBytes();
+
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private final IndexingPressure indexingPressure;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                     IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
                                     MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper, ActionFilters actionFilters,
-                                    IndexNameExpressionResolver indexNameExpressionResolver) {
+                                    IndexNameExpressionResolver indexNameExpressionResolver, IndexingPressure indexingPressure) {
         super(settings, ACTION_NAME, transportService, clusterService, indicesService, threadPool, shardStateAction, actionFilters,
             indexNameExpressionResolver, BulkShardRequest::new, BulkShardRequest::new, ThreadPool.Names.WRITE);
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.indexingPressure = indexingPressure;
     }
 
     @Override
@@ -93,6 +121,19 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return BulkAction.INSTANCE.transportOptions(settings);
     }
 
+    @Override
+    protected Releasable checkPrimaryLimits(BulkShardRequest request) {
+        // the bytes of a request that is coordinated by this node are already accounted for by the coordinating operation
+        final boolean localToCoordinatingNode = request.getParentTask().isSet()
+            && request.getParentTask().getNodeId().equals(clusterService.localNode().getId());
+        return indexingPressure.markPrimaryOperationStarted(request.shardId(), request.estimatedSizeInBytes(), localToCoordinatingNode);
+    }
+
+    @Override
+    protected Releasable checkReplicaLimits(BulkShardRequest request) {
+        return indexingPressure.markReplicaOperationStarted(request.shardId(), request.estimatedSizeInBytes());
+    }
+
     @Override
     protected BulkShardResponse newResponseInstance() {
         return new BulkShardResponse();
@@ -106,7 +147,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
     @Override
     public WritePrimaryResult<BulkShardRequest, BulkShardResponse> shardOperationOnPrimary(
             BulkShardRequest request, IndexShard primary) throws Exception {
-        return performOnPrimary(request, primary, updateHelper, threadPool::absoluteTimeInMillis, new ConcreteMappingUpdatePerformer());
+        return performOnPrimary(request, primary, updateHelper, threadPool::absoluteTimeInMillis, new ConcreteMappingUpdatePerformer(),
+            threadPool.executor(ThreadPool.Names.BULK_PARSE));
     }
 
     public static WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(
@@ -115,12 +157,35 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             UpdateHelper updateHelper,
             LongSupplier nowInMillisSupplier,
             MappingUpdatePerformer mappingUpdater) throws Exception {
+        return performOnPrimary(request, primary, updateHelper, nowInMillisSupplier, mappingUpdater,
+            EsExecutors.newDirectExecutorService());
+    }
+
+    /**
+     * Executes the items of the given request on the primary. Documents are parsed by up to <code>index.bulk.parse_threads</code>
+     * threads, the additional threads are forked to the given executor.
+     */
+    public static WritePrimaryResult<BulkShardRequest, BulkShardResponse> performOnPrimary(
+            BulkShardRequest request,
+            IndexShard primary,
+            UpdateHelper updateHelper,
+            LongSupplier nowInMillisSupplier,
+            MappingUpdatePerformer mappingUpdater,
+            Executor parseExecutor) throws Exception {
         final IndexMetaData metaData = primary.indexSettings().getIndexMetaData();
+        final Engine.Index[] preparedOperations = new Engine.Index[request.items().length];
+        int preparedUpTo = 0;
         Translog.Location location = null;
         for (int requestIndex = 0; requestIndex < request.items().length; requestIndex++) {
             if (isAborted(request.items()[requestIndex].getPrimaryResponse()) == false) {
+                if (requestIndex >= preparedUpTo) {
+                    preparedUpTo = Math.max(requestIndex + 1,
+                        prepareIndexRequestsOnPrimary(request, requestIndex, primary, mappingUpdater, parseExecutor, preparedOperations));
+                }
                 location = executeBulkItemRequest(metaData, primary, request, location, requestIndex,
-                    updateHelper, nowInMillisSupplier, mappingUpdater);
+                    updateHelper, nowInMillisSupplier, mappingUpdater, preparedOperations[requestIndex]);
+                // release the parsed document, it is not needed anymore
+                preparedOperations[requestIndex] = null;
             }
         }
         BulkItemResponse[] responses = new BulkItemResponse[request.items().length];
@@ -132,11 +197,223 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return new WritePrimaryResult<>(request, response, location, null, primary, logger);
     }
 
+    /**
+     * Parses the run of consecutive index requests that starts at the given item before the first of them is indexed. The dynamic
+     * mapping updates that the documents of the run require are merged and sent to the master in a single round-trip instead of one
+     * round-trip per document that introduces new fields. The operations of the documents that don't require a mapping update are
+     * stored in the given array so that they are indexed without being parsed again. All other documents, including the ones that
+     * failed to parse, are executed like items that are not part of a run, so that every item has the same outcome as if the items
+     * were executed one by one. The documents of the run are parsed in parallel, see {@link #forEachInParallel}.
+     *
+     * @return the index of the first item after the run
+     */
+    static int prepareIndexRequestsOnPrimary(BulkShardRequest request, int startIndex, IndexShard primary,
+                                             MappingUpdatePerformer mappingUpdater, Executor parseExecutor,
+                                             Engine.Index[] preparedOperations) throws Exception {
+        final BulkItemRequest[] items = request.items();
+        final int endIndex = endOfIndexRun(items, startIndex,
+            i -> isIndexRequest(items[i].request()) && isAborted(items[i].getPrimaryResponse()) == false);
+        if (endIndex - startIndex < 2) {
+            return endIndex;
+        }
+        final Mapping[] mappingUpdates = new Mapping[endIndex - startIndex];
+        forEachInParallel(startIndex, endIndex, primary.indexSettings().getBulkParseThreads(), parseExecutor, i -> {
+            final IndexRequest indexRequest = (IndexRequest) items[i].request();
+            final Engine.Index operation;
+            try {
+                operation = primary.prepareIndexOnPrimary(indexRequest.version(), indexRequest.versionType(),
+                    sourceToParse(indexRequest), indexRequest.getAutoGeneratedTimestamp(), indexRequest.isRetry());
+            } catch (MapperParsingException | IllegalArgumentException | TypeMissingException e) {
+                // the failure is reported when the item is executed
+                return;
+            }
+            final Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
+            if (update == null) {
+                preparedOperations[i] = operation;
+            } else {
+                mappingUpdates[i - startIndex] = update;
+            }
+        });
+        Mapping mergedUpdate = null;
+        for (Mapping update : mappingUpdates) {
+            if (update != null) {
+                mergedUpdate = mergeMappingUpdates(mergedUpdate, update);
+            }
+        }
+        if (mergedUpdate != null && isConsistentMappingUpdate(mergedUpdate, mappingUpdates)) {
+            try {
+                mappingUpdater.updateMappings(mergedUpdate, primary.shardId(), ((IndexRequest) items[startIndex].request()).type());
+            } catch (MapperParsingException | IllegalArgumentException e) {
+                // the merged update was rejected, e.g. because it exceeds the limit of fields. The documents apply their own updates
+                // when they are executed so that only the documents that are responsible for the rejection fail
+                logger.trace(() -> new ParameterizedMessage("{} merged mapping update was rejected", primary.shardId()), e);
+            }
+        }
+        return endIndex;
+    }
+
+    /**
+     * Calls the given consumer for every index in the given range. The calling thread works through the indices together with up to
+     * <code>parallelism - 1</code> helpers that are forked to the given executor and returns once every index was processed. Helpers
+     * that didn't start yet are never waited for, so the indices are processed even if the executor is busy or rejects the helpers.
+     * The first exception thrown by the consumer is rethrown once every index was processed.
+     */
+    static void forEachInParallel(int startIndex, int endIndex, int parallelism, Executor executor,
+                                  IntConsumer consumer) throws InterruptedException {
+        final int helpers = Math.min(parallelism, endIndex - startIndex) - 1;
+        if (helpers <= 0) {
+            for (int i = startIndex; i < endIndex; i++) {
+                consumer.accept(i);
+            }
+            return;
+        }
+        final AtomicInteger nextIndex = new AtomicInteger(startIndex);
+        final CountDownLatch processed = new CountDownLatch(endIndex - startIndex);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            for (int i = nextIndex.getAndIncrement(); i < endIndex; i = nextIndex.getAndIncrement()) {
+                try {
+                    consumer.accept(i);
+                } catch (RuntimeException e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    processed.countDown();
+                }
+            }
+        };
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread processes the indices that are left
+                break;
+            }
+        }
+        worker.run();
+        processed.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static Mapping mergeMappingUpdates(Mapping mergedUpdate, Mapping update) {
+        if (mergedUpdate == null) {
+            return update;
+        }
+        try {
+            return mergedUpdate.merge(update);
+        } catch (IllegalArgumentException e) {
+            // the updates conflict, the first update is applied when the documents are executed
+            return mergedUpdate;
+        }
+    }
+
+    /**
+     * Returns whether the merged mapping update maps every field exactly like the update of each document does. Otherwise documents
+     * disagree on how to map a field and the merged update must not be applied since it would map the field differently than
+     * applying the updates one by one. This is the case if merging the update of a document into the merged update adds or changes
+     * a mapper.
+     */
+    private static boolean isConsistentMappingUpdate(Mapping mergedUpdate, Mapping[] mappingUpdates) {
+        final Map<String, Mapper> mergedMappers = mappersByName(mergedUpdate);
+        for (Mapping update : mappingUpdates) {
+            if (update != null && update != mergedUpdate) {
+                final Map<String, Mapper> remergedMappers;
+                try {
+                    remergedMappers = mappersByName(mergedUpdate.merge(update));
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+                if (remergedMappers.keySet().equals(mergedMappers.keySet()) == false) {
+                    return false;
+                }
+                for (Map.Entry<String, Mapper> entry : remergedMappers.entrySet()) {
+                    if (isSameMapper(mergedMappers.get(entry.getKey()), entry.getValue()) == false) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Mapper> mappersByName(Mapping mapping) {
+        final Map<String, Mapper> mappers = new HashMap<>();
+        collectMappers(mapping.root(), mappers);
+        return mappers;
+    }
+
+    private static void collectMappers(Mapper mapper, Map<String, Mapper> mappers) {
+        for (Mapper child : mapper) {
+            mappers.put(child.name(), child);
+            collectMappers(child, mappers);
+        }
+    }
+
+    private static boolean isSameMapper(Mapper mapper, Mapper other) {
+        if (mapper.getClass() != other.getClass()) {
+            return false;
+        }
+        if (mapper instanceof FieldMapper) {
+            final FieldMapper fieldMapper = (FieldMapper) mapper;
+            final FieldMapper otherFieldMapper = (FieldMapper) other;
+            return fieldMapper.fieldType().equals(otherFieldMapper.fieldType())
+                && fieldMapper.copyTo().copyToFields().equals(otherFieldMapper.copyTo().copyToFields());
+        }
+        if (mapper instanceof ObjectMapper) {
+            final ObjectMapper objectMapper = (ObjectMapper) mapper;
+            final ObjectMapper otherObjectMapper = (ObjectMapper) other;
+            return objectMapper.isEnabled() == otherObjectMapper.isEnabled()
+                && objectMapper.nested().isNested() == otherObjectMapper.nested().isNested();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the first item after the run of index requests for the same type that starts at the given item. The run
+     * ends at the first item whose index doesn't match the given predicate or once the sources of the run exceed
+     * {@link #MAX_PREPARED_SOURCE_BYTES}.
+     */
+    private static int endOfIndexRun(BulkItemRequest[] items, int startIndex, IntPredicate canPrepare) {
+        String type = null;
+        long sourceBytes = 0;
+        int index = startIndex;
+        while (index < items.length && sourceBytes < MAX_PREPARED_SOURCE_BYTES && canPrepare.test(index)) {
+            final IndexRequest indexRequest = (IndexRequest) items[index].request();
+            if (type == null) {
+                type = indexRequest.type();
+            } else if (type.equals(indexRequest.type()) == false) {
+                break;
+            }
+            sourceBytes += indexRequest.source().length();
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isIndexRequest(DocWriteRequest request) {
+        return request.opType() == DocWriteRequest.OpType.INDEX || request.opType() == DocWriteRequest.OpType.CREATE;
+    }
+
+    private static SourceToParse sourceToParse(IndexRequest request) {
+        return SourceToParse.source(request.index(), request.type(), request.id(), request.source(), request.getContentType())
+            .routing(request.routing());
+    }
+
     private static BulkItemResultHolder executeIndexRequest(final IndexRequest indexRequest,
                                                             final BulkItemRequest bulkItemRequest,
                                                             final IndexShard primary,
-                                                            final MappingUpdatePerformer mappingUpdater) throws Exception {
-        Engine.IndexResult indexResult = executeIndexRequestOnPrimary(indexRequest, primary, mappingUpdater);
+                                                            final MappingUpdatePerformer mappingUpdater,
+                                                            final Engine.Index preparedOperation) throws Exception {
+        final Engine.IndexResult indexResult;
+        if (preparedOperation != null) {
+            indexResult = primary.applyIndexOperation(preparedOperation,
+                update -> mappingUpdater.verifyMappings(update, primary.shardId()));
+        } else {
+            indexResult = executeIndexRequestOnPrimary(indexRequest, primary, mappingUpdater);
+        }
         if (indexResult.hasFailure()) {
             return new BulkItemResultHolder(null, indexResult, bulkItemRequest);
         } else {
@@ -226,6 +503,20 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                                                     int requestIndex, UpdateHelper updateHelper,
                                                     LongSupplier nowInMillisSupplier,
                                                     final MappingUpdatePerformer mappingUpdater) throws Exception {
+        return executeBulkItemRequest(metaData, primary, request, location, requestIndex, updateHelper, nowInMillisSupplier,
+            mappingUpdater, null);
+    }
+
+    /**
+     * Executes bulk item requests and handles request execution exceptions. Index requests are executed with the given prepared
+     * operation if it is not <code>null</code>, see {@link #prepareIndexRequestsOnPrimary}.
+     */
+    private static Translog.Location executeBulkItemRequest(IndexMetaData metaData, IndexShard primary,
+                                                            BulkShardRequest request, Translog.Location location,
+                                                            int requestIndex, UpdateHelper updateHelper,
+                                                            LongSupplier nowInMillisSupplier,
+                                                            final MappingUpdatePerformer mappingUpdater,
+                                                            final Engine.Index preparedOperation) throws Exception {
         final DocWriteRequest itemRequest = request.items()[requestIndex].request();
         final DocWriteRequest.OpType opType = itemRequest.opType();
         final BulkItemResultHolder responseHolder;
@@ -233,7 +524,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             case CREATE:
             case INDEX:
                 responseHolder = executeIndexRequest((IndexRequest) itemRequest,
-                        request.items()[requestIndex], primary, mappingUpdater);
+                        request.items()[requestIndex], primary, mappingUpdater, preparedOperation);
                 break;
             case UPDATE:
                 responseHolder = executeUpdateRequest((UpdateRequest) itemRequest, primary, metaData, request,
@@ -461,11 +752,22 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     @Override
     public WriteReplicaResult<BulkShardRequest> shardOperationOnReplica(BulkShardRequest request, IndexShard replica) throws Exception {
-        final Translog.Location location = performOnReplica(request, replica);
+        final Translog.Location location = performOnReplica(request, replica, threadPool.executor(ThreadPool.Names.BULK_PARSE));
         return new WriteReplicaResult<>(request, location, null, replica, logger);
     }
 
     public static Translog.Location performOnReplica(BulkShardRequest request, IndexShard replica) throws Exception {
+        return performOnReplica(request, replica, EsExecutors.newDirectExecutorService());
+    }
+
+    /**
+     * Executes the items of the given request on a replica, see {@link #performOnPrimary(BulkShardRequest, IndexShard, UpdateHelper,
+     * LongSupplier, MappingUpdatePerformer, Executor)}.
+     */
+    public static Translog.Location performOnReplica(BulkShardRequest request, IndexShard replica,
+                                                     Executor parseExecutor) throws Exception {
+        final Engine.Index[] preparedOperations = new Engine.Index[request.items().length];
+        int preparedUpTo = 0;
         Translog.Location location = null;
         for (int i = 0; i < request.items().length; i++) {
             BulkItemRequest item = request.items()[i];
@@ -474,8 +776,13 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             try {
                 switch (replicaItemExecutionMode(item, i)) {
                     case NORMAL:
+                        if (i >= preparedUpTo) {
+                            preparedUpTo = Math.max(i + 1, prepareIndexRequestsOnReplica(request, i, replica, parseExecutor,
+                                preparedOperations));
+                        }
                         final DocWriteResponse primaryResponse = item.getPrimaryResponse().getResponse();
-                        operationResult = performOpOnReplica(primaryResponse, docWriteRequest, replica);
+                        operationResult = performOpOnReplica(primaryResponse, docWriteRequest, replica, preparedOperations[i]);
+                        preparedOperations[i] = null;
                         assert operationResult != null : "operation result must never be null when primary response has no failure";
                         location = syncOperationResultOrThrow(operationResult, location);
                         break;
@@ -502,23 +809,60 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return location;
     }
 
+    /**
+     * Parses the run of consecutive index requests that starts at the given item before the first of them is indexed on the replica,
+     * see {@link #prepareIndexRequestsOnPrimary}. Documents that require a mapping update or that failed to parse are executed like
+     * items that are not part of a run.
+     *
+     * @return the index of the first item after the run
+     */
+    static int prepareIndexRequestsOnReplica(BulkShardRequest request, int startIndex, IndexShard replica, Executor parseExecutor,
+                                             Engine.Index[] preparedOperations) throws InterruptedException {
+        final BulkItemRequest[] items = request.items();
+        final int endIndex = endOfIndexRun(items, startIndex,
+            i -> isIndexRequest(items[i].request()) && replicaItemExecutionMode(items[i], i) == ReplicaItemExecutionMode.NORMAL);
+        if (endIndex - startIndex < 2) {
+            return endIndex;
+        }
+        forEachInParallel(startIndex, endIndex, replica.indexSettings().getBulkParseThreads(), parseExecutor, i -> {
+            final IndexRequest indexRequest = (IndexRequest) items[i].request();
+            final DocWriteResponse primaryResponse = items[i].getPrimaryResponse().getResponse();
+            final Engine.Index operation;
+            try {
+                operation = replica.prepareIndexOnReplica(primaryResponse.getSeqNo(), primaryResponse.getVersion(),
+                    indexRequest.versionType().versionTypeForReplicationAndRecovery(), indexRequest.getAutoGeneratedTimestamp(),
+                    indexRequest.isRetry(), replicaSourceToParse(indexRequest, replica.shardId()));
+            } catch (MapperParsingException | IllegalArgumentException | TypeMissingException e) {
+                return;
+            }
+            if (operation.parsedDoc().dynamicMappingsUpdate() == null) {
+                preparedOperations[i] = operation;
+            }
+        });
+        return endIndex;
+    }
+
+    private static SourceToParse replicaSourceToParse(IndexRequest request, ShardId shardId) {
+        return SourceToParse.source(shardId.getIndexName(), request.type(), request.id(), request.source(), request.getContentType())
+            .routing(request.routing());
+    }
+
     private static Engine.Result performOpOnReplica(DocWriteResponse primaryResponse, DocWriteRequest docWriteRequest,
-                                                    IndexShard replica) throws Exception {
+                                                    IndexShard replica, Engine.Index preparedOperation) throws Exception {
         switch (docWriteRequest.opType()) {
             case CREATE:
             case INDEX:
                 final IndexRequest indexRequest = (IndexRequest) docWriteRequest;
-                final ShardId shardId = replica.shardId();
-                final SourceToParse sourceToParse =
-                    SourceToParse.source(shardId.getIndexName(),
-                        indexRequest.type(), indexRequest.id(), indexRequest.source(), indexRequest.getContentType())
-                        .routing(indexRequest.routing());
+                final Consumer<Mapping> onMappingUpdate = update -> {
+                    throw new TransportReplicationAction.RetryOnReplicaException(replica.shardId(),
+                        "Mappings are not available on the replica yet, triggered update: " + update);
+                };
+                if (preparedOperation != null) {
+                    return replica.applyIndexOperation(preparedOperation, onMappingUpdate);
+                }
                 return replica.applyIndexOperationOnReplica(primaryResponse.getSeqNo(), primaryResponse.getVersion(),
                     indexRequest.versionType().versionTypeForReplicationAndRecovery(), indexRequest.getAutoGeneratedTimestamp(),
-                    indexRequest.isRetry(), sourceToParse, update -> {
-                        throw new TransportReplicationAction.RetryOnReplicaException(replica.shardId(),
-                            "Mappings are not available on the replica yet, triggered update: " + update);
-                    });
+                    indexRequest.isRetry(), replicaSourceToParse(indexRequest, replica.shardId()), onMappingUpdate);
             case DELETE:
                 DeleteRequest deleteRequest = (DeleteRequest) docWriteRequest;
                 return replica.applyDeleteOperationOnReplica(primaryResponse.getSeqNo(), primaryResponse.getVersion(),
@@ -536,9 +880,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
     /** Executes index operation on primary shard after updates mapping if dynamic mappings are found */
     static Engine.IndexResult executeIndexRequestOnPrimary(IndexRequest request, IndexShard primary,
                                                            MappingUpdatePerformer mappingUpdater) throws Exception {
-        final SourceToParse sourceToParse =
-            SourceToParse.source(request.index(), request.type(), request.id(), request.source(), request.getContentType())
-                .routing(request.routing());
+        final SourceToParse sourceToParse = sourceToParse(request);
         try {
             // if a mapping update is required to index this request, issue a mapping update on the master, and abort the
             // current indexing operation so that it can be retried with the updated mapping from the master
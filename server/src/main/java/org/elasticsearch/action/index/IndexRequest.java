@@ -513,7 +513,7 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
             in.readOptionalString(); // timestamp
             in.readOptionalTimeValue(); // ttl
         }
-        source = in.readBytesReference();
+        source = in.readSharedBytesReference();
         opType = OpType.fromId(in.readByte());
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
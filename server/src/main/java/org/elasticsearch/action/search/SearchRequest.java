@@ -75,6 +75,8 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
     private Boolean requestCache;
 
     private Boolean allowPartialSearchResults;
+
+    private Boolean concurrentSegmentSearch;
     
     
     private Scroll scroll;
@@ -141,6 +143,9 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         if (in.getVersion().onOrAfter(Version.V_6_3_0)) {
             allowPartialSearchResults = in.readOptionalBoolean();
         }           
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            concurrentSegmentSearch = in.readOptionalBoolean();
+        }
     }
 
     @Override
@@ -166,6 +171,9 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
         if (out.getVersion().onOrAfter(Version.V_6_3_0)) {
             out.writeOptionalBoolean(allowPartialSearchResults);
         }         
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeOptionalBoolean(concurrentSegmentSearch);
+        }
     }
 
     @Override
@@ -375,6 +383,19 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
     public Boolean allowPartialSearchResults() {
         return this.allowPartialSearchResults;
     }    
+
+    /**
+     * Sets if the query phase should collect the segments of each shard concurrently. By default (not set, or null) it defaults to
+     * the index level setting. Requests that can't be collected concurrently, for example because they have aggregations, ignore it.
+     */
+    public SearchRequest concurrentSegmentSearch(Boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+        return this;
+    }
+
+    public Boolean concurrentSegmentSearch() {
+        return this.concurrentSegmentSearch;
+    }
     
 
     /**
@@ -504,14 +525,15 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
                 Objects.equals(maxConcurrentShardRequests, that.maxConcurrentShardRequests) &&
                 Objects.equals(preFilterShardSize, that.preFilterShardSize) &&
                 Objects.equals(indicesOptions, that.indicesOptions) &&
-                Objects.equals(allowPartialSearchResults, that.allowPartialSearchResults);
+                Objects.equals(allowPartialSearchResults, that.allowPartialSearchResults) &&
+                Objects.equals(concurrentSegmentSearch, that.concurrentSegmentSearch);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(searchType, Arrays.hashCode(indices), routing, preference, source, requestCache,
                 scroll, Arrays.hashCode(types), indicesOptions, batchedReduceSize, maxConcurrentShardRequests, preFilterShardSize, 
-                allowPartialSearchResults);
+                allowPartialSearchResults, concurrentSegmentSearch);
     }
 
     @Override
@@ -529,6 +551,7 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
                 ", batchedReduceSize=" + batchedReduceSize +
                 ", preFilterShardSize=" + preFilterShardSize +
                 ", allowPartialSearchResults=" + allowPartialSearchResults +
+                ", concurrentSegmentSearch=" + concurrentSegmentSearch +
                 ", source=" + source + '}';
     }
 }
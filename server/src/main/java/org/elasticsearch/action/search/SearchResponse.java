@@ -28,6 +28,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
 import org.elasticsearch.common.xcontent.StatusToXContentObject;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -44,18 +45,21 @@ import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import static org.elasticsearch.action.search.ShardSearchFailure.readShardSearchFailure;
+import static org.elasticsearch.common.collect.Iterators.concat;
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
 
 /**
  * A response of a search request.
  */
-public class SearchResponse extends ActionResponse implements StatusToXContentObject {
+public class SearchResponse extends ActionResponse implements StatusToXContentObject, ChunkedToXContent {
 
     private static final ParseField SCROLL_ID = new ParseField("_scroll_id");
     private static final ParseField TOOK = new ParseField("took");
@@ -224,6 +228,24 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
     }
 
     public XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException {
+        headerToXContent(builder, params);
+        internalResponse.toXContent(builder, params);
+        return builder;
+    }
+
+    /**
+     * Returns the XContent of this response in parts so that large responses can be serialized incrementally while they are sent.
+     * Every hit is a part of its own.
+     */
+    @Override
+    public Iterator<ToXContent> toXContentChunks() {
+        final ToXContent header = (builder, params) -> headerToXContent(builder.startObject(), params);
+        final ToXContent footer = (builder, params) -> builder.endObject();
+        return concat(Collections.singletonList(header).iterator(), internalResponse.toXContentChunks(),
+            Collections.singletonList(footer).iterator());
+    }
+
+    private XContentBuilder headerToXContent(XContentBuilder builder, Params params) throws IOException {
         if (scrollId != null) {
             builder.field(SCROLL_ID.getPreferredName(), scrollId);
         }
@@ -237,9 +259,7 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         }
         RestActions.buildBroadcastShardsHeader(builder, params, getTotalShards(), getSuccessfulShards(), getSkippedShards(),
             getFailedShards(), getShardFailures());
-        clusters.toXContent(builder, params);
-        internalResponse.toXContent(builder, params);
-        return builder;
+        return clusters.toXContent(builder, params);
     }
 
     public static SearchResponse fromXContent(XContentParser parser) throws IOException {
@@ -20,6 +20,8 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHits;
@@ -30,8 +32,11 @@ import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
+import static org.elasticsearch.common.collect.Iterators.concat;
+
 /**
  * Base class that holds the various sections which a search response is
  * composed of (hits, aggs, suggestions etc.) and allows to retrieve them.
@@ -40,7 +45,7 @@ import java.util.Map;
  * to parse aggregations into, which are not serializable. This is the common part that can be
  * shared between core and client.
  */
-public class SearchResponseSections implements ToXContentFragment {
+public class SearchResponseSections implements ToXContentFragment, ChunkedToXContent {
 
     protected final SearchHits hits;
     protected final Aggregations aggregations;
@@ -104,6 +109,18 @@ public class SearchResponseSections implements ToXContentFragment {
     @Override
     public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         hits.toXContent(builder, params);
+        return sectionsToXContent(builder, params);
+    }
+
+    /**
+     * Returns the XContent of the sections in parts, one part per hit and one part for all other sections.
+     */
+    @Override
+    public final Iterator<ToXContent> toXContentChunks() {
+        return concat(hits.toXContentChunks(), Collections.<ToXContent>singletonList(this::sectionsToXContent).iterator());
+    }
+
+    private XContentBuilder sectionsToXContent(XContentBuilder builder, Params params) throws IOException {
         if (aggregations != null) {
             aggregations.toXContent(builder, params);
         }
@@ -78,6 +78,7 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportResponse.Empty;
 import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportResponseOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -236,6 +237,22 @@ public abstract class TransportReplicationAction<
         return TransportRequestOptions.EMPTY;
     }
 
+    /**
+     * Called when the primary operation of the given request is received, before it is executed. The returned releasable is closed
+     * once the response is sent. Subclasses can account for the in-flight operation here or reject it by throwing an exception.
+     */
+    protected Releasable checkPrimaryLimits(final Request request) {
+        return () -> {};
+    }
+
+    /**
+     * Called when the replica operation of the given request is received, before it is executed. The returned releasable is closed
+     * once the response is sent. Subclasses can account for the in-flight operation here or reject it by throwing an exception.
+     */
+    protected Releasable checkReplicaLimits(final ReplicaRequest request) {
+        return () -> {};
+    }
+
     protected boolean retryPrimaryException(final Throwable e) {
         return e.getClass() == ReplicationOperation.RetryOnPrimaryException.class
                 || TransportActions.isShardNotAvailableException(e);
@@ -290,7 +307,9 @@ public abstract class TransportReplicationAction<
 
         @Override
         public void messageReceived(ConcreteShardRequest<Request> request, TransportChannel channel, Task task) {
-            new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm, channel, (ReplicationTask) task).run();
+            final Releasable releasable = checkPrimaryLimits(request.getRequest());
+            new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm,
+                new ReleasableTransportChannel(channel, releasable), (ReplicationTask) task).run();
         }
     }
 
@@ -502,12 +521,13 @@ public abstract class TransportReplicationAction<
                 final TransportChannel channel,
                 final Task task)
             throws Exception {
+            final Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
             new AsyncReplicaAction(
                     replicaRequest.getRequest(),
                     replicaRequest.getTargetAllocationID(),
                     replicaRequest.getPrimaryTerm(),
                     replicaRequest.getGlobalCheckpoint(),
-                    channel,
+                    new ReleasableTransportChannel(channel, releasable),
                     (ReplicationTask) task).run();
         }
 
@@ -1325,6 +1345,54 @@ public abstract class TransportReplicationAction<
         }
     }
 
+    /**
+     * A transport channel that closes a releasable before the response is sent, used to release what was acquired for an operation
+     * by {@link #checkPrimaryLimits} or {@link #checkReplicaLimits}.
+     */
+    private static final class ReleasableTransportChannel implements TransportChannel {
+
+        private final TransportChannel channel;
+        private final Releasable releasable;
+
+        ReleasableTransportChannel(TransportChannel channel, Releasable releasable) {
+            this.channel = channel;
+            this.releasable = Releasables.releaseOnce(releasable);
+        }
+
+        @Override
+        public String getProfileName() {
+            return channel.getProfileName();
+        }
+
+        @Override
+        public String getChannelType() {
+            return channel.getChannelType();
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) throws IOException {
+            releasable.close();
+            channel.sendResponse(response);
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response, TransportResponseOptions options) throws IOException {
+            releasable.close();
+            channel.sendResponse(response, options);
+        }
+
+        @Override
+        public void sendResponse(Exception exception) throws IOException {
+            releasable.close();
+            channel.sendResponse(exception);
+        }
+
+        @Override
+        public Version getVersion() {
+            return channel.getVersion();
+        }
+    }
+
     /**
      * Sets the current phase on the task if it isn't null. Pulled into its own
      * method because its more convenient that way.
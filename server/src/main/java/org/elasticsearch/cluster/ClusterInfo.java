@@ -21,6 +21,7 @@ package org.elasticsearch.cluster;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -34,9 +35,9 @@ import java.io.IOException;
 import java.util.Map;
 /**
  * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
- * and a map of shard ids to shard sizes, see
+ * and maps of shard ids to shard sizes and write loads, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shardSizes and shardWriteLoads maps
  */
 public class ClusterInfo implements ToXContentFragment, Writeable {
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
@@ -44,9 +45,10 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     final ImmutableOpenMap<String, Long> shardSizes;
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
+    final ImmutableOpenMap<String, Double> shardWriteLoads;
 
     protected ClusterInfo() {
-       this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
+       this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
     }
 
     /**
@@ -61,10 +63,28 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
             ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
             ImmutableOpenMap<ShardRouting, String> routingToDataPath) {
+        this(leastAvailableSpaceUsage, mostAvailableSpaceUsage, shardSizes, routingToDataPath, ImmutableOpenMap.of());
+    }
+
+    /**
+     * Creates a new ClusterInfo instance.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param shardWriteLoads a shardkey to write load mapping per shard, the write load being the average number of threads
+     *                        that were indexing into the shard.
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+            ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
+            ImmutableOpenMap<ShardRouting, String> routingToDataPath, ImmutableOpenMap<String, Double> shardWriteLoads) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
+        this.shardWriteLoads = shardWriteLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -81,6 +101,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.shardSizes = sizeBuilder.putAll(sizeMap).build();
         ImmutableOpenMap.Builder<ShardRouting, String> routingBuilder = ImmutableOpenMap.builder();
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            Map<String, Double> writeLoadMap = in.readMap(StreamInput::readString, StreamInput::readDouble);
+            ImmutableOpenMap.Builder<String, Double> writeLoadBuilder = ImmutableOpenMap.builder();
+            this.shardWriteLoads = writeLoadBuilder.putAll(writeLoadMap).build();
+        } else {
+            this.shardWriteLoads = ImmutableOpenMap.of();
+        }
     }
 
     @Override
@@ -109,6 +136,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             c.key.writeTo(out);
             out.writeString(c.value);
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVInt(this.shardWriteLoads.size());
+            for (ObjectObjectCursor<String, Double> c : this.shardWriteLoads) {
+                out.writeString(c.key);
+                out.writeDouble(c.value);
+            }
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -144,6 +178,12 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             }
         }
         builder.endObject(); // end "shard_paths"
+        builder.startObject("shard_write_loads"); {
+            for (ObjectObjectCursor<String, Double> c : this.shardWriteLoads) {
+                builder.field(c.key, c.value);
+            }
+        }
+        builder.endObject(); // end "shard_write_loads"
         return builder;
     }
 
@@ -183,6 +223,15 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         return shardSize == null ? defaultValue : shardSize;
     }
 
+    /**
+     * Returns the write load of the given shard routing, which is the average number of threads that were indexing into the shard,
+     * or <code>defaultValue</code> if that metric is not available.
+     */
+    public double getShardWriteLoad(ShardRouting shardRouting, double defaultValue) {
+        Double writeLoad = shardWriteLoads.get(shardIdentifierFromRouting(shardRouting));
+        return writeLoad == null ? defaultValue : writeLoad;
+    }
+
     /**
      * Method that incorporates the ShardId for the shard into a string that
      * includes a 'p' or 'r' depending on whether the shard is a primary.
@@ -44,6 +44,7 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ReceiveTimeoutTransportException;
@@ -62,8 +63,11 @@ import java.util.function.Consumer;
  * Listens for changes in the number of data nodes and immediately submits a
  * ClusterInfoUpdateJob if a node has been added.
  *
- * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * Every time the timer runs, gathers information about the disk usage,
+ * shard sizes and shard write loads across the cluster. The write load of a
+ * shard is the time spent indexing into it since the previous run divided by
+ * the time that elapsed, that is the average number of threads that were
+ * indexing into the shard.
  */
 public class InternalClusterInfoService extends AbstractComponent
     implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
@@ -81,6 +85,8 @@ public class InternalClusterInfoService extends AbstractComponent
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
     private volatile ImmutableOpenMap<String, Long> shardSizes;
+    private volatile ImmutableOpenMap<String, Double> shardWriteLoads;
+    private volatile ImmutableOpenMap<String, IndexingTimeSample> indexingTimeSamples;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
     private volatile TimeValue fetchTimeout;
@@ -96,6 +102,8 @@ public class InternalClusterInfoService extends AbstractComponent
         this.mostAvailableSpaceUsages = ImmutableOpenMap.of();
         this.shardRoutingToDataPath = ImmutableOpenMap.of();
         this.shardSizes = ImmutableOpenMap.of();
+        this.shardWriteLoads = ImmutableOpenMap.of();
+        this.indexingTimeSamples = ImmutableOpenMap.of();
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.client = client;
@@ -201,7 +209,7 @@ public class InternalClusterInfoService extends AbstractComponent
 
     @Override
     public ClusterInfo getClusterInfo() {
-        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath);
+        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath, shardWriteLoads);
     }
 
     /**
@@ -264,6 +272,7 @@ public class InternalClusterInfoService extends AbstractComponent
         final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
         indicesStatsRequest.clear();
         indicesStatsRequest.store(true);
+        indicesStatsRequest.indexing(true);
 
         client.admin().indices().stats(indicesStatsRequest, new LatchedActionListener<>(listener, latch));
         return latch;
@@ -325,6 +334,12 @@ public class InternalClusterInfoService extends AbstractComponent
                 buildShardLevelInfo(logger, stats, newShardSizes, newShardRoutingToDataPath, clusterService.state());
                 shardSizes = newShardSizes.build();
                 shardRoutingToDataPath = newShardRoutingToDataPath.build();
+                ImmutableOpenMap.Builder<String, IndexingTimeSample> newIndexingTimeSamples = ImmutableOpenMap.builder();
+                ImmutableOpenMap.Builder<String, Double> newShardWriteLoads = ImmutableOpenMap.builder();
+                buildShardWriteLoads(logger, stats, threadPool.relativeTimeInMillis(), indexingTimeSamples,
+                    newIndexingTimeSamples, newShardWriteLoads);
+                indexingTimeSamples = newIndexingTimeSamples.build();
+                shardWriteLoads = newShardWriteLoads.build();
             }
 
             @Override
@@ -342,6 +357,8 @@ public class InternalClusterInfoService extends AbstractComponent
                     // we empty the usages list, to be safe - we don't know what's going on.
                     shardSizes = ImmutableOpenMap.of();
                     shardRoutingToDataPath = ImmutableOpenMap.of();
+                    shardWriteLoads = ImmutableOpenMap.of();
+                    indexingTimeSamples = ImmutableOpenMap.of();
                 }
             }
         });
@@ -381,6 +398,53 @@ public class InternalClusterInfoService extends AbstractComponent
         }
     }
 
+    /**
+     * Computes the write load of every shard from the difference between its indexing time and the indexing time that was sampled
+     * on the previous run. Shards that weren't sampled before, or whose indexing time went backwards because the shard was
+     * relocated or recovered in the meantime, get a write load on the next run only.
+     */
+    static void buildShardWriteLoads(Logger logger, ShardStats[] stats, long nowInMillis,
+                                     ImmutableOpenMap<String, IndexingTimeSample> previousSamples,
+                                     ImmutableOpenMap.Builder<String, IndexingTimeSample> newSamples,
+                                     ImmutableOpenMap.Builder<String, Double> newShardWriteLoads) {
+        for (ShardStats s : stats) {
+            final IndexingStats indexingStats = s.getStats().getIndexing();
+            if (indexingStats == null) {
+                continue;
+            }
+            final String sid = ClusterInfo.shardIdentifierFromRouting(s.getShardRouting());
+            final IndexingTimeSample sample = new IndexingTimeSample(indexingStats.getTotal().getIndexTime().millis(), nowInMillis);
+            newSamples.put(sid, sample);
+            final IndexingTimeSample previous = previousSamples.get(sid);
+            if (previous == null) {
+                continue;
+            }
+            final long elapsedMillis = sample.timestampInMillis - previous.timestampInMillis;
+            final long indexTimeMillis = sample.indexTimeInMillis - previous.indexTimeInMillis;
+            if (elapsedMillis <= 0 || indexTimeMillis < 0) {
+                continue;
+            }
+            final double writeLoad = (double) indexTimeMillis / elapsedMillis;
+            if (logger.isTraceEnabled()) {
+                logger.trace("shard: {} write load: {}", sid, writeLoad);
+            }
+            newShardWriteLoads.put(sid, writeLoad);
+        }
+    }
+
+    /**
+     * The total indexing time of a shard at a given point in time.
+     */
+    static final class IndexingTimeSample {
+        final long indexTimeInMillis;
+        final long timestampInMillis;
+
+        IndexingTimeSample(long indexTimeInMillis, long timestampInMillis) {
+            this.indexTimeInMillis = indexTimeInMillis;
+            this.timestampInMillis = timestampInMillis;
+        }
+    }
+
     static void fillDiskUsagePerNode(Logger logger, List<NodeStats> nodeStatsArray,
             ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
             ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
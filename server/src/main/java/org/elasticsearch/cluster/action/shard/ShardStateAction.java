@@ -46,8 +46,15 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.node.NodeClosedException;
@@ -66,9 +73,13 @@ import org.elasticsearch.transport.TransportService;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 public class ShardStateAction extends AbstractComponent {
@@ -76,9 +87,28 @@ public class ShardStateAction extends AbstractComponent {
     public static final String SHARD_STARTED_ACTION_NAME = "internal:cluster/shard/started";
     public static final String SHARD_FAILED_ACTION_NAME = "internal:cluster/shard/failure";
 
+    /**
+     * How long the master collects shard started and shard failed messages before it applies them together, with a single reroute
+     * and a single published cluster state. The default of zero applies them as soon as the master service gets to them.
+     */
+    public static final Setting<TimeValue> SHARD_STATE_MAX_BATCH_DELAY_SETTING =
+        Setting.positiveTimeSetting("cluster.routing.allocation.shard_state.max_batch_delay", TimeValue.ZERO,
+            Setting.Property.Dynamic, Setting.Property.NodeScope);
+    /**
+     * How many shard state messages the master collects at most before it applies them, even if the batch delay has not passed yet.
+     */
+    public static final Setting<Integer> SHARD_STATE_MAX_BATCH_SIZE_SETTING =
+        Setting.intSetting("cluster.routing.allocation.shard_state.max_batch_size", 1000, 1,
+            Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     private final TransportService transportService;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
+    private final ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor;
+    private final ShardFailedClusterStateTaskExecutor shardFailedClusterStateTaskExecutor;
+
+    private volatile TimeValue maxBatchDelay;
+    private volatile int maxBatchSize;
 
     @Inject
     public ShardStateAction(Settings settings, ClusterService clusterService, TransportService transportService,
@@ -87,9 +117,48 @@ public class ShardStateAction extends AbstractComponent {
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
+        this.shardStartedClusterStateTaskExecutor = new ShardStartedClusterStateTaskExecutor(allocationService, logger);
+        this.shardFailedClusterStateTaskExecutor = new ShardFailedClusterStateTaskExecutor(allocationService, routingService, logger);
+        this.maxBatchDelay = SHARD_STATE_MAX_BATCH_DELAY_SETTING.get(settings);
+        this.maxBatchSize = SHARD_STATE_MAX_BATCH_SIZE_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SHARD_STATE_MAX_BATCH_DELAY_SETTING, this::setMaxBatchDelay);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SHARD_STATE_MAX_BATCH_SIZE_SETTING, this::setMaxBatchSize);
+
+        transportService.registerRequestHandler(SHARD_STARTED_ACTION_NAME, ThreadPool.Names.SAME, StartedShardEntry::new,
+            new ShardStartedTransportHandler(new ShardStateUpdateBatcher<>("shard-started", ClusterStateTaskConfig.build(Priority.URGENT),
+                shardStartedClusterStateTaskExecutor), shardStartedClusterStateTaskExecutor, logger));
+        transportService.registerRequestHandler(SHARD_FAILED_ACTION_NAME, ThreadPool.Names.SAME, FailedShardEntry::new,
+            new ShardFailedTransportHandler(new ShardStateUpdateBatcher<>("shard-failed", ClusterStateTaskConfig.build(Priority.HIGH),
+                shardFailedClusterStateTaskExecutor), logger));
+    }
 
-        transportService.registerRequestHandler(SHARD_STARTED_ACTION_NAME, ThreadPool.Names.SAME, StartedShardEntry::new, new ShardStartedTransportHandler(clusterService, new ShardStartedClusterStateTaskExecutor(allocationService, logger), logger));
-        transportService.registerRequestHandler(SHARD_FAILED_ACTION_NAME, ThreadPool.Names.SAME, FailedShardEntry::new, new ShardFailedTransportHandler(clusterService, new ShardFailedClusterStateTaskExecutor(allocationService, routingService, logger), logger));
+    private void setMaxBatchDelay(TimeValue maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
+    private void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns statistics about the batches of started shards that this node applied while it was the master.
+     */
+    public BatchStats startedShardsBatchStats() {
+        return shardStartedClusterStateTaskExecutor.stats();
+    }
+
+    /**
+     * Returns statistics about the batches of failed shards that this node applied while it was the master.
+     */
+    public BatchStats failedShardsBatchStats() {
+        return shardFailedClusterStateTaskExecutor.stats();
+    }
+
+    /**
+     * Returns statistics about the batches of started and failed shards that this node applied while it was the master.
+     */
+    public ShardStateActionStats stats() {
+        return new ShardStateActionStats(startedShardsBatchStats(), failedShardsBatchStats());
     }
 
     private void sendShardAction(final String actionName, final ClusterState currentState, final TransportRequest request, final Listener listener) {
@@ -192,24 +261,19 @@ public class ShardStateAction extends AbstractComponent {
     }
 
     private static class ShardFailedTransportHandler implements TransportRequestHandler<FailedShardEntry> {
-        private final ClusterService clusterService;
-        private final ShardFailedClusterStateTaskExecutor shardFailedClusterStateTaskExecutor;
+        private final ShardStateUpdateBatcher<FailedShardEntry> shardFailedBatcher;
         private final Logger logger;
 
-        ShardFailedTransportHandler(ClusterService clusterService, ShardFailedClusterStateTaskExecutor shardFailedClusterStateTaskExecutor, Logger logger) {
-            this.clusterService = clusterService;
-            this.shardFailedClusterStateTaskExecutor = shardFailedClusterStateTaskExecutor;
+        ShardFailedTransportHandler(ShardStateUpdateBatcher<FailedShardEntry> shardFailedBatcher, Logger logger) {
+            this.shardFailedBatcher = shardFailedBatcher;
             this.logger = logger;
         }
 
         @Override
         public void messageReceived(FailedShardEntry request, TransportChannel channel) throws Exception {
             logger.debug(() -> new ParameterizedMessage("{} received shard failed for {}", request.shardId, request), request.failure);
-            clusterService.submitStateUpdateTask(
-                "shard-failed",
+            shardFailedBatcher.submit(
                 request,
-                ClusterStateTaskConfig.build(Priority.HIGH),
-                shardFailedClusterStateTaskExecutor,
                 new ClusterStateTaskListener() {
                     @Override
                     public void onFailure(String source, Exception e) {
@@ -249,6 +313,7 @@ public class ShardStateAction extends AbstractComponent {
         private final AllocationService allocationService;
         private final RoutingService routingService;
         private final Logger logger;
+        private final BatchMetrics batchMetrics = new BatchMetrics();
 
         public ShardFailedClusterStateTaskExecutor(AllocationService allocationService, RoutingService routingService, Logger logger) {
             this.allocationService = allocationService;
@@ -318,6 +383,7 @@ public class ShardStateAction extends AbstractComponent {
             assert tasksToBeApplied.size() == failedShardsToBeApplied.size() + staleShardsToBeApplied.size();
 
             ClusterState maybeUpdatedState = currentState;
+            final long startTimeNanos = System.nanoTime();
             try {
                 maybeUpdatedState = applyFailedShards(currentState, failedShardsToBeApplied, staleShardsToBeApplied);
                 batchResultBuilder.successes(tasksToBeApplied);
@@ -327,10 +393,21 @@ public class ShardStateAction extends AbstractComponent {
                 // cluster state will not be updated in this case
                 batchResultBuilder.failures(tasksToBeApplied, e);
             }
+            final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
+            logger.debug("applied [{}] failed and [{}] stale shards of [{}] shard failed tasks in [{}ms]",
+                failedShardsToBeApplied.size(), staleShardsToBeApplied.size(), tasks.size(), tookInMillis);
+            batchMetrics.onBatch(tasks.size(), tookInMillis);
 
             return batchResultBuilder.build(maybeUpdatedState);
         }
 
+        /**
+         * Returns statistics about the batches of failed shards that were applied by this executor.
+         */
+        public BatchStats stats() {
+            return batchMetrics.stats();
+        }
+
         // visible for testing
         ClusterState applyFailedShards(ClusterState currentState, List<FailedShard> failedShards, List<StaleShard> staleShards) {
             return allocationService.applyFailedShards(currentState, failedShards, staleShards);
@@ -425,12 +502,13 @@ public class ShardStateAction extends AbstractComponent {
     }
 
     private static class ShardStartedTransportHandler implements TransportRequestHandler<StartedShardEntry> {
-        private final ClusterService clusterService;
+        private final ShardStateUpdateBatcher<StartedShardEntry> shardStartedBatcher;
         private final ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor;
         private final Logger logger;
 
-        ShardStartedTransportHandler(ClusterService clusterService, ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor, Logger logger) {
-            this.clusterService = clusterService;
+        ShardStartedTransportHandler(ShardStateUpdateBatcher<StartedShardEntry> shardStartedBatcher,
+                                     ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor, Logger logger) {
+            this.shardStartedBatcher = shardStartedBatcher;
             this.shardStartedClusterStateTaskExecutor = shardStartedClusterStateTaskExecutor;
             this.logger = logger;
         }
@@ -438,12 +516,7 @@ public class ShardStateAction extends AbstractComponent {
         @Override
         public void messageReceived(StartedShardEntry request, TransportChannel channel) throws Exception {
             logger.debug("{} received shard started for [{}]", request.shardId, request);
-            clusterService.submitStateUpdateTask(
-                "shard-started " + request,
-                request,
-                ClusterStateTaskConfig.build(Priority.URGENT),
-                shardStartedClusterStateTaskExecutor,
-                shardStartedClusterStateTaskExecutor);
+            shardStartedBatcher.submit(request, shardStartedClusterStateTaskExecutor);
             channel.sendResponse(TransportResponse.Empty.INSTANCE);
         }
     }
@@ -451,6 +524,7 @@ public class ShardStateAction extends AbstractComponent {
     public static class ShardStartedClusterStateTaskExecutor implements ClusterStateTaskExecutor<StartedShardEntry>, ClusterStateTaskListener {
         private final AllocationService allocationService;
         private final Logger logger;
+        private final BatchMetrics batchMetrics = new BatchMetrics();
 
         public ShardStartedClusterStateTaskExecutor(AllocationService allocationService, Logger logger) {
             this.allocationService = allocationService;
@@ -496,6 +570,7 @@ public class ShardStateAction extends AbstractComponent {
             assert tasksToBeApplied.size() >= shardRoutingsToBeApplied.size();
 
             ClusterState maybeUpdatedState = currentState;
+            final long startTimeNanos = System.nanoTime();
             try {
                 maybeUpdatedState = allocationService.applyStartedShards(currentState, shardRoutingsToBeApplied);
                 builder.successes(tasksToBeApplied);
@@ -503,10 +578,21 @@ public class ShardStateAction extends AbstractComponent {
                 logger.warn(() -> new ParameterizedMessage("failed to apply started shards {}", shardRoutingsToBeApplied), e);
                 builder.failures(tasksToBeApplied, e);
             }
+            final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
+            logger.debug("applied [{}] started shards of [{}] shard started tasks in [{}ms]", shardRoutingsToBeApplied.size(),
+                tasks.size(), tookInMillis);
+            batchMetrics.onBatch(tasks.size(), tookInMillis);
 
             return builder.build(maybeUpdatedState);
         }
 
+        /**
+         * Returns statistics about the batches of started shards that were applied by this executor.
+         */
+        public BatchStats stats() {
+            return batchMetrics.stats();
+        }
+
         @Override
         public void onFailure(String source, Exception e) {
             logger.error(() -> new ParameterizedMessage("unexpected failure during [{}]", source), e);
@@ -560,6 +646,184 @@ public class ShardStateAction extends AbstractComponent {
         }
     }
 
+    /**
+     * Collects the shard state updates that arrive within {@link #SHARD_STATE_MAX_BATCH_DELAY_SETTING} and submits them to the master
+     * service together, so that they are applied with a single reroute and published with a single cluster state instead of one
+     * reroute and one publication per update. This matters when lots of shards start at the same time, like after a full cluster
+     * restart.
+     */
+    private class ShardStateUpdateBatcher<T> {
+        private final String source;
+        private final ClusterStateTaskConfig config;
+        private final ClusterStateTaskExecutor<T> executor;
+
+        // the tasks of the current window and whether a flush of them is scheduled, both guarded by this
+        private Map<T, ClusterStateTaskListener> pendingTasks = new LinkedHashMap<>();
+        private boolean flushScheduled;
+
+        ShardStateUpdateBatcher(String source, ClusterStateTaskConfig config, ClusterStateTaskExecutor<T> executor) {
+            this.source = source;
+            this.config = config;
+            this.executor = executor;
+        }
+
+        void submit(T task, ClusterStateTaskListener listener) {
+            final TimeValue delay = maxBatchDelay;
+            final Map<T, ClusterStateTaskListener> tasksToSubmit;
+            boolean scheduleFlush = false;
+            synchronized (this) {
+                pendingTasks.put(task, listener);
+                if (delay.millis() == 0 || pendingTasks.size() >= maxBatchSize) {
+                    tasksToSubmit = drainPendingTasks();
+                } else {
+                    tasksToSubmit = null;
+                    if (flushScheduled == false) {
+                        flushScheduled = true;
+                        scheduleFlush = true;
+                    }
+                }
+            }
+            if (tasksToSubmit != null) {
+                submitTasks(tasksToSubmit);
+            }
+            if (scheduleFlush) {
+                try {
+                    threadPool.schedule(delay, ThreadPool.Names.SAME, this::flush);
+                } catch (EsRejectedExecutionException e) {
+                    logger.debug("failed to schedule the submission of [{}] tasks, submitting them now", source);
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            final Map<T, ClusterStateTaskListener> tasksToSubmit;
+            synchronized (this) {
+                flushScheduled = false;
+                tasksToSubmit = drainPendingTasks();
+            }
+            if (tasksToSubmit.isEmpty() == false) {
+                submitTasks(tasksToSubmit);
+            }
+        }
+
+        private Map<T, ClusterStateTaskListener> drainPendingTasks() {
+            assert Thread.holdsLock(this);
+            final Map<T, ClusterStateTaskListener> tasks = pendingTasks;
+            pendingTasks = new LinkedHashMap<>();
+            return tasks;
+        }
+
+        private void submitTasks(Map<T, ClusterStateTaskListener> tasks) {
+            try {
+                clusterService.submitStateUpdateTasks(source, tasks, config, executor);
+            } catch (Exception e) {
+                // the tasks of other requests may be part of the batch, so the failure goes to all of their listeners
+                for (ClusterStateTaskListener listener : tasks.values()) {
+                    listener.onFailure(source, e);
+                }
+            }
+        }
+    }
+
+    static class BatchMetrics {
+        private final MeanMetric tasks = new MeanMetric();
+        private final CounterMetric timeInMillis = new CounterMetric();
+        private final AtomicInteger maxTasks = new AtomicInteger();
+
+        void onBatch(int numberOfTasks, long tookInMillis) {
+            tasks.inc(numberOfTasks);
+            timeInMillis.inc(tookInMillis);
+            maxTasks.accumulateAndGet(numberOfTasks, Math::max);
+        }
+
+        BatchStats stats() {
+            return new BatchStats(tasks.count(), tasks.sum(), maxTasks.get(), timeInMillis.count());
+        }
+    }
+
+    /**
+     * Statistics about the batches of shard state updates that were applied on the master.
+     */
+    public static class BatchStats implements Writeable, ToXContentFragment {
+        private final long count;
+        private final long tasks;
+        private final int maxTasks;
+        private final long timeInMillis;
+
+        public BatchStats(long count, long tasks, int maxTasks, long timeInMillis) {
+            this.count = count;
+            this.tasks = tasks;
+            this.maxTasks = maxTasks;
+            this.timeInMillis = timeInMillis;
+        }
+
+        public BatchStats(StreamInput in) throws IOException {
+            count = in.readVLong();
+            tasks = in.readVLong();
+            maxTasks = in.readVInt();
+            timeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(tasks);
+            out.writeVInt(maxTasks);
+            out.writeVLong(timeInMillis);
+        }
+
+        /**
+         * The number of batches, each of which was applied with a single reroute.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * The total number of tasks in all batches.
+         */
+        public long getTasks() {
+            return tasks;
+        }
+
+        /**
+         * The number of tasks in the largest batch.
+         */
+        public int getMaxTasks() {
+            return maxTasks;
+        }
+
+        /**
+         * The total time spent applying the batches, including the reroutes.
+         */
+        public long getTimeInMillis() {
+            return timeInMillis;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.BATCHES, count);
+            builder.field(Fields.TASKS, tasks);
+            builder.field(Fields.MAX_TASKS, maxTasks);
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(timeInMillis, TimeUnit.MILLISECONDS));
+            return builder;
+        }
+
+        static final class Fields {
+            static final String BATCHES = "batches";
+            static final String TASKS = "tasks";
+            static final String MAX_TASKS = "max_tasks";
+            static final String TIME = "time";
+            static final String TIME_IN_MILLIS = "time_in_millis";
+        }
+
+        @Override
+        public String toString() {
+            return "BatchStats{count=" + count + ", tasks=" + tasks + ", maxTasks=" + maxTasks + ", timeInMillis=" + timeInMillis + "}";
+        }
+    }
+
     public interface Listener {
 
         default void onSuccess() {
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.cluster.action.shard;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the batches of started and failed shards that the {@link ShardStateAction} of a node applied while it was the
+ * master.
+ */
+public class ShardStateActionStats implements Writeable, ToXContentFragment {
+
+    private final ShardStateAction.BatchStats startedShards;
+    private final ShardStateAction.BatchStats failedShards;
+
+    public ShardStateActionStats(ShardStateAction.BatchStats startedShards, ShardStateAction.BatchStats failedShards) {
+        this.startedShards = startedShards;
+        this.failedShards = failedShards;
+    }
+
+    public ShardStateActionStats(StreamInput in) throws IOException {
+        startedShards = new ShardStateAction.BatchStats(in);
+        failedShards = new ShardStateAction.BatchStats(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        startedShards.writeTo(out);
+        failedShards.writeTo(out);
+    }
+
+    public ShardStateAction.BatchStats getStartedShards() {
+        return startedShards;
+    }
+
+    public ShardStateAction.BatchStats getFailedShards() {
+        return failedShards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.SHARD_STATE);
+        builder.startObject(Fields.STARTED);
+        startedShards.toXContent(builder, params);
+        builder.endObject();
+        builder.startObject(Fields.FAILED);
+        failedShards.toXContent(builder, params);
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String SHARD_STATE = "shard_state";
+        static final String STARTED = "started";
+        static final String FAILED = "failed";
+    }
+}
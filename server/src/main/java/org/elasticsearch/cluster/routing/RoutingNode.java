@@ -24,9 +24,11 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -41,6 +43,12 @@ public class RoutingNode implements Iterable<ShardRouting> {
 
     private final LinkedHashMap<ShardId, ShardRouting> shards; // LinkedHashMap to preserve order
 
+    // the shards of this node that are initializing or relocating, kept up to date on every change so that the allocation
+    // deciders which are asked about this node over and over during a reroute don't have to scan all of its shards
+    private final LinkedHashSet<ShardRouting> initializingShards;
+
+    private final LinkedHashSet<ShardRouting> relocatingShards;
+
     public RoutingNode(String nodeId, DiscoveryNode node, ShardRouting... shards) {
         this(nodeId, node, buildShardRoutingMap(shards));
     }
@@ -49,6 +57,11 @@ public class RoutingNode implements Iterable<ShardRouting> {
         this.nodeId = nodeId;
         this.node = node;
         this.shards = shards;
+        this.initializingShards = new LinkedHashSet<>();
+        this.relocatingShards = new LinkedHashSet<>();
+        for (ShardRouting shardRouting : shards.values()) {
+            addToStateSets(shardRouting);
+        }
     }
 
     private static LinkedHashMap<ShardId, ShardRouting> buildShardRoutingMap(ShardRouting... shardRoutings) {
@@ -104,6 +117,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
                 + "] where it already exists. current [" + shards.get(shard.shardId()) + "]. new [" + shard + "]");
         }
         shards.put(shard.shardId(), shard);
+        addToStateSets(shard);
     }
 
     void update(ShardRouting oldShard, ShardRouting newShard) {
@@ -114,11 +128,46 @@ public class RoutingNode implements Iterable<ShardRouting> {
         }
         ShardRouting previousValue = shards.put(newShard.shardId(), newShard);
         assert previousValue == oldShard : "expected shard " + previousValue + " but was " + oldShard;
+        removeFromStateSets(oldShard);
+        addToStateSets(newShard);
     }
 
     void remove(ShardRouting shard) {
         ShardRouting previousValue = shards.remove(shard.shardId());
         assert previousValue == shard : "expected shard " + previousValue + " but was " + shard;
+        removeFromStateSets(shard);
+    }
+
+    private void addToStateSets(ShardRouting shard) {
+        if (shard.initializing()) {
+            initializingShards.add(shard);
+        } else if (shard.relocating()) {
+            relocatingShards.add(shard);
+        }
+    }
+
+    private void removeFromStateSets(ShardRouting shard) {
+        if (shard.initializing()) {
+            boolean exists = initializingShards.remove(shard);
+            assert exists : "expected shard " + shard + " to be in the initializing shards of " + nodeId;
+        } else if (shard.relocating()) {
+            boolean exists = relocatingShards.remove(shard);
+            assert exists : "expected shard " + shard + " to be in the relocating shards of " + nodeId;
+        }
+    }
+
+    /**
+     * Returns the shards of this node that are initializing, including the targets of relocations.
+     */
+    public Collection<ShardRouting> initializing() {
+        return Collections.unmodifiableCollection(initializingShards);
+    }
+
+    /**
+     * Returns the shards of this node that are relocating away from it.
+     */
+    public Collection<ShardRouting> relocating() {
+        return Collections.unmodifiableCollection(relocatingShards);
     }
 
     /**
@@ -127,6 +176,13 @@ public class RoutingNode implements Iterable<ShardRouting> {
      * @return number of shards
      */
     public int numberOfShardsWithState(ShardRoutingState... states) {
+        if (states.length == 1) {
+            if (states[0] == ShardRoutingState.INITIALIZING) {
+                return initializingShards.size();
+            } else if (states[0] == ShardRoutingState.RELOCATING) {
+                return relocatingShards.size();
+            }
+        }
         int count = 0;
         for (ShardRouting shardEntry : this) {
             for (ShardRoutingState state : states) {
@@ -144,6 +200,13 @@ public class RoutingNode implements Iterable<ShardRouting> {
      * @return List of shards
      */
     public List<ShardRouting> shardsWithState(ShardRoutingState... states) {
+        if (states.length == 1) {
+            if (states[0] == ShardRoutingState.INITIALIZING) {
+                return new ArrayList<>(initializingShards);
+            } else if (states[0] == ShardRoutingState.RELOCATING) {
+                return new ArrayList<>(relocatingShards);
+            }
+        }
         List<ShardRouting> shards = new ArrayList<>();
         for (ShardRouting shardEntry : this) {
             for (ShardRoutingState state : states) {
@@ -181,14 +244,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
      * The number of shards on this node that will not be eventually relocated.
      */
     public int numberOfOwningShards() {
-        int count = 0;
-        for (ShardRouting shardEntry : this) {
-            if (shardEntry.state() != ShardRoutingState.RELOCATING) {
-                count++;
-            }
-        }
-
-        return count;
+        return shards.size() - relocatingShards.size();
     }
 
     public String prettyPrint() {
@@ -166,7 +166,12 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         assert primary == null || primary.assignedToNode() :
             "shard is initializing but its primary is not assigned to a node";
 
-        Recoveries.getOrAdd(recoveriesPerNode, routing.currentNodeId()).addIncoming(howMany);
+        final Recoveries recoveries = Recoveries.getOrAdd(recoveriesPerNode, routing.currentNodeId());
+        recoveries.addIncoming(howMany);
+        if (routing.primary() && routing.relocatingNodeId() == null) {
+            // initial recovery of a primary from the store, a snapshot or local shards
+            recoveries.addInitialPrimariesIncoming(howMany);
+        }
 
         if (routing.recoverySource().getType() == RecoverySource.Type.PEER) {
             // add/remove corresponding outgoing recovery on node with primary shard
@@ -198,6 +203,14 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         return recoveriesPerNode.getOrDefault(nodeId, Recoveries.EMPTY).getOutgoing();
     }
 
+    /**
+     * Returns the number of primaries that are initializing on the given node and that don't recover from another node, i.e. that
+     * are not the target of a relocation.
+     */
+    public int getInitialPrimariesIncomingRecoveries(String nodeId) {
+        return recoveriesPerNode.getOrDefault(nodeId, Recoveries.EMPTY).getInitialPrimariesIncoming();
+    }
+
     @Nullable
     private ShardRouting findAssignedPrimaryIfPeerRecovery(ShardRouting routing) {
         ShardRouting primary = null;
@@ -1085,11 +1098,15 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             final Recoveries value = recoveries.getValue();
             int incoming = 0;
             int outgoing = 0;
+            int initialPrimariesIncoming = 0;
             RoutingNode routingNode = routingNodes.nodesToShards.get(node);
             if (routingNode != null) { // node might have dropped out of the cluster
                 for (ShardRouting routing : routingNode) {
                     if (routing.initializing()) {
                         incoming++;
+                        if (routing.primary() && routing.relocatingNodeId() == null) {
+                            initialPrimariesIncoming++;
+                        }
                     }
                     if (routing.primary() && routing.isRelocationTarget() == false) {
                         for (ShardRouting assigned : routingNodes.assignedShards.get(routing.shardId())) {
@@ -1102,6 +1119,8 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             }
             assert incoming == value.incoming : incoming + " != " + value.incoming + " node: " + routingNode;
             assert outgoing == value.outgoing : outgoing + " != " + value.outgoing + " node: " + routingNode;
+            assert initialPrimariesIncoming == value.initialPrimariesIncoming :
+                initialPrimariesIncoming + " != " + value.initialPrimariesIncoming + " node: " + routingNode;
         }
 
 
@@ -1166,6 +1185,7 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         private static final Recoveries EMPTY = new Recoveries();
         private int incoming = 0;
         private int outgoing = 0;
+        private int initialPrimariesIncoming = 0;
 
         int getTotal() {
             return incoming + outgoing;
@@ -1181,6 +1201,11 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             incoming += howMany;
         }
 
+        void addInitialPrimariesIncoming(int howMany) {
+            assert initialPrimariesIncoming + howMany >= 0 : initialPrimariesIncoming + howMany + " must be >= 0";
+            initialPrimariesIncoming += howMany;
+        }
+
         int getOutgoing() {
             return outgoing;
         }
@@ -1189,6 +1214,10 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             return incoming;
         }
 
+        int getInitialPrimariesIncoming() {
+            return initialPrimariesIncoming;
+        }
+
         public static Recoveries getOrAdd(Map<String, Recoveries> map, String key) {
             Recoveries recoveries = map.get(key);
             if (recoveries == null) {
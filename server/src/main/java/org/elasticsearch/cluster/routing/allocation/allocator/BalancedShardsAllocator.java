@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.routing.allocation.allocator;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -71,6 +72,10 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code> - The <b>write load balance</b> defines a factor to the
+ * write load of the shards allocated on a specific node, see {@link ClusterInfo#getShardWriteLoad(ShardRouting, double)}</li>
+ * <li><code>cluster.routing.allocation.balance.disk_usage</code> - The <b>disk usage balance</b> defines a factor to the
+ * bytes of the shards allocated on a specific node</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -84,10 +89,18 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         Setting.floatSetting("cluster.routing.allocation.balance.index", 0.55f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> SHARD_BALANCE_FACTOR_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.shard", 0.45f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> WRITE_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.write_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> DISK_USAGE_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.disk_usage", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> THRESHOLD_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.threshold", 1.0f, 0.0f,
             Property.Dynamic, Property.NodeScope);
 
+    private volatile float indexBalance;
+    private volatile float shardBalance;
+    private volatile float writeLoadBalance;
+    private volatile float diskUsageBalance;
     private volatile WeightFunction weightFunction;
     private volatile float threshold;
 
@@ -98,14 +111,36 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
         super(settings);
-        setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
+        this.indexBalance = INDEX_BALANCE_FACTOR_SETTING.get(settings);
+        this.shardBalance = SHARD_BALANCE_FACTOR_SETTING.get(settings);
+        this.writeLoadBalance = WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings);
+        this.diskUsageBalance = DISK_USAGE_BALANCE_FACTOR_SETTING.get(settings);
+        updateWeightFunction();
         setThreshold(THRESHOLD_SETTING.get(settings));
         clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        clusterSettings.addSettingsUpdateConsumer(WRITE_LOAD_BALANCE_FACTOR_SETTING, this::setWriteLoadBalance);
+        clusterSettings.addSettingsUpdateConsumer(DISK_USAGE_BALANCE_FACTOR_SETTING, this::setDiskUsageBalance);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
     }
 
     private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+        this.indexBalance = indexBalance;
+        this.shardBalance = shardBalanceFactor;
+        updateWeightFunction();
+    }
+
+    private void setWriteLoadBalance(float writeLoadBalance) {
+        this.writeLoadBalance = writeLoadBalance;
+        updateWeightFunction();
+    }
+
+    private void setDiskUsageBalance(float diskUsageBalance) {
+        this.diskUsageBalance = diskUsageBalance;
+        updateWeightFunction();
+    }
+
+    private synchronized void updateWeightFunction() {
+        weightFunction = new WeightFunction(indexBalance, shardBalance, writeLoadBalance, diskUsageBalance);
     }
 
     private void setThreshold(float threshold) {
@@ -162,13 +197,28 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the write load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
+    /**
+     * Returns the disk usage related weight factor.
+     */
+    public float getDiskUsageBalance() {
+        return weightFunction.diskUsageBalance;
+    }
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 4 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>write load balance</code> - balance property over the write load of the shards per cluster</li>
+     * <li><code>disk usage balance</code> - balance property over the bytes of the shards per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative importance of the property for the
@@ -183,44 +233,103 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>writeLoad</sub>(node) = writeLoadBalance * (node.writeLoad() - avgWriteLoadPerNode)</code>
+     * </li>
+     * <li>
+     * <code>weight<sub>diskUsage</sub>(node) = diskUsageBalance * (node.diskUsageInBytes() - avgDiskUsageInBytesPerNode)</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)
+     * + weight<sub>writeLoad</sub>(node) + weight<sub>diskUsage</sub>(node)</code>
+     * <p>
+     * The write load of a shard is the average number of threads that were indexing into it and its disk usage is its size in bytes,
+     * as reported by the {@link ClusterInfo}. The disk usage balance is a factor per byte and therefore needs to be much smaller than
+     * the other factors, for instance <tt>2e-11</tt>. Both default to <tt>0.0</tt> so that only the number of shards is balanced.
      */
     public static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float writeLoadBalance;
+        private final float diskUsageBalance;
         private final float theta0;
         private final float theta1;
-
+        private final float theta2;
+        private final float theta3;
 
         public WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+            this(indexBalance, shardBalance, 0.0f, 0.0f);
+        }
+
+        public WeightFunction(float indexBalance, float shardBalance, float writeLoadBalance, float diskUsageBalance) {
+            float sum = indexBalance + shardBalance + writeLoadBalance + diskUsageBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = writeLoadBalance / sum;
+            theta3 = diskUsageBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.writeLoadBalance = writeLoadBalance;
+            this.diskUsageBalance = diskUsageBalance;
         }
 
         public float weight(Balancer balancer, ModelNode node, String index) {
-            return weight(balancer, node, index, 0);
+            return weight(balancer, node, index, 0, 0.0d, 0L);
         }
 
         public float weightShardAdded(Balancer balancer, ModelNode node, String index) {
-            return weight(balancer, node, index, 1);
+            return weight(balancer, node, index, 1, 0.0d, 0L);
         }
 
         public float weightShardRemoved(Balancer balancer, ModelNode node, String index) {
-            return weight(balancer, node, index, -1);
+            return weight(balancer, node, index, -1, 0.0d, 0L);
+        }
+
+        /**
+         * The weight of the node if the given shard was added to it, taking the write load and the disk usage of the shard into account.
+         */
+        public float weightShardAdded(Balancer balancer, ModelNode node, ShardRouting shard) {
+            return weight(balancer, node, shard.getIndexName(), 1, balancer.shardWriteLoad(shard), balancer.shardDiskUsage(shard));
+        }
+
+        /**
+         * The weight of the node if the given shard was removed from it, taking the write load and the disk usage of the shard into
+         * account.
+         */
+        public float weightShardRemoved(Balancer balancer, ModelNode node, ShardRouting shard) {
+            return weight(balancer, node, shard.getIndexName(), -1, -balancer.shardWriteLoad(shard), -balancer.shardDiskUsage(shard));
+        }
+
+        /**
+         * Whether the write load of the shards needs to be tracked.
+         */
+        boolean usesWriteLoad() {
+            return theta2 != 0.0f;
+        }
+
+        /**
+         * Whether the disk usage of the shards needs to be tracked.
+         */
+        boolean usesDiskUsage() {
+            return theta3 != 0.0f;
         }
 
-        private float weight(Balancer balancer, ModelNode node, String index, int numAdditionalShards) {
+        private float weight(Balancer balancer, ModelNode node, String index, int numAdditionalShards,
+                             double additionalWriteLoad, long additionalDiskUsageInBytes) {
             final float weightShard = node.numShards() + numAdditionalShards - balancer.avgShardsPerNode();
             final float weightIndex = node.numShards(index) + numAdditionalShards - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            float weight = theta0 * weightShard + theta1 * weightIndex;
+            if (theta2 != 0.0f) {
+                weight += theta2 * (float) (node.writeLoad() + additionalWriteLoad - balancer.avgWriteLoadPerNode());
+            }
+            if (theta3 != 0.0f) {
+                weight += theta3 * (float) (node.diskUsageInBytes() + additionalDiskUsageInBytes - balancer.avgDiskUsageInBytesPerNode());
+            }
+            return weight;
         }
     }
 
@@ -237,6 +346,8 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private final float threshold;
         private final MetaData metaData;
         private final float avgShardsPerNode;
+        private final double avgWriteLoadPerNode;
+        private final double avgDiskUsageInBytesPerNode;
         private final NodeSorter sorter;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
@@ -247,6 +358,16 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             this.routingNodes = allocation.routingNodes();
             this.metaData = allocation.metaData();
             avgShardsPerNode = ((float) metaData.getTotalNumberOfShards()) / routingNodes.size();
+            double totalWriteLoad = 0.0d;
+            double totalDiskUsageInBytes = 0.0d;
+            if (weight.usesWriteLoad() || weight.usesDiskUsage()) {
+                for (ShardRouting shard : allocation.routingTable().allShards()) {
+                    totalWriteLoad += shardWriteLoad(shard);
+                    totalDiskUsageInBytes += shardDiskUsage(shard);
+                }
+            }
+            avgWriteLoadPerNode = totalWriteLoad / routingNodes.size();
+            avgDiskUsageInBytesPerNode = totalDiskUsageInBytes / routingNodes.size();
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
             sorter = newNodeSorter();
         }
@@ -272,6 +393,34 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return avgShardsPerNode;
         }
 
+        /**
+         * Returns the global average of the write load per node
+         */
+        public double avgWriteLoadPerNode() {
+            return avgWriteLoadPerNode;
+        }
+
+        /**
+         * Returns the global average of the disk usage per node
+         */
+        public double avgDiskUsageInBytesPerNode() {
+            return avgDiskUsageInBytesPerNode;
+        }
+
+        /**
+         * Returns the write load of the given shard, or <tt>0.0</tt> if the weight function doesn't take the write load into account.
+         */
+        double shardWriteLoad(ShardRouting shard) {
+            return weight.usesWriteLoad() ? allocation.clusterInfo().getShardWriteLoad(shard, 0.0d) : 0.0d;
+        }
+
+        /**
+         * Returns the size in bytes of the given shard, or <tt>0</tt> if the weight function doesn't take the disk usage into account.
+         */
+        long shardDiskUsage(ShardRouting shard) {
+            return weight.usesDiskUsage() ? allocation.clusterInfo().getShardSize(shard, 0L) : 0L;
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
@@ -321,7 +470,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 return;
             }
             if (allocation.deciders().canRebalance(allocation).type() != Type.YES) {
-                logger.trace("skipping rebalance as it is disabled");
+                logger.trace("skipping rebalance as it is disabled or throttled");
                 return;
             }
             if (nodes.size() < 2) { /* skip if we only have one node */
@@ -390,10 +539,11 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                     // the gains make it worth it, as defined by the threshold
                     boolean deltaAboveThreshold = lessThan(currentDelta, threshold) == false;
                     // simulate the weight of the node if we were to relocate the shard to it
-                    float weightWithShardAdded = weight.weightShardAdded(this, node, idxName);
+                    float weightWithShardAdded = weight.weightShardAdded(this, node, shard);
                     // calculate the delta of the weights of the two nodes if we were to add the shard to the
-                    // node in question and move it away from the node that currently holds it.
-                    float proposedDelta = weightWithShardAdded - weight.weightShardRemoved(this, currentNode, idxName);
+                    // node in question and move it away from the node that currently holds it. A shard with a high
+                    // write load or disk usage might overshoot, which is why the absolute value is compared.
+                    float proposedDelta = Math.abs(weightWithShardAdded - weight.weightShardRemoved(this, currentNode, shard));
                     boolean betterWeightWithShardAdded = proposedDelta < currentDelta;
                     rebalanceConditionsMet = deltaAboveThreshold && betterWeightWithShardAdded;
                     // if the simulated weight delta with the shard moved away is better than the weight delta
@@ -484,6 +634,9 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
+            final boolean traceEnabled = logger.isTraceEnabled();
+            // the rebalance decisions only depend on the routing nodes, so they can be reused until the next relocation
+            final Map<ShardRouting, Decision> rebalanceDecisions = new IdentityHashMap<>();
             for (String index : buildWeightOrderedIndices()) {
                 IndexMetaData indexMetaData = metaData.index(index);
 
@@ -530,27 +683,32 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                                  */
                                 break advance_range;
                             }
-                            if (logger.isTraceEnabled()) {
+                            if (traceEnabled) {
                                 logger.trace("Stop balancing index [{}]  min_node [{}] weight: [{}]  max_node [{}] weight: [{}]  delta: [{}]",
                                         index, maxNode.getNodeId(), weights[highIdx], minNode.getNodeId(), weights[lowIdx], delta);
                             }
                             break;
                         }
-                        if (logger.isTraceEnabled()) {
+                        if (traceEnabled) {
                             logger.trace("Balancing from node [{}] weight: [{}] to node [{}] weight: [{}]  delta: [{}]",
                                     maxNode.getNodeId(), weights[highIdx], minNode.getNodeId(), weights[lowIdx], delta);
                         }
                         /* pass the delta to the replication function to prevent relocations that only swap the weights of the two nodes.
                          * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
-                        if (tryRelocateShard(minNode, maxNode, index, delta)) {
+                        if (tryRelocateShard(minNode, maxNode, index, delta, rebalanceDecisions)) {
+                            if (deciders.canRebalance(allocation).type() != Type.YES) {
+                                /* the relocation used up the last rebalancing operation that is allowed right now, all further
+                                 * relocations could only be simulated on the model which is discarded at the end of the round */
+                                return;
+                            }
+                            rebalanceDecisions.clear();
                             /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
+                             * only the weights of the two nodes changed so the other nodes are still sorted, moving the two
+                             * nodes to their new place is linear instead of a full sort of all the nodes
                              */
                             weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
                             weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                            sorter.insertionSort(0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -740,7 +898,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private Map<String, ModelNode> buildModelFromAssigned() {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, this);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -914,7 +1072,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 }
 
                 // simulate weight if we would add shard to node
-                float currentWeight = weight.weightShardAdded(this, node, shard.getIndexName());
+                float currentWeight = weight.weightShardAdded(this, node, shard);
                 // moving the shard would not improve the balance, and we are not in explain mode, so short circuit
                 if (currentWeight > minWeight && explain == false) {
                     continue;
@@ -988,11 +1146,13 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
          * balance model. Iff this method returns a <code>true</code> the relocation has already been executed on the
          * simulation model as well as on the cluster.
          */
-        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx, float minCost) {
+        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx, float minCost,
+                                         Map<ShardRouting, Decision> rebalanceDecisions) {
             final ModelIndex index = maxNode.getIndex(idx);
+            final boolean traceEnabled = logger.isTraceEnabled();
             Decision decision = null;
             if (index != null) {
-                if (logger.isTraceEnabled()) {
+                if (traceEnabled) {
                     logger.trace("Try relocating shard for index index [{}] from node [{}] to node [{}]", idx, maxNode.getNodeId(),
                             minNode.getNodeId());
                 }
@@ -1002,12 +1162,18 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                     if (shard.started()) {
                         // skip initializing, unassigned and relocating shards we can't relocate them anyway
                         Decision allocationDecision = deciders.canAllocate(shard, minNode.getRoutingNode(), allocation);
-                        Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
+                        Decision rebalanceDecision = rebalanceDecisions.get(shard);
+                        if (rebalanceDecision == null) {
+                            rebalanceDecision = deciders.canRebalance(shard, allocation);
+                            rebalanceDecisions.put(shard, rebalanceDecision);
+                        }
                         if (((allocationDecision.type() == Type.YES) || (allocationDecision.type() == Type.THROTTLE))
                                 && ((rebalanceDecision.type() == Type.YES) || (rebalanceDecision.type() == Type.THROTTLE))) {
                             if (maxNode.containsShard(shard)) {
-                                // simulate moving shard from maxNode to minNode
-                                final float delta = weight.weightShardAdded(this, minNode, idx) - weight.weightShardRemoved(this, maxNode, idx);
+                                // simulate moving shard from maxNode to minNode, the shard that brings the weights of both nodes closest
+                                // together wins which only makes a difference if the shards have different write loads or disk usages
+                                final float delta = Math.abs(weight.weightShardAdded(this, minNode, shard)
+                                    - weight.weightShardRemoved(this, maxNode, shard));
                                 if (delta < minCost ||
                                         (candidate != null && delta == minCost && candidate.id() > shard.id())) {
                                     /* this last line is a tie-breaker to make the shard allocation alg deterministic
@@ -1038,7 +1204,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                     }
                 }
             }
-            if (logger.isTraceEnabled()) {
+            if (traceEnabled) {
                 logger.trace("Couldn't find shard to relocate from node [{}] to node [{}] allocation decision [{}]", maxNode.getNodeId(),
                         minNode.getNodeId(), decision == null ? "NO" : decision.type().name());
             }
@@ -1050,10 +1216,14 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     static class ModelNode implements Iterable<ModelIndex> {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
+        private double writeLoad = 0.0d;
+        private long diskUsageInBytes = 0L;
         private final RoutingNode routingNode;
+        private final Balancer balancer;
 
-        ModelNode(RoutingNode routingNode) {
+        ModelNode(RoutingNode routingNode, Balancer balancer) {
             this.routingNode = routingNode;
+            this.balancer = balancer;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1072,6 +1242,14 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return numShards;
         }
 
+        public double writeLoad() {
+            return writeLoad;
+        }
+
+        public long diskUsageInBytes() {
+            return diskUsageInBytes;
+        }
+
         public int numShards(String idx) {
             ModelIndex index = indices.get(idx);
             return index == null ? 0 : index.numShards();
@@ -1093,6 +1271,8 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             }
             index.addShard(shard);
             numShards++;
+            writeLoad += balancer.shardWriteLoad(shard);
+            diskUsageInBytes += balancer.shardDiskUsage(shard);
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1104,6 +1284,8 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 }
             }
             numShards--;
+            writeLoad -= balancer.shardWriteLoad(shard);
+            diskUsageInBytes -= balancer.shardDiskUsage(shard);
         }
 
         @Override
@@ -1214,6 +1396,17 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return function.weight(balancer, node, index);
         }
 
+        /**
+         * Sorts the nodes by weight like {@link #sort(int, int)}, but in linear time if only a few nodes are out of place.
+         */
+        void insertionSort(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && compare(j - 1, j) > 0; j--) {
+                    swap(j - 1, j);
+                }
+            }
+        }
+
         @Override
         protected void swap(int i, int j) {
             final ModelNode tmpNode = modelNodes[i];
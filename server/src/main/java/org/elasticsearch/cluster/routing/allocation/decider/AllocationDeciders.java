@@ -26,7 +26,6 @@ import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.settings.Settings;
 
 import java.util.Collection;
-import java.util.Collections;
 
 import static org.elasticsearch.cluster.routing.allocation.RoutingAllocation.DebugMode.EXCLUDE_YES_DECISIONS;
 
@@ -36,11 +35,12 @@ import static org.elasticsearch.cluster.routing.allocation.RoutingAllocation.Deb
  */
 public class AllocationDeciders extends AllocationDecider {
 
-    private final Collection<AllocationDecider> allocations;
+    // an array rather than a collection since the deciders are iterated for every shard and node that a reroute looks at
+    private final AllocationDecider[] allocations;
 
     public AllocationDeciders(Settings settings, Collection<AllocationDecider> allocations) {
         super(settings);
-        this.allocations = Collections.unmodifiableCollection(allocations);
+        this.allocations = allocations.toArray(new AllocationDecider[allocations.size()]);
     }
 
     @Override
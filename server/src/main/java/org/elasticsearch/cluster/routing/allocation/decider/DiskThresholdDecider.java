@@ -29,7 +29,6 @@ import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
-import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.DiskThresholdSettings;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.Strings;
@@ -87,12 +86,14 @@ public class DiskThresholdDecider extends AllocationDecider {
                                        boolean subtractShardsMovingAway, String dataPath) {
         ClusterInfo clusterInfo = allocation.clusterInfo();
         long totalSize = 0;
-        for (ShardRouting routing : node.shardsWithState(ShardRoutingState.RELOCATING, ShardRoutingState.INITIALIZING)) {
-            String actualPath = clusterInfo.getDataPath(routing);
-            if (dataPath.equals(actualPath)) {
-                if (routing.initializing() && routing.relocatingNodeId() != null) {
-                    totalSize += getExpectedShardSize(routing, allocation, 0);
-                } else if (subtractShardsMovingAway && routing.relocating()) {
+        for (ShardRouting routing : node.initializing()) {
+            if (routing.relocatingNodeId() != null && dataPath.equals(clusterInfo.getDataPath(routing))) {
+                totalSize += getExpectedShardSize(routing, allocation, 0);
+            }
+        }
+        if (subtractShardsMovingAway) {
+            for (ShardRouting routing : node.relocating()) {
+                if (dataPath.equals(clusterInfo.getDataPath(routing))) {
                     totalSize -= getExpectedShardSize(routing, allocation, 0);
                 }
             }
@@ -107,16 +107,14 @@ public class ShardsLimitAllocationDecider extends AllocationDecider {
                     indexShardLimit, clusterShardLimit);
         }
 
+        // don't count relocating shards...
+        final int nodeShardCount = node.numberOfOwningShards();
         int indexShardCount = 0;
-        int nodeShardCount = 0;
-        for (ShardRouting nodeShard : node) {
-            // don't count relocating shards...
-            if (nodeShard.relocating()) {
-                continue;
-            }
-            nodeShardCount++;
-            if (nodeShard.index().equals(shardRouting.index())) {
-                indexShardCount++;
+        if (indexShardLimit > 0) {
+            for (ShardRouting nodeShard : node) {
+                if (nodeShard.relocating() == false && nodeShard.index().equals(shardRouting.index())) {
+                    indexShardCount++;
+                }
             }
         }
 
@@ -147,14 +145,8 @@ public class ShardsLimitAllocationDecider extends AllocationDecider {
                     clusterShardLimit);
         }
 
-        int nodeShardCount = 0;
-        for (ShardRouting nodeShard : node) {
-            // don't count relocating shards...
-            if (nodeShard.relocating()) {
-                continue;
-            }
-            nodeShardCount++;
-        }
+        // don't count relocating shards...
+        final int nodeShardCount = node.numberOfOwningShards();
         if (clusterShardLimit >= 0 && nodeShardCount >= clusterShardLimit) {
             return allocation.decision(Decision.NO, NAME,
                 "too many shards [%d] allocated to this node, cluster setting [%s=%d]",
@@ -116,14 +116,9 @@ public class ThrottlingAllocationDecider extends AllocationDecider {
             // primary is unassigned, means we are going to do recovery from store, snapshot or local shards
             // count *just the primaries* currently doing recovery on the node and check against primariesInitialRecoveries
 
-            int primariesInRecovery = 0;
-            for (ShardRouting shard : node) {
-                // when a primary shard is INITIALIZING, it can be because of *initial recovery* or *relocation from another node*
-                // we only count initial recoveries here, so we need to make sure that relocating node is null
-                if (shard.initializing() && shard.primary() && shard.relocatingNodeId() == null) {
-                    primariesInRecovery++;
-                }
-            }
+            // when a primary shard is INITIALIZING, it can be because of *initial recovery* or *relocation from another node*
+            // we only count initial recoveries here, which the routing nodes keep track of
+            final int primariesInRecovery = allocation.routingNodes().getInitialPrimariesIncomingRecoveries(node.nodeId());
             if (primariesInRecovery >= primariesInitialRecoveries) {
                 // TODO: Should index creation not be throttled for primary shards?
                 return allocation.decision(THROTTLE, NAME,
@@ -63,22 +63,40 @@ import java.util.function.ToLongBiFunction;
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
+ * <p>
+ * Caches that are read from by many threads concurrently can be built with {@link EvictionPolicy#TINY_LFU} instead. They don't
+ * take a lock on reads and evict based on the frequency of accesses rather than on their recency.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
  */
 public class Cache<K, V> {
+    /**
+     * The policies that decide which entries are evicted once the cache exceeds its maximum weight.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entry. Reads and writes are serialized on the lock that protects the LRU list.
+         */
+        LRU,
+        /**
+         * Only admits a new entry if it was accessed more frequently than the entry that it would evict. Reads are recorded in
+         * lossy buffers and writes in striped buffers that are applied to the eviction policy in batches, so reads never block.
+         */
+        TINY_LFU
+    }
+
     // positive if entries have an expiration
     private long expireAfterAccessNanos = -1;
 
     // true if entries can expire after access
-    private boolean entriesExpireAfterAccess;
+    boolean entriesExpireAfterAccess;
 
     // positive if entries have an expiration after write
     private long expireAfterWriteNanos = -1;
 
     // true if entries can expire after initial insertion
-    private boolean entriesExpireAfterWrite;
+    boolean entriesExpireAfterWrite;
 
     // the number of entries in the cache
     private int count = 0;
@@ -87,17 +105,32 @@ public class Cache<K, V> {
     private long weight = 0;
 
     // the maximum weight that this cache supports
-    private long maximumWeight = -1;
+    long maximumWeight = -1;
 
     // the weigher of entries
-    private ToLongBiFunction<K, V> weigher = (k, v) -> 1;
+    ToLongBiFunction<K, V> weigher = (k, v) -> 1;
 
     // the removal callback
-    private RemovalListener<K, V> removalListener = notification -> {
+    RemovalListener<K, V> removalListener = notification -> {
     };
 
     // use CacheBuilder to construct
     Cache() {
+        this(true);
+    }
+
+    /**
+     * Constructor for implementations that replace the segments and the LRU list with their own data structures, see
+     * {@link TinyLfuCache}. These must override all public methods of this class.
+     */
+    Cache(boolean segmented) {
+        if (segmented) {
+            segments = newCacheSegments();
+            lruLock = new ReleasableLock(new ReentrantLock());
+        } else {
+            segments = null;
+            lruLock = null;
+        }
     }
 
     void setExpireAfterAccessNanos(long expireAfterAccessNanos) {
@@ -315,19 +348,22 @@ public class Cache<K, V> {
     }
 
     public static final int NUMBER_OF_SEGMENTS = 256;
-    @SuppressWarnings("unchecked") private final CacheSegment<K, V>[] segments = new CacheSegment[NUMBER_OF_SEGMENTS];
+    private final CacheSegment<K, V>[] segments;
 
-    {
+    @SuppressWarnings("unchecked")
+    private static <K, V> CacheSegment<K, V>[] newCacheSegments() {
+        CacheSegment<K, V>[] segments = new CacheSegment[NUMBER_OF_SEGMENTS];
         for (int i = 0; i < segments.length; i++) {
             segments[i] = new CacheSegment<>();
         }
+        return segments;
     }
 
     Entry<K, V> head;
     Entry<K, V> tail;
 
     // lock protecting mutations to the LRU list
-    private ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
+    private final ReleasableLock lruLock;
 
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
@@ -738,7 +774,7 @@ public class Cache<K, V> {
         return maximumWeight != -1 && weight > maximumWeight;
     }
 
-    private boolean isExpired(Entry<K, V> entry, long now) {
+    boolean isExpired(Entry<K, V> entry, long now) {
         return (entriesExpireAfterAccess && now - entry.accessTime > expireAfterAccessNanos) ||
                 (entriesExpireAfterWrite && now - entry.writeTime > expireAfterWriteNanos);
     }
@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private Cache.EvictionPolicy evictionPolicy = Cache.EvictionPolicy.LRU;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,8 +91,30 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets the policy that decides which entries are evicted once the cache exceeds its maximum weight. Defaults to
+     * {@link Cache.EvictionPolicy#LRU}.
+     *
+     * @param evictionPolicy The eviction policy. Must not be {@code null}.
+     */
+    public CacheBuilder<K, V> setEvictionPolicy(Cache.EvictionPolicy evictionPolicy) {
+        Objects.requireNonNull(evictionPolicy);
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
     public Cache<K, V> build() {
-        Cache<K, V> cache = new Cache<>();
+        Cache<K, V> cache;
+        switch (evictionPolicy) {
+            case LRU:
+                cache = new Cache<>();
+                break;
+            case TINY_LFU:
+                cache = new TinyLfuCache<>();
+                break;
+            default:
+                throw new IllegalStateException("unknown eviction policy [" + evictionPolicy + "]");
+        }
         if (maximumWeight != -1) {
             cache.setMaximumWeight(maximumWeight);
         }
@@ -0,0 +1,912 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A concurrent cache that evicts with the W-TinyLFU policy, see {@link Cache.EvictionPolicy#TINY_LFU}.
+ * <p>
+ * Entries are kept in a {@link ConcurrentHashMap} so reads never block and writes only contend on the same hash bin. The eviction
+ * policy is not thread-safe and is guarded by a single lock, but threads never wait for that lock. A read records the entry that it
+ * accessed in a small, lossy ring buffer and a write records the change that it made in a write buffer. Both kinds of buffers are
+ * striped by thread. Whichever thread acquires the lock applies all buffered changes to the policy in one batch. Under contention
+ * reads can be dropped from the buffers, which only makes the policy less precise. Writes are never dropped.
+ * <p>
+ * New entries enter an LRU admission window that holds 1% of the maximum weight. Entries that are pushed out of the window become
+ * candidates for the main space. The main space is a segmented LRU with a probation and a protected segment. A candidate is only
+ * admitted if it was accessed more frequently than the least recently used entry of the probation segment, otherwise the candidate
+ * itself is evicted. Entries that are accessed while in probation are promoted to the protected segment. Access frequencies are
+ * estimated with a {@link FrequencySketch} so that the history includes entries that are no longer cached.
+ * <p>
+ * Unlike the LRU implementation, {@link #keys()} and {@link #values()} don't iterate in any particular order. {@link #count()} and
+ * {@link #weight()} reflect the entries that the policy knows about and may lag behind writes that are still buffered. Call
+ * {@link #refresh()} to apply all buffered changes.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+class TinyLfuCache<K, V> extends Cache<K, V> {
+
+    // the share of the maximum weight that is reserved for the admission window
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+
+    // the share of the main space that is reserved for the protected segment
+    private static final double PROTECTED_PERCENTAGE = 0.8d;
+
+    // the number of buffered reads per stripe, a power of two
+    private static final int READ_BUFFER_SIZE = 16;
+
+    // the number of entries that the frequency sketch is sized for if the maximum weight allows for as many entries
+    private static final int INITIAL_SKETCH_CAPACITY = 4096;
+
+    // the number of buffered writes per stripe above which writers wait for the eviction lock instead of trying to acquire it
+    private static final int MAXIMUM_PENDING_WRITES = 1024;
+
+    private static final int NUMBER_OF_STRIPES = Math.min(64, ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+
+    // the segment of the eviction policy that an entry is in
+    enum Region {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    static final class Node<K, V> extends Entry<K, V> {
+        // the weight of the entry, computed once so that the policy adds and removes the same weight
+        final long weight;
+        // the following fields are guarded by the eviction lock
+        Region region;
+        Node<K, V> previousInWriteOrder;
+        Node<K, V> nextInWriteOrder;
+
+        Node(K key, V value, long now, long weight) {
+            super(key, value, now);
+            this.weight = weight;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+
+    // the futures of the values that are being loaded through computeIfAbsent
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final WriteBuffer[] writeBuffers;
+
+    // lock guarding the eviction policy
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedSegment = new AccessOrderDeque<>();
+
+    // only maintained if entries expire after write
+    private Node<K, V> writeOrderHead;
+    private Node<K, V> writeOrderTail;
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    // the state of a xorshift generator used for admitting warm candidates at random
+    private int admissionRandom = System.identityHashCode(this) | 1;
+
+    private long windowMaximum = Long.MAX_VALUE;
+    private long protectedMaximum = Long.MAX_VALUE;
+
+    // written under the eviction lock
+    private volatile int count = 0;
+    private volatile long weight = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // use CacheBuilder to construct
+    @SuppressWarnings("unchecked")
+    TinyLfuCache() {
+        super(false);
+        readBuffers = new ReadBuffer[NUMBER_OF_STRIPES];
+        writeBuffers = new WriteBuffer[NUMBER_OF_STRIPES];
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+            writeBuffers[i] = new WriteBuffer();
+        }
+    }
+
+    @Override
+    void setMaximumWeight(long maximumWeight) {
+        super.setMaximumWeight(maximumWeight);
+        this.windowMaximum = (long) (maximumWeight * WINDOW_PERCENTAGE);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENTAGE);
+        // growing the sketch forgets all frequencies, so we size it upfront for caches that hold up to a few thousand entries
+        sketch.ensureCapacity((int) Math.min(maximumWeight, INITIAL_SKETCH_CAPACITY));
+    }
+
+    @Override
+    public V get(K key) {
+        return get(key, now());
+    }
+
+    private V get(K key, long now) {
+        Node<K, V> node = map.get(key);
+        if (node == null || isExpired(node, now)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (entriesExpireAfterAccess) {
+            node.accessTime = now;
+        }
+        final ReadBuffer<K, V> readBuffer = readBuffers[stripe()];
+        if (readBuffer.offer(node) == false) {
+            // the buffer is full, the read is lost unless we can drain the buffers now
+            tryToDrainBuffers();
+            readBuffer.offer(node);
+        }
+        return node.value;
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
+     * value using the given mapping function and enters it into this map unless null. The load method for a given key
+     * will be invoked at most once by concurrent callers.
+     *
+     * @param key    the key whose associated value is to be returned or computed for if non-existent
+     * @param loader the function to compute a value given a key
+     * @return the current (existing or computed) non-null value associated with the specified key
+     * @throws ExecutionException thrown if loader throws an exception or returns a null value
+     */
+    @Override
+    public V computeIfAbsent(K key, CacheLoader<K, V> loader) throws ExecutionException {
+        final long now = now();
+        V value = get(key, now);
+        if (value != null) {
+            return value;
+        }
+        // we have to eagerly evict an expired entry or the loaded value would replace it
+        Node<K, V> expired = map.get(key);
+        if (expired != null && isExpired(expired, now)) {
+            remove(expired, RemovalNotification.RemovalReason.EVICTED);
+        }
+        // the loader is not invoked while holding any lock so that it can load dependent keys; concurrent callers wait for the future
+        // of the thread that won the race to install it
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            // another thread might have put the value in between our lookup and installing the future
+            Node<K, V> node = map.get(key);
+            if (node != null && isExpired(node, now) == false) {
+                value = node.value;
+            } else {
+                try {
+                    value = loader.load(key);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                    throw new ExecutionException(e);
+                }
+                if (value == null) {
+                    NullPointerException npe = new NullPointerException("loader returned a null value");
+                    future.completeExceptionally(npe);
+                    throw new ExecutionException(npe);
+                }
+                put(key, value, now);
+            }
+            future.complete(value);
+            return value;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, now());
+    }
+
+    private void put(K key, V value, long now) {
+        final Node<K, V> node = new Node<>(key, value, now, weigher.applyAsLong(key, value));
+        final Node<K, V> replaced = map.put(key, node);
+        afterWrite(() -> {
+            if (replaced != null) {
+                onRemove(replaced);
+            }
+            onAdd(node);
+        });
+        if (replaced != null) {
+            removalListener.onRemoval(new RemovalNotification<>(replaced.key, replaced.value, RemovalNotification.RemovalReason.REPLACED));
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null) {
+            evictions.increment();
+            afterWrite(() -> onRemove(node));
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        List<Node<K, V>> removed = new ArrayList<>(map.size());
+        for (Node<K, V> node : map.values()) {
+            if (map.remove(node.key, node)) {
+                evictions.increment();
+                removed.add(node);
+            }
+        }
+        afterWrite(() -> removed.forEach(this::onRemove));
+        for (Node<K, V> node : removed) {
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    /**
+     * Apply all buffered reads and writes to the eviction policy and force any outstanding size-based and time-based evictions
+     * to occur
+     */
+    @Override
+    public void refresh() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * The keys in the cache in no particular order. The iteration is weakly consistent and supports removal.
+     */
+    @Override
+    public Iterable<K> keys() {
+        return () -> new Iterator<K>() {
+            private final NodeIterator iterator = new NodeIterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return iterator.next().key;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    /**
+     * The values in the cache in no particular order. The iteration is weakly consistent and supports removal.
+     */
+    @Override
+    public Iterable<V> values() {
+        return () -> new Iterator<V>() {
+            private final NodeIterator iterator = new NodeIterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return iterator.next().value;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    private class NodeIterator implements Iterator<Node<K, V>> {
+        private final Iterator<Node<K, V>> iterator = map.values().iterator();
+        private Node<K, V> current;
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Node<K, V> next() {
+            current = iterator.next();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current != null) {
+                TinyLfuCache.this.remove(current, RemovalNotification.RemovalReason.INVALIDATED);
+                current = null;
+            }
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Removes the given entry unless it was already replaced or removed by another thread.
+     */
+    private void remove(Node<K, V> node, RemovalNotification.RemovalReason removalReason) {
+        if (map.remove(node.key, node)) {
+            evictions.increment();
+            afterWrite(() -> onRemove(node));
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, removalReason));
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        final int pending = writeBuffers[stripe()].add(task);
+        if (pending > MAXIMUM_PENDING_WRITES && evictionLock.isHeldByCurrentThread() == false) {
+            // the policy falls behind the writes, wait for the lock and help to apply them so that the buffers don't grow unbounded
+            evictionLock.lock();
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } else {
+            // if another thread holds the lock, this write is applied by the next thread that drains the buffers
+            tryToDrainBuffers();
+        }
+    }
+
+    private void tryToDrainBuffers() {
+        // a removal listener that writes to the cache must not drain the buffers while we are iterating over the policy
+        if (evictionLock.isHeldByCurrentThread() == false && evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void maintenance() {
+        assert evictionLock.isHeldByCurrentThread();
+
+        for (ReadBuffer<K, V> readBuffer : readBuffers) {
+            readBuffer.drain(this::onAccess);
+        }
+        for (WriteBuffer writeBuffer : writeBuffers) {
+            writeBuffer.drain();
+        }
+        if (entriesExpireAfterAccess || entriesExpireAfterWrite) {
+            expireEntries(now());
+        }
+        if (maximumWeight != -1) {
+            evictFromMain(evictFromWindow());
+        }
+    }
+
+    private void onAdd(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        if (node.state != State.NEW) {
+            // the entry was removed before its addition was applied to the policy
+            return;
+        }
+        node.state = State.EXISTING;
+        node.region = Region.WINDOW;
+        window.addLast(node);
+        if (entriesExpireAfterWrite) {
+            linkLastInWriteOrder(node);
+        }
+        count++;
+        weight += node.weight;
+        if (maximumWeight != -1) {
+            sketch.ensureCapacity(count);
+            sketch.increment(node.key);
+        }
+    }
+
+    private void onRemove(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        if (node.state == State.EXISTING) {
+            unlink(node);
+        }
+        node.state = State.DELETED;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        if (node.state != State.EXISTING) {
+            return;
+        }
+        if (maximumWeight != -1) {
+            sketch.increment(node.key);
+        }
+        switch (node.region) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.region = Region.PROTECTED;
+                protectedSegment.addLast(node);
+                // demote the least recently used entries of the protected segment if it overflows
+                while (protectedSegment.weight > protectedMaximum) {
+                    Node<K, V> demoted = protectedSegment.first();
+                    protectedSegment.remove(demoted);
+                    demoted.region = Region.PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedSegment.moveToBack(node);
+                break;
+            default:
+                throw new IllegalStateException("unknown region [" + node.region + "]");
+        }
+    }
+
+    private void expireEntries(long now) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        if (entriesExpireAfterAccess) {
+            expireEntries(window, now);
+            expireEntries(probation, now);
+            expireEntries(protectedSegment, now);
+        }
+        if (entriesExpireAfterWrite) {
+            while (writeOrderHead != null && isExpired(writeOrderHead, now)) {
+                evictEntry(writeOrderHead);
+            }
+        }
+    }
+
+    private void expireEntries(AccessOrderDeque<K, V> deque, long now) {
+        // the deque is only approximately ordered by access time since reads can be dropped from the read buffers
+        Node<K, V> node = deque.first();
+        while (node != null && isExpired(node, now)) {
+            Node<K, V> next = deque.next(node);
+            evictEntry(node);
+            node = next;
+        }
+    }
+
+    /**
+     * Moves the entries that overflow the admission window to the back of the probation segment.
+     *
+     * @return the number of entries that were moved and are candidates for admission to the main space
+     */
+    private int evictFromWindow() {
+        assert evictionLock.isHeldByCurrentThread();
+
+        int candidates = 0;
+        while (window.weight > windowMaximum) {
+            Node<K, V> node = window.first();
+            window.remove(node);
+            node.region = Region.PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+        return candidates;
+    }
+
+    /**
+     * Evicts entries until the cache no longer exceeds its maximum weight. Candidates are taken from the back of the probation
+     * segment and are compared against victims from its front, whichever was accessed less frequently is evicted.
+     */
+    private void evictFromMain(int candidates) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        Region victimRegion = Region.PROBATION;
+        Node<K, V> victim = probation.first();
+        Node<K, V> candidate = probation.last();
+        while (weight > maximumWeight) {
+            if (candidates <= 0 || candidate == victim) {
+                // no candidates are left, always evict the victim
+                candidate = null;
+            }
+            if (victim == null && candidate == null) {
+                // the probation segment is empty, fall back to the protected segment and then to the window
+                if (victimRegion == Region.PROBATION) {
+                    victimRegion = Region.PROTECTED;
+                    victim = protectedSegment.first();
+                    continue;
+                } else if (victimRegion == Region.PROTECTED) {
+                    victimRegion = Region.WINDOW;
+                    victim = window.first();
+                    continue;
+                }
+                break;
+            }
+            if (victim == null || candidate != null && (candidate.weight > maximumWeight || admit(candidate, victim) == false)) {
+                Node<K, V> evicted = candidate;
+                candidate = probation.previous(candidate);
+                candidates--;
+                evictEntry(evicted);
+            } else {
+                Node<K, V> evicted = victim;
+                victim = deque(victimRegion).next(victim);
+                if (candidate != null) {
+                    // the candidate was admitted, compare the next candidate with the next victim
+                    candidate = probation.previous(candidate);
+                    candidates--;
+                }
+                evictEntry(evicted);
+            }
+        }
+    }
+
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        final int candidateFrequency = sketch.frequency(candidate.key);
+        final int victimFrequency = sketch.frequency(victim.key);
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        } else if (candidateFrequency <= 5) {
+            return false;
+        }
+        // admit a warm candidate every now and then so that artificially raising the frequency of the victims, for instance
+        // through hash collisions in the sketch, can't keep new entries out of the cache
+        admissionRandom ^= admissionRandom << 13;
+        admissionRandom ^= admissionRandom >>> 17;
+        admissionRandom ^= admissionRandom << 5;
+        return (admissionRandom & 127) == 0;
+    }
+
+    private void evictEntry(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        // if the entry was replaced or removed concurrently, its removal is still buffered and the other thread notifies
+        final boolean removed = map.remove(node.key, node);
+        onRemove(node);
+        if (removed) {
+            evictions.increment();
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.EVICTED));
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+
+        deque(node.region).remove(node);
+        if (entriesExpireAfterWrite) {
+            unlinkInWriteOrder(node);
+        }
+        count--;
+        weight -= node.weight;
+    }
+
+    private AccessOrderDeque<K, V> deque(Region region) {
+        switch (region) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            case PROTECTED:
+                return protectedSegment;
+            default:
+                throw new IllegalStateException("unknown region [" + region + "]");
+        }
+    }
+
+    private void linkLastInWriteOrder(Node<K, V> node) {
+        node.previousInWriteOrder = writeOrderTail;
+        node.nextInWriteOrder = null;
+        if (writeOrderTail == null) {
+            writeOrderHead = node;
+        } else {
+            writeOrderTail.nextInWriteOrder = node;
+        }
+        writeOrderTail = node;
+    }
+
+    private void unlinkInWriteOrder(Node<K, V> node) {
+        final Node<K, V> previous = node.previousInWriteOrder;
+        final Node<K, V> next = node.nextInWriteOrder;
+        if (previous == null) {
+            writeOrderHead = next;
+        } else {
+            previous.nextInWriteOrder = next;
+        }
+        if (next == null) {
+            writeOrderTail = previous;
+        } else {
+            next.previousInWriteOrder = previous;
+        }
+        node.previousInWriteOrder = null;
+        node.nextInWriteOrder = null;
+    }
+
+    private static int stripe() {
+        return (int) BitMixer.mix64(Thread.currentThread().getId()) & (NUMBER_OF_STRIPES - 1);
+    }
+
+    static int ceilingPowerOfTwo(int x) {
+        return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+    }
+
+    /**
+     * A doubly-linked list of entries in access order, from the least recently used to the most recently used entry, that is
+     * linked through {@link Entry#before} and {@link Entry#after}.
+     */
+    static final class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        // the total weight of the entries in this deque
+        long weight;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        Node<K, V> last() {
+            return tail;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> next(Node<K, V> node) {
+            return (Node<K, V>) node.after;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> previous(Node<K, V> node) {
+            return (Node<K, V>) node.before;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            final Node<K, V> before = previous(node);
+            final Node<K, V> after = next(node);
+            if (before == null) {
+                assert head == node;
+                head = after;
+            } else {
+                before.after = after;
+            }
+            if (after == null) {
+                assert tail == node;
+                tail = before;
+            } else {
+                after.before = before;
+            }
+            node.before = null;
+            node.after = null;
+            weight -= node.weight;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (tail != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * A bounded ring buffer of reads that many threads can offer to and that a single thread drains while holding the eviction lock.
+     * Reads that don't fit into the buffer, or that lose the race for a slot against another thread, are dropped.
+     */
+    static final class ReadBuffer<K, V> {
+        private static final int MASK = READ_BUFFER_SIZE - 1;
+
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * Records a read of the given entry.
+         *
+         * @return false if the buffer is full and should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            if (tail - head >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & MASK), node);
+            }
+            return true;
+        }
+
+        void drain(Consumer<Node<K, V>> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                final int index = (int) (head & MASK);
+                final Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    // the slot was claimed but the node is not published yet, we will pick it up on the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounter = head;
+        }
+    }
+
+    /**
+     * A queue of the changes that writes made to the map, that many threads can add to and that a single thread drains while holding
+     * the eviction lock. Writes are never dropped, instead the number of buffered writes is tracked so that writers can apply
+     * backpressure if the policy falls behind.
+     */
+    static final class WriteBuffer {
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Buffers a change to the policy.
+         *
+         * @return the number of buffered changes
+         */
+        int add(Runnable task) {
+            queue.add(task);
+            return size.incrementAndGet();
+        }
+
+        /**
+         * Applies the changes that were buffered when the drain started. Changes that are added concurrently are left for the next
+         * drain so that a thread never drains forever while other threads keep writing.
+         */
+        void drain() {
+            for (int pending = size.get(); pending > 0; pending--) {
+                final Runnable task = queue.poll();
+                assert task != null : "the size is only incremented after the task was added";
+                size.decrementAndGet();
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Estimates how often keys were accessed with a count-min sketch of four bit counters. Every key maps to one counter in each of
+     * four rows, its frequency is the minimum of these counters. Once the number of increments reaches ten times the number of
+     * counters per row all counters are halved so that the sketch forgets about keys that are no longer popular. Not thread-safe.
+     */
+    static final class FrequencySketch {
+        // the table is sized to the number of entries but no larger than this
+        private static final int MAXIMUM_CAPACITY = 1 << 26;
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        // each long holds sixteen counters, four for each row
+        private long[] table = new long[16];
+        private int sampleSize = 10 * table.length;
+        private int size;
+
+        /**
+         * Grows the sketch so that it can track the given number of entries, this forgets about all frequencies.
+         */
+        void ensureCapacity(int expectedSize) {
+            if (expectedSize <= table.length || table.length >= MAXIMUM_CAPACITY) {
+                return;
+            }
+            table = new long[Math.min(ceilingPowerOfTwo(expectedSize), MAXIMUM_CAPACITY)];
+            sampleSize = 10 * table.length;
+            size = 0;
+        }
+
+        int frequency(Object key) {
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                final int index = indexOf(hash, i);
+                final int counter = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, counter);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            final int offset = counter << 2;
+            final long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        // halves all counters, odd counters lose a fraction that we account for in the size
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (odd >>> 2);
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return ((int) h) & (table.length - 1);
+        }
+
+        // applies a supplemental hash function to defend against poor quality hash codes
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.compress;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -28,25 +29,69 @@ import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.Streams;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 public class CompressorFactory {
 
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    public static final Compressor LZ4 = new Lz4Compressor();
+
+    /**
+     * The compressors that streams can be compressed with, keyed by the name of their compression scheme. Compressed bytes are
+     * detected by the header that the compressor writes, so all compressors can always be read regardless of the configured one.
+     */
+    private static final Map<String, Compressor> COMPRESSORS;
+
+    static {
+        Map<String, Compressor> compressors = new LinkedHashMap<>();
+        compressors.put("deflate", COMPRESSOR);
+        compressors.put("lz4", LZ4);
+        COMPRESSORS = Collections.unmodifiableMap(compressors);
+    }
+
+    /**
+     * Returns the compressor of the given compression scheme.
+     *
+     * @throws IllegalArgumentException if the compression scheme is unknown
+     */
+    public static Compressor compressor(String scheme) {
+        final Compressor compressor = COMPRESSORS.get(scheme);
+        if (compressor == null) {
+            throw new IllegalArgumentException("unknown compression scheme [" + scheme + "], must be one of " + COMPRESSORS.keySet());
+        }
+        return compressor;
+    }
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
 
+    /**
+     * Returns the given compressor if nodes of the given version can read the streams it compresses, or the DEFLATE compressor
+     * that all versions can read otherwise.
+     */
+    public static Compressor compressor(Compressor compressor, Version version) {
+        if (compressor != COMPRESSOR && version.before(Version.V_7_0_0_alpha1)) {
+            return COMPRESSOR;
+        }
+        return compressor;
+    }
+
     @Nullable
     public static Compressor compressor(BytesReference bytes) {
-            if (COMPRESSOR.isCompressed(bytes)) {
+        for (Compressor compressor : COMPRESSORS.values()) {
+            if (compressor.isCompressed(bytes)) {
                 // bytes should be either detected as compressed or as xcontent,
                 // if we have bytes that can be either detected as compressed or
                 // as a xcontent, we have a problem
                 assert XContentHelper.xContentType(bytes) == null;
-                return COMPRESSOR;
+                return compressor;
             }
+        }
 
         XContentType contentType = XContentHelper.xContentType(bytes);
         if (contentType == null) {
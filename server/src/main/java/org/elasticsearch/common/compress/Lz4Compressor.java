@@ -0,0 +1,243 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm, using the pure Java implementation that Lucene uses
+ * to compress stored fields. It compresses and decompresses several times faster than {@link DeflateCompressor} and needs no
+ * native memory, at the cost of a lower compression ratio.
+ * <p>
+ * The data is compressed in independent blocks: every block starts with its uncompressed length as a vInt and the stream ends
+ * with a block of length {@code 0}.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams
+    // It needs to be different from other compressors and to not be specific
+    // enough so that no stream starting with these bytes could be detected as
+    // a XContent
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    // the uncompressed size of a block, large enough for LZ4 to find matches across
+    // the whole window and small enough to not hold on to large buffers
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new Lz4InputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new Lz4OutputStream(out));
+    }
+
+    private static final class Lz4OutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final DataOutput dataOutput;
+        private final org.apache.lucene.codecs.compressing.Compressor compressor = CompressionMode.FAST.newCompressor();
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private int length;
+        private boolean closed;
+
+        Lz4OutputStream(StreamOutput out) {
+            this.out = out;
+            this.dataOutput = new OutputStreamDataOutput(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == BLOCK_SIZE) {
+                writeBlock();
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (length == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(len, BLOCK_SIZE - length);
+                System.arraycopy(b, off, buffer, length, toCopy);
+                length += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (length > 0) {
+                out.writeVInt(length);
+                compressor.compress(buffer, 0, length, dataOutput);
+                length = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // the buffered bytes are compressed as a block of their own so that they can be read on the other end
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                // the end of stream marker
+                out.writeVInt(0);
+            } finally {
+                IOUtils.close(compressor, out);
+            }
+        }
+    }
+
+    private static final class Lz4InputStream extends InputStream {
+
+        private final StreamInput in;
+        private final DataInput dataInput;
+        private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+        private final BytesRef block = new BytesRef();
+        private int position;
+        private boolean eof;
+
+        Lz4InputStream(StreamInput in) {
+            this.in = in;
+            this.dataInput = new InputStreamDataInput(in);
+        }
+
+        /**
+         * Decompresses the next block if the current one was fully read, returns {@code false} at the end of the stream.
+         */
+        private boolean fill() throws IOException {
+            if (position < block.length) {
+                return true;
+            }
+            if (eof) {
+                return false;
+            }
+            final int length = in.readVInt();
+            if (length == 0) {
+                eof = true;
+                return false;
+            }
+            if (length < 0 || length > BLOCK_SIZE) {
+                throw new IOException("corrupted LZ4 stream, invalid block length [" + length + "]");
+            }
+            decompressor.decompress(dataInput, length, 0, length, block);
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (fill() == false) {
+                return -1;
+            }
+            return block.bytes[block.offset + position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (fill() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, block.length - position);
+            System.arraycopy(block.bytes, block.offset + position, b, off, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && fill()) {
+                final int toSkip = (int) Math.min(n - skipped, block.length - position);
+                position += toSkip;
+                skipped += toSkip;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return block.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
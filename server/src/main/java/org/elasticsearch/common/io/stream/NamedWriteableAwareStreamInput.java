@@ -19,6 +19,8 @@
 
 package org.elasticsearch.common.io.stream;
 
+import org.elasticsearch.common.bytes.BytesReference;
+
 import java.io.IOException;
 
 /**
@@ -52,4 +54,15 @@ public class NamedWriteableAwareStreamInput extends FilterStreamInput {
             + "] than it was read from [" + name + "].";
         return c;
     }
+
+    @Override
+    public BytesReference readSharedBytesReference(int length) throws IOException {
+        // the registry doesn't change how bytes are read, so the wrapped stream decides whether they can be shared
+        return delegate.readSharedBytesReference(length);
+    }
+
+    @Override
+    public boolean hasSharedBytes() {
+        return delegate.hasSharedBytes();
+    }
 }
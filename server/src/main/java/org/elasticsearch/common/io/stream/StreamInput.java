@@ -170,6 +170,33 @@ public abstract class StreamInput extends InputStream {
         return new BytesArray(bytes, 0, length);
     }
 
+    /**
+     * Reads a bytes reference from this stream that may share the underlying bytes of the stream instead of copying them. The
+     * transport layer only keeps the bytes of a request alive until the response to the request was sent, so this must only be
+     * used to read requests that don't hold on to the returned reference once they are processed. Use
+     * {@link #readBytesReference()} everywhere else.
+     */
+    public BytesReference readSharedBytesReference() throws IOException {
+        int length = readArraySize();
+        return readSharedBytesReference(length);
+    }
+
+    /**
+     * Reads a bytes reference of the given length from this stream that may share the underlying bytes of the stream instead of
+     * copying them, see {@link #readSharedBytesReference()}. Streams copy the bytes unless they override this method.
+     */
+    public BytesReference readSharedBytesReference(int length) throws IOException {
+        return readBytesReference(length);
+    }
+
+    /**
+     * Returns whether {@link #readSharedBytesReference(int)} handed out a reference that shares the underlying bytes of this stream.
+     * If it did not, the bytes of the stream can be released as soon as everything was read from it.
+     */
+    public boolean hasSharedBytes() {
+        return false;
+    }
+
     public BytesRef readBytesRef() throws IOException {
         int length = readArraySize();
         return readBytesRef(length);
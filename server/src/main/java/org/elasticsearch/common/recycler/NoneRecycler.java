@@ -28,7 +28,7 @@ public class NoneRecycler<T> extends AbstractRecycler<T> {
 
     @Override
     public V<T> obtain(int sizing) {
-        return new NV<>(c.newInstance(sizing));
+        return new NV<>(c, c.newInstance(sizing));
     }
 
     @Override
@@ -38,9 +38,11 @@ public class NoneRecycler<T> extends AbstractRecycler<T> {
 
     public static class NV<T> implements Recycler.V<T> {
 
+        final C<T> c;
         T value;
 
-        NV(T value) {
+        NV(C<T> c, T value) {
+            this.c = c;
             this.value = value;
         }
 
@@ -59,6 +61,7 @@ public class NoneRecycler<T> extends AbstractRecycler<T> {
             if (value == null) {
                 throw new IllegalStateException("recycler entry already released...");
             }
+            c.destroy(value);
             value = null;
         }
     }
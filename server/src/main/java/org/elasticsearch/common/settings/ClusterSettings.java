@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.NodeConnectionsService;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexGraveyard;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.OperationRouting;
@@ -60,11 +61,14 @@ import org.elasticsearch.discovery.zen.UnicastZenPing;
 import org.elasticsearch.discovery.zen.ZenDiscovery;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.gateway.GatewayAllocator;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.http.HttpTransportSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
+import org.elasticsearch.indices.IndicesAggregationCache;
 import org.elasticsearch.indices.IndicesRequestCache;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.analysis.HunspellService;
@@ -172,6 +176,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING,
                     BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING,
                     BalancedShardsAllocator.THRESHOLD_SETTING,
+                    BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING,
+                    BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING,
                     ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING,
                     ConcurrentRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_CLUSTER_CONCURRENT_REBALANCE_SETTING,
                     EnableAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ENABLE_SETTING,
@@ -205,11 +211,16 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_INCLUDE_RELOCATIONS_SETTING,
                     DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_REROUTE_INTERVAL_SETTING,
                     SameShardAllocationDecider.CLUSTER_ROUTING_ALLOCATION_SAME_HOST_SETTING,
+                    ShardStateAction.SHARD_STATE_MAX_BATCH_DELAY_SETTING,
+                    ShardStateAction.SHARD_STATE_MAX_BATCH_SIZE_SETTING,
+                    GatewayAllocator.SHARD_FETCH_MAX_BATCH_SIZE_SETTING,
                     InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING,
                     InternalClusterInfoService.INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING,
                     DestructiveOperations.REQUIRES_NAME_SETTING,
                     DiscoverySettings.PUBLISH_TIMEOUT_SETTING,
                     DiscoverySettings.PUBLISH_DIFF_ENABLE_SETTING,
+                    DiscoverySettings.PUBLISH_COMPRESSION_SCHEME_SETTING,
+                    DiscoverySettings.PUBLISH_CHUNK_SIZE_SETTING,
                     DiscoverySettings.COMMIT_TIMEOUT_SETTING,
                     DiscoverySettings.NO_MASTER_BLOCK_SETTING,
                     GatewayService.EXPECTED_DATA_NODES_SETTING,
@@ -283,6 +294,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     HierarchyCircuitBreakerService.FIELDDATA_CIRCUIT_BREAKER_TYPE_SETTING,
                     HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_TYPE_SETTING,
                     Transport.TRANSPORT_TCP_COMPRESS,
+                    Transport.TRANSPORT_TCP_COMPRESSION_SCHEME,
                     TcpTransport.HOST,
                     TcpTransport.PUBLISH_HOST,
                     TcpTransport.BIND_HOST,
@@ -293,6 +305,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     TcpTransport.PUBLISH_PORT_PROFILE,
                     TcpTransport.PORT_PROFILE,
                     TcpTransport.TCP_NO_DELAY_PROFILE,
+                    TcpTransport.COMPRESSION_SCHEME_PROFILE,
                     TcpTransport.TCP_KEEP_ALIVE_PROFILE,
                     TcpTransport.TCP_REUSE_ADDRESS_PROFILE,
                     TcpTransport.TCP_SEND_BUFFER_SIZE_PROFILE,
@@ -330,6 +343,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     IndicesService.INDICES_CACHE_CLEAN_INTERVAL_SETTING,
                     IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_SIZE_KEY,
                     IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
+                    IndicesAggregationCache.INDICES_CACHE_SIZE,
                     IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
                     HunspellService.HUNSPELL_LAZY_LOAD,
                     HunspellService.HUNSPELL_IGNORE_CASE,
@@ -401,6 +415,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     PageCacheRecycler.WEIGHT_LONG_SETTING,
                     PageCacheRecycler.WEIGHT_OBJECTS_SETTING,
                     PageCacheRecycler.TYPE_SETTING,
+                    PageCacheRecycler.MEMORY_SETTING,
                     PluginsService.MANDATORY_SETTING,
                     BootstrapSettings.SECURITY_FILTER_BAD_DEFAULTS_SETTING,
                     BootstrapSettings.MEMORY_LOCK_SETTING,
@@ -412,6 +427,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
                     IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
                     IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
                     IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+                    IndexingPressure.MAX_INDEXING_BYTES,
                     ResourceWatcherService.ENABLED,
                     ResourceWatcherService.RELOAD_INTERVAL_HIGH,
                     ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -25,6 +25,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.recycler.Recycler;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /** Common implementation for array lists that slice data into fixed-size blocks. */
@@ -148,6 +149,16 @@ abstract class AbstractBigArray extends AbstractArray {
         }
     }
 
+    protected final ByteBuffer newDirectPage(int page) {
+        assert recycler != null && recycler.isDirect() : "direct pages are only available from a direct recycler";
+        final Recycler.V<ByteBuffer> v = recycler.directPage(clearOnResize);
+        cache = grow(cache, page + 1);
+        assert cache[page] == null;
+        cache[page] = v;
+        assert v.v().capacity() == BigArrays.PAGE_SIZE_IN_BYTES;
+        return v.v();
+    }
+
     protected final void releasePage(int page) {
         if (recycler != null) {
             cache[page].close();
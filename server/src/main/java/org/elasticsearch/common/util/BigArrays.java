@@ -370,6 +370,7 @@ public class BigArrays implements Releasable {
     final PageCacheRecycler recycler;
     final CircuitBreakerService breakerService;
     final boolean checkBreaker;
+    private final String breakerName;
     private final BigArrays circuitBreakingInstance;
 
     public BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService) {
@@ -377,15 +378,29 @@ public class BigArrays implements Releasable {
         this(recycler, breakerService, false);
     }
 
+    /**
+     * Creates a new instance that accounts its memory against the breaker with the given name instead of the
+     * {@link CircuitBreaker#REQUEST request} breaker. Checking the breaker is disabled.
+     */
+    public BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName) {
+        this(recycler, breakerService, breakerName, false);
+    }
+
     // public for tests
     public BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, boolean checkBreaker) {
+        this(recycler, breakerService, CircuitBreaker.REQUEST, checkBreaker);
+    }
+
+    private BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName,
+                      boolean checkBreaker) {
         this.checkBreaker = checkBreaker;
         this.recycler = recycler;
         this.breakerService = breakerService;
+        this.breakerName = breakerName;
         if (checkBreaker) {
             this.circuitBreakingInstance = this;
         } else {
-            this.circuitBreakingInstance = new BigArrays(recycler, breakerService, true);
+            this.circuitBreakingInstance = new BigArrays(recycler, breakerService, breakerName, true);
         }
     }
 
@@ -399,7 +414,7 @@ public class BigArrays implements Releasable {
      */
     void adjustBreaker(final long delta, final boolean isDataAlreadyCreated) {
         if (this.breakerService != null) {
-            CircuitBreaker breaker = this.breakerService.getBreaker(CircuitBreaker.REQUEST);
+            CircuitBreaker breaker = this.breakerService.getBreaker(breakerName);
             if (this.checkBreaker) {
                 // checking breaker means potentially tripping, but it doesn't
                 // have to if the delta is negative
@@ -438,6 +453,14 @@ public class BigArrays implements Releasable {
         return this.circuitBreakingInstance.breakerService;
     }
 
+    /**
+     * Whether an array of the given size should be backed by direct pages. When the recycler is configured with
+     * {@link PageCacheRecycler.Memory#DIRECT direct} memory, all arrays that would use a recycled page are allocated outside of the heap.
+     */
+    private boolean useDirectPages(long size, int pageSize) {
+        return recycler != null && recycler.isDirect() && size >= pageSize / 2;
+    }
+
     private <T extends AbstractBigArray> T resizeInPlace(T array, long newSize) {
         final long oldMemSize = array.ramBytesUsed();
         final long oldSize = array.size();
@@ -552,7 +575,10 @@ public class BigArrays implements Releasable {
      * @param clearOnResize whether values should be set to 0 on initialization and resize
      */
     public IntArray newIntArray(long size, boolean clearOnResize) {
-        if (size > INT_PAGE_SIZE) {
+        if (useDirectPages(size, INT_PAGE_SIZE)) {
+            adjustBreaker(DirectIntArray.estimateRamBytes(size), false);
+            return new DirectIntArray(size, this, clearOnResize);
+        } else if (size > INT_PAGE_SIZE) {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigIntArray.estimateRamBytes(size), false);
@@ -577,6 +603,8 @@ public class BigArrays implements Releasable {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof DirectIntArray) {
+            return resizeInPlace((DirectIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -603,7 +631,10 @@ public class BigArrays implements Releasable {
      * @param clearOnResize whether values should be set to 0 on initialization and resize
      */
     public LongArray newLongArray(long size, boolean clearOnResize) {
-        if (size > LONG_PAGE_SIZE) {
+        if (useDirectPages(size, LONG_PAGE_SIZE)) {
+            adjustBreaker(DirectLongArray.estimateRamBytes(size), false);
+            return new DirectLongArray(size, this, clearOnResize);
+        } else if (size > LONG_PAGE_SIZE) {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigLongArray.estimateRamBytes(size), false);
@@ -628,6 +659,8 @@ public class BigArrays implements Releasable {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof DirectLongArray) {
+            return resizeInPlace((DirectLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -654,7 +687,10 @@ public class BigArrays implements Releasable {
      * @param clearOnResize whether values should be set to 0 on initialization and resize
      */
     public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
-        if (size > LONG_PAGE_SIZE) {
+        if (useDirectPages(size, LONG_PAGE_SIZE)) {
+            adjustBreaker(DirectDoubleArray.estimateRamBytes(size), false);
+            return new DirectDoubleArray(size, this, clearOnResize);
+        } else if (size > LONG_PAGE_SIZE) {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigDoubleArray.estimateRamBytes(size), false);
@@ -676,6 +712,8 @@ public class BigArrays implements Releasable {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof DirectDoubleArray) {
+            return resizeInPlace((DirectDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
@@ -702,7 +740,10 @@ public class BigArrays implements Releasable {
      * @param clearOnResize whether values should be set to 0 on initialization and resize
      */
     public FloatArray newFloatArray(long size, boolean clearOnResize) {
-        if (size > INT_PAGE_SIZE) {
+        if (useDirectPages(size, INT_PAGE_SIZE)) {
+            adjustBreaker(DirectFloatArray.estimateRamBytes(size), false);
+            return new DirectFloatArray(size, this, clearOnResize);
+        } else if (size > INT_PAGE_SIZE) {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigFloatArray.estimateRamBytes(size), false);
@@ -724,6 +765,8 @@ public class BigArrays implements Releasable {
     public FloatArray resize(FloatArray array, long size) {
         if (array instanceof BigFloatArray) {
             return resizeInPlace((BigFloatArray) array, size);
+        } else if (array instanceof DirectFloatArray) {
+            return resizeInPlace((DirectFloatArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final FloatArray newArray = newFloatArray(size, arr.clearOnResize);
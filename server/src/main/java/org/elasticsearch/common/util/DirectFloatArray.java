@@ -0,0 +1,121 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.elasticsearch.common.util.BigArrays.INT_PAGE_SIZE;
+
+/**
+ * Float array abstraction able to support more than 2B values. This implementation slices data into direct {@link ByteBuffer}s
+ * that live outside of the heap, see {@link PageCacheRecycler.Memory#DIRECT}.
+ */
+final class DirectFloatArray extends AbstractBigArray implements FloatArray {
+
+    private static final DirectFloatArray ESTIMATOR = new DirectFloatArray(0, BigArrays.NON_RECYCLING_INSTANCE, false);
+
+    // log2 of the number of bytes per element
+    private static final int SHIFT = 2;
+
+    private ByteBuffer[] pages;
+
+    /** Constructor. */
+    DirectFloatArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(INT_PAGE_SIZE, bigArrays, clearOnResize);
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = newDirectPage(i);
+        }
+    }
+
+    @Override
+    public float get(long index) {
+        final int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        return pages[pageIndex].getFloat(indexInPage << SHIFT);
+    }
+
+    @Override
+    public float set(long index, float value) {
+        final int pageIndex = pageIndex(index);
+        final int offset = indexInPage(index) << SHIFT;
+        final ByteBuffer page = pages[pageIndex];
+        final float ret = page.getFloat(offset);
+        page.putFloat(offset, value);
+        return ret;
+    }
+
+    @Override
+    public float increment(long index, float inc) {
+        final int pageIndex = pageIndex(index);
+        final int offset = indexInPage(index) << SHIFT;
+        final ByteBuffer page = pages[pageIndex];
+        final float newValue = page.getFloat(offset) + inc;
+        page.putFloat(offset, newValue);
+        return newValue;
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return Float.BYTES;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            pages[i] = newDirectPage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            releasePage(i);
+        }
+        this.size = newSize;
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, float value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        for (long index = fromIndex; index < toIndex; ) {
+            final int pageIndex = pageIndex(index);
+            final ByteBuffer page = pages[pageIndex];
+            final long pageEnd = Math.min(toIndex, ((long) pageIndex + 1) * pageSize());
+            for (; index < pageEnd; ++index) {
+                page.putFloat(indexInPage(index) << SHIFT, value);
+            }
+        }
+    }
+
+    /** Estimates the number of bytes that would be consumed by an array of the given size. */
+    public static long estimateRamBytes(final long size) {
+        return ESTIMATOR.ramBytesEstimated(size);
+    }
+
+}
@@ -30,8 +30,11 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.recycler.Recyclers.concurrent;
 import static org.elasticsearch.common.recycler.Recyclers.concurrentDeque;
@@ -54,20 +57,26 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    public static final Setting<Memory> MEMORY_SETTING =
+        new Setting<>("cache.recycler.page.memory", Memory.HEAP.name(), Memory::parse, Property.NodeScope);
 
+    private final Memory memory;
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
+    private final AtomicLong directBytesAllocated = new AtomicLong();
 
     @Override
     public void close() {
-        Releasables.close(true, bytePage, intPage, longPage, objectPage);
+        Releasables.close(true, bytePage, intPage, longPage, objectPage, directPage);
     }
 
     public PageCacheRecycler(Settings settings) {
         super(settings);
         final Type type = TYPE_SETTING.get(settings);
+        this.memory = MEMORY_SETTING.get(settings);
         final long limit = LIMIT_HEAP_SETTING.get(settings).getBytes();
         final int availableProcessors = EsExecutors.numberOfProcessors(settings);
 
@@ -104,7 +113,26 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
             }
         });
 
-        final int maxIntPageCount = (int) (intsWeight * maxPageCount / totalWeight);
+        // when pages are allocated off-heap, int, long, float and double arrays all share the same direct pages
+        final int maxDirectPageCount = memory == Memory.DIRECT ? (int) ((intsWeight + longsWeight) * maxPageCount / totalWeight) : 0;
+        directPage = build(type, maxDirectPageCount, availableProcessors, new AbstractRecyclerC<ByteBuffer>() {
+            @Override
+            public ByteBuffer newInstance(int sizing) {
+                directBytesAllocated.addAndGet(BigArrays.PAGE_SIZE_IN_BYTES);
+                return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+            }
+            @Override
+            public void recycle(ByteBuffer value) {
+                // nothing to do
+            }
+            @Override
+            public void destroy(ByteBuffer value) {
+                // the native memory is only freed once the buffer is garbage collected
+                directBytesAllocated.addAndGet(-BigArrays.PAGE_SIZE_IN_BYTES);
+            }
+        });
+
+        final int maxIntPageCount = memory == Memory.DIRECT ? 0 : (int) (intsWeight * maxPageCount / totalWeight);
         intPage = build(type, maxIntPageCount, availableProcessors, new AbstractRecyclerC<int[]>() {
             @Override
             public int[] newInstance(int sizing) {
@@ -116,7 +144,7 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
             }
         });
 
-        final int maxLongPageCount = (int) (longsWeight * maxPageCount / totalWeight);
+        final int maxLongPageCount = memory == Memory.DIRECT ? 0 : (int) (longsWeight * maxPageCount / totalWeight);
         longPage = build(type, maxLongPageCount, availableProcessors, new AbstractRecyclerC<long[]>() {
             @Override
             public long[] newInstance(int sizing) {
@@ -140,7 +168,13 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
             }
         });
 
-        assert BigArrays.PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+        assert BigArrays.PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount
+            + (long) maxDirectPageCount) <= limit;
+    }
+
+    /** Whether int, long, float and double arrays should be backed by {@link #directPage(boolean) direct pages}. */
+    public boolean isDirect() {
+        return memory == Memory.DIRECT;
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -172,6 +206,25 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         return objectPage.obtain();
     }
 
+    /**
+     * Returns a direct {@link ByteBuffer} of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes in native byte order. Direct pages live
+     * outside of the heap, they are only recycled if the recycler is configured with {@link Memory#DIRECT direct} memory.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v();
+            for (int i = 0; i < BigArrays.PAGE_SIZE_IN_BYTES; i += Long.BYTES) {
+                page.putLong(i, 0L);
+            }
+        }
+        return v;
+    }
+
+    public PageCacheRecyclerStats stats() {
+        return new PageCacheRecyclerStats(memory, directBytesAllocated.get());
+    }
+
     private static <T> Recycler<T> build(Type type, int limit, int availableProcessors, Recycler.C<T> c) {
         final Recycler<T> recycler;
         if (limit == 0) {
@@ -212,4 +265,20 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
 
         abstract <T> Recycler<T> build(Recycler.C<T> c, int limit, int availableProcessors);
     }
+
+    /** Where the pages of primitive arrays are allocated. */
+    public enum Memory {
+        /** Pages are java arrays on the heap. */
+        HEAP,
+        /** Pages of int, long, float and double arrays are direct {@link ByteBuffer}s outside of the heap. */
+        DIRECT;
+
+        public static Memory parse(String memory) {
+            try {
+                return Memory.valueOf(memory.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("no memory support [" + memory + "]");
+            }
+        }
+    }
 }
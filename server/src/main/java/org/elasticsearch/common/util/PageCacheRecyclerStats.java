@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Statistics about the pages of the {@link PageCacheRecycler}: where pages are allocated and how much memory outside of the heap is
+ * held by direct pages, either by arrays or by the recycler.
+ */
+public class PageCacheRecyclerStats implements Writeable, ToXContentFragment {
+    private final PageCacheRecycler.Memory memory;
+    private final long offHeapSizeInBytes;
+
+    public PageCacheRecyclerStats(PageCacheRecycler.Memory memory, long offHeapSizeInBytes) {
+        this.memory = memory;
+        this.offHeapSizeInBytes = offHeapSizeInBytes;
+    }
+
+    public PageCacheRecyclerStats(StreamInput in) throws IOException {
+        memory = in.readEnum(PageCacheRecycler.Memory.class);
+        offHeapSizeInBytes = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeEnum(memory);
+        out.writeVLong(offHeapSizeInBytes);
+    }
+
+    public PageCacheRecycler.Memory getMemory() {
+        return memory;
+    }
+
+    public long getOffHeapSizeInBytes() {
+        return offHeapSizeInBytes;
+    }
+
+    public ByteSizeValue getOffHeapSize() {
+        return new ByteSizeValue(offHeapSizeInBytes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.PAGE_CACHE_RECYCLER);
+        builder.field(Fields.MEMORY, memory.name().toLowerCase(Locale.ROOT));
+        builder.humanReadableField(Fields.OFF_HEAP_SIZE_IN_BYTES, Fields.OFF_HEAP_SIZE, getOffHeapSize());
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final String PAGE_CACHE_RECYCLER = "page_cache_recycler";
+        static final String MEMORY = "memory";
+        static final String OFF_HEAP_SIZE = "off_heap_size";
+        static final String OFF_HEAP_SIZE_IN_BYTES = "off_heap_size_in_bytes";
+    }
+}
@@ -22,10 +22,14 @@ package org.elasticsearch.discovery;
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.rest.RestStatus;
 
@@ -60,6 +64,17 @@ public class DiscoverySettings extends AbstractComponent {
             Property.Dynamic, Property.NodeScope);
     public static final Setting<Boolean> PUBLISH_DIFF_ENABLE_SETTING =
         Setting.boolSetting("discovery.zen.publish_diff.enable", true, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Compressor> PUBLISH_COMPRESSION_SCHEME_SETTING =
+        new Setting<>("discovery.zen.publish_compression_scheme", "deflate", CompressorFactory::compressor,
+            Property.Dynamic, Property.NodeScope);
+    /**
+     * sets the number of uncompressed bytes after which a published cluster state is split into another chunk. chunks are sent
+     * one after the other and applied by the receiving node as they arrive.
+     */
+    public static final Setting<ByteSizeValue> PUBLISH_CHUNK_SIZE_SETTING =
+        Setting.byteSizeSetting("discovery.zen.publish_chunk_size", new ByteSizeValue(1, ByteSizeUnit.MB),
+            new ByteSizeValue(1, ByteSizeUnit.BYTES), new ByteSizeValue(Integer.MAX_VALUE, ByteSizeUnit.BYTES),
+            Property.Dynamic, Property.NodeScope);
     public static final Setting<TimeValue> INITIAL_STATE_TIMEOUT_SETTING =
         Setting.positiveTimeSetting("discovery.initial_state_timeout", TimeValue.timeValueSeconds(30), Property.NodeScope);
 
@@ -68,6 +83,8 @@ public class DiscoverySettings extends AbstractComponent {
 
     private volatile TimeValue commitTimeout;
     private volatile boolean publishDiff;
+    private volatile Compressor publishCompressor;
+    private volatile ByteSizeValue publishChunkSize;
 
     public DiscoverySettings(Settings settings, ClusterSettings clusterSettings) {
         super(settings);
@@ -75,10 +92,14 @@ public class DiscoverySettings extends AbstractComponent {
         clusterSettings.addSettingsUpdateConsumer(PUBLISH_DIFF_ENABLE_SETTING, this::setPublishDiff);
         clusterSettings.addSettingsUpdateConsumer(COMMIT_TIMEOUT_SETTING, this::setCommitTimeout);
         clusterSettings.addSettingsUpdateConsumer(PUBLISH_TIMEOUT_SETTING, this::setPublishTimeout);
+        clusterSettings.addSettingsUpdateConsumer(PUBLISH_COMPRESSION_SCHEME_SETTING, this::setPublishCompressor);
+        clusterSettings.addSettingsUpdateConsumer(PUBLISH_CHUNK_SIZE_SETTING, this::setPublishChunkSize);
         this.noMasterBlock = NO_MASTER_BLOCK_SETTING.get(settings);
         this.publishTimeout = PUBLISH_TIMEOUT_SETTING.get(settings);
         this.commitTimeout = COMMIT_TIMEOUT_SETTING.get(settings);
         this.publishDiff = PUBLISH_DIFF_ENABLE_SETTING.get(settings);
+        this.publishCompressor = PUBLISH_COMPRESSION_SCHEME_SETTING.get(settings);
+        this.publishChunkSize = PUBLISH_CHUNK_SIZE_SETTING.get(settings);
     }
 
     /**
@@ -114,6 +135,28 @@ public class DiscoverySettings extends AbstractComponent {
 
     public boolean getPublishDiff() { return publishDiff;}
 
+    private void setPublishCompressor(Compressor publishCompressor) {
+        this.publishCompressor = publishCompressor;
+    }
+
+    /**
+     * Returns the compressor that published cluster states are compressed with
+     */
+    public Compressor getPublishCompressor() {
+        return publishCompressor;
+    }
+
+    private void setPublishChunkSize(ByteSizeValue publishChunkSize) {
+        this.publishChunkSize = publishChunkSize;
+    }
+
+    /**
+     * Returns the number of uncompressed bytes after which a published cluster state is split into another chunk
+     */
+    public ByteSizeValue getPublishChunkSize() {
+        return publishChunkSize;
+    }
+
     private static ClusterBlock parseNoMasterBlock(String value) {
         switch (value) {
             case "all":
@@ -0,0 +1,363 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.discovery.zen;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.Diff;
+import org.elasticsearch.cluster.Diffable;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits published cluster states into chunks that are sent one after the other and applied by the receiving node as they arrive,
+ * so that large cluster states are neither sent nor buffered by the receiving node as a single message. The first chunk starts with
+ * the cluster state, or its diff to the previous cluster state, without any indices. It is followed by one frame per index that holds the
+ * {@link IndexMetaData} and the {@link IndexRoutingTable} of the index, or their diffs. Diffs only contain frames for the indices
+ * that changed. A new chunk is started once the uncompressed frames of a chunk exceed the chunk size, each chunk is compressed on
+ * its own.
+ * <p>
+ * Every chunk is framed as follows, in this order: the UUID of the cluster state and the number of the chunk, then, in the first chunk
+ * only, a boolean that is <code>true</code> for a full cluster state and <code>false</code> for a diff, followed by the cluster state
+ * or diff without any indices. Then come the index frames, each of them prefixed with a <code>true</code> marker, then a
+ * <code>false</code> marker that ends the frames of the chunk, and finally a boolean that is <code>true</code> if this is the last
+ * chunk of the cluster state.
+ */
+final class ClusterStateChunks {
+
+    private static final byte UNCHANGED = 0;
+    private static final byte DELETED = 1;
+    private static final byte FULL = 2;
+    private static final byte DIFF = 3;
+
+    private ClusterStateChunks() {}
+
+    /**
+     * Serializes the given cluster state in chunks
+     */
+    static List<BytesReference> writeFullState(ClusterState clusterState, Version nodeVersion, Compressor compressor,
+                                               long chunkSizeInBytes) throws IOException {
+        try (ChunkedOutput output = new ChunkedOutput(clusterState.stateUUID(), nodeVersion, compressor, chunkSizeInBytes)) {
+            output.writeHeader(out -> {
+                out.writeBoolean(true);
+                withoutIndices(clusterState).writeTo(out);
+            });
+            for (String index : indexNames(clusterState)) {
+                output.writeFrame(out -> writeIndex(out, index, clusterState, null));
+            }
+            return output.finish();
+        }
+    }
+
+    /**
+     * Serializes the diff between the given cluster states in chunks
+     */
+    static List<BytesReference> writeDiff(ClusterState clusterState, ClusterState previousState, Version nodeVersion,
+                                          Compressor compressor, long chunkSizeInBytes) throws IOException {
+        try (ChunkedOutput output = new ChunkedOutput(clusterState.stateUUID(), nodeVersion, compressor, chunkSizeInBytes)) {
+            output.writeHeader(out -> {
+                out.writeBoolean(false);
+                withoutIndices(clusterState).diff(withoutIndices(previousState)).writeTo(out);
+            });
+            final Set<String> indices = indexNames(clusterState);
+            indices.addAll(indexNames(previousState));
+            for (String index : indices) {
+                if (changed(clusterState.metaData().index(index), previousState.metaData().index(index))
+                    || changed(clusterState.routingTable().index(index), previousState.routingTable().index(index))) {
+                    output.writeFrame(out -> writeIndex(out, index, clusterState, previousState));
+                }
+            }
+            return output.finish();
+        }
+    }
+
+    /**
+     * Returns a copy of the given cluster state without any index metadata and index routing tables
+     */
+    static ClusterState withoutIndices(ClusterState clusterState) {
+        return ClusterState.builder(clusterState)
+            .metaData(MetaData.builder(clusterState.metaData()).removeAllIndices())
+            .routingTable(RoutingTable.builder().version(clusterState.routingTable().version()).build())
+            .build();
+    }
+
+    private static Set<String> indexNames(ClusterState clusterState) {
+        final Set<String> indices = new LinkedHashSet<>();
+        clusterState.metaData().indices().keysIt().forEachRemaining(indices::add);
+        clusterState.routingTable().indicesRouting().keysIt().forEachRemaining(indices::add);
+        return indices;
+    }
+
+    private static void writeIndex(StreamOutput out, String index, ClusterState clusterState,
+                                   @Nullable ClusterState previousState) throws IOException {
+        out.writeString(index);
+        writePart(out, clusterState.metaData().index(index), previousState == null ? null : previousState.metaData().index(index));
+        writePart(out, clusterState.routingTable().index(index),
+            previousState == null ? null : previousState.routingTable().index(index));
+    }
+
+    private static <T extends Diffable<T>> boolean changed(@Nullable T part, @Nullable T previousPart) {
+        return part != previousPart && (part == null || previousPart == null || part.equals(previousPart) == false);
+    }
+
+    private static <T extends Diffable<T>> void writePart(StreamOutput out, @Nullable T part, @Nullable T previousPart)
+        throws IOException {
+        if (changed(part, previousPart) == false) {
+            out.writeByte(UNCHANGED);
+        } else if (part == null) {
+            out.writeByte(DELETED);
+        } else if (previousPart == null) {
+            out.writeByte(FULL);
+            part.writeTo(out);
+        } else {
+            out.writeByte(DIFF);
+            part.diff(previousPart).writeTo(out);
+        }
+    }
+
+    @Nullable
+    private static <T> T readPart(StreamInput in, @Nullable T previousPart, Writeable.Reader<T> reader,
+                                  Writeable.Reader<Diff<T>> diffReader) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case UNCHANGED:
+                return previousPart;
+            case DELETED:
+                return null;
+            case FULL:
+                return reader.read(in);
+            case DIFF:
+                if (previousPart == null) {
+                    throw new IllegalStateException("received a diff of a missing part of the cluster state");
+                }
+                return diffReader.read(in).apply(previousPart);
+            default:
+                throw new IllegalStateException("unknown part type [" + type + "]");
+        }
+    }
+
+    private static final class ChunkedOutput implements Closeable {
+
+        private final String stateUUID;
+        private final Version nodeVersion;
+        private final Compressor compressor;
+        private final long chunkSizeInBytes;
+        private final BytesStreamOutput frame = new BytesStreamOutput();
+        private final List<BytesReference> chunks = new ArrayList<>();
+        private BytesStreamOutput chunk;
+        private StreamOutput out;
+        private long chunkUncompressedBytes;
+
+        ChunkedOutput(String stateUUID, Version nodeVersion, Compressor compressor, long chunkSizeInBytes) {
+            this.stateUUID = stateUUID;
+            this.nodeVersion = nodeVersion;
+            this.compressor = compressor;
+            this.chunkSizeInBytes = chunkSizeInBytes;
+            frame.setVersion(nodeVersion);
+        }
+
+        void writeHeader(CheckedConsumer<StreamOutput, IOException> writer) throws IOException {
+            assert chunks.isEmpty() && out == null : "the header must be written first";
+            startChunk();
+            write(writer);
+        }
+
+        void writeFrame(CheckedConsumer<StreamOutput, IOException> writer) throws IOException {
+            assert out != null : "the header must be written first";
+            frame.reset();
+            writer.accept(frame);
+            if (chunkUncompressedBytes > 0 && chunkUncompressedBytes + frame.size() > chunkSizeInBytes) {
+                finishChunk(false);
+                startChunk();
+            }
+            out.writeBoolean(true);
+            frame.bytes().writeTo(out);
+            chunkUncompressedBytes += frame.size();
+        }
+
+        List<BytesReference> finish() throws IOException {
+            finishChunk(true);
+            return chunks;
+        }
+
+        private void write(CheckedConsumer<StreamOutput, IOException> writer) throws IOException {
+            frame.reset();
+            writer.accept(frame);
+            frame.bytes().writeTo(out);
+            chunkUncompressedBytes += frame.size();
+        }
+
+        private void startChunk() throws IOException {
+            chunk = new BytesStreamOutput();
+            out = compressor.streamOutput(chunk);
+            out.setVersion(nodeVersion);
+            out.writeString(stateUUID);
+            out.writeVInt(chunks.size());
+            chunkUncompressedBytes = 0;
+        }
+
+        private void finishChunk(boolean last) throws IOException {
+            out.writeBoolean(false);
+            out.writeBoolean(last);
+            out.close();
+            out = null;
+            chunks.add(chunk.bytes());
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeWhileHandlingException(out);
+        }
+    }
+
+    /**
+     * A cluster state that is received in chunks. The index metadata and index routing tables of each chunk are applied as the chunk
+     * arrives, the cluster state is built once the last chunk was received.
+     */
+    static final class IncomingClusterState {
+
+        private final String stateUUID;
+        private final ClusterState baseState;
+        @Nullable
+        private final ClusterState previousState;
+        private final boolean alreadyReceived;
+        private final MetaData.Builder metaData;
+        private final RoutingTable.Builder routingTable;
+        private int nextChunk;
+        private boolean complete;
+
+        private IncomingClusterState(String stateUUID, ClusterState baseState, @Nullable ClusterState previousState,
+                                     boolean alreadyReceived) {
+            this.stateUUID = stateUUID;
+            this.baseState = baseState;
+            this.previousState = previousState;
+            this.alreadyReceived = alreadyReceived;
+            if (previousState == null) {
+                metaData = MetaData.builder(baseState.metaData());
+                routingTable = RoutingTable.builder();
+            } else {
+                metaData = MetaData.builder(baseState.metaData()).indices(previousState.metaData().indices());
+                routingTable = RoutingTable.builder(previousState.routingTable());
+            }
+            routingTable.version(baseState.routingTable().version());
+        }
+
+        /**
+         * Reads the header of the first chunk of a full cluster state
+         */
+        static IncomingClusterState readFullState(String stateUUID, StreamInput in, DiscoveryNode localNode) throws IOException {
+            final ClusterState baseState = ClusterState.readFrom(in, localNode);
+            assert baseState.stateUUID().equals(stateUUID) : "expected cluster state [" + stateUUID + "] but got " + baseState;
+            return new IncomingClusterState(stateUUID, baseState, null, false);
+        }
+
+        /**
+         * Reads the header of the first chunk of a cluster state diff that applies to the given cluster state
+         */
+        static IncomingClusterState readDiff(String stateUUID, StreamInput in, ClusterState previousState) throws IOException {
+            final Diff<ClusterState> diff = ClusterState.readDiffFrom(in, previousState.nodes().getLocalNode());
+            if (stateUUID.equals(previousState.stateUUID())) {
+                // the cluster state didn't change, the frames that follow are read but not applied
+                return new IncomingClusterState(stateUUID, previousState, previousState, true);
+            }
+            final ClusterState baseState = diff.apply(withoutIndices(previousState));
+            return new IncomingClusterState(stateUUID, baseState, previousState, false);
+        }
+
+        String stateUUID() {
+            return stateUUID;
+        }
+
+        /**
+         * Returns the number of the chunk that is expected next
+         */
+        int nextChunk() {
+            return nextChunk;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Reads and applies the frames of a chunk. The first chunk must be read after its header.
+         */
+        void readChunk(StreamInput in) throws IOException {
+            assert complete == false : "cluster state [" + stateUUID + "] was already received completely";
+            while (in.readBoolean()) {
+                final String index = in.readString();
+                final IndexMetaData previousMetaData = previousState == null ? null : previousState.metaData().index(index);
+                final IndexMetaData indexMetaData = readPart(in, previousMetaData, IndexMetaData::readFrom, IndexMetaData::readDiffFrom);
+                final IndexRoutingTable previousRoutingTable = previousState == null ? null : previousState.routingTable().index(index);
+                final IndexRoutingTable indexRoutingTable =
+                    readPart(in, previousRoutingTable, IndexRoutingTable::readFrom, IndexRoutingTable::readDiffFrom);
+                if (alreadyReceived) {
+                    continue;
+                }
+                if (indexMetaData == null) {
+                    metaData.remove(index);
+                } else {
+                    metaData.put(indexMetaData, false);
+                }
+                if (indexRoutingTable == null) {
+                    routingTable.remove(index);
+                } else {
+                    routingTable.add(indexRoutingTable);
+                }
+            }
+            complete = in.readBoolean();
+            nextChunk++;
+        }
+
+        /**
+         * Builds the cluster state once all chunks were read
+         */
+        ClusterState build() {
+            assert complete : "cluster state [" + stateUUID + "] was not received completely";
+            if (alreadyReceived) {
+                return previousState;
+            }
+            return ClusterState.builder(baseState)
+                .metaData(metaData)
+                .routingTable(routingTable.build())
+                .fromDiff(previousState != null)
+                .build();
+        }
+    }
+}
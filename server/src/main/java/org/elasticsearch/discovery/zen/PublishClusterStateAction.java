@@ -58,8 +58,10 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -70,6 +72,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PublishClusterStateAction extends AbstractComponent {
 
     public static final String SEND_ACTION_NAME = "internal:discovery/zen/publish/send";
+    public static final String SEND_CHUNK_ACTION_NAME = "internal:discovery/zen/publish/send_chunk";
     public static final String COMMIT_ACTION_NAME = "internal:discovery/zen/publish/commit";
 
     public interface IncomingClusterStateListener {
@@ -94,6 +97,12 @@ public class PublishClusterStateAction extends AbstractComponent {
     private final AtomicLong fullClusterStateReceivedCount = new AtomicLong();
     private final AtomicLong incompatibleClusterStateDiffReceivedCount = new AtomicLong();
     private final AtomicLong compatibleClusterStateDiffReceivedCount = new AtomicLong();
+    private final AtomicLong fullClusterStateSentCount = new AtomicLong();
+    private final AtomicLong clusterStateDiffSentCount = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong sentChunks = new AtomicLong();
+    private final AtomicLong fullClusterStateSerializedCount = new AtomicLong();
+    private final AtomicLong clusterStateDiffSerializedCount = new AtomicLong();
 
     public PublishClusterStateAction(
             Settings settings,
@@ -108,6 +117,8 @@ public class PublishClusterStateAction extends AbstractComponent {
         this.discoverySettings = discoverySettings;
         transportService.registerRequestHandler(SEND_ACTION_NAME, BytesTransportRequest::new, ThreadPool.Names.SAME, false, false,
             new SendClusterStateRequestHandler());
+        transportService.registerRequestHandler(SEND_CHUNK_ACTION_NAME, BytesTransportRequest::new, ThreadPool.Names.SAME, false, false,
+            new SendClusterStateChunkRequestHandler());
         transportService.registerRequestHandler(COMMIT_ACTION_NAME, CommitClusterStateRequest::new, ThreadPool.Names.SAME, false, false,
             new CommitClusterStateRequestHandler());
     }
@@ -125,8 +136,7 @@ public class PublishClusterStateAction extends AbstractComponent {
         final DiscoveryNodes nodes;
         final SendingController sendingController;
         final Set<DiscoveryNode> nodesToPublishTo;
-        final Map<Version, BytesReference> serializedStates;
-        final Map<Version, BytesReference> serializedDiffs;
+        final SerializedStates serializedStates;
         final boolean sendFullVersion;
         try {
             nodes = clusterChangedEvent.state().nodes();
@@ -139,15 +149,13 @@ public class PublishClusterStateAction extends AbstractComponent {
                 }
             }
             sendFullVersion = !discoverySettings.getPublishDiff() || clusterChangedEvent.previousState() == null;
-            serializedStates = new HashMap<>();
-            serializedDiffs = new HashMap<>();
+            serializedStates = new SerializedStates(clusterChangedEvent.state(), clusterChangedEvent.previousState());
 
             // we build these early as a best effort not to commit in the case of error.
             // sadly this is not water tight as it may that a failed diff based publishing to a node
             // will cause a full serialization based on an older version, which may fail after the
             // change has been committed.
-            buildDiffAndSerializeStates(clusterChangedEvent.state(), clusterChangedEvent.previousState(),
-                    nodesToPublishTo, sendFullVersion, serializedStates, serializedDiffs);
+            buildDiffAndSerializeStates(clusterChangedEvent.previousState(), nodesToPublishTo, sendFullVersion, serializedStates);
 
             final BlockingClusterStatePublishResponseHandler publishResponseHandler =
                 new AckClusterStatePublishResponseHandler(nodesToPublishTo, ackListener);
@@ -158,7 +166,7 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
 
         try {
-            innerPublish(clusterChangedEvent, nodesToPublishTo, sendingController, sendFullVersion, serializedStates, serializedDiffs);
+            innerPublish(clusterChangedEvent, nodesToPublishTo, sendingController, sendFullVersion, serializedStates);
         } catch (Discovery.FailedToCommitClusterStateException t) {
             throw t;
         } catch (Exception e) {
@@ -174,7 +182,7 @@ public class PublishClusterStateAction extends AbstractComponent {
 
     private void innerPublish(final ClusterChangedEvent clusterChangedEvent, final Set<DiscoveryNode> nodesToPublishTo,
                               final SendingController sendingController, final boolean sendFullVersion,
-                              final Map<Version, BytesReference> serializedStates, final Map<Version, BytesReference> serializedDiffs) {
+                              final SerializedStates serializedStates) {
 
         final ClusterState clusterState = clusterChangedEvent.state();
         final ClusterState previousState = clusterChangedEvent.previousState();
@@ -189,7 +197,7 @@ public class PublishClusterStateAction extends AbstractComponent {
             if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                 sendFullClusterState(clusterState, serializedStates, node, publishTimeout, sendingController);
             } else {
-                sendClusterStateDiff(clusterState, serializedDiffs, serializedStates, node, publishTimeout, sendingController);
+                sendClusterStateDiff(clusterState, serializedStates, node, publishTimeout, sendingController);
             }
         }
 
@@ -213,25 +221,16 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
-    private void buildDiffAndSerializeStates(ClusterState clusterState, ClusterState previousState, Set<DiscoveryNode> nodesToPublishTo,
-                                             boolean sendFullVersion, Map<Version, BytesReference> serializedStates,
-                                             Map<Version, BytesReference> serializedDiffs) {
-        Diff<ClusterState> diff = null;
+    private void buildDiffAndSerializeStates(ClusterState previousState, Set<DiscoveryNode> nodesToPublishTo, boolean sendFullVersion,
+                                             SerializedStates serializedStates) {
         for (final DiscoveryNode node : nodesToPublishTo) {
             try {
                 if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                     // will send a full reference
-                    if (serializedStates.containsKey(node.getVersion()) == false) {
-                        serializedStates.put(node.getVersion(), serializeFullClusterState(clusterState, node.getVersion()));
-                    }
+                    serializedStates.fullState(node.getVersion());
                 } else {
                     // will send a diff
-                    if (diff == null) {
-                        diff = clusterState.diff(previousState);
-                    }
-                    if (serializedDiffs.containsKey(node.getVersion()) == false) {
-                        serializedDiffs.put(node.getVersion(), serializeDiffClusterState(diff, node.getVersion()));
-                    }
+                    serializedStates.diff(node.getVersion());
                 }
             } catch (IOException e) {
                 throw new ElasticsearchException("failed to serialize cluster_state for publishing to node {}", e, node);
@@ -239,49 +238,74 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
-    private void sendFullClusterState(ClusterState clusterState, Map<Version, BytesReference> serializedStates,
+    private void sendFullClusterState(ClusterState clusterState, SerializedStates serializedStates,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
-        BytesReference bytes = serializedStates.get(node.getVersion());
-        if (bytes == null) {
-            try {
-                bytes = serializeFullClusterState(clusterState, node.getVersion());
-                serializedStates.put(node.getVersion(), bytes);
-            } catch (Exception e) {
-                logger.warn(() -> new ParameterizedMessage("failed to serialize cluster_state before publishing it to node {}", node), e);
-                sendingController.onNodeSendFailed(node, e);
-                return;
-            }
+        final List<BytesReference> chunks;
+        try {
+            // the full state of the node's version may not be serialized yet if the node failed to apply a diff
+            chunks = serializedStates.fullState(node.getVersion());
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage("failed to serialize cluster_state before publishing it to node {}", node), e);
+            sendingController.onNodeSendFailed(node, e);
+            return;
         }
-        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, false, serializedStates);
+        sendClusterStateToNode(clusterState, chunks, node, publishTimeout, sendingController, false, serializedStates);
     }
 
-    private void sendClusterStateDiff(ClusterState clusterState,
-                                      Map<Version, BytesReference> serializedDiffs, Map<Version, BytesReference> serializedStates,
+    private void sendClusterStateDiff(ClusterState clusterState, SerializedStates serializedStates,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
-        BytesReference bytes = serializedDiffs.get(node.getVersion());
-        assert bytes != null : "failed to find serialized diff for node " + node + " of version [" + node.getVersion() + "]";
-        sendClusterStateToNode(clusterState, bytes, node, publishTimeout, sendingController, true, serializedStates);
+        final List<BytesReference> chunks;
+        try {
+            chunks = serializedStates.diff(node.getVersion());
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage("failed to serialize cluster_state diff before publishing it to node {}", node), e);
+            sendingController.onNodeSendFailed(node, e);
+            return;
+        }
+        sendClusterStateToNode(clusterState, chunks, node, publishTimeout, sendingController, true, serializedStates);
     }
 
-    private void sendClusterStateToNode(final ClusterState clusterState, BytesReference bytes,
+    private void sendClusterStateToNode(final ClusterState clusterState, List<BytesReference> chunks,
                                         final DiscoveryNode node,
                                         final TimeValue publishTimeout,
                                         final SendingController sendingController,
-                                        final boolean sendDiffs, final Map<Version, BytesReference> serializedStates) {
-        try {
+                                        final boolean sendDiffs, final SerializedStates serializedStates) {
+        if (sendDiffs) {
+            clusterStateDiffSentCount.incrementAndGet();
+        } else {
+            fullClusterStateSentCount.incrementAndGet();
+        }
+        sendClusterStateChunkToNode(clusterState, chunks, 0, node, publishTimeout, sendingController, sendDiffs, serializedStates);
+    }
 
+    /**
+     * Sends the given chunk of a cluster state to the node and the next chunk once the node applied it. Nodes before 7.0.0 receive
+     * the cluster state as a single chunk.
+     */
+    private void sendClusterStateChunkToNode(final ClusterState clusterState, final List<BytesReference> chunks, final int chunk,
+                                             final DiscoveryNode node,
+                                             final TimeValue publishTimeout,
+                                             final SendingController sendingController,
+                                             final boolean sendDiffs, final SerializedStates serializedStates) {
+        try {
+            final BytesReference bytes = chunks.get(chunk);
             // -> no need to put a timeout on the options here, because we want the response to eventually be received
             //  and not log an error if it arrives after the timeout
             // -> no need to compress, we already compressed the bytes
             TransportRequestOptions options = TransportRequestOptions.builder()
                 .withType(TransportRequestOptions.Type.STATE).withCompress(false).build();
-            transportService.sendRequest(node, SEND_ACTION_NAME,
+            transportService.sendRequest(node, supportsChunks(node.getVersion()) ? SEND_CHUNK_ACTION_NAME : SEND_ACTION_NAME,
                     new BytesTransportRequest(bytes, node.getVersion()),
                     options,
                     new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
 
                         @Override
                         public void handleResponse(TransportResponse.Empty response) {
+                            if (chunk + 1 < chunks.size()) {
+                                sendClusterStateChunkToNode(clusterState, chunks, chunk + 1, node, publishTimeout, sendingController,
+                                    sendDiffs, serializedStates);
+                                return;
+                            }
                             if (sendingController.getPublishingTimedOut()) {
                                 logger.debug("node {} responded for cluster state [{}] (took longer than [{}])", node,
                                     clusterState.version(), publishTimeout);
@@ -300,6 +324,8 @@ public class PublishClusterStateAction extends AbstractComponent {
                             }
                         }
                     });
+            sentChunks.incrementAndGet();
+            sentBytes.addAndGet(bytes.length());
         } catch (Exception e) {
             logger.warn(() -> new ParameterizedMessage("error sending cluster state to {}", node), e);
             sendingController.onNodeSendFailed(node, e);
@@ -342,8 +368,13 @@ public class PublishClusterStateAction extends AbstractComponent {
 
 
     public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        return serializeFullClusterState(clusterState, nodeVersion, CompressorFactory.COMPRESSOR);
+    }
+
+    public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion,
+                                                           Compressor compressor) throws IOException {
         BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = compressor.streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(true);
             clusterState.writeTo(stream);
@@ -352,8 +383,12 @@ public class PublishClusterStateAction extends AbstractComponent {
     }
 
     public static BytesReference serializeDiffClusterState(Diff diff, Version nodeVersion) throws IOException {
+        return serializeDiffClusterState(diff, nodeVersion, CompressorFactory.COMPRESSOR);
+    }
+
+    public static BytesReference serializeDiffClusterState(Diff diff, Version nodeVersion, Compressor compressor) throws IOException {
         BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = compressor.streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(false);
             diff.writeTo(stream);
@@ -361,8 +396,74 @@ public class PublishClusterStateAction extends AbstractComponent {
         return bStream.bytes();
     }
 
+    /**
+     * Returns whether nodes of the given version receive cluster states in chunks, see {@link ClusterStateChunks}
+     */
+    static boolean supportsChunks(Version nodeVersion) {
+        return nodeVersion.onOrAfter(Version.V_7_0_0_alpha1);
+    }
+
+    /**
+     * Holds the serialized full cluster state and the serialized diff to the previous cluster state of a single publication, per node
+     * version. Each of them is serialized at most once, on first use, and then shared by all nodes of the same version. This includes
+     * the full states that are sent to nodes that failed to apply a diff, which happens on the transport threads that handle the
+     * responses, so access is synchronized. The states are compressed with the compressor that was configured when the publication
+     * started, unless a node is too old to read it, and split into chunks of the configured chunk size.
+     */
+    private class SerializedStates {
+
+        private final ClusterState clusterState;
+        private final ClusterState previousState;
+        private final Compressor compressor = discoverySettings.getPublishCompressor();
+        private final long chunkSizeInBytes = discoverySettings.getPublishChunkSize().getBytes();
+        private final Map<Version, List<BytesReference>> fullStates = new HashMap<>();
+        private final Map<Version, List<BytesReference>> diffs = new HashMap<>();
+        private Diff<ClusterState> diff;
+
+        SerializedStates(ClusterState clusterState, ClusterState previousState) {
+            this.clusterState = clusterState;
+            this.previousState = previousState;
+        }
+
+        synchronized List<BytesReference> fullState(Version nodeVersion) throws IOException {
+            List<BytesReference> chunks = fullStates.get(nodeVersion);
+            if (chunks == null) {
+                final Compressor nodeCompressor = CompressorFactory.compressor(compressor, nodeVersion);
+                if (supportsChunks(nodeVersion)) {
+                    chunks = ClusterStateChunks.writeFullState(clusterState, nodeVersion, nodeCompressor, chunkSizeInBytes);
+                } else {
+                    chunks = Collections.singletonList(serializeFullClusterState(clusterState, nodeVersion, nodeCompressor));
+                }
+                fullStates.put(nodeVersion, chunks);
+                fullClusterStateSerializedCount.incrementAndGet();
+            }
+            return chunks;
+        }
+
+        synchronized List<BytesReference> diff(Version nodeVersion) throws IOException {
+            List<BytesReference> chunks = diffs.get(nodeVersion);
+            if (chunks == null) {
+                assert previousState != null : "diffs can only be sent if there is a previous state";
+                final Compressor nodeCompressor = CompressorFactory.compressor(compressor, nodeVersion);
+                if (supportsChunks(nodeVersion)) {
+                    chunks = ClusterStateChunks.writeDiff(clusterState, previousState, nodeVersion, nodeCompressor, chunkSizeInBytes);
+                } else {
+                    if (diff == null) {
+                        diff = clusterState.diff(previousState);
+                    }
+                    chunks = Collections.singletonList(serializeDiffClusterState(diff, nodeVersion, nodeCompressor));
+                }
+                diffs.put(nodeVersion, chunks);
+                clusterStateDiffSerializedCount.incrementAndGet();
+            }
+            return chunks;
+        }
+    }
+
     private Object lastSeenClusterStateMutex = new Object();
     private ClusterState lastSeenClusterState;
+    // the cluster state whose chunks are being received, protected by lastSeenClusterStateMutex
+    private ClusterStateChunks.IncomingClusterState incomingClusterState;
 
     protected void handleIncomingClusterStateRequest(BytesTransportRequest request, TransportChannel channel) throws IOException {
         Compressor compressor = CompressorFactory.compressor(request.bytes());
@@ -403,6 +504,66 @@ public class PublishClusterStateAction extends AbstractComponent {
         channel.sendResponse(TransportResponse.Empty.INSTANCE);
     }
 
+    protected void handleIncomingClusterStateChunk(BytesTransportRequest request, TransportChannel channel) throws IOException {
+        Compressor compressor = CompressorFactory.compressor(request.bytes());
+        StreamInput in = request.bytes().streamInput();
+        try {
+            if (compressor != null) {
+                in = compressor.streamInput(in);
+            }
+            in = new NamedWriteableAwareStreamInput(in, namedWriteableRegistry);
+            in.setVersion(request.version());
+            synchronized (lastSeenClusterStateMutex) {
+                final String stateUUID = in.readString();
+                final int chunk = in.readVInt();
+                final ClusterStateChunks.IncomingClusterState incoming;
+                if (chunk == 0) {
+                    // a new publication supersedes a publication that the master didn't finish
+                    incomingClusterState = null;
+                    if (in.readBoolean()) {
+                        incoming = ClusterStateChunks.IncomingClusterState.readFullState(stateUUID, in,
+                            transportService.getLocalNode());
+                    } else if (lastSeenClusterState != null) {
+                        incoming = ClusterStateChunks.IncomingClusterState.readDiff(stateUUID, in, lastSeenClusterState);
+                    } else {
+                        logger.debug("received diff for but don't have any local cluster state - requesting full state");
+                        throw new IncompatibleClusterStateVersionException("have no local cluster state");
+                    }
+                } else if (incomingClusterState != null && incomingClusterState.stateUUID().equals(stateUUID)
+                    && incomingClusterState.nextChunk() == chunk) {
+                    incoming = incomingClusterState;
+                    incomingClusterState = null;
+                } else {
+                    throw new IllegalStateException("received unexpected chunk [" + chunk + "] of cluster state [" + stateUUID + "]");
+                }
+                incoming.readChunk(in);
+                if (incoming.isComplete() == false) {
+                    logger.trace("received chunk [{}] of cluster state [{}] with size [{}]", chunk, stateUUID, request.bytes().length());
+                    incomingClusterState = incoming;
+                } else {
+                    final ClusterState incomingState = incoming.build();
+                    if (incomingState.wasReadFromDiff()) {
+                        compatibleClusterStateDiffReceivedCount.incrementAndGet();
+                        logger.debug("received diff cluster state version [{}] with uuid [{}] in [{}] chunks",
+                            incomingState.version(), incomingState.stateUUID(), chunk + 1);
+                    } else {
+                        fullClusterStateReceivedCount.incrementAndGet();
+                        logger.debug("received full cluster state version [{}] with uuid [{}] in [{}] chunks",
+                            incomingState.version(), incomingState.stateUUID(), chunk + 1);
+                    }
+                    incomingClusterStateListener.onIncomingClusterState(incomingState);
+                    lastSeenClusterState = incomingState;
+                }
+            }
+        } catch (IncompatibleClusterStateVersionException e) {
+            incompatibleClusterStateDiffReceivedCount.incrementAndGet();
+            throw e;
+        } finally {
+            IOUtils.close(in);
+        }
+        channel.sendResponse(TransportResponse.Empty.INSTANCE);
+    }
+
     protected void handleCommitRequest(CommitClusterStateRequest request, final TransportChannel channel) {
         incomingClusterStateListener.onClusterStateCommitted(request.stateUUID, new ActionListener<Void>() {
 
@@ -437,6 +598,14 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
+    private class SendClusterStateChunkRequestHandler implements TransportRequestHandler<BytesTransportRequest> {
+
+        @Override
+        public void messageReceived(BytesTransportRequest request, final TransportChannel channel) throws Exception {
+            handleIncomingClusterStateChunk(request, channel);
+        }
+    }
+
     private class CommitClusterStateRequestHandler implements TransportRequestHandler<CommitClusterStateRequest> {
         @Override
         public void messageReceived(CommitClusterStateRequest request, final TransportChannel channel) throws Exception {
@@ -644,6 +813,12 @@ public class PublishClusterStateAction extends AbstractComponent {
         return new PublishClusterStateStats(
             fullClusterStateReceivedCount.get(),
             incompatibleClusterStateDiffReceivedCount.get(),
-            compatibleClusterStateDiffReceivedCount.get());
+            compatibleClusterStateDiffReceivedCount.get(),
+            fullClusterStateSentCount.get(),
+            clusterStateDiffSentCount.get(),
+            sentBytes.get(),
+            sentChunks.get(),
+            fullClusterStateSerializedCount.get(),
+            clusterStateDiffSerializedCount.get());
     }
 }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.discovery.zen;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -35,24 +36,64 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
     private final long fullClusterStateReceivedCount;
     private final long incompatibleClusterStateDiffReceivedCount;
     private final long compatibleClusterStateDiffReceivedCount;
+    private final long fullClusterStateSentCount;
+    private final long clusterStateDiffSentCount;
+    private final long sentBytes;
+    private final long sentChunks;
+    private final long fullClusterStateSerializedCount;
+    private final long clusterStateDiffSerializedCount;
 
     /**
      * @param fullClusterStateReceivedCount the number of times this node has received a full copy of the cluster state from the master.
      * @param incompatibleClusterStateDiffReceivedCount the number of times this node has received a cluster-state diff from the master.
      * @param compatibleClusterStateDiffReceivedCount the number of times that received cluster-state diffs were compatible with
+     * @param fullClusterStateSentCount the number of times this node has sent a full copy of the cluster state while being master.
+     * @param clusterStateDiffSentCount the number of times this node has sent a cluster-state diff while being master.
+     * @param sentBytes the number of compressed bytes of all full cluster states and diffs this node has sent.
+     * @param sentChunks the number of chunks that the full cluster states and diffs this node has sent were split into.
+     * @param fullClusterStateSerializedCount the number of times this node has serialized a full copy of the cluster state for
+     *                                        publishing. Serialized states are shared by all nodes of the same version.
+     * @param clusterStateDiffSerializedCount the number of times this node has serialized a cluster-state diff for publishing.
      */
     public PublishClusterStateStats(long fullClusterStateReceivedCount,
                                     long incompatibleClusterStateDiffReceivedCount,
-                                    long compatibleClusterStateDiffReceivedCount) {
+                                    long compatibleClusterStateDiffReceivedCount,
+                                    long fullClusterStateSentCount,
+                                    long clusterStateDiffSentCount,
+                                    long sentBytes,
+                                    long sentChunks,
+                                    long fullClusterStateSerializedCount,
+                                    long clusterStateDiffSerializedCount) {
         this.fullClusterStateReceivedCount = fullClusterStateReceivedCount;
         this.incompatibleClusterStateDiffReceivedCount = incompatibleClusterStateDiffReceivedCount;
         this.compatibleClusterStateDiffReceivedCount = compatibleClusterStateDiffReceivedCount;
+        this.fullClusterStateSentCount = fullClusterStateSentCount;
+        this.clusterStateDiffSentCount = clusterStateDiffSentCount;
+        this.sentBytes = sentBytes;
+        this.sentChunks = sentChunks;
+        this.fullClusterStateSerializedCount = fullClusterStateSerializedCount;
+        this.clusterStateDiffSerializedCount = clusterStateDiffSerializedCount;
     }
 
     public PublishClusterStateStats(StreamInput in) throws IOException {
         fullClusterStateReceivedCount = in.readVLong();
         incompatibleClusterStateDiffReceivedCount = in.readVLong();
         compatibleClusterStateDiffReceivedCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            fullClusterStateSentCount = in.readVLong();
+            clusterStateDiffSentCount = in.readVLong();
+            sentBytes = in.readVLong();
+            sentChunks = in.readVLong();
+            fullClusterStateSerializedCount = in.readVLong();
+            clusterStateDiffSerializedCount = in.readVLong();
+        } else {
+            fullClusterStateSentCount = 0;
+            clusterStateDiffSentCount = 0;
+            sentBytes = 0;
+            sentChunks = 0;
+            fullClusterStateSerializedCount = 0;
+            clusterStateDiffSerializedCount = 0;
+        }
     }
 
     @Override
@@ -60,6 +101,14 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
         out.writeVLong(fullClusterStateReceivedCount);
         out.writeVLong(incompatibleClusterStateDiffReceivedCount);
         out.writeVLong(compatibleClusterStateDiffReceivedCount);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(fullClusterStateSentCount);
+            out.writeVLong(clusterStateDiffSentCount);
+            out.writeVLong(sentBytes);
+            out.writeVLong(sentChunks);
+            out.writeVLong(fullClusterStateSerializedCount);
+            out.writeVLong(clusterStateDiffSerializedCount);
+        }
     }
 
     @Override
@@ -69,6 +118,12 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
             builder.field("full_states", fullClusterStateReceivedCount);
             builder.field("incompatible_diffs", incompatibleClusterStateDiffReceivedCount);
             builder.field("compatible_diffs", compatibleClusterStateDiffReceivedCount);
+            builder.field("sent_full_states", fullClusterStateSentCount);
+            builder.field("sent_diffs", clusterStateDiffSentCount);
+            builder.field("sent_bytes", sentBytes);
+            builder.field("sent_chunks", sentChunks);
+            builder.field("serialized_full_states", fullClusterStateSerializedCount);
+            builder.field("serialized_diffs", clusterStateDiffSerializedCount);
         }
         builder.endObject();
         return builder;
@@ -80,11 +135,29 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
 
     long getCompatibleClusterStateDiffReceivedCount() { return compatibleClusterStateDiffReceivedCount; }
 
+    long getFullClusterStateSentCount() { return fullClusterStateSentCount; }
+
+    long getClusterStateDiffSentCount() { return clusterStateDiffSentCount; }
+
+    long getSentBytes() { return sentBytes; }
+
+    long getSentChunks() { return sentChunks; }
+
+    long getFullClusterStateSerializedCount() { return fullClusterStateSerializedCount; }
+
+    long getClusterStateDiffSerializedCount() { return clusterStateDiffSerializedCount; }
+
     @Override
     public String toString() {
         return "PublishClusterStateStats(full=" + fullClusterStateReceivedCount
             + ", incompatible=" + incompatibleClusterStateDiffReceivedCount
             + ", compatible=" + compatibleClusterStateDiffReceivedCount
+            + ", sentFull=" + fullClusterStateSentCount
+            + ", sentDiffs=" + clusterStateDiffSentCount
+            + ", sentBytes=" + sentBytes
+            + ", sentChunks=" + sentChunks
+            + ", serializedFull=" + fullClusterStateSerializedCount
+            + ", serializedDiffs=" + clusterStateDiffSerializedCount
             + ")";
     }
 }
@@ -65,6 +65,23 @@ public abstract class AsyncShardFetch<T extends BaseNodeResponse> implements Rel
         void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<NodesResponse> listener);
     }
 
+    /**
+     * An action that can also list the relevant data of many shards on a single node with one request, see {@link BatchedShardLister}.
+     */
+    public interface BatchLister<NodesResponse extends BaseNodesResponse<NodeResponse>, NodeResponse extends BaseNodeResponse>
+        extends Lister<NodesResponse, NodeResponse> {
+
+        /**
+         * Lists the data of the given shards on the given node.
+         */
+        void listBatch(DiscoveryNode node, List<ShardId> shardIds, ActionListener<NodeShardsBatchResponse<NodeResponse>> listener);
+
+        /**
+         * Builds the response of listing a single shard from the responses and failures of the nodes it was listed on.
+         */
+        NodesResponse newNodesResponse(List<NodeResponse> responses, List<FailedNodeException> failures);
+    }
+
     protected final Logger logger;
     protected final String type;
     protected final ShardId shardId;
@@ -0,0 +1,191 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link AsyncShardFetch.Lister} that doesn't send a request per listed shard to every node, but collects the shards that are listed
+ * during an allocation round until {@link #flush()} is called. It then sends one request per node, listing all the shards that node
+ * is asked about, in batches of at most {@code maxBatchSize} shards.
+ * <p>
+ * The shards are batched in the order they were listed. The gateway allocator lists them in the priority order of the unassigned
+ * shards (see {@link PriorityComparator}), so the shards of the most important indices are in the first batches which are sent, answered
+ * and allocated first.
+ */
+public class BatchedShardLister<NodesResponse extends BaseNodesResponse<NodeResponse>, NodeResponse extends BaseNodeResponse>
+    implements AsyncShardFetch.Lister<NodesResponse, NodeResponse> {
+
+    private final AsyncShardFetch.BatchLister<NodesResponse, NodeResponse> action;
+    private final IntSupplier maxBatchSize;
+    private final Map<DiscoveryNode, List<ShardListing>> pendingListings = new LinkedHashMap<>(); // guarded by this
+
+    public BatchedShardLister(AsyncShardFetch.BatchLister<NodesResponse, NodeResponse> action, IntSupplier maxBatchSize) {
+        this.action = action;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<NodesResponse> listener) {
+        final ShardListing listing = new ShardListing(shardId, nodes.length, listener);
+        if (nodes.length == 0) {
+            listing.respond();
+            return;
+        }
+        synchronized (this) {
+            for (DiscoveryNode node : nodes) {
+                pendingListings.computeIfAbsent(node, n -> new ArrayList<>()).add(listing);
+            }
+        }
+    }
+
+    /**
+     * Sends the requests for all the shards that were listed since the last flush.
+     */
+    public void flush() {
+        final Map<DiscoveryNode, List<ShardListing>> listingsToSend;
+        synchronized (this) {
+            if (pendingListings.isEmpty()) {
+                return;
+            }
+            listingsToSend = new LinkedHashMap<>(pendingListings);
+            pendingListings.clear();
+        }
+        final int batchSize = maxBatchSize.getAsInt();
+        for (Map.Entry<DiscoveryNode, List<ShardListing>> entry : listingsToSend.entrySet()) {
+            final DiscoveryNode node = entry.getKey();
+            final List<ShardListing> listings = entry.getValue();
+            if (node.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                for (int from = 0; from < listings.size(); from += batchSize) {
+                    listBatch(node, listings.subList(from, Math.min(from + batchSize, listings.size())));
+                }
+            } else {
+                // nodes of earlier versions can only list a single shard per request
+                for (ShardListing listing : listings) {
+                    listSingle(node, listing);
+                }
+            }
+        }
+    }
+
+    private void listBatch(DiscoveryNode node, List<ShardListing> listings) {
+        final List<ShardId> shardIds = new ArrayList<>(listings.size());
+        for (ShardListing listing : listings) {
+            shardIds.add(listing.shardId);
+        }
+        action.listBatch(node, shardIds, new ActionListener<NodeShardsBatchResponse<NodeResponse>>() {
+            @Override
+            public void onResponse(NodeShardsBatchResponse<NodeResponse> response) {
+                assert response.size() == listings.size() :
+                    "expected [" + listings.size() + "] responses but got [" + response.size() + "]";
+                for (int i = 0; i < listings.size(); i++) {
+                    final Exception failure = response.getFailure(i);
+                    if (failure == null) {
+                        listings.get(i).onNodeResponse(response.getResponse(i));
+                    } else {
+                        listings.get(i).onNodeFailure(
+                            new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", failure));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (ShardListing listing : listings) {
+                    listing.onNodeFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", e));
+                }
+            }
+        });
+    }
+
+    private void listSingle(DiscoveryNode node, ShardListing listing) {
+        action.list(listing.shardId, new DiscoveryNode[] { node }, new ActionListener<NodesResponse>() {
+            @Override
+            public void onResponse(NodesResponse response) {
+                for (NodeResponse nodeResponse : response.getNodes()) {
+                    listing.onNodeResponse(nodeResponse);
+                }
+                for (FailedNodeException failure : response.failures()) {
+                    listing.onNodeFailure(failure);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listing.onNodeFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", e));
+            }
+        });
+    }
+
+    /**
+     * The listing of a single shard, which collects the responses of all the nodes the shard was listed on.
+     */
+    private class ShardListing {
+        private final ShardId shardId;
+        private final ActionListener<NodesResponse> listener;
+        private final List<NodeResponse> responses = new ArrayList<>();
+        private final List<FailedNodeException> failures = new ArrayList<>();
+        private int pendingNodes;
+
+        ShardListing(ShardId shardId, int numberOfNodes, ActionListener<NodesResponse> listener) {
+            this.shardId = shardId;
+            this.pendingNodes = numberOfNodes;
+            this.listener = listener;
+        }
+
+        void onNodeResponse(NodeResponse response) {
+            final boolean done;
+            synchronized (this) {
+                responses.add(response);
+                done = --pendingNodes == 0;
+            }
+            if (done) {
+                respond();
+            }
+        }
+
+        void onNodeFailure(FailedNodeException failure) {
+            final boolean done;
+            synchronized (this) {
+                failures.add(failure);
+                done = --pendingNodes == 0;
+            }
+            if (done) {
+                respond();
+            }
+        }
+
+        void respond() {
+            listener.onResponse(action.newNodesResponse(responses, failures));
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.shard.ShardId;
@@ -43,11 +44,26 @@ import java.util.concurrent.ConcurrentMap;
 
 public class GatewayAllocator extends AbstractComponent {
 
+    /**
+     * How many shards the master lists at most with a single request to a node when it fetches the shard data it needs to allocate
+     * unassigned shards. Smaller batches return sooner, so the shards of the indices with the highest priority can be allocated earlier.
+     */
+    public static final Setting<Integer> SHARD_FETCH_MAX_BATCH_SIZE_SETTING =
+        Setting.intSetting("cluster.routing.allocation.shard_fetch.max_batch_size", 100, 1,
+            Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     private final RoutingService routingService;
 
     private final PrimaryShardAllocator primaryShardAllocator;
     private final ReplicaShardAllocator replicaShardAllocator;
 
+    private final BatchedShardLister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedShardsLister;
+    private final BatchedShardLister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+        TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> shardStoresLister;
+
+    private volatile int shardFetchMaxBatchSize;
+
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>> asyncFetchStarted = ConcurrentCollections.newConcurrentMap();
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>> asyncFetchStore = ConcurrentCollections.newConcurrentMap();
 
@@ -56,8 +72,12 @@ public class GatewayAllocator extends AbstractComponent {
                             TransportNodesListGatewayStartedShards startedAction, TransportNodesListShardStoreMetaData storeAction) {
         super(settings);
         this.routingService = routingService;
-        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedAction);
-        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, storeAction);
+        this.shardFetchMaxBatchSize = SHARD_FETCH_MAX_BATCH_SIZE_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SHARD_FETCH_MAX_BATCH_SIZE_SETTING, this::setShardFetchMaxBatchSize);
+        this.startedShardsLister = new BatchedShardLister<>(startedAction, () -> shardFetchMaxBatchSize);
+        this.shardStoresLister = new BatchedShardLister<>(storeAction, () -> shardFetchMaxBatchSize);
+        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedShardsLister);
+        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, shardStoresLister);
         clusterService.addStateApplier(event -> {
             boolean cleanCache = false;
             DiscoveryNode localNode = event.state().nodes().getLocalNode();
@@ -83,6 +103,12 @@ public class GatewayAllocator extends AbstractComponent {
         this.routingService = null;
         this.primaryShardAllocator = null;
         this.replicaShardAllocator = null;
+        this.startedShardsLister = null;
+        this.shardStoresLister = null;
+    }
+
+    private void setShardFetchMaxBatchSize(int shardFetchMaxBatchSize) {
+        this.shardFetchMaxBatchSize = shardFetchMaxBatchSize;
     }
 
     public int getNumberOfInFlightFetch() {
@@ -111,7 +137,19 @@ public class GatewayAllocator extends AbstractComponent {
     }
 
     public void allocateUnassigned(final RoutingAllocation allocation) {
-        innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        try {
+            innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        } finally {
+            flushShardFetches();
+        }
+    }
+
+    /**
+     * Sends out the requests for the shard data that was asked for while allocating, with one request per node for all its shards.
+     */
+    private void flushShardFetches() {
+        startedShardsLister.flush();
+        shardStoresLister.flush();
     }
 
     // allow for testing infra to change shard allocators implementation
@@ -131,10 +169,14 @@ public class GatewayAllocator extends AbstractComponent {
      * {@link AllocateUnassignedDecision#NOT_TAKEN} is returned.
      */
     public AllocateUnassignedDecision decideUnassignedShardAllocation(ShardRouting unassignedShard, RoutingAllocation routingAllocation) {
-        if (unassignedShard.primary()) {
-            return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
-        } else {
-            return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+        try {
+            if (unassignedShard.primary()) {
+                return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } else {
+                return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            }
+        } finally {
+            flushShardFetches();
         }
     }
 
@@ -153,9 +195,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalPrimaryShardAllocator extends PrimaryShardAllocator {
 
-        private final TransportNodesListGatewayStartedShards startedAction;
+        private final AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+            TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction;
 
-        InternalPrimaryShardAllocator(Settings settings, TransportNodesListGatewayStartedShards startedAction) {
+        InternalPrimaryShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+                                          TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction) {
             super(settings);
             this.startedAction = startedAction;
         }
@@ -176,9 +221,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalReplicaShardAllocator extends ReplicaShardAllocator {
 
-        private final TransportNodesListShardStoreMetaData storeAction;
+        private final AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+            TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction;
 
-        InternalReplicaShardAllocator(Settings settings, TransportNodesListShardStoreMetaData storeAction) {
+        InternalReplicaShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+                                          TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction) {
             super(settings);
             this.storeAction = storeAction;
         }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportRequestHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Handles a {@link NodeShardsBatchRequest} by listing the data of the requested shards in parallel on the given executor, which is
+ * one of the shard fetching thread pools, and responding once all shards were listed. Listing a shard reads its files from disk, so
+ * the shards of a batch shouldn't wait for each other on a single thread. The handler itself only forks and should be registered
+ * with the {@link org.elasticsearch.threadpool.ThreadPool.Names#SAME} executor.
+ */
+public class NodeShardsBatchHandler<T extends BaseNodeResponse> implements TransportRequestHandler<NodeShardsBatchRequest> {
+
+    private static final Logger logger = Loggers.getLogger(NodeShardsBatchHandler.class);
+
+    private final Executor executor;
+    private final CheckedFunction<ShardId, T, Exception> lister;
+
+    public NodeShardsBatchHandler(Executor executor, CheckedFunction<ShardId, T, Exception> lister) {
+        this.executor = executor;
+        this.lister = lister;
+    }
+
+    @Override
+    public void messageReceived(NodeShardsBatchRequest request, TransportChannel channel) {
+        final List<ShardId> shardIds = request.getShardIds();
+        if (shardIds.isEmpty()) {
+            sendResponse(channel, new NodeShardsBatchResponse<>(new ArrayList<>(), new ArrayList<>()));
+            return;
+        }
+        final AtomicReferenceArray<T> responses = new AtomicReferenceArray<>(shardIds.size());
+        final AtomicReferenceArray<Exception> failures = new AtomicReferenceArray<>(shardIds.size());
+        final CountDown countDown = new CountDown(shardIds.size());
+        for (int i = 0; i < shardIds.size(); i++) {
+            final int index = i;
+            final ShardId shardId = shardIds.get(i);
+            executor.execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    responses.set(index, lister.apply(shardId));
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    failures.set(index, e);
+                }
+
+                @Override
+                public void onAfter() {
+                    if (countDown.countDown()) {
+                        final List<T> shardResponses = new ArrayList<>(shardIds.size());
+                        final List<Exception> shardFailures = new ArrayList<>(shardIds.size());
+                        for (int j = 0; j < shardIds.size(); j++) {
+                            shardResponses.add(failures.get(j) == null ? responses.get(j) : null);
+                            shardFailures.add(failures.get(j));
+                        }
+                        sendResponse(channel, new NodeShardsBatchResponse<>(shardResponses, shardFailures));
+                    }
+                }
+            });
+        }
+    }
+
+    private static void sendResponse(TransportChannel channel, NodeShardsBatchResponse<?> response) {
+        try {
+            channel.sendResponse(response);
+        } catch (Exception e) {
+            try {
+                channel.sendResponse(e);
+            } catch (Exception inner) {
+                inner.addSuppressed(e);
+                logger.warn("failed to send the response to a shard batch request", inner);
+            }
+        }
+    }
+}
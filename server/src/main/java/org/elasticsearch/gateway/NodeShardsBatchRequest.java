@@ -0,0 +1,60 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A request to a single node to list its data about many shards at once, see {@link BatchedShardLister}.
+ */
+public class NodeShardsBatchRequest extends TransportRequest {
+
+    private final List<ShardId> shardIds;
+
+    public NodeShardsBatchRequest(List<ShardId> shardIds) {
+        this.shardIds = shardIds;
+    }
+
+    public NodeShardsBatchRequest(StreamInput in) throws IOException {
+        super(in);
+        shardIds = in.readList(ShardId::readShardId);
+    }
+
+    public List<ShardId> getShardIds() {
+        return shardIds;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeStreamableList(shardIds);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeShardsBatchRequest{shardIds=" + shardIds + "}";
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The response of a single node to a {@link NodeShardsBatchRequest}. For every requested shard, in the order of the request, it holds
+ * either the data of the node about the shard or the failure to list it.
+ */
+public class NodeShardsBatchResponse<T extends BaseNodeResponse> extends TransportResponse {
+
+    private final Supplier<T> responseSupplier;
+    private List<T> responses;
+    private List<Exception> failures;
+
+    /**
+     * Creates an empty response to read from the wire, using the given supplier to create the responses of the single shards.
+     */
+    public NodeShardsBatchResponse(Supplier<T> responseSupplier) {
+        this.responseSupplier = responseSupplier;
+    }
+
+    /**
+     * Creates a response from the responses and failures of the single shards, the entries of which are {@code null} if the shard
+     * has a failure or a response respectively.
+     */
+    public NodeShardsBatchResponse(List<T> responses, List<Exception> failures) {
+        assert responses.size() == failures.size() : "expected as many responses as failures but got " + responses + " and " + failures;
+        this.responseSupplier = null;
+        this.responses = responses;
+        this.failures = failures;
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    @Nullable
+    public T getResponse(int index) {
+        return responses.get(index);
+    }
+
+    @Nullable
+    public Exception getFailure(int index) {
+        return failures.get(index);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        final int size = in.readVInt();
+        responses = new ArrayList<>(size);
+        failures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (in.readBoolean()) {
+                responses.add(null);
+                failures.add(in.readException());
+            } else {
+                final T response = responseSupplier.get();
+                response.readFrom(in);
+                responses.add(response);
+                failures.add(null);
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            final Exception failure = failures.get(i);
+            if (failure != null) {
+                out.writeBoolean(true);
+                out.writeException(failure);
+            } else {
+                out.writeBoolean(false);
+                responses.get(i).writeTo(out);
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.nodes.BaseNodeRequest;
@@ -48,6 +49,7 @@ import org.elasticsearch.index.shard.ShardStateMetaData;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -64,10 +66,11 @@ public class TransportNodesListGatewayStartedShards extends
         TransportNodesListGatewayStartedShards.NodeRequest,
         TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>
     implements
-    AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+    AsyncShardFetch.BatchLister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
         TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> {
 
     public static final String ACTION_NAME = "internal:gateway/local/started_shards";
+    public static final String BATCH_ACTION_NAME = "internal:gateway/local/started_shards_batch[n]";
     private final NodeEnvironment nodeEnv;
     private final IndicesService indicesService;
 
@@ -82,6 +85,8 @@ public class TransportNodesListGatewayStartedShards extends
               NodeGatewayStartedShards.class);
         this.nodeEnv = env;
         this.indicesService = indicesService;
+        transportService.registerRequestHandler(BATCH_ACTION_NAME, ThreadPool.Names.SAME, NodeShardsBatchRequest::new,
+            new NodeShardsBatchHandler<>(threadPool.executor(ThreadPool.Names.FETCH_SHARD_STARTED), this::listStartedShard));
     }
 
     @Override
@@ -90,6 +95,19 @@ public class TransportNodesListGatewayStartedShards extends
         execute(new Request(shardId, nodes), listener);
     }
 
+    @Override
+    public void listBatch(DiscoveryNode node, List<ShardId> shardIds,
+                          ActionListener<NodeShardsBatchResponse<NodeGatewayStartedShards>> listener) {
+        transportService.sendRequest(node, BATCH_ACTION_NAME, new NodeShardsBatchRequest(shardIds),
+            TransportRequestOptions.builder().withCompress(transportCompress()).build(),
+            new ActionListenerResponseHandler<>(listener, () -> new NodeShardsBatchResponse<>(NodeGatewayStartedShards::new)));
+    }
+
+    @Override
+    public NodesGatewayStartedShards newNodesResponse(List<NodeGatewayStartedShards> responses, List<FailedNodeException> failures) {
+        return new NodesGatewayStartedShards(clusterService.getClusterName(), responses, failures);
+    }
+
     @Override
     protected boolean transportCompress() {
         return true; // this can become big...
@@ -113,11 +131,14 @@ public class TransportNodesListGatewayStartedShards extends
 
     @Override
     protected NodeGatewayStartedShards nodeOperation(NodeRequest request) {
+        return listStartedShard(request.getShardId());
+    }
+
+    private NodeGatewayStartedShards listStartedShard(ShardId shardId) {
         try {
-            final ShardId shardId = request.getShardId();
             logger.trace("{} loading local shard state info", shardId);
             ShardStateMetaData shardStateMetaData = ShardStateMetaData.FORMAT.loadLatestState(logger, NamedXContentRegistry.EMPTY,
-                nodeEnv.availableShardPaths(request.shardId));
+                nodeEnv.availableShardPaths(shardId));
             if (shardStateMetaData != null) {
                 IndexMetaData metaData = clusterService.state().metaData().index(shardId.getIndex());
                 if (metaData == null) {
@@ -129,7 +150,7 @@ public class TransportNodesListGatewayStartedShards extends
                 }
                 if (metaData == null) {
                     ElasticsearchException e = new ElasticsearchException("failed to find local IndexMetaData");
-                    e.setShard(request.shardId);
+                    e.setShard(shardId);
                     throw e;
                 }
 
@@ -242,6 +242,21 @@ public final class IndexSettings {
     public static final Setting<Integer> MAX_REFRESH_LISTENERS_PER_SHARD = Setting.intSetting("index.max_refresh_listeners", 1000, 0,
             Property.Dynamic, Property.IndexScope);
 
+    /**
+     * The maximum number of threads that parse the documents of a bulk request on a shard of the index, including the thread that
+     * executes the request.
+     */
+    public static final Setting<Integer> BULK_PARSE_THREADS_SETTING = Setting.intSetting("index.bulk.parse_threads", 1, 1, 32,
+            Property.Dynamic, Property.IndexScope);
+
+    /**
+     * Whether the query phase of searches on a shard of the index collects segments concurrently by default. Search requests can
+     * override it. Requests with aggregations or profiling, scrolls and collapsed searches always collect segments sequentially,
+     * there are no per-slice aggregators that are reduced on the shard and no per-slice profile trees.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_SETTING =
+        Setting.boolSetting("index.search.concurrent_segment_search", false, Property.Dynamic, Property.IndexScope);
+
     /**
      * The maximum number of slices allowed in a scroll request
      */
@@ -298,6 +313,11 @@ public final class IndexSettings {
      * The maximum number of refresh listeners allows on this shard.
      */
     private volatile int maxRefreshListeners;
+    /**
+     * The maximum number of threads that parse the documents of a bulk request on a shard.
+     */
+    private volatile int bulkParseThreads;
+    private volatile boolean concurrentSegmentSearch;
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -401,6 +421,8 @@ public final class IndexSettings {
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
         maxShingleDiff = scopedSettings.get(MAX_SHINGLE_DIFF_SETTING);
         maxRefreshListeners = scopedSettings.get(MAX_REFRESH_LISTENERS_PER_SHARD);
+        bulkParseThreads = scopedSettings.get(BULK_PARSE_THREADS_SETTING);
+        concurrentSegmentSearch = scopedSettings.get(CONCURRENT_SEGMENT_SEARCH_SETTING);
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
         maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
         maxTermsCount = scopedSettings.get(MAX_TERMS_COUNT_SETTING);
@@ -441,6 +463,8 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_RETENTION_SIZE_SETTING, this::setTranslogRetentionSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
+        scopedSettings.addSettingsUpdateConsumer(BULK_PARSE_THREADS_SETTING, this::setBulkParseThreads);
+        scopedSettings.addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_SETTING, this::setConcurrentSegmentSearch);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
@@ -780,6 +804,28 @@ public final class IndexSettings {
         this.maxRefreshListeners = maxRefreshListeners;
     }
 
+    /**
+     * The maximum number of threads that parse the documents of a bulk request on a shard.
+     */
+    public int getBulkParseThreads() {
+        return bulkParseThreads;
+    }
+
+    private void setBulkParseThreads(int bulkParseThreads) {
+        this.bulkParseThreads = bulkParseThreads;
+    }
+
+    /**
+     * Returns <code>true</code> if the query phase collects the segments of a shard concurrently unless the request says otherwise.
+     */
+    public boolean isConcurrentSegmentSearch() {
+        return concurrentSegmentSearch;
+    }
+
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -0,0 +1,196 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the bytes of the indexing requests that a node is currently working on and rejects new requests once these bytes exceed
+ * {@link #MAX_INDEXING_BYTES}. The thread pool queues limit the number of requests, which doesn't protect a node from a few very
+ * large bulk requests, so the limit is on the bytes of the requests instead.
+ * <p>
+ * A bulk request is accounted for as a coordinating operation on the node that receives it and as a primary operation on the nodes
+ * that hold the primaries of the shards it touches. Both count towards the same limit. Primary operations that are executed on the
+ * coordinating node are not accounted for against the limit a second time. Replica operations are only rejected once their bytes
+ * exceed 1.5 times the limit, since rejecting them fails the replica.
+ */
+public class IndexingPressure extends AbstractComponent {
+
+    public static final Setting<ByteSizeValue> MAX_INDEXING_BYTES =
+        Setting.memorySizeSetting("indexing_pressure.memory.limit", "10%", Setting.Property.NodeScope);
+
+    private final AtomicLong currentCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong currentPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong totalCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong totalPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong coordinatingRejections = new AtomicLong(0);
+    private final AtomicLong primaryRejections = new AtomicLong(0);
+    private final AtomicLong replicaRejections = new AtomicLong(0);
+
+    // the bytes of the shards that currently have primary or replica operations in flight
+    private final ConcurrentMap<ShardId, ShardBytes> shardBytes = ConcurrentCollections.newConcurrentMap();
+
+    private final long primaryAndCoordinatingLimits;
+    private final long replicaLimits;
+
+    public IndexingPressure(Settings settings) {
+        super(settings);
+        this.primaryAndCoordinatingLimits = MAX_INDEXING_BYTES.get(settings).getBytes();
+        this.replicaLimits = (long) (this.primaryAndCoordinatingLimits * 1.5);
+    }
+
+    /**
+     * Accounts for the bytes of a bulk request on the node that coordinates it, the returned releasable must be closed once the
+     * request completed.
+     *
+     * @throws EsRejectedExecutionException if the bytes would exceed the limit
+     */
+    public Releasable markCoordinatingOperationStarted(long bytes) {
+        long combinedBytes = currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+        if (combinedBytes > primaryAndCoordinatingLimits) {
+            currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            coordinatingRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of coordinating operation [" +
+                "coordinating_and_primary_bytes=" + (combinedBytes - bytes) + ", " +
+                "operation_bytes=" + bytes + ", " +
+                "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+        }
+        currentCoordinatingBytes.getAndAdd(bytes);
+        totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+        totalCoordinatingBytes.getAndAdd(bytes);
+        return Releasables.releaseOnce(() -> {
+            currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            currentCoordinatingBytes.getAndAdd(-bytes);
+        });
+    }
+
+    /**
+     * Accounts for the bytes of an operation on the primary of the given shard, the returned releasable must be closed once the
+     * operation completed. The bytes of an operation that is executed on the node that coordinates its bulk request are already
+     * accounted for by the coordinating operation, so they aren't checked against the limit again.
+     *
+     * @throws EsRejectedExecutionException if the bytes would exceed the limit
+     */
+    public Releasable markPrimaryOperationStarted(ShardId shardId, long bytes, boolean localToCoordinatingNode) {
+        if (localToCoordinatingNode) {
+            currentPrimaryBytes.getAndAdd(bytes);
+            totalPrimaryBytes.getAndAdd(bytes);
+        } else {
+            long combinedBytes = currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+            if (combinedBytes > primaryAndCoordinatingLimits) {
+                currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+                primaryRejections.getAndIncrement();
+                throw new EsRejectedExecutionException("rejected execution of primary operation [" +
+                    "coordinating_and_primary_bytes=" + (combinedBytes - bytes) + ", " +
+                    "operation_bytes=" + bytes + ", " +
+                    "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+            }
+            currentPrimaryBytes.getAndAdd(bytes);
+            totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+            totalPrimaryBytes.getAndAdd(bytes);
+        }
+        addShardBytes(shardId, bytes, 0);
+        return Releasables.releaseOnce(() -> {
+            if (localToCoordinatingNode == false) {
+                currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            }
+            currentPrimaryBytes.getAndAdd(-bytes);
+            addShardBytes(shardId, -bytes, 0);
+        });
+    }
+
+    /**
+     * Accounts for the bytes of an operation on a replica of the given shard, the returned releasable must be closed once the
+     * operation completed.
+     *
+     * @throws EsRejectedExecutionException if the bytes would exceed the replica limit
+     */
+    public Releasable markReplicaOperationStarted(ShardId shardId, long bytes) {
+        long replicaBytes = currentReplicaBytes.addAndGet(bytes);
+        if (replicaBytes > replicaLimits) {
+            currentReplicaBytes.getAndAdd(-bytes);
+            replicaRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of replica operation [" +
+                "replica_bytes=" + (replicaBytes - bytes) + ", " +
+                "replica_operation_bytes=" + bytes + ", " +
+                "max_replica_bytes=" + replicaLimits + "]", false);
+        }
+        totalReplicaBytes.getAndAdd(bytes);
+        addShardBytes(shardId, 0, bytes);
+        return Releasables.releaseOnce(() -> {
+            currentReplicaBytes.getAndAdd(-bytes);
+            addShardBytes(shardId, 0, -bytes);
+        });
+    }
+
+    private void addShardBytes(ShardId shardId, long primaryBytes, long replicaBytes) {
+        shardBytes.compute(shardId, (k, current) -> {
+            final ShardBytes updated = current == null
+                ? new ShardBytes(primaryBytes, replicaBytes)
+                : new ShardBytes(current.primaryBytes + primaryBytes, current.replicaBytes + replicaBytes);
+            // only shards with operations in flight are tracked so that closed shards don't stay around
+            return updated.primaryBytes == 0 && updated.replicaBytes == 0 ? null : updated;
+        });
+    }
+
+    public IndexingPressureStats stats() {
+        final Map<ShardId, IndexingPressureStats.ShardStats> shardStats = new HashMap<>();
+        for (Map.Entry<ShardId, ShardBytes> entry : shardBytes.entrySet()) {
+            final ShardBytes bytes = entry.getValue();
+            shardStats.put(entry.getKey(), new IndexingPressureStats.ShardStats(bytes.primaryBytes, bytes.replicaBytes));
+        }
+        return new IndexingPressureStats(totalCombinedCoordinatingAndPrimaryBytes.get(), totalCoordinatingBytes.get(),
+            totalPrimaryBytes.get(), totalReplicaBytes.get(), currentCombinedCoordinatingAndPrimaryBytes.get(),
+            currentCoordinatingBytes.get(), currentPrimaryBytes.get(), currentReplicaBytes.get(), coordinatingRejections.get(),
+            primaryRejections.get(), replicaRejections.get(), primaryAndCoordinatingLimits, shardStats);
+    }
+
+    /**
+     * The bytes of the operations that are in flight on a shard, immutable so that it can be read without locking.
+     */
+    private static final class ShardBytes {
+        private final long primaryBytes;
+        private final long replicaBytes;
+
+        ShardBytes(long primaryBytes, long replicaBytes) {
+            this.primaryBytes = primaryBytes;
+            this.replicaBytes = replicaBytes;
+        }
+    }
+}
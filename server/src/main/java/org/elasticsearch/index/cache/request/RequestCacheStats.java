@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -35,15 +36,26 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
     long evictions;
     long hitCount;
     long missCount;
+    long segmentAggregationsMemorySize;
+    long segmentAggregationsHitCount;
+    long segmentAggregationsMissCount;
 
     public RequestCacheStats() {
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0);
+    }
+
+    public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount, long segmentAggregationsMemorySize,
+                             long segmentAggregationsHitCount, long segmentAggregationsMissCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentAggregationsMemorySize = segmentAggregationsMemorySize;
+        this.segmentAggregationsHitCount = segmentAggregationsHitCount;
+        this.segmentAggregationsMissCount = segmentAggregationsMissCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -51,6 +63,9 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentAggregationsMemorySize += stats.segmentAggregationsMemorySize;
+        this.segmentAggregationsHitCount += stats.segmentAggregationsHitCount;
+        this.segmentAggregationsMissCount += stats.segmentAggregationsMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -73,12 +88,36 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The memory used by the per segment partial results of aggregations, see {@link org.elasticsearch.indices.IndicesAggregationCache}.
+     */
+    public long getSegmentAggregationsMemorySizeInBytes() {
+        return this.segmentAggregationsMemorySize;
+    }
+
+    public ByteSizeValue getSegmentAggregationsMemorySize() {
+        return new ByteSizeValue(segmentAggregationsMemorySize);
+    }
+
+    public long getSegmentAggregationsHitCount() {
+        return this.segmentAggregationsHitCount;
+    }
+
+    public long getSegmentAggregationsMissCount() {
+        return this.segmentAggregationsMissCount;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            segmentAggregationsMemorySize = in.readVLong();
+            segmentAggregationsHitCount = in.readVLong();
+            segmentAggregationsMissCount = in.readVLong();
+        }
     }
 
     @Override
@@ -87,6 +126,11 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(segmentAggregationsMemorySize);
+            out.writeVLong(segmentAggregationsHitCount);
+            out.writeVLong(segmentAggregationsMissCount);
+        }
     }
 
     @Override
@@ -96,6 +140,11 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.startObject(Fields.SEGMENT_AGGREGATIONS);
+        builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getSegmentAggregationsMemorySize());
+        builder.field(Fields.HIT_COUNT, getSegmentAggregationsHitCount());
+        builder.field(Fields.MISS_COUNT, getSegmentAggregationsMissCount());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -107,5 +156,6 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String SEGMENT_AGGREGATIONS = "segment_aggregations";
     }
 }
@@ -31,9 +31,13 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric segmentAggregationsTotalMetric = new CounterMetric();
+    final CounterMetric segmentAggregationsHitCount = new CounterMetric();
+    final CounterMetric segmentAggregationsMissCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count(),
+            segmentAggregationsTotalMetric.count(), segmentAggregationsHitCount.count(), segmentAggregationsMissCount.count());
     }
 
     public void onHit() {
@@ -61,4 +65,20 @@ public final class ShardRequestCache {
         }
         totalMetric.dec(dec);
     }
+
+    public void onSegmentAggregationsHit() {
+        segmentAggregationsHitCount.inc();
+    }
+
+    public void onSegmentAggregationsMiss() {
+        segmentAggregationsMissCount.inc();
+    }
+
+    public void onSegmentAggregationsCached(long bytes) {
+        segmentAggregationsTotalMetric.inc(bytes);
+    }
+
+    public void onSegmentAggregationsRemoval(long bytes) {
+        segmentAggregationsTotalMetric.dec(bytes);
+    }
 }
@@ -59,6 +59,7 @@ public final class EngineConfig {
     private volatile boolean enableGcDeletes = true;
     private final TimeValue flushMergesAfter;
     private final String codecName;
+    private final boolean pagedVersionMap;
     private final ThreadPool threadPool;
     private final Engine.Warmer warmer;
     private final Store store;
@@ -112,6 +113,23 @@ public final class EngineConfig {
     public static final Setting<Boolean> INDEX_OPTIMIZE_AUTO_GENERATED_IDS = Setting.boolSetting("index.optimize_auto_generated_id", true,
         Property.IndexScope, Property.Dynamic);
 
+    /**
+     * Configures where the live version map keeps the versions of documents that were changed since the last refresh. <code>heap</code>
+     * keeps one object per document in concurrent hash maps, <code>paged</code> keeps them in
+     * {@link org.elasticsearch.common.util.BigArrays} pages that are accounted for in the accounting circuit breaker, which reduces the
+     * number of objects on the heap for write heavy indices.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<String> INDEX_VERSION_MAP_TYPE_SETTING = new Setting<>("index.version_map.type", "heap", s -> {
+        switch (s) {
+            case "heap":
+            case "paged":
+                return s;
+            default:
+                throw new IllegalArgumentException("unknown value for [index.version_map.type] must be one of [heap, paged] but was: " + s);
+        }
+    }, Property.IndexScope);
+
     private final TranslogConfig translogConfig;
 
     /**
@@ -139,6 +157,7 @@ public final class EngineConfig {
         this.codecService = codecService;
         this.eventListener = eventListener;
         codecName = indexSettings.getValue(INDEX_CODEC_SETTING);
+        pagedVersionMap = "paged".equals(indexSettings.getValue(INDEX_VERSION_MAP_TYPE_SETTING));
         // We give IndexWriter a "huge" (256 MB) buffer, so it won't flush on its own unless the ES indexing buffer is also huge and/or
         // there are not too many shards allocated to this node.  Instead, IndexingMemoryController periodically checks
         // and refreshes the most heap-consuming shards when total indexing heap usage across all shards is too high:
@@ -197,6 +216,17 @@ public final class EngineConfig {
         return codecService.codec(codecName);
     }
 
+    /**
+     * Returns <code>true</code> iff the live version map should keep its entries in {@link org.elasticsearch.common.util.BigArrays} pages.
+     * <p>
+     *     Note: this settings is only read on startup.
+     * </p>
+     * @see #INDEX_VERSION_MAP_TYPE_SETTING
+     */
+    public boolean isPagedVersionMap() {
+        return pagedVersionMap;
+    }
+
     /**
      * Returns a thread-pool mainly used to get estimated time stamps from
      * {@link org.elasticsearch.threadpool.ThreadPool#relativeTimeInMillis()} and to schedule
@@ -23,7 +23,9 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 
@@ -38,10 +40,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
 
-    private static final class VersionLookup {
+    private static final class VersionLookup implements Releasable {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones, we only account
-         *  for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not clear this RAM. */
+         *  for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not clear this RAM.
+         *  Paged maps track their bytes themselves, see {@link #ramBytesUsed()}. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
         private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
@@ -67,6 +70,24 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             this.map = map;
         }
 
+        /**
+         * Creates a new lookup that is backed by a {@link PagedVersionMap} if pages are available or by a concurrent hash map otherwise.
+         */
+        static VersionLookup newVersionLookup(@Nullable BigArrays bigArrays, int expectedSize) {
+            if (bigArrays == null) {
+                return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
+            }
+            return new VersionLookup(new PagedVersionMap(bigArrays, expectedSize));
+        }
+
+        boolean isPaged() {
+            return map instanceof PagedVersionMap;
+        }
+
+        long ramBytesUsed() {
+            return isPaged() ? ((PagedVersionMap) map).ramBytesUsed() : ramBytesUsed.get();
+        }
+
         VersionValue get(BytesRef key) {
             return map.get(key);
         }
@@ -100,6 +121,15 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             minDeleteTimestamp.updateAndGet(prev -> Math.min(time, prev));
         }
 
+        /**
+         * Releases the pages of a paged map. This is a noop for maps that live on the heap.
+         */
+        @Override
+        public void close() {
+            if (isPaged()) {
+                ((PagedVersionMap) map).close();
+            }
+        }
     }
 
     private static final class Maps {
@@ -115,15 +145,19 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
 
+        // the pages to allocate new maps from or null if the maps live on the heap
+        @Nullable
+        final BigArrays bigArrays;
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, @Nullable BigArrays bigArrays) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.bigArrays = bigArrays;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+        Maps(@Nullable BigArrays bigArrays) {
+            this(VersionLookup.newVersionLookup(bigArrays, 16), VersionLookup.EMPTY, false, bigArrays);
         }
 
         boolean isSafeAccessMode() {
@@ -141,15 +175,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(VersionLookup.newVersionLookup(bigArrays, current.size()), current, shouldInheritSafeAccess(), bigArrays);
         }
 
         /**
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, bigArrays);
         }
 
         void put(BytesRef uid, VersionValue version) {
@@ -161,7 +194,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
 
         void adjustRam(long value) {
-            if (value != 0) {
+            if (value != 0 && current.isPaged() == false) {
                 long v = current.ramBytesUsed.addAndGet(value);
                 assert v >= 0 : "bytes=" + v;
             }
@@ -189,10 +222,28 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    // the pages to allocate the live maps from or null if they live on the heap
+    @Nullable
+    private final BigArrays bigArrays;
+
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
-    // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    // this map is only maintained if assertions are enabled and always lives on the heap
+    private volatile Maps unsafeKeysMap = new Maps(null);
+
+    LiveVersionMap() {
+        this(null);
+    }
+
+    /**
+     * Creates a new version map.
+     * @param bigArrays if non-null the live maps that are dropped on refresh keep their entries in pages obtained from the given
+     *                  instance (see {@link PagedVersionMap}) instead of on the heap. Tombstones always live on the heap.
+     */
+    LiveVersionMap(@Nullable BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        this.maps = new Maps(bigArrays);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -255,8 +306,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact reflected
         // in the previous reader.   We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
 
-        maps = maps.invalidateOldMap();
+        final Maps previousMaps = maps;
+        maps = previousMaps.invalidateOldMap();
         assert (unsafeKeysMap = unsafeKeysMap.invalidateOldMap()) != null;
+        // concurrent lookups that still see the old map get null from it once it is closed and fall back to the new searcher
+        previousMaps.old.close();
 
     }
 
@@ -413,7 +467,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        final Maps previousMaps = maps;
+        maps = new Maps(bigArrays);
+        previousMaps.current.close();
+        previousMaps.old.close();
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the index
@@ -423,7 +480,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -431,7 +488,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     @Override
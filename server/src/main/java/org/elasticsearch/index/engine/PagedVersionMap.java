@@ -0,0 +1,272 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps _uid values to {@link IndexVersionValue}s like the {@link java.util.concurrent.ConcurrentHashMap} used by
+ * {@link LiveVersionMap} but keeps its entries in {@link BigArrays} pages instead of one object graph per entry. Keys are stored in a
+ * {@link BytesRefHash} and the version, seqNo, term and translog location of each key in a parallel {@link LongArray}, so the number
+ * of objects on the heap does not grow with the number of entries. Values are materialized on lookup.
+ * <p>
+ * The map is split into stripes that are each guarded by their own monitor. Entries can't be removed from a {@link BytesRefHash} so
+ * a removal only marks the entry as removed. This is fine since the live version map drops the whole map on the next refresh.
+ * <p>
+ * Instances must be closed to release their pages. Lookups on a closed map return <code>null</code> and puts are ignored. This is safe
+ * since the live version map only closes a map once it was replaced and its entries are visible through the searcher, or once the
+ * engine is closed. Indexing threads that still see a map that is being closed lose their put just like they would when putting into
+ * a dropped {@link java.util.concurrent.ConcurrentHashMap}.
+ */
+final class PagedVersionMap extends AbstractMap<BytesRef, VersionValue> implements Releasable {
+
+    private static final int NUM_STRIPES = 16;
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(NUM_STRIPES);
+
+    // the layout of the longs that back a single entry
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int TRANSLOG_GENERATION = 3;
+    private static final int TRANSLOG_LOCATION = 4;
+    private static final int TRANSLOG_SIZE = 5;
+    private static final int LONGS_PER_ENTRY = 6;
+
+    // markers stored in the translog size slot, outside of the int range of actual sizes
+    private static final long NO_LOCATION = Long.MIN_VALUE;
+    private static final long REMOVED = Long.MIN_VALUE + 1;
+
+    private final BigArrays bigArrays;
+    private final Stripe[] stripes;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong ramBytesUsed = new AtomicLong();
+
+    PagedVersionMap(BigArrays bigArrays, int expectedSize) {
+        this.bigArrays = bigArrays;
+        this.stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(expectedSize / NUM_STRIPES);
+        }
+    }
+
+    private Stripe stripe(int hash) {
+        // the hash tables use the low bits of the mixed hash to pick a slot so we use the high bits to pick a stripe
+        return stripes[BitMixer.mix32(hash) >>> STRIPE_SHIFT];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return stripe(hash).get(uid, hash);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        assert value.isDelete() == false : "deletes are tracked as tombstones but got " + value;
+        final int hash = uid.hashCode();
+        return stripe(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return stripe(hash).remove(uid, hash);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("paged version maps are dropped on refresh and can't be cleared");
+    }
+
+    /**
+     * Returns a point in time copy of all entries in this map.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>(size());
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(copy);
+        }
+        return copy.entrySet();
+    }
+
+    /**
+     * Returns the number of bytes held by the pages of this map.
+     */
+    long ramBytesUsed() {
+        return ramBytesUsed.get();
+    }
+
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            stripe.close();
+        }
+    }
+
+    private final class Stripe {
+
+        private final int expectedSize;
+        // allocated on the first put since most stripes of a map that is built on refresh stay empty on idle shards
+        private BytesRefHash keys;
+        private LongArray values;
+        private long stripeRamBytesUsed;
+        private boolean closed;
+
+        Stripe(int expectedSize) {
+            this.expectedSize = expectedSize;
+        }
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            if (keys == null) {
+                return null;
+            }
+            final long id = keys.find(uid, hash);
+            return id == -1 ? null : read(id);
+        }
+
+        synchronized VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            if (closed) {
+                // a concurrent refresh dropped this map, the entry is visible through the searcher
+                return null;
+            }
+            if (keys == null) {
+                keys = new BytesRefHash(expectedSize, bigArrays);
+                values = bigArrays.newLongArray((long) expectedSize * LONGS_PER_ENTRY, false);
+            }
+            long id = keys.add(uid, hash);
+            final VersionValue previous;
+            if (id < 0) {
+                id = -1 - id;
+                previous = read(id);
+            } else {
+                values = bigArrays.grow(values, (id + 1) * LONGS_PER_ENTRY);
+                previous = null;
+            }
+            write(id, value);
+            if (previous == null) {
+                size.incrementAndGet();
+            }
+            updateRamBytesUsed();
+            return previous;
+        }
+
+        synchronized VersionValue remove(BytesRef uid, int hash) {
+            if (keys == null) {
+                return null;
+            }
+            final long id = keys.find(uid, hash);
+            if (id == -1) {
+                return null;
+            }
+            final VersionValue previous = read(id);
+            if (previous != null) {
+                values.set(id * LONGS_PER_ENTRY + TRANSLOG_SIZE, REMOVED);
+                size.decrementAndGet();
+            }
+            return previous;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> copy) {
+            if (keys == null) {
+                return;
+            }
+            for (long id = 0; id < keys.size(); id++) {
+                final VersionValue value = read(id);
+                if (value != null) {
+                    copy.put(BytesRef.deepCopyOf(keys.get(id, new BytesRef())), value);
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (closed == false) {
+                closed = true;
+                Releasables.close(keys, values);
+                keys = null;
+                values = null;
+                updateRamBytesUsed();
+            }
+        }
+
+        private VersionValue read(long id) {
+            final long offset = id * LONGS_PER_ENTRY;
+            final long translogSize = values.get(offset + TRANSLOG_SIZE);
+            if (translogSize == REMOVED) {
+                return null;
+            }
+            final Translog.Location location = translogSize == NO_LOCATION ? null : new Translog.Location(
+                values.get(offset + TRANSLOG_GENERATION), values.get(offset + TRANSLOG_LOCATION), (int) translogSize);
+            return new IndexVersionValue(location, values.get(offset + VERSION), values.get(offset + SEQ_NO), values.get(offset + TERM));
+        }
+
+        private void write(long id, VersionValue value) {
+            final long offset = id * LONGS_PER_ENTRY;
+            values.set(offset + VERSION, value.version);
+            values.set(offset + SEQ_NO, value.seqNo);
+            values.set(offset + TERM, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                values.set(offset + TRANSLOG_SIZE, NO_LOCATION);
+            } else {
+                values.set(offset + TRANSLOG_GENERATION, location.generation);
+                values.set(offset + TRANSLOG_LOCATION, location.translogLocation);
+                values.set(offset + TRANSLOG_SIZE, location.size);
+            }
+        }
+
+        private void updateRamBytesUsed() {
+            final long newRamBytesUsed = keys == null ? 0 : keys.ramBytesUsed() + values.ramBytesUsed();
+            ramBytesUsed.addAndGet(newRamBytesUsed - stripeRamBytesUsed);
+            stripeRamBytesUsed = newRamBytesUsed;
+        }
+    }
+}
@@ -19,12 +19,14 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
@@ -38,8 +40,16 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
     private static final String MEMORY_SIZE_IN_BYTES = "memory_size_in_bytes";
     private static final String EVICTIONS = "evictions";
     private static final String FIELDS = "fields";
+    private static final String GLOBAL_ORDINALS = "global_ordinals";
+    private static final String BUILD_TIME = "build_time";
+    private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+    private static final String BUILDS = "builds";
+    private static final String INCREMENTAL_BUILDS = "incremental_builds";
     long memorySize;
     long evictions;
+    long globalOrdinalsBuildTimeInMillis;
+    long globalOrdinalsBuilds;
+    long globalOrdinalsIncrementalBuilds;
     @Nullable
     FieldMemoryStats fields;
 
@@ -53,9 +63,20 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         this.fields = fields;
     }
 
+    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields, long globalOrdinalsBuildTimeInMillis,
+                          long globalOrdinalsBuilds, long globalOrdinalsIncrementalBuilds) {
+        this(memorySize, evictions, fields);
+        this.globalOrdinalsBuildTimeInMillis = globalOrdinalsBuildTimeInMillis;
+        this.globalOrdinalsBuilds = globalOrdinalsBuilds;
+        this.globalOrdinalsIncrementalBuilds = globalOrdinalsIncrementalBuilds;
+    }
+
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.globalOrdinalsBuildTimeInMillis += stats.globalOrdinalsBuildTimeInMillis;
+        this.globalOrdinalsBuilds += stats.globalOrdinalsBuilds;
+        this.globalOrdinalsIncrementalBuilds += stats.globalOrdinalsIncrementalBuilds;
         if (stats.fields != null) {
             if (fields == null) {
                 fields = stats.fields.copy();
@@ -82,11 +103,41 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         return fields;
     }
 
+    /**
+     * The total time spent building global ordinals.
+     */
+    public TimeValue getGlobalOrdinalsBuildTime() {
+        return new TimeValue(globalOrdinalsBuildTimeInMillis);
+    }
+
+    public long getGlobalOrdinalsBuildTimeInMillis() {
+        return globalOrdinalsBuildTimeInMillis;
+    }
+
+    /**
+     * The number of times global ordinals were built.
+     */
+    public long getGlobalOrdinalsBuilds() {
+        return globalOrdinalsBuilds;
+    }
+
+    /**
+     * The number of times global ordinals were built from the global ordinals of a previous reader.
+     */
+    public long getGlobalOrdinalsIncrementalBuilds() {
+        return globalOrdinalsIncrementalBuilds;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            globalOrdinalsBuildTimeInMillis = in.readVLong();
+            globalOrdinalsBuilds = in.readVLong();
+            globalOrdinalsIncrementalBuilds = in.readVLong();
+        }
     }
 
     @Override
@@ -94,6 +145,11 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(globalOrdinalsBuildTimeInMillis);
+            out.writeVLong(globalOrdinalsBuilds);
+            out.writeVLong(globalOrdinalsIncrementalBuilds);
+        }
     }
 
     @Override
@@ -104,6 +160,11 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
+        builder.startObject(GLOBAL_ORDINALS);
+        builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, getGlobalOrdinalsBuildTime());
+        builder.field(BUILDS, globalOrdinalsBuilds);
+        builder.field(INCREMENTAL_BUILDS, globalOrdinalsIncrementalBuilds);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -115,11 +176,15 @@ public class FieldDataStats implements Streamable, ToXContentFragment {
         FieldDataStats that = (FieldDataStats) o;
         return memorySize == that.memorySize &&
             evictions == that.evictions &&
+            globalOrdinalsBuildTimeInMillis == that.globalOrdinalsBuildTimeInMillis &&
+            globalOrdinalsBuilds == that.globalOrdinalsBuilds &&
+            globalOrdinalsIncrementalBuilds == that.globalOrdinalsIncrementalBuilds &&
             Objects.equals(fields, that.fields);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, evictions, fields, globalOrdinalsBuildTimeInMillis, globalOrdinalsBuilds,
+            globalOrdinalsIncrementalBuilds);
     }
 }
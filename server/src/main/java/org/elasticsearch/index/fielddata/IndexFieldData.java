@@ -259,6 +259,14 @@ public interface IndexFieldData<FD extends AtomicFieldData> extends IndexCompone
 
         IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Like {@link #localGlobalDirect(DirectoryReader)} but may reuse the global field data that was built for a previous reader of
+         * the same shard.
+         */
+        default IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous) throws Exception {
+            return localGlobalDirect(indexReader);
+        }
+
     }
 
 }
@@ -21,7 +21,9 @@ package org.elasticsearch.index.fielddata;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.LongValues;
 
 
 /**
@@ -47,4 +49,13 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<AtomicOrdi
      * or null if global ordinals are not needed (constant value or single segment).
      */
     OrdinalMap getOrdinalMap();
+
+    /**
+     * Returns the mapping from the ordinals of the given segment to global ordinals
+     * or null if segment and global ordinals are the same.
+     */
+    default LongValues getGlobalOrds(LeafReaderContext context) {
+        final OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : ordinalMap.getGlobalOrds(context.ord);
+    }
 }
@@ -25,16 +25,21 @@ import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric globalOrdinalsBuildTimeInNanos = new CounterMetric();
+    private final CounterMetric globalOrdinalsBuilds = new CounterMetric();
+    private final CounterMetric globalOrdinalsIncrementalBuilds = new CounterMetric();
 
     public FieldDataStats stats(String... fields) {
         ObjectLongHashMap<String> fieldTotals = null;
@@ -47,7 +52,8 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
         return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
-            new FieldMemoryStats(fieldTotals));
+            new FieldMemoryStats(fieldTotals), TimeUnit.NANOSECONDS.toMillis(globalOrdinalsBuildTimeInNanos.count()),
+            globalOrdinalsBuilds.count(), globalOrdinalsIncrementalBuilds.count());
     }
 
     @Override
@@ -64,6 +70,14 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                 prev.inc(ramUsage.ramBytesUsed());
             }
         }
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData) {
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) ramUsage;
+            globalOrdinalsBuildTimeInNanos.inc(globalOrdinals.getBuildTimeInNanos());
+            globalOrdinalsBuilds.inc();
+            if (globalOrdinals.getIncrementalOrdinalMap().isIncremental()) {
+                globalOrdinalsIncrementalBuilds.inc();
+            }
+        }
     }
 
     @Override
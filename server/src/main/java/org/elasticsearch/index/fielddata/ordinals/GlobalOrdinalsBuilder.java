@@ -22,14 +22,15 @@ package org.elasticsearch.index.fielddata.ordinals;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.Accountable;
-import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
@@ -53,29 +54,52 @@ public enum GlobalOrdinalsBuilder {
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
             IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
             Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) throws IOException {
+        return build(indexReader, indexFieldData, indexSettings, breakerService, logger, scriptFunction, null);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}. If the global ordinals of a previous reader of the same shard are
+     * provided, the terms of the segments that were added since are merged into them instead of merging the terms of all segments.
+     */
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
+            IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
+            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+            @Nullable IndexFieldData<?> previous) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            if (cacheHelper == null) {
+                segmentKeys = null;
+            } else if (segmentKeys != null) {
+                segmentKeys[i] = cacheHelper.getKey();
+            }
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final IncrementalOrdinalMap previousMap = previous instanceof GlobalOrdinalsIndexFieldData ?
+            ((GlobalOrdinalsIndexFieldData) previous).getIncrementalOrdinalMap() : null;
+        final IncrementalOrdinalMap ordinalMap = IncrementalOrdinalMap.build(segmentKeys, subs, previousMap);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
+        final long buildTimeInNanos = System.nanoTime() - startTimeNS;
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "global-ordinals [{}][{}] took [{}]",
+                    "global-ordinals [{}][{}] took [{}], incremental [{}]",
                     indexFieldData.getFieldName(),
                     ordinalMap.getValueCount(),
-                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    new TimeValue(buildTimeInNanos, TimeUnit.NANOSECONDS),
+                    ordinalMap.isIncremental()
             );
         }
         return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction
+                atomicFD, ordinalMap, memorySizeInBytes, buildTimeInNanos, scriptFunction
         );
     }
 
@@ -107,9 +131,9 @@ public enum GlobalOrdinalsBuilder {
             };
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final IncrementalOrdinalMap ordinalMap = IncrementalOrdinalMap.build(null, subs, null);
         return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, 0, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+                atomicFD, ordinalMap, 0, 0, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
         );
     }
 
@@ -24,6 +24,8 @@ import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
@@ -35,6 +37,8 @@ import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.search.MultiValueMode;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.function.Function;
@@ -46,18 +50,22 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
 
     private final String fieldName;
     private final long memorySizeInBytes;
+    private final long buildTimeInNanos;
 
-    private final OrdinalMap ordinalMap;
+    private final IncrementalOrdinalMap ordinalMap;
+    // built on demand for incrementally built global ordinals, see #getOrdinalMap()
+    private OrdinalMap luceneOrdinalMap;
     private final Atomic[] atomicReaders;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
 
 
     protected GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
-                                           OrdinalMap ordinalMap, long memorySizeInBytes, Function<SortedSetDocValues,
-                                           ScriptDocValues<?>> scriptFunction) {
+                                           IncrementalOrdinalMap ordinalMap, long memorySizeInBytes, long buildTimeInNanos,
+                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
         super(indexSettings);
         this.fieldName = fieldName;
         this.memorySizeInBytes = memorySizeInBytes;
+        this.buildTimeInNanos = buildTimeInNanos;
         this.ordinalMap = ordinalMap;
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
@@ -112,18 +120,56 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
         return atomicReaders[context.ord];
     }
 
+    /**
+     * Returns the underlying {@link OrdinalMap}. Global ordinals that were built incrementally don't have one, so it is built from the
+     * segments on the first call. This map is not accounted in the fielddata circuit breaker, consumers that only need to map segment
+     * ordinals to global ordinals should use {@link #getGlobalOrds(LeafReaderContext)} instead.
+     */
     @Override
-    public OrdinalMap getOrdinalMap() {
+    public synchronized OrdinalMap getOrdinalMap() {
+        if (luceneOrdinalMap == null) {
+            luceneOrdinalMap = ordinalMap.getOrdinalMap();
+            if (luceneOrdinalMap == null) {
+                final SortedSetDocValues[] subs = new SortedSetDocValues[atomicReaders.length];
+                for (int i = 0; i < subs.length; i++) {
+                    subs[i] = atomicReaders[i].afd.getOrdinalsValues();
+                }
+                try {
+                    luceneOrdinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return luceneOrdinalMap;
+    }
+
+    @Override
+    public LongValues getGlobalOrds(LeafReaderContext context) {
+        return ordinalMap.getGlobalOrds(context.ord);
+    }
+
+    /**
+     * Returns the mapping between segment and global ordinals.
+     */
+    public IncrementalOrdinalMap getIncrementalOrdinalMap() {
         return ordinalMap;
     }
 
+    /**
+     * Returns the time it took to build these global ordinals in nanoseconds.
+     */
+    public long getBuildTimeInNanos() {
+        return buildTimeInNanos;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
-        private final OrdinalMap ordinalMap;
+        private final IncrementalOrdinalMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(AtomicOrdinalsFieldData afd, OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(AtomicOrdinalsFieldData afd, IncrementalOrdinalMap ordinalMap, int segmentIndex) {
             super(scriptFunction);
             this.afd = afd;
             this.ordinalMap = ordinalMap;
@@ -0,0 +1,359 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Maps the ordinals of every segment of a reader to global ordinals like Lucene's {@link OrdinalMap}. Unlike {@link OrdinalMap}, it
+ * can be built incrementally from the map of a previous reader of the same shard: when a refresh only adds segments, the terms of
+ * the new segments are looked up in the segments of the previous map and inserted into its global ordinals instead of merging the
+ * terms of all segments again. The mappings of the previous segments are only rewritten if new terms were inserted before their
+ * largest term, otherwise they are reused as they are.
+ */
+public final class IncrementalOrdinalMap implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalOrdinalMap.class);
+
+    // identifies the segments so that a later reader can find the segments it shares with this map, null if they can't be identified
+    @Nullable
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final LongValues[] segmentToGlobalOrds;
+    private final long[] segmentRamBytesUsed;
+    // for every global ordinal, the first segment that contains the term and the difference between the global and segment ordinals
+    private final LongValues firstSegments;
+    private final LongValues globalOrdDeltas;
+    private final long firstSegmentsRamBytesUsed;
+    private final long valueCount;
+    // the lucene map this map was built from or that some of its mappings still point to
+    @Nullable
+    private final OrdinalMap ordinalMap;
+    private final boolean incremental;
+
+    private IncrementalOrdinalMap(IndexReader.CacheKey[] segmentKeys, LongValues[] segmentToGlobalOrds, long[] segmentRamBytesUsed,
+                                  LongValues firstSegments, LongValues globalOrdDeltas, long firstSegmentsRamBytesUsed,
+                                  long valueCount, OrdinalMap ordinalMap, boolean incremental) {
+        this.segmentKeys = segmentKeys;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.segmentRamBytesUsed = segmentRamBytesUsed;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+        this.firstSegmentsRamBytesUsed = firstSegmentsRamBytesUsed;
+        this.valueCount = valueCount;
+        this.ordinalMap = ordinalMap;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Builds the global ordinals of the given segments. If a previous map is provided and every one of its segments is still part of
+     * the reader, only the terms of the new segments are merged into the global ordinals of the previous map, unless merging the
+     * terms of all segments again is expected to be cheaper.
+     *
+     * @param segmentKeys the core cache keys of the segments, or <code>null</code> if they can't be identified
+     * @param subs the ordinals of the segments
+     * @param previous the global ordinals of a previous reader of the same shard, or <code>null</code>
+     */
+    public static IncrementalOrdinalMap build(@Nullable IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs,
+                                              @Nullable IncrementalOrdinalMap previous) throws IOException {
+        if (previous != null && previous.segmentKeys != null && segmentKeys != null) {
+            final IncrementalOrdinalMap map = buildIncrementally(segmentKeys, subs, previous);
+            if (map != null) {
+                return map;
+            }
+        }
+        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final LongValues[] segmentToGlobalOrds = new LongValues[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            segmentToGlobalOrds[i] = ordinalMap.getGlobalOrds(i);
+        }
+        final LongValues firstSegments = new LongValues() {
+            @Override
+            public long get(long globalOrd) {
+                return ordinalMap.getFirstSegmentNumber(globalOrd);
+            }
+        };
+        final LongValues globalOrdDeltas = new LongValues() {
+            @Override
+            public long get(long globalOrd) {
+                return globalOrd - ordinalMap.getFirstSegmentOrd(globalOrd);
+            }
+        };
+        // the memory of the mappings is accounted by the lucene map
+        return new IncrementalOrdinalMap(segmentKeys, segmentToGlobalOrds, new long[subs.length], firstSegments, globalOrdDeltas, 0,
+            ordinalMap.getValueCount(), ordinalMap, false);
+    }
+
+    /**
+     * Merges the terms of the new segments into the global ordinals of the previous map, returns <code>null</code> if a segment of
+     * the previous map is gone or if merging the terms of all segments is expected to be cheaper.
+     */
+    private static IncrementalOrdinalMap buildIncrementally(IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs,
+                                                            IncrementalOrdinalMap previous) throws IOException {
+        final Map<IndexReader.CacheKey, Integer> previousSegments = new IdentityHashMap<>();
+        for (int i = 0; i < previous.segmentKeys.length; i++) {
+            previousSegments.put(previous.segmentKeys[i], i);
+        }
+        // the index of every segment in the previous map, -1 for new segments
+        final int[] previousIndex = new int[subs.length];
+        final int[] newIndexOfPrevious = new int[previous.segmentKeys.length];
+        int numPreviousSegments = 0;
+        int numNewSegments = 0;
+        long numNewSegmentTerms = 0;
+        long numSegmentTerms = 0;
+        for (int i = 0; i < subs.length; i++) {
+            final Integer index = previousSegments.get(segmentKeys[i]);
+            if (index == null) {
+                previousIndex[i] = -1;
+                numNewSegments++;
+                numNewSegmentTerms += subs[i].getValueCount();
+            } else {
+                previousIndex[i] = index;
+                newIndexOfPrevious[index] = i;
+                numPreviousSegments++;
+            }
+            numSegmentTerms += subs[i].getValueCount();
+        }
+        if (numPreviousSegments != previous.segmentKeys.length) {
+            // segments were merged away, their terms may not exist anymore
+            return null;
+        }
+        if (numNewSegmentTerms * numPreviousSegments > numSegmentTerms) {
+            // every term of the new segments is looked up in every previous segment, merging all segments is cheaper
+            return null;
+        }
+
+        final SortedSetDocValues[] newSubs = new SortedSetDocValues[numNewSegments];
+        final int[] newSegments = new int[numNewSegments];
+        final TermsEnum[] previousTerms = new TermsEnum[numPreviousSegments];
+        final LongValues[] previousMappings = new LongValues[numPreviousSegments];
+        for (int i = 0, n = 0, p = 0; i < subs.length; i++) {
+            if (previousIndex[i] == -1) {
+                newSubs[n] = subs[i];
+                newSegments[n++] = i;
+            } else {
+                previousTerms[p] = subs[i].termsEnum();
+                previousMappings[p++] = previous.segmentToGlobalOrds[previousIndex[i]];
+            }
+        }
+        final OrdinalMap newTermsMap = OrdinalMap.build(null, newSubs, PackedInts.DEFAULT);
+        final int numNewTerms = Math.toIntExact(newTermsMap.getValueCount());
+
+        // look up every term of the new segments in the previous segments: the global ordinal of the term if it exists, the number
+        // of smaller terms in the previous map otherwise, which is where it is inserted into the global ordinals
+        final long[] newTermGlobalOrds = new long[numNewTerms];
+        final long[] insertedRanks = new long[numNewTerms];
+        final long[] insertedTerms = new long[numNewTerms];
+        final boolean[] positioned = new boolean[numPreviousSegments];
+        int numInserted = 0;
+        for (int ord = 0; ord < numNewTerms; ord++) {
+            final BytesRef term = newSubs[newTermsMap.getFirstSegmentNumber(ord)].lookupOrd(newTermsMap.getFirstSegmentOrd(ord));
+            long previousOrd = -1;
+            long rank = previous.valueCount;
+            for (int i = 0; i < previousTerms.length && previousOrd == -1; i++) {
+                final TermsEnum termsEnum = previousTerms[i];
+                if (termsEnum == null) {
+                    // all terms of the segment are smaller
+                    continue;
+                }
+                // new terms are sorted so the terms enum only needs to move if it is positioned before the term
+                int cmp = positioned[i] ? termsEnum.term().compareTo(term) : -1;
+                if (cmp < 0) {
+                    final TermsEnum.SeekStatus status = termsEnum.seekCeil(term);
+                    positioned[i] = true;
+                    if (status == TermsEnum.SeekStatus.END) {
+                        previousTerms[i] = null;
+                        continue;
+                    }
+                    cmp = status == TermsEnum.SeekStatus.FOUND ? 0 : 1;
+                }
+                final long globalOrd = previousMappings[i].get(termsEnum.ord());
+                if (cmp == 0) {
+                    previousOrd = globalOrd;
+                } else {
+                    rank = Math.min(rank, globalOrd);
+                }
+            }
+            // terms that are inserted before this term shift its global ordinal
+            if (previousOrd == -1) {
+                newTermGlobalOrds[ord] = rank + numInserted;
+                insertedRanks[numInserted] = rank;
+                insertedTerms[numInserted++] = ord;
+            } else {
+                newTermGlobalOrds[ord] = previousOrd + numInserted;
+            }
+        }
+        final long valueCount = previous.valueCount + numInserted;
+
+        final LongValues[] segmentToGlobalOrds = new LongValues[subs.length];
+        final long[] segmentRamBytesUsed = new long[subs.length];
+        boolean reusesPrevious = false;
+        for (int i = 0; i < subs.length; i++) {
+            final long segmentValueCount = subs[i].getValueCount();
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            if (previousIndex[i] == -1) {
+                final int newSegment = indexOf(newSegments, i);
+                final LongValues newTermOrds = newTermsMap.getGlobalOrds(newSegment);
+                for (long ord = 0; ord < segmentValueCount; ord++) {
+                    builder.add(newTermGlobalOrds[(int) newTermOrds.get(ord)]);
+                }
+            } else {
+                final LongValues mapping = previous.segmentToGlobalOrds[previousIndex[i]];
+                if (segmentValueCount == 0 || numInserted == 0 || mapping.get(segmentValueCount - 1) < insertedRanks[0]) {
+                    // no term was inserted before the largest term of the segment, its global ordinals did not change
+                    segmentToGlobalOrds[i] = mapping;
+                    segmentRamBytesUsed[i] = previous.segmentRamBytesUsed[previousIndex[i]];
+                    reusesPrevious = true;
+                    continue;
+                }
+                int shift = 0;
+                for (long ord = 0; ord < segmentValueCount; ord++) {
+                    final long globalOrd = mapping.get(ord);
+                    while (shift < numInserted && insertedRanks[shift] <= globalOrd) {
+                        shift++;
+                    }
+                    builder.add(globalOrd + shift);
+                }
+            }
+            final PackedLongValues values = builder.build();
+            segmentToGlobalOrds[i] = values;
+            segmentRamBytesUsed[i] = values.ramBytesUsed();
+        }
+
+        final LongValues firstSegments;
+        final LongValues globalOrdDeltas;
+        final long firstSegmentsRamBytesUsed;
+        if (numInserted == 0 && isIdentity(newIndexOfPrevious)) {
+            firstSegments = previous.firstSegments;
+            globalOrdDeltas = previous.globalOrdDeltas;
+            firstSegmentsRamBytesUsed = previous.firstSegmentsRamBytesUsed;
+            reusesPrevious = true;
+        } else {
+            final PackedLongValues.Builder firstSegmentsBuilder = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+            final PackedLongValues.Builder globalOrdDeltasBuilder = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+            long globalOrd = 0;
+            int inserted = 0;
+            for (long previousOrd = 0; previousOrd <= previous.valueCount; previousOrd++) {
+                while (inserted < numInserted && insertedRanks[inserted] == previousOrd) {
+                    final long term = insertedTerms[inserted++];
+                    firstSegmentsBuilder.add(newSegments[newTermsMap.getFirstSegmentNumber(term)]);
+                    globalOrdDeltasBuilder.add(globalOrd++ - newTermsMap.getFirstSegmentOrd(term));
+                }
+                if (previousOrd < previous.valueCount) {
+                    firstSegmentsBuilder.add(newIndexOfPrevious[(int) previous.firstSegments.get(previousOrd)]);
+                    final long segmentOrd = previousOrd - previous.globalOrdDeltas.get(previousOrd);
+                    globalOrdDeltasBuilder.add(globalOrd++ - segmentOrd);
+                }
+            }
+            assert globalOrd == valueCount;
+            final PackedLongValues firstSegmentValues = firstSegmentsBuilder.build();
+            final PackedLongValues globalOrdDeltaValues = globalOrdDeltasBuilder.build();
+            firstSegments = firstSegmentValues;
+            globalOrdDeltas = globalOrdDeltaValues;
+            firstSegmentsRamBytesUsed = firstSegmentValues.ramBytesUsed() + globalOrdDeltaValues.ramBytesUsed();
+        }
+        // reused mappings may still point to the lucene map of the previous map
+        final OrdinalMap ordinalMap = reusesPrevious ? previous.ordinalMap : null;
+        return new IncrementalOrdinalMap(segmentKeys, segmentToGlobalOrds, segmentRamBytesUsed, firstSegments, globalOrdDeltas,
+            firstSegmentsRamBytesUsed, valueCount, ordinalMap, true);
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("value [" + value + "] not found");
+    }
+
+    private static boolean isIdentity(int[] array) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the total number of unique terms in the global ordinal space. */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /** Returns the mapping from the ordinals of the given segment to global ordinals. */
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    /** Returns the index of the first segment that contains the term with the given global ordinal. */
+    public int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    /** Returns the ordinal of the term with the given global ordinal in the {@link #getFirstSegmentNumber first segment} that has it. */
+    public long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    /** Whether this map was built from the map of a previous reader. */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Returns the lucene {@link OrdinalMap} that this map wraps, or <code>null</code> if this map was built incrementally.
+     */
+    @Nullable
+    public OrdinalMap getOrdinalMap() {
+        return incremental ? null : ordinalMap;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds) + firstSegmentsRamBytesUsed;
+        for (long segmentRamBytes : segmentRamBytesUsed) {
+            ramBytesUsed += segmentRamBytes;
+        }
+        if (ordinalMap != null) {
+            ramBytesUsed += ordinalMap.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+}
@@ -71,6 +71,7 @@ public abstract class DocValuesIndexFieldData {
 
         private NumericType numericType;
         private Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction = AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION;
+        private boolean incrementalGlobalOrdinals = true;
 
         public Builder numericType(NumericType type) {
             this.numericType = type;
@@ -82,6 +83,16 @@ public abstract class DocValuesIndexFieldData {
             return this;
         }
 
+        /**
+         * Whether the global ordinals of a reader may be built from the global ordinals of the previous reader of the shard, defaults
+         * to <code>true</code>. Consumers that need the lucene {@link org.apache.lucene.index.OrdinalMap} should disable it since
+         * incrementally built global ordinals only provide it by building it again.
+         */
+        public Builder incrementalGlobalOrdinals(boolean incrementalGlobalOrdinals) {
+            this.incrementalGlobalOrdinals = incrementalGlobalOrdinals;
+            return this;
+        }
+
         @Override
         public IndexFieldData<?> build(IndexSettings indexSettings, MappedFieldType fieldType, IndexFieldDataCache cache,
                                        CircuitBreakerService breakerService, MapperService mapperService) {
@@ -93,7 +104,8 @@ public abstract class DocValuesIndexFieldData {
             } else if (numericType != null) {
                 return new SortedNumericDVIndexFieldData(indexSettings.getIndex(), fieldName, numericType);
             } else {
-                return new SortedSetDVOrdinalsIndexFieldData(indexSettings, cache, fieldName, breakerService, scriptFunction);
+                return new SortedSetDVOrdinalsIndexFieldData(indexSettings, cache, fieldName, breakerService, scriptFunction,
+                    incrementalGlobalOrdinals);
             }
         }
 
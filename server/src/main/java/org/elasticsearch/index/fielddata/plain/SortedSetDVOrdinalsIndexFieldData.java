@@ -32,6 +32,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
@@ -50,15 +51,23 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
     private final IndexFieldDataCache cache;
     private final CircuitBreakerService breakerService;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final boolean incrementalGlobalOrdinals;
     private static final Logger logger = Loggers.getLogger(SortedSetDVOrdinalsIndexFieldData.class);
 
     public SortedSetDVOrdinalsIndexFieldData(IndexSettings indexSettings, IndexFieldDataCache cache, String fieldName,
             CircuitBreakerService breakerService, Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
+        this(indexSettings, cache, fieldName, breakerService, scriptFunction, true);
+    }
+
+    public SortedSetDVOrdinalsIndexFieldData(IndexSettings indexSettings, IndexFieldDataCache cache, String fieldName,
+            CircuitBreakerService breakerService, Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+            boolean incrementalGlobalOrdinals) {
         super(indexSettings.getIndex(), fieldName);
         this.indexSettings = indexSettings;
         this.cache = cache;
         this.breakerService = breakerService;
         this.scriptFunction = scriptFunction;
+        this.incrementalGlobalOrdinals = incrementalGlobalOrdinals;
     }
 
     @Override
@@ -130,6 +139,13 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
         return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, scriptFunction);
     }
 
+    @Override
+    public IndexOrdinalsFieldData localGlobalDirect(DirectoryReader indexReader,
+                                                    @Nullable IndexFieldData<AtomicOrdinalsFieldData> previous) throws Exception {
+        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, scriptFunction,
+            incrementalGlobalOrdinals ? previous : null);
+    }
+
     @Override
     public OrdinalMap getOrdinalMap() {
         return null;
@@ -52,6 +52,7 @@ import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -652,21 +653,79 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private Engine.IndexResult applyIndexOperation(long seqNo, long opPrimaryTerm, long version, VersionType versionType,
                                                    long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
                                                    SourceToParse sourceToParse, Consumer<Mapping> onMappingUpdate) throws IOException {
+        final Engine.Index operation;
+        try {
+            operation = prepareIndexOperation(seqNo, opPrimaryTerm, version, versionType, autoGeneratedTimeStamp, isRetry, origin,
+                sourceToParse);
+        } catch (MapperParsingException | IllegalArgumentException | TypeMissingException e) {
+            return new Engine.IndexResult(e, version, seqNo);
+        }
+        return applyParsedIndexOperation(operation, onMappingUpdate);
+    }
+
+    /**
+     * Parses the given source into an index operation on the primary without applying it. The returned operation is applied with
+     * {@link #applyIndexOperation(Engine.Index, Consumer)}, which allows to parse several documents before indexing them.
+     */
+    public Engine.Index prepareIndexOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
+                                              long autoGeneratedTimestamp, boolean isRetry) {
+        return prepareIndexOperation(SequenceNumbers.UNASSIGNED_SEQ_NO, primaryTerm, version, versionType, autoGeneratedTimestamp,
+            isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
+    }
+
+    /**
+     * Parses the given source into an index operation on a replica without applying it, see
+     * {@link #prepareIndexOnPrimary(long, VersionType, SourceToParse, long, boolean)}.
+     */
+    public Engine.Index prepareIndexOnReplica(long seqNo, long version, VersionType versionType, long autoGeneratedTimeStamp,
+                                              boolean isRetry, SourceToParse sourceToParse) {
+        return prepareIndexOperation(seqNo, primaryTerm, version, versionType, autoGeneratedTimeStamp, isRetry,
+            Engine.Operation.Origin.REPLICA, sourceToParse);
+    }
+
+    private Engine.Index prepareIndexOperation(long seqNo, long opPrimaryTerm, long version, VersionType versionType,
+                                               long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
+                                               SourceToParse sourceToParse) {
         assert opPrimaryTerm <= this.primaryTerm : "op term [ " + opPrimaryTerm + " ] > shard term [" + this.primaryTerm + "]";
         assert versionType.validateVersionForWrites(version);
         ensureWriteAllowed(origin);
-        Engine.Index operation;
         try {
-            operation = prepareIndex(docMapper(sourceToParse.type()), indexSettings.getIndexVersionCreated(), sourceToParse, seqNo,
-                    opPrimaryTerm, version, versionType, origin,
-                autoGeneratedTimeStamp, isRetry);
+            final Engine.Index operation = prepareIndex(docMapper(sourceToParse.type()), indexSettings.getIndexVersionCreated(),
+                sourceToParse, seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry);
+            internalIndexingStats.parsed(operation, System.nanoTime() - operation.startTime());
+            return operation;
+        } catch (MapperParsingException | IllegalArgumentException | TypeMissingException e) {
+            // the document can't be indexed, the caller decides whether this fails the operation
+            throw e;
+        } catch (Exception e) {
+            verifyNotClosed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Applies an index operation that was prepared with {@link #prepareIndexOnPrimary(long, VersionType, SourceToParse, long, boolean)}
+     * or {@link #prepareIndexOnReplica(long, long, VersionType, long, boolean, SourceToParse)}. The dynamic mapping update of the
+     * parsed document, if any, is passed to the given consumer first. The operation is timed from now on rather than from when it
+     * was parsed, which may have been long before, e.g. while the preceding items of a bulk request were indexed.
+     */
+    public Engine.IndexResult applyIndexOperation(Engine.Index operation, Consumer<Mapping> onMappingUpdate) throws IOException {
+        final Engine.Index timedOperation = new Engine.Index(operation.uid(), operation.parsedDoc(), operation.seqNo(),
+            operation.primaryTerm(), operation.version(), operation.versionType(), operation.origin(), System.nanoTime(),
+            operation.getAutoGeneratedIdTimestamp(), operation.isRetry());
+        return applyParsedIndexOperation(timedOperation, onMappingUpdate);
+    }
+
+    private Engine.IndexResult applyParsedIndexOperation(Engine.Index operation, Consumer<Mapping> onMappingUpdate) throws IOException {
+        ensureWriteAllowed(operation.origin());
+        try {
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
                 // wrap this in the outer catch block, as the master might also throw a MapperParsingException when updating the mapping
                 onMappingUpdate.accept(update);
             }
         } catch (MapperParsingException | IllegalArgumentException | TypeMissingException e) {
-            return new Engine.IndexResult(e, version, seqNo);
+            return new Engine.IndexResult(e, operation.version(), operation.seqNo());
         } catch (Exception e) {
             verifyNotClosed(e);
             throw e;
@@ -1241,6 +1300,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 ExceptionsHelper.reThrowIfNotNull(result.getFailure());
                 opsRecovered++;
                 recoveryState.getTranslog().incrementRecoveredOperations();
+                final BytesReference operationBytes = snapshot.currentOperationBytes();
+                if (operationBytes != null) {
+                    recoveryState.getTranslog().incrementRecoveredBytes(operationBytes.length());
+                }
             } catch (Exception e) {
                 if (ExceptionsHelper.status(e) == RestStatus.BAD_REQUEST) {
                     // mainly for MapperParsingException and Failure to detect xcontent
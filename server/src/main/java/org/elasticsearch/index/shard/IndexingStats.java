@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.shard;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -46,10 +47,19 @@ public class IndexingStats implements Streamable, ToXContentFragment {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long parseCount;
+        private long parseTimeInMillis;
 
         Stats() {}
 
         public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount, long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis) {
+            this(indexCount, indexTimeInMillis, indexCurrent, indexFailedCount, deleteCount, deleteTimeInMillis, deleteCurrent,
+                noopUpdateCount, isThrottled, throttleTimeInMillis, 0, 0);
+        }
+
+        public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount,
+                     long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis,
+                     long parseCount, long parseTimeInMillis) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
             this.indexCurrent = indexCurrent;
@@ -60,6 +70,8 @@ public class IndexingStats implements Streamable, ToXContentFragment {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.parseCount = parseCount;
+            this.parseTimeInMillis = parseTimeInMillis;
         }
 
         public void add(Stats stats) {
@@ -77,6 +89,8 @@ public class IndexingStats implements Streamable, ToXContentFragment {
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; //When combining if one is throttled set result to throttled.
             }
+            parseCount += stats.parseCount;
+            parseTimeInMillis += stats.parseTimeInMillis;
         }
 
         /**
@@ -94,6 +108,16 @@ public class IndexingStats implements Streamable, ToXContentFragment {
          */
         public TimeValue getIndexTime() { return new TimeValue(indexTimeInMillis); }
 
+        /**
+         * The total number of documents parsed for index operations.
+         */
+        public long getParseCount() { return parseCount; }
+
+        /**
+         * The total amount of time spent on parsing the documents of index operations.
+         */
+        public TimeValue getParseTime() { return new TimeValue(parseTimeInMillis); }
+
         /**
          * Returns the currently in-flight indexing operations.
          */
@@ -150,6 +174,10 @@ public class IndexingStats implements Streamable, ToXContentFragment {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                parseCount = in.readVLong();
+                parseTimeInMillis = in.readVLong();
+            }
         }
 
         @Override
@@ -164,7 +192,10 @@ public class IndexingStats implements Streamable, ToXContentFragment {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                out.writeVLong(parseCount);
+                out.writeVLong(parseTimeInMillis);
+            }
         }
 
         @Override
@@ -173,6 +204,8 @@ public class IndexingStats implements Streamable, ToXContentFragment {
             builder.humanReadableField(Fields.INDEX_TIME_IN_MILLIS, Fields.INDEX_TIME, getIndexTime());
             builder.field(Fields.INDEX_CURRENT, indexCurrent);
             builder.field(Fields.INDEX_FAILED, indexFailedCount);
+            builder.field(Fields.PARSE_TOTAL, parseCount);
+            builder.humanReadableField(Fields.PARSE_TIME_IN_MILLIS, Fields.PARSE_TIME, getParseTime());
 
             builder.field(Fields.DELETE_TOTAL, deleteCount);
             builder.humanReadableField(Fields.DELETE_TIME_IN_MILLIS, Fields.DELETE_TIME, getDeleteTime());
@@ -265,6 +298,9 @@ public class IndexingStats implements Streamable, ToXContentFragment {
         static final String INDEX_TIME_IN_MILLIS = "index_time_in_millis";
         static final String INDEX_CURRENT = "index_current";
         static final String INDEX_FAILED = "index_failed";
+        static final String PARSE_TOTAL = "parse_total";
+        static final String PARSE_TIME = "parse_time";
+        static final String PARSE_TIME_IN_MILLIS = "parse_time_in_millis";
         static final String DELETE_TOTAL = "delete_total";
         static final String DELETE_TIME = "delete_time";
         static final String DELETE_TIME_IN_MILLIS = "delete_time_in_millis";
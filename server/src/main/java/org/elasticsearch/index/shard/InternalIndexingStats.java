@@ -133,6 +133,16 @@ final class InternalIndexingStats implements IndexingOperationListener {
         }
     }
 
+    /**
+     * Records the time it took to parse the document of the given index operation.
+     */
+    void parsed(Engine.Index operation, long tookInNanos) {
+        if (operation.origin().isRecovery() == false) {
+            totalStats.parseMetric.inc(tookInNanos);
+            typeStats(operation.type()).parseMetric.inc(tookInNanos);
+        }
+    }
+
     public void noopUpdate(String type) {
         totalStats.noopUpdates.inc();
         typeStats(type).noopUpdates.inc();
@@ -159,17 +169,20 @@ final class InternalIndexingStats implements IndexingOperationListener {
         private final CounterMetric indexFailed = new CounterMetric();
         private final CounterMetric deleteCurrent = new CounterMetric();
         private final CounterMetric noopUpdates = new CounterMetric();
+        private final MeanMetric parseMetric = new MeanMetric();
 
         IndexingStats.Stats stats(boolean isThrottled, long currentThrottleMillis) {
             return new IndexingStats.Stats(
                 indexMetric.count(), TimeUnit.NANOSECONDS.toMillis(indexMetric.sum()), indexCurrent.count(), indexFailed.count(),
                 deleteMetric.count(), TimeUnit.NANOSECONDS.toMillis(deleteMetric.sum()), deleteCurrent.count(),
-                noopUpdates.count(), isThrottled, TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis));
+                noopUpdates.count(), isThrottled, TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis),
+                parseMetric.count(), TimeUnit.NANOSECONDS.toMillis(parseMetric.sum()));
         }
 
         void clear() {
             indexMetric.clear();
             deleteMetric.clear();
+            parseMetric.clear();
         }
     }
 }
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.snapshots;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -64,6 +65,7 @@ public class IndexShardSnapshotStatus {
     private int processedFiles;
     private long totalSize;
     private long processedSize;
+    private long fileTransferTimeInNanos;
     private long indexVersion;
     private String failure;
 
@@ -135,8 +137,17 @@ public class IndexShardSnapshotStatus {
      * Increments number of processed files
      */
     public synchronized void addProcessedFile(long size) {
+        addProcessedFile(size, 0L);
+    }
+
+    /**
+     * Increments number of processed files and adds the time it took to transfer the file. Files can be transferred
+     * concurrently so the sum of the transfer times can be greater than the time the snapshot is running.
+     */
+    public synchronized void addProcessedFile(long size, long transferTimeInNanos) {
         processedFiles++;
         processedSize += size;
+        fileTransferTimeInNanos += transferTimeInNanos;
     }
 
     /**
@@ -147,7 +158,7 @@ public class IndexShardSnapshotStatus {
      */
     public synchronized IndexShardSnapshotStatus.Copy asCopy() {
         return new IndexShardSnapshotStatus.Copy(stage.get(), startTime, totalTime, numberOfFiles, processedFiles, totalSize, processedSize,
-                                                 indexVersion, failure);
+                                                 TimeUnit.NANOSECONDS.toMillis(fileTransferTimeInNanos), indexVersion, failure);
     }
 
     public static IndexShardSnapshotStatus newInitializing() {
@@ -179,12 +190,19 @@ public class IndexShardSnapshotStatus {
         private final int processedFiles;
         private final long totalSize;
         private final long processedSize;
+        private final long fileTransferTime;
         private final long indexVersion;
         private final String failure;
 
         public Copy(final Stage stage, final long startTime, final long totalTime,
                     final int numberOfFiles, final int processedFiles, final long totalSize, final long processedSize,
                     final long indexVersion, final String failure) {
+            this(stage, startTime, totalTime, numberOfFiles, processedFiles, totalSize, processedSize, 0L, indexVersion, failure);
+        }
+
+        public Copy(final Stage stage, final long startTime, final long totalTime,
+                    final int numberOfFiles, final int processedFiles, final long totalSize, final long processedSize,
+                    final long fileTransferTime, final long indexVersion, final String failure) {
             this.stage = stage;
             this.startTime = startTime;
             this.totalTime = totalTime;
@@ -192,6 +210,7 @@ public class IndexShardSnapshotStatus {
             this.processedFiles = processedFiles;
             this.totalSize = totalSize;
             this.processedSize = processedSize;
+            this.fileTransferTime = fileTransferTime;
             this.indexVersion = indexVersion;
             this.failure = failure;
         }
@@ -224,6 +243,13 @@ public class IndexShardSnapshotStatus {
             return processedSize;
         }
 
+        /**
+         * Returns the sum of the times, in milliseconds, it took to transfer the processed files
+         */
+        public long getFileTransferTime() {
+            return fileTransferTime;
+        }
+
         public long getIndexVersion() {
             return indexVersion;
         }
@@ -242,6 +268,7 @@ public class IndexShardSnapshotStatus {
                 ", processedFiles=" + processedFiles +
                 ", totalSize=" + totalSize +
                 ", processedSize=" + processedSize +
+                ", fileTransferTime=" + fileTransferTime +
                 ", indexVersion=" + indexVersion +
                 ", failure='" + failure + '\'' +
                 ')';
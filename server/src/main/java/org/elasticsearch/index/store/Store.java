@@ -52,6 +52,7 @@ import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
@@ -458,9 +459,24 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
      */
     public static MetadataSnapshot readMetadataSnapshot(Path indexLocation, ShardId shardId, NodeEnvironment.ShardLocker shardLocker,
                                                         Logger logger) throws IOException {
+        return readMetadataSnapshot(indexLocation, shardId, shardLocker, logger, null);
+    }
+
+    /**
+     * Reads a MetadataSnapshot from the given index locations like {@link #readMetadataSnapshot(Path, ShardId,
+     * NodeEnvironment.ShardLocker, Logger)}, but returns the given previous snapshot if it was read from the same commit that is still
+     * the latest one. This only reads the segments file of the commit instead of the checksums of all files.
+     *
+     * @throws IOException if the index we try to read is corrupted
+     */
+    public static MetadataSnapshot readMetadataSnapshot(Path indexLocation, ShardId shardId, NodeEnvironment.ShardLocker shardLocker,
+                                                        Logger logger, @Nullable MetadataSnapshot previous) throws IOException {
         try (ShardLock lock = shardLocker.lock(shardId, TimeUnit.SECONDS.toMillis(5));
              Directory dir = new SimpleFSDirectory(indexLocation)) {
             failIfCorrupted(dir, shardId);
+            if (previous != null && isLatestCommit(dir, previous)) {
+                return previous;
+            }
             return new MetadataSnapshot(null, dir, logger);
         } catch (IndexNotFoundException ex) {
             // that's fine - happens all the time no need to log
@@ -472,6 +488,18 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         return MetadataSnapshot.EMPTY;
     }
 
+    private static boolean isLatestCommit(Directory directory, MetadataSnapshot snapshot) throws IOException {
+        final StoreFileMetaData segmentsFile = snapshot.getSegmentsFile();
+        if (segmentsFile == null || segmentsFile.name().equals(SegmentInfos.getLastCommitSegmentsFileName(directory)) == false) {
+            return false;
+        }
+        // segments files of the same generation can still differ, e.g. after a recovery from another copy, but then so do their
+        // checksums since they contain the unique ids of the segments
+        try (IndexInput in = directory.openInput(segmentsFile.name(), IOContext.READONCE)) {
+            return in.length() == segmentsFile.length() && digestToString(CodecUtil.retrieveChecksum(in)).equals(segmentsFile.checksum());
+        }
+    }
+
     /**
      * Returns <code>true</code> iff the given location contains an index an the index
      * can be successfully opened. This includes reading the segment infos and possible
@@ -539,6 +567,125 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         }
     }
 
+    /**
+     * Opens an input that reads the given file from the given position on and computes the checksum of the bytes it reads. The
+     * parts of a file that are read by such inputs, possibly concurrently, are verified with {@link #verifyParts} without reading
+     * the file again.
+     */
+    public IndexInput openVerifyingPartInput(String filename, IOContext context, StoreFileMetaData metadata,
+                                             long position) throws IOException {
+        assert metadata.writtenBy() != null;
+        final IndexInput input = directory().openInput(filename, context);
+        boolean success = false;
+        try {
+            if (input.length() != metadata.length()) {
+                throw new CorruptIndexException("expected length=" + metadata.length() + " != actual length: " + input.length() +
+                    " : file truncated?", input);
+            }
+            input.seek(position);
+            success = true;
+            return new VerifyingIndexInput(input, new BufferedChecksum(new CRC32()), position);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(input);
+            }
+        }
+    }
+
+    /**
+     * Verifies the checksum of a file from the inputs that read all of its parts, in the order of the parts. The inputs must have
+     * been opened with {@link #openVerifyingPartInput} and every input must have read its part up to the start of the next one.
+     * The checksums of the parts are combined into the checksum of the whole file which is compared to the checksum stored in its
+     * footer and to the checksum of the given metadata.
+     */
+    public static void verifyParts(StoreFileMetaData metadata, List<IndexInput> parts) throws IOException {
+        long checksum = 0;
+        long position = 0;
+        final byte[] storedChecksum = new byte[8];
+        for (IndexInput part : parts) {
+            final VerifyingIndexInput input = (VerifyingIndexInput) part;
+            if (input.startPosition != position) {
+                throw new IllegalStateException("part of [" + metadata.name() + "] starts at [" + input.startPosition
+                    + "] but the previous part was read up to [" + position + "]");
+            }
+            final long digestedBytes = Math.max(0, Math.min(input.verifiedPosition, input.checksumPosition) - input.startPosition);
+            checksum = crc32Combine(checksum, input.getChecksum(), digestedBytes);
+            for (long pos = Math.max(input.startPosition, input.checksumPosition); pos < input.verifiedPosition; pos++) {
+                final int index = Math.toIntExact(pos - input.checksumPosition);
+                storedChecksum[index] = input.checksum[index];
+            }
+            position = input.verifiedPosition;
+        }
+        if (position != metadata.length()) {
+            throw new CorruptIndexException("expected length=" + metadata.length() + " != read length: " + position, metadata.name());
+        }
+        final long stored = new ByteArrayDataInput(storedChecksum).readLong();
+        if (checksum != stored) {
+            throw new CorruptIndexException("verification failed : calculated=" + digestToString(checksum) +
+                " stored=" + digestToString(stored), metadata.name());
+        }
+        if (digestToString(checksum).equals(metadata.checksum()) == false) {
+            throw new CorruptIndexException("inconsistent metadata: lucene checksum=" + digestToString(checksum) +
+                ", metadata checksum=" + metadata.checksum(), metadata.name());
+        }
+    }
+
+    /**
+     * Returns the CRC32 of the concatenation of two byte sequences given their CRC32s and the length of the second one, using the
+     * same method as zlib's crc32_combine: the first CRC is shifted by the length of the second sequence with a matrix over GF(2)
+     * that is squared for every bit of the length.
+     */
+    static long crc32Combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1 ^ crc2;
+        }
+        // the operator for one zero bit, the reversed CRC-32 polynomial followed by the identity shifted by one
+        long[] odd = new long[32];
+        long[] even = new long[32];
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // the operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // apply length2 zero bytes to crc1, the first squaring yields the operator for one zero byte
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
     public boolean checkIntegrityNoException(StoreFileMetaData md) {
         return checkIntegrityNoException(md, directory());
     }
@@ -1257,17 +1404,28 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         private final Checksum digest;
         private final long checksumPosition;
         private final byte[] checksum = new byte[8];
-        private long verifiedPosition = 0;
+        private final long startPosition;
+        private long verifiedPosition;
 
         VerifyingIndexInput(IndexInput input) {
             this(input, new BufferedChecksum(new CRC32()));
         }
 
         VerifyingIndexInput(IndexInput input, Checksum digest) {
+            this(input, digest, 0);
+        }
+
+        /**
+         * Creates an input that only reads and computes the checksum of the file from the given position on, see
+         * {@link Store#verifyParts(StoreFileMetaData, List)}.
+         */
+        VerifyingIndexInput(IndexInput input, Checksum digest, long startPosition) {
             super("VerifyingIndexInput(" + input + ")");
             this.input = input;
             this.digest = digest;
+            this.startPosition = startPosition;
             checksumPosition = input.length() - 8;
+            verifiedPosition = startPosition;
         }
 
         @Override
@@ -93,6 +93,15 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
      * of bytes reads.
      */
     protected final BufferedChecksumStreamInput checksummedStream(ByteBuffer reusableBuffer, long position, int opSize, BufferedChecksumStreamInput reuse) throws IOException {
+        final ByteBuffer buffer = readOperationBytes(reusableBuffer, position, opSize);
+        return new BufferedChecksumStreamInput(new ByteBufferStreamInput(buffer), reuse);
+    }
+
+    /**
+     * reads the bytes of the operation at the given position, including its size and checksum, into the given buffer or
+     * a new buffer if the given one is too small. The returned buffer is ready to be read.
+     */
+    protected final ByteBuffer readOperationBytes(ByteBuffer reusableBuffer, long position, int opSize) throws IOException {
         final ByteBuffer buffer;
         if (reusableBuffer.capacity() >= opSize) {
             buffer = reusableBuffer;
@@ -103,16 +112,20 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
         buffer.limit(opSize);
         readBytes(buffer, position);
         buffer.flip();
-        return new BufferedChecksumStreamInput(new ByteBufferStreamInput(buffer), reuse);
+        return buffer;
     }
 
     protected Translog.Operation read(BufferedChecksumStreamInput inStream) throws IOException {
         final Translog.Operation op = Translog.readOperation(inStream);
+        verifyPrimaryTerm(op);
+        return op;
+    }
+
+    protected final void verifyPrimaryTerm(Translog.Operation op) {
         if (op.primaryTerm() > getPrimaryTerm() && getPrimaryTerm() != TranslogHeader.UNKNOWN_PRIMARY_TERM) {
             throw new TranslogCorruptedException("Operation's term is newer than translog header term; " +
                 "operation term[" + op.primaryTerm() + "], translog header term [" + getPrimaryTerm() + "]");
         }
-        return op;
     }
 
     /**
@@ -20,12 +20,16 @@
 package org.elasticsearch.index.translog;
 
 import com.carrotsearch.hppc.LongObjectHashMap;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.seqno.CountedBitSet;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * A snapshot composed out of multiple snapshots
@@ -77,9 +81,18 @@ final class MultiSnapshot implements Translog.Snapshot {
         return null;
     }
 
+    @Override
+    public BytesReference currentOperationBytes() {
+        // next() returns without moving on to the next translog so the current operation was read from translogs[index]
+        return translogs[index].currentOperationBytes();
+    }
+
     @Override
     public void close() throws IOException {
-        onClose.close();
+        final List<Closeable> closeables = new ArrayList<>(translogs.length + 1);
+        closeables.addAll(Arrays.asList(translogs));
+        closeables.add(onClose);
+        IOUtils.close(closeables);
     }
 
     static final class SeqNoSet {
@@ -21,12 +21,15 @@ package org.elasticsearch.index.translog;
 
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -557,16 +560,42 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     }
 
     public Snapshot newSnapshotFromGen(long minGeneration) throws IOException {
+        return newSnapshotFromGen(minGeneration, false);
+    }
+
+    /**
+     * Snapshots the operations of all generations starting at the given generation.
+     *
+     * @param mapped whether the operations of immutable generations are read from memory mapped files instead of through their file
+     *               channels. This reduces the number of system calls when all operations of a translog are replayed, e.g. when
+     *               recovering from the local translog.
+     */
+    public Snapshot newSnapshotFromGen(long minGeneration, boolean mapped) throws IOException {
         try (ReleasableLock ignored = readLock.acquire()) {
             ensureOpen();
             if (minGeneration < getMinFileGeneration()) {
                 throw new IllegalArgumentException("requested snapshot generation [" + minGeneration + "] is not available. " +
                     "Min referenced generation is [" + getMinFileGeneration() + "]");
             }
-            TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
-                .filter(reader -> reader.getGeneration() >= minGeneration)
-                .map(BaseTranslogReader::newSnapshot).toArray(TranslogSnapshot[]::new);
-            return newMultiSnapshot(snapshots);
+            final List<TranslogSnapshot> snapshots = new ArrayList<>();
+            boolean success = false;
+            try {
+                for (TranslogReader reader : readers) {
+                    if (reader.getGeneration() >= minGeneration) {
+                        snapshots.add(mapped ? reader.newMappedSnapshot() : reader.newSnapshot());
+                    }
+                }
+                if (current.getGeneration() >= minGeneration) {
+                    snapshots.add(current.newSnapshot());
+                }
+                final Snapshot snapshot = newMultiSnapshot(snapshots.toArray(new TranslogSnapshot[0]));
+                success = true;
+                return snapshot;
+            } finally {
+                if (success == false) {
+                    IOUtils.closeWhileHandlingException(snapshots);
+                }
+            }
         }
     }
 
@@ -859,6 +888,17 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
          */
         Translog.Operation next() throws IOException;
 
+        /**
+         * Returns the operation that was last returned by {@link #next()} in its serialized form as it is stored in the translog file,
+         * that is the size of the operation followed by the operation and its checksum. This is the same format that
+         * {@link #writeOperations(StreamOutput, List)} uses for each operation, so the bytes can be sent to other nodes as they are.
+         * The returned bytes are only valid until the next call to {@link #next()}. Returns <code>null</code> if this snapshot
+         * does not read its operations from translog files.
+         */
+        default BytesReference currentOperationBytes() {
+            return null;
+        }
+
     }
 
     /**
@@ -1398,8 +1438,15 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * Reads a list of operations written with {@link #writeOperations(StreamOutput, List)}
      */
     public static List<Operation> readOperations(StreamInput input) throws IOException {
-        ArrayList<Operation> operations = new ArrayList<>();
-        int numOps = input.readInt();
+        return readOperations(input, input.readInt());
+    }
+
+    /**
+     * Reads the given number of operations written with {@link #writeOperations(StreamOutput, List)} or
+     * {@link #readSerializedOperations(StreamInput, int)} after the number of operations.
+     */
+    public static List<Operation> readOperations(StreamInput input, int numOps) throws IOException {
+        ArrayList<Operation> operations = new ArrayList<>(numOps);
         final BufferedChecksumStreamInput checksumStreamInput = new BufferedChecksumStreamInput(input);
         for (int i = 0; i < numOps; i++) {
             operations.add(readOperation(checksumStreamInput));
@@ -1407,6 +1454,27 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return operations;
     }
 
+    /**
+     * Reads the given number of operations written with {@link #writeOperations(StreamOutput, List)} after the number of operations
+     * without decoding them. The checksums of the operations are not verified, use {@link #readOperations(StreamInput, int)} to
+     * decode and verify the returned bytes.
+     */
+    public static BytesReference readSerializedOperations(StreamInput input, int numOps) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        byte[] buffer = BytesRef.EMPTY_BYTES;
+        for (int i = 0; i < numOps; i++) {
+            final int opSize = input.readInt();
+            if (opSize < 4) { // 4byte for the checksum
+                throw new TranslogCorruptedException("operation size must be at least 4 but was: " + opSize);
+            }
+            buffer = ArrayUtil.grow(buffer, opSize);
+            input.readBytes(buffer, 0, opSize);
+            out.writeInt(opSize);
+            out.writeBytes(buffer, 0, opSize);
+        }
+        return out.bytes();
+    }
+
     static Translog.Operation readOperation(BufferedChecksumStreamInput in) throws IOException {
         final Translog.Operation operation;
         try {
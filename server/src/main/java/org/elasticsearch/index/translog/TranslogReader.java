@@ -20,6 +20,9 @@
 package org.elasticsearch.index.translog;
 
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
 import org.elasticsearch.common.io.Channels;
 
 import java.io.Closeable;
@@ -83,6 +86,24 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return checkpoint;
     }
 
+    /**
+     * Returns a snapshot that reads the operations of this generation from a memory mapping of the translog file, which is preloaded
+     * into the page cache, rather than through positional reads of its channel. This is safe since the generations of readers are
+     * immutable and saves a system call per operation when replaying a whole generation, e.g. during local recovery. Falls back to
+     * {@link #newSnapshot()} if mapped files can't be unmapped on this JVM since they could then not be deleted on all platforms.
+     */
+    TranslogSnapshot newMappedSnapshot() throws IOException {
+        ensureOpen();
+        if (MMapDirectory.UNMAP_SUPPORTED == false) {
+            return newSnapshot();
+        }
+        try (MMapDirectory directory = new MMapDirectory(path.getParent())) {
+            directory.setPreload(true);
+            final IndexInput input = directory.openInput(path.getFileName().toString(), IOContext.READONCE);
+            return new TranslogSnapshot(this, sizeInBytes(), input);
+        }
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -18,35 +18,54 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    private final CRC32 checksum;
+    // reads go through the translog file channel if this is null
+    private final IndexInput mappedInput;
     private long position;
     private int readOperations;
-    private BufferedChecksumStreamInput reuse;
+    private ByteBuffer currentOperationBuffer;
 
     /**
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, null);
+    }
+
+    /**
+     * Create a snapshot of a translog file that reads its operations from the given memory mapped input of the file instead of its
+     * channel. The snapshot owns the input and closes it once it is closed.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, final IndexInput mappedInput) {
         super(reader.generation, reader.channel, reader.path, reader.header);
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
         this.reusableBuffer = ByteBuffer.allocate(1024);
+        this.checksum = new CRC32();
+        this.mappedInput = mappedInput;
         this.readOperations = 0;
         this.position = reader.getFirstOperationOffset();
-        this.reuse = null;
     }
 
     @Override
@@ -69,13 +88,60 @@ final class TranslogSnapshot extends BaseTranslogReader {
 
     protected Translog.Operation readOperation() throws IOException {
         final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
-        Translog.Operation op = read(reuse);
+        currentOperationBuffer = readOperationBytes(reusableBuffer, position, opSize);
+        Translog.Operation op = readVerifiedOperation(currentOperationBuffer);
         position += opSize;
         readOperations++;
         return op;
     }
 
+    /**
+     * Reads the operation from its bytes as returned by {@link #readOperationBytes}. Unlike {@link Translog#readOperation} this
+     * verifies the checksum over all bytes of the operation at once before it deserializes the operation, rather than checksumming
+     * every read of the stream as well as the whole operation upfront.
+     */
+    private Translog.Operation readVerifiedOperation(ByteBuffer operationBytes) throws IOException {
+        final int start = operationBytes.position();
+        final int opSize = operationBytes.remaining();
+        if (opSize < 2 * Integer.BYTES) {
+            throw new TranslogCorruptedException("operation size must be at least 4 but was: " + (opSize - Integer.BYTES));
+        }
+        // the size of the operation is not part of the checksum
+        final int end = start + opSize - Integer.BYTES;
+        checksum.reset();
+        checksum.update(operationBytes.array(), operationBytes.arrayOffset() + start + Integer.BYTES, opSize - 2 * Integer.BYTES);
+        final long expectedChecksum = checksum.getValue();
+        final long readChecksum = Integer.toUnsignedLong(operationBytes.getInt(end));
+        if (readChecksum != expectedChecksum) {
+            throw new TranslogCorruptedException("translog stream is corrupted, expected: 0x" +
+                Long.toHexString(expectedChecksum) + ", got: 0x" + Long.toHexString(readChecksum));
+        }
+        final ByteBuffer operation = operationBytes.duplicate();
+        operation.position(start + Integer.BYTES);
+        operation.limit(end);
+        final ByteBufferStreamInput in = new ByteBufferStreamInput(operation);
+        final Translog.Operation op;
+        try {
+            op = Translog.Operation.readOperation(in);
+        } catch (EOFException e) {
+            throw new TruncatedTranslogException("reached premature end of file, translog is truncated", e);
+        }
+        if (in.available() != 0) {
+            // the checksum would not have been read from the right position
+            throw new TranslogCorruptedException("translog stream is corrupted, operation has [" + in.available() + "] trailing bytes");
+        }
+        verifyPrimaryTerm(op);
+        return op;
+    }
+
+    /**
+     * Returns the bytes of the operation that was last returned by {@link #next()}, see {@link Translog.Snapshot#currentOperationBytes()}.
+     */
+    BytesReference currentOperationBytes() {
+        assert currentOperationBuffer != null : "no operation was read yet";
+        return new BytesArray(currentOperationBuffer.array(), currentOperationBuffer.arrayOffset(), currentOperationBuffer.limit());
+    }
+
     public long sizeInBytes() {
         return length;
     }
@@ -90,7 +156,19 @@ final class TranslogSnapshot extends BaseTranslogReader {
         if (position < getFirstOperationOffset()) {
             throw new IOException("read requested before position of first ops. pos [" + position + "] first op on: [" + getFirstOperationOffset() + "], generation: [" + getGeneration() + "], path: [" + path + "]");
         }
-        Channels.readFromFileChannelWithEofException(channel, position, buffer);
+        if (mappedInput == null) {
+            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+        } else {
+            // no system call, just a copy from the mapped pages
+            mappedInput.seek(position);
+            mappedInput.readBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(mappedInput);
     }
 
     @Override
@@ -101,6 +179,7 @@ final class TranslogSnapshot extends BaseTranslogReader {
                 ", estimateTotalOperations=" + totalOperations +
                 ", length=" + length +
                 ", generation=" + generation +
+                ", mapped=" + (mappedInput != null) +
                 ", reusableBuffer=" + reusableBuffer +
                 '}';
     }
@@ -0,0 +1,246 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The indices aggregation cache caches the partial results of the top level aggregations of a search request per segment, so that
+ * a request that is repeated after a refresh only collects the segments that are new since the last execution and reduces their
+ * results with the cached results of the other segments. Entries are keyed by the segment reader, which changes once documents
+ * of the segment are deleted, and the cache key of the shard level request. Entries are invalidated as soon as their segment reader
+ * is closed so that their memory is released from the circuit breaker right away.
+ * <p>
+ * The cache complements the request cache that caches whole shard level results until the next refresh: it is only used for
+ * requests that can use the request cache, and only if all of their aggregations reduce their partial results into the same
+ * result as collecting all segments at once, see {@link #canCache(AggregatorFactories.Builder)}. It can be enabled per index with
+ * a dynamic setting that defaults to false.
+ * <p>
+ * Cached values are accounted for in the request circuit breaker. Values that would trip the breaker are not cached.
+ */
+public final class IndicesAggregationCache extends AbstractComponent implements RemovalListener<IndicesAggregationCache.Key,
+    BytesReference>, Closeable {
+
+    public static final Setting<Boolean> INDEX_CACHE_ENABLED_SETTING =
+        Setting.boolSetting("index.aggregations.segment_cache.enable", false, Property.Dynamic, Property.IndexScope);
+    public static final Setting<ByteSizeValue> INDICES_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.aggregations.segment_cache.size", "1%", Property.NodeScope);
+
+    /**
+     * The types of aggregations that reduce the partial results of all segments into the same result as collecting the segments at
+     * once. Aggregations that prune their buckets per shard like <code>terms</code>, or whose reduction is approximate like
+     * <code>percentiles</code>, are not cached.
+     */
+    private static final Set<String> CACHEABLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "avg", "sum", "min", "max", "stats", "extended_stats", "value_count", "cardinality", "geo_bounds", "geo_centroid",
+        "histogram", "date_histogram", "range", "date_range", "filter", "filters", "missing", "nested", "reverse_nested")));
+
+    // the keys of the entries of each open segment reader, to invalidate them once the reader is closed
+    private final ConcurrentMap<IndexReader.CacheKey, Set<Key>> keysByReader = ConcurrentCollections.newConcurrentMap();
+    private final Set<ShardRequestCache> shardsToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, BytesReference> cache;
+    private final CircuitBreaker breaker;
+
+    IndicesAggregationCache(Settings settings, CircuitBreaker breaker) {
+        super(settings);
+        this.breaker = breaker;
+        this.cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(INDICES_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .removalListener(this)
+            .build();
+    }
+
+    /**
+     * Returns <code>true</code> iff the partial results of all the given aggregations and their sub-aggregations can be cached per
+     * segment.
+     */
+    static boolean canCache(AggregatorFactories.Builder aggregations) {
+        return canCache(aggregations.getAggregatorFactories());
+    }
+
+    private static boolean canCache(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (CACHEABLE_TYPES.contains(aggregation.getType()) == false || canCache(aggregation.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all entries of the given shard.
+     */
+    void clear(ShardRequestCache shard) {
+        shardsToClean.add(shard);
+        cleanCache();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        final long bytes = notification.getKey().ramBytesUsed() + notification.getValue().ramBytesUsed();
+        notification.getKey().shard.onSegmentAggregationsRemoval(bytes);
+        breaker.addWithoutBreaking(-bytes);
+    }
+
+    /**
+     * Returns the cached partial results of a request on a segment, or <code>null</code> if they are not cached.
+     */
+    BytesReference get(ShardRequestCache shard, IndexReader.CacheHelper cacheHelper, BytesReference requestKey) {
+        final BytesReference value = cache.get(new Key(shard, cacheHelper.getKey(), requestKey));
+        if (value == null) {
+            shard.onSegmentAggregationsMiss();
+        } else {
+            shard.onSegmentAggregationsHit();
+        }
+        return value;
+    }
+
+    /**
+     * Caches the partial results of a request on a segment unless they would trip the request circuit breaker.
+     */
+    void put(ShardRequestCache shard, IndexReader.CacheHelper cacheHelper, BytesReference requestKey, BytesReference value) {
+        final Key key = new Key(shard, cacheHelper.getKey(), requestKey);
+        final long bytes = key.ramBytesUsed() + value.ramBytesUsed();
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(bytes, "<segment_aggregation_cache>");
+        } catch (CircuitBreakingException e) {
+            // caching is best effort, the request already holds the partial results
+            logger.trace("not caching the partial results of the aggregations of a segment", e);
+            return;
+        }
+        shard.onSegmentAggregationsCached(bytes);
+        // the reader can't be closed concurrently since the search holds a reference to it
+        keysByReader.computeIfAbsent(key.readerKey, readerKey -> {
+            cacheHelper.addClosedListener(this::onClose);
+            return ConcurrentCollections.newConcurrentSet();
+        }).add(key);
+        cache.put(key, value);
+    }
+
+    private void onClose(IndexReader.CacheKey readerKey) {
+        final Set<Key> keys = keysByReader.remove(readerKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                // a no-op for entries that were evicted already
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    synchronized void cleanCache() {
+        if (shardsToClean.isEmpty() == false) {
+            final Set<ShardRequestCache> currentShardsToClean = new HashSet<>();
+            for (Iterator<ShardRequestCache> iterator = shardsToClean.iterator(); iterator.hasNext(); ) {
+                currentShardsToClean.add(iterator.next());
+                iterator.remove();
+            }
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+                if (currentShardsToClean.contains(iterator.next().shard)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current size of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return keysByReader.size();
+    }
+
+    static class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final ShardRequestCache shard; // use as identity equality
+        final IndexReader.CacheKey readerKey; // use as identity equality
+        final BytesReference requestKey;
+
+        Key(ShardRequestCache shard, IndexReader.CacheKey readerKey, BytesReference requestKey) {
+            this.shard = shard;
+            this.readerKey = readerKey;
+            this.requestKey = requestKey;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + requestKey.length();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return shard == key.shard && readerKey == key.readerKey && requestKey.equals(key.requestKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(shard);
+            result = 31 * result + readerKey.hashCode();
+            result = 31 * result + requestKey.hashCode();
+            return result;
+        }
+    }
+}
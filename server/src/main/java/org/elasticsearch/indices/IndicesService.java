@@ -22,6 +22,8 @@ package org.elasticsearch.indices;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.LockObtainFailedException;
 import org.apache.lucene.util.CollectionUtil;
@@ -105,6 +107,8 @@ import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationCache;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -170,6 +174,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final IndexingMemoryController indexingMemoryController;
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
+    private final IndicesAggregationCache indicesAggregationCache;
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
 
@@ -193,6 +198,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.analysisRegistry = analysisRegistry;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
+        this.indicesAggregationCache = new IndicesAggregationCache(settings, circuitBreakerService.getBreaker(CircuitBreaker.REQUEST));
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
@@ -212,7 +218,8 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache,  logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, indicesAggregationCache, logger, threadPool,
+            this.cleanInterval);
         this.metaStateService = metaStateService;
     }
 
@@ -245,7 +252,8 @@ public class IndicesService extends AbstractLifecycleComponent
 
     @Override
     protected void doClose() {
-        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner, indicesRequestCache, indicesQueryCache);
+        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner,
+            indicesRequestCache, indicesAggregationCache, indicesQueryCache);
     }
 
     /**
@@ -1031,10 +1039,13 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesAggregationCache aggregationCache;
 
-        CacheCleaner(IndicesFieldDataCache cache, IndicesRequestCache requestCache, Logger logger, ThreadPool threadPool, TimeValue interval) {
+        CacheCleaner(IndicesFieldDataCache cache, IndicesRequestCache requestCache, IndicesAggregationCache aggregationCache,
+                     Logger logger, ThreadPool threadPool, TimeValue interval) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.aggregationCache = aggregationCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1060,6 +1071,12 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+
+            try {
+                this.aggregationCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic aggregation cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.schedule(interval, ThreadPool.Names.SAME, this);
@@ -1128,6 +1145,10 @@ public class IndicesService extends AbstractLifecycleComponent
     public void loadIntoContext(ShardSearchRequest request, SearchContext context, QueryPhase queryPhase) throws Exception {
         assert canCache(request, context);
         final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
+        if (canCacheSegmentAggregations(request, context)) {
+            context.aggregations().segmentCache(new IndexShardSegmentAggregationCache(indicesAggregationCache,
+                context.indexShard().requestCache(), request.cacheKey(), namedWriteableRegistry));
+        }
 
         boolean[] loadedFromCache = new boolean[] { true };
         BytesReference bytesReference = cacheShardLevelResult(context.indexShard(), directoryReader, request.cacheKey(), out -> {
@@ -1159,6 +1180,70 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the partial results of the aggregations of a cacheable shard request be cached per segment?
+     */
+    private boolean canCacheSegmentAggregations(ShardSearchRequest request, SearchContext context) {
+        if (context.aggregations() == null || request.source() == null || request.source().aggregations() == null) {
+            return false;
+        }
+        if (context.indexShard().indexSettings().getValue(IndicesAggregationCache.INDEX_CACHE_ENABLED_SETTING) == false) {
+            return false;
+        }
+        // profiled requests must collect every segment and terminate_after counts the collected documents across segments
+        if (context.getProfilers() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        return IndicesAggregationCache.canCache(request.source().aggregations());
+    }
+
+    /**
+     * Binds the {@link IndicesAggregationCache} to the partial results of the aggregations of a single shard request.
+     */
+    private static final class IndexShardSegmentAggregationCache implements SegmentAggregationCache {
+        private final IndicesAggregationCache cache;
+        private final ShardRequestCache shard;
+        private final BytesReference requestKey;
+        private final NamedWriteableRegistry namedWriteableRegistry;
+
+        IndexShardSegmentAggregationCache(IndicesAggregationCache cache, ShardRequestCache shard, BytesReference requestKey,
+                                          NamedWriteableRegistry namedWriteableRegistry) {
+            this.cache = cache;
+            this.shard = shard;
+            this.requestKey = requestKey;
+            this.namedWriteableRegistry = namedWriteableRegistry;
+        }
+
+        @Override
+        public InternalAggregations get(LeafReaderContext leaf) throws IOException {
+            final IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return null;
+            }
+            final BytesReference bytes = cache.get(shard, cacheHelper, requestKey);
+            if (bytes == null) {
+                return null;
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readAggregations(in);
+            }
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, InternalAggregations aggregations) throws IOException {
+            final IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                // readers that hide some of the documents of the segment can't be cached
+                return;
+            }
+            // see cacheShardLevelResult for the expected size
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                aggregations.writeTo(out);
+                cache.put(shard, cacheHelper, requestKey, out.bytes());
+            }
+        }
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -1265,6 +1350,7 @@ public class IndicesService extends AbstractLifecycleComponent
             final boolean clearedAtLeastOne = service.clearCaches(queryCache, fieldDataCache, fields);
             if ((requestCache || (clearedAtLeastOne == false && fields.length == 0)) && shard != null) {
                 indicesRequestCache.clear(new IndexShardCacheEntity(shard));
+                indicesAggregationCache.clear(shard.requestCache());
             }
         }
     }
@@ -48,6 +48,8 @@ import org.elasticsearch.index.shard.ShardUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache extends AbstractComponent implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -115,6 +117,8 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the key of the global field data that was last loaded for every shard, used to build the global field data of the next reader
+        private final ConcurrentMap<ShardId, Key> lastGlobalKeys = new ConcurrentHashMap<>();
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -162,7 +166,13 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader);
+                final Key previousKey = shardId == null ? null : lastGlobalKeys.get(shardId);
+                // only entries of readers that are still open are in the cache
+                final IndexFieldData<FD> previous = previousKey == null ? null : (IndexFieldData<FD>) cache.get(previousKey);
+                final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader, previous);
+                if (shardId != null) {
+                    lastGlobalKeys.put(shardId, k);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -179,6 +189,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         @Override
         public void onClose(CacheKey key) throws IOException {
             cache.invalidate(new Key(this, key, null));
+            lastGlobalKeys.values().removeIf(lastKey -> lastKey.readerKey == key);
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
@@ -189,6 +200,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
                     cache.invalidate(key);
                 }
             }
+            lastGlobalKeys.clear();
             // force eviction
             cache.refresh();
         }
@@ -451,7 +451,12 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
                 final ClusterStateObserver observer = new ClusterStateObserver(clusterService, null, logger, threadPool.getThreadContext());
                 final RecoveryTarget recoveryTarget = recoveryRef.target();
                 try {
-                    recoveryTarget.indexTranslogOperations(request.operations(), request.totalTranslogOps());
+                    if (request.serializedOperations() != null) {
+                        recoveryTarget.indexTranslogOperations(request.serializedOperations(), request.numberOfOperations(),
+                            request.totalTranslogOps());
+                    } else {
+                        recoveryTarget.indexTranslogOperations(request.operations(), request.totalTranslogOps());
+                    }
                     channel.sendResponse(new RecoveryTranslogOperationsResponse(recoveryTarget.indexShard().getLocalCheckpoint()));
                 } catch (MapperException exception) {
                     // in very rare cases a translog replay from primary is processed before a mapping update on this node
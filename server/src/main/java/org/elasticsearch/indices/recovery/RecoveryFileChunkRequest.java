@@ -101,7 +101,7 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         position = in.readVLong();
         long length = in.readVLong();
         String checksum = in.readString();
-        content = in.readBytesReference();
+        content = in.readSharedBytesReference();
         Version writtenBy = Lucene.parseVersionLenient(in.readString(), null);
         assert writtenBy != null;
         metaData = new StoreFileMetaData(name, length, checksum, writtenBy);
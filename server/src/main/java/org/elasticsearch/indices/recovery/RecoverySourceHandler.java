@@ -38,6 +38,8 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
@@ -524,7 +526,9 @@ public class RecoverySourceHandler {
      * Send the given snapshot's operations with a sequence number greater than the specified staring sequence number to this handler's
      * target node.
      * <p>
-     * Operations are bulked into a single request depending on an operation count limit or size-in-bytes limit.
+     * Operations are bulked into a single request depending on an operation count limit or size-in-bytes limit. If the snapshot reads
+     * its operations from translog files, the operations are sent in the serialized form they have in the translog instead of being
+     * serialized again, see {@link Translog.Snapshot#currentOperationBytes()}.
      *
      * @param startingSeqNo           the sequence number for which only operations with a sequence number greater than this will be sent
      * @param requiredSeqNoRangeStart the lower sequence number of the required range
@@ -545,6 +549,7 @@ public class RecoverySourceHandler {
         int totalSentOps = 0;
         final AtomicLong targetLocalCheckpoint = new AtomicLong(SequenceNumbers.UNASSIGNED_SEQ_NO);
         final List<Translog.Operation> operations = new ArrayList<>();
+        BytesStreamOutput serializedOperations = new BytesStreamOutput();
         final LocalCheckpointTracker requiredOpsTracker = new LocalCheckpointTracker(endingSeqNo, requiredSeqNoRangeStart - 1);
 
         final int expectedTotalOps = snapshot.totalOperations();
@@ -552,9 +557,6 @@ public class RecoverySourceHandler {
             logger.trace("no translog operations to send");
         }
 
-        final CancellableThreads.IOInterruptable sendBatch =
-                () -> targetLocalCheckpoint.set(recoveryTarget.indexTranslogOperations(operations, expectedTotalOps));
-
         // send operations in batches
         Translog.Operation operation;
         while ((operation = snapshot.next()) != null) {
@@ -568,25 +570,36 @@ public class RecoverySourceHandler {
                 skippedOps++;
                 continue;
             }
+            final BytesReference operationBytes = snapshot.currentOperationBytes();
+            if (operationBytes != null) {
+                assert operations.isEmpty() || serializedOperations.size() > 0
+                    : "snapshot returned serialized and deserialized operations";
+                operationBytes.writeTo(serializedOperations);
+                size += operationBytes.length();
+            } else {
+                assert serializedOperations.size() == 0 : "snapshot returned serialized and deserialized operations";
+                size += operation.estimateSize();
+            }
             operations.add(operation);
             ops++;
-            size += operation.estimateSize();
             totalSentOps++;
             requiredOpsTracker.markSeqNoAsCompleted(seqNo);
 
             // check if this request is past bytes threshold, and if so, send it off
             if (size >= chunkSizeInBytes) {
-                cancellableThreads.executeIO(sendBatch);
+                sendBatch(operations, serializedOperations.bytes(), expectedTotalOps, targetLocalCheckpoint);
                 logger.trace("sent batch of [{}][{}] (total: [{}]) translog operations", ops, new ByteSizeValue(size), expectedTotalOps);
                 ops = 0;
                 size = 0;
                 operations.clear();
+                // the target may still hold on to the bytes of the batch, so we don't reuse them
+                serializedOperations = new BytesStreamOutput();
             }
         }
 
         if (!operations.isEmpty() || totalSentOps == 0) {
             // send the leftover operations or if no operations were sent, request the target to respond with its local checkpoint
-            cancellableThreads.executeIO(sendBatch);
+            sendBatch(operations, serializedOperations.bytes(), expectedTotalOps, targetLocalCheckpoint);
         }
 
         assert expectedTotalOps == snapshot.overriddenOperations() + skippedOps + totalSentOps
@@ -604,6 +617,17 @@ public class RecoverySourceHandler {
         return new SendSnapshotResult(targetLocalCheckpoint.get(), totalSentOps);
     }
 
+    private void sendBatch(List<Translog.Operation> operations, BytesReference serializedOperations, int expectedTotalOps,
+                           AtomicLong targetLocalCheckpoint) throws IOException {
+        if (serializedOperations.length() > 0) {
+            cancellableThreads.executeIO(() -> targetLocalCheckpoint.set(
+                recoveryTarget.indexTranslogOperations(serializedOperations, operations.size(), expectedTotalOps)));
+        } else {
+            cancellableThreads.executeIO(() -> targetLocalCheckpoint.set(
+                recoveryTarget.indexTranslogOperations(operations, expectedTotalOps)));
+        }
+    }
+
     /**
      * Cancels the recovery and interrupts all eligible threads.
      */
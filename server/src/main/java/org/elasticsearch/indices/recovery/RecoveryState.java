@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -326,6 +327,10 @@ public class RecoveryState implements ToXContentFragment, Streamable {
         static final String INDEX = "index";
         static final String TRANSLOG = "translog";
         static final String TOTAL_ON_START = "total_on_start";
+        static final String RECOVERED_SIZE = "recovered_size";
+        static final String RECOVERED_SIZE_IN_BYTES = "recovered_size_in_bytes";
+        static final String OPERATIONS_PER_SECOND = "operations_per_second";
+        static final String BYTES_PER_SECOND = "bytes_per_second";
         static final String VERIFY_INDEX = "verify_index";
         static final String RECOVERED = "recovered";
         static final String RECOVERED_IN_BYTES = "recovered_in_bytes";
@@ -455,12 +460,14 @@ public class RecoveryState implements ToXContentFragment, Streamable {
         public static final int UNKNOWN = -1;
 
         private int recovered;
+        private long recoveredBytes;
         private int total = UNKNOWN;
         private int totalOnStart = UNKNOWN;
 
         public synchronized void reset() {
             super.reset();
             recovered = 0;
+            recoveredBytes = 0;
             total = UNKNOWN;
             totalOnStart = UNKNOWN;
         }
@@ -489,6 +496,38 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             return recovered;
         }
 
+        public synchronized void incrementRecoveredBytes(long bytes) {
+            recoveredBytes += bytes;
+        }
+
+        /**
+         * returns the size in bytes of the translog operations that were recovered so far, as they were sent over the wire from another
+         * node or as they are stored in the local translog
+         */
+        public synchronized long recoveredBytes() {
+            return recoveredBytes;
+        }
+
+        /**
+         * returns the average number of translog operations recovered per second since the start of the translog phase
+         */
+        public synchronized double recoveredOperationsPerSecond() {
+            return perSecond(recovered);
+        }
+
+        /**
+         * returns the average number of bytes of translog operations recovered per second since the start of the translog phase,
+         * see {@link #recoveredBytes()}
+         */
+        public synchronized double recoveredBytesPerSecond() {
+            return perSecond(recoveredBytes);
+        }
+
+        private double perSecond(long count) {
+            final long time = time();
+            return time == 0 ? 0 : count * 1000.0d / time;
+        }
+
         /**
          * returns the total number of translog operations needed to be recovered at this moment.
          * Note that this can change as the number of operations grows during recovery.
@@ -534,6 +573,9 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             recovered = in.readVInt();
             total = in.readVInt();
             totalOnStart = in.readVInt();
+            if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                recoveredBytes = in.readVLong();
+            }
         }
 
         @Override
@@ -542,6 +584,9 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             out.writeVInt(recovered);
             out.writeVInt(total);
             out.writeVInt(totalOnStart);
+            if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                out.writeVLong(recoveredBytes);
+            }
         }
 
         @Override
@@ -550,6 +595,9 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             builder.field(Fields.TOTAL, total);
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", recoveredPercent()));
             builder.field(Fields.TOTAL_ON_START, totalOnStart);
+            builder.humanReadableField(Fields.RECOVERED_SIZE_IN_BYTES, Fields.RECOVERED_SIZE, new ByteSizeValue(recoveredBytes));
+            builder.field(Fields.OPERATIONS_PER_SECOND, recoveredOperationsPerSecond());
+            builder.field(Fields.BYTES_PER_SECOND, recoveredBytesPerSecond());
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
             return builder;
         }
@@ -408,6 +408,16 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         return indexShard().getLocalCheckpoint();
     }
 
+    @Override
+    public long indexTranslogOperations(BytesReference serializedOperations, int numberOfOperations,
+                                        int totalTranslogOps) throws IOException {
+        // decoding verifies the checksum of every operation
+        final List<Translog.Operation> operations = Translog.readOperations(serializedOperations.streamInput(), numberOfOperations);
+        final long localCheckpoint = indexTranslogOperations(operations, totalTranslogOps);
+        state().getTranslog().incrementRecoveredBytes(serializedOperations.length());
+        return localCheckpoint;
+    }
+
     @Override
     public void receiveFileInfo(List<String> phase1FileNames,
                                 List<Long> phase1FileSizes,
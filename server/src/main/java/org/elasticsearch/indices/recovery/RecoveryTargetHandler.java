@@ -66,6 +66,19 @@ public interface RecoveryTargetHandler {
      */
     long indexTranslogOperations(List<Translog.Operation> operations, int totalTranslogOps) throws IOException;
 
+    /**
+     * Index a set of translog operations on the target that are given in their serialized form, as they are stored in the translog
+     * @param serializedOperations operations to index, see {@link Translog#readSerializedOperations}
+     * @param numberOfOperations the number of operations in serializedOperations
+     * @param totalTranslogOps current number of total operations expected to be indexed
+     *
+     * @return the local checkpoint on the target shard
+     */
+    default long indexTranslogOperations(BytesReference serializedOperations, int numberOfOperations,
+                                         int totalTranslogOps) throws IOException {
+        return indexTranslogOperations(Translog.readOperations(serializedOperations.streamInput(), numberOfOperations), totalTranslogOps);
+    }
+
     /**
      * Notifies the target of the files it is going to receive
      */
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
@@ -28,11 +29,19 @@ import org.elasticsearch.transport.TransportRequest;
 import java.io.IOException;
 import java.util.List;
 
+/**
+ * Sends a batch of translog operations to the recovery target. The operations are either given as objects or, if the recovery source
+ * reads them from its translog files, in the serialized form they have in the translog so that they don't need to be serialized
+ * again. Both forms result in the same bytes on the wire. The target keeps the serialized operations and only decodes them, and verifies
+ * their checksums, once they are applied.
+ */
 public class RecoveryTranslogOperationsRequest extends TransportRequest {
 
     private long recoveryId;
     private ShardId shardId;
     private List<Translog.Operation> operations;
+    private BytesReference serializedOperations;
+    private int numberOfOperations;
     private int totalTranslogOps = RecoveryState.Translog.UNKNOWN;
 
     public RecoveryTranslogOperationsRequest() {
@@ -42,6 +51,16 @@ public class RecoveryTranslogOperationsRequest extends TransportRequest {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
         this.operations = operations;
+        this.numberOfOperations = operations.size();
+        this.totalTranslogOps = totalTranslogOps;
+    }
+
+    RecoveryTranslogOperationsRequest(long recoveryId, ShardId shardId, BytesReference serializedOperations, int numberOfOperations,
+                                      int totalTranslogOps) {
+        this.recoveryId = recoveryId;
+        this.shardId = shardId;
+        this.serializedOperations = serializedOperations;
+        this.numberOfOperations = numberOfOperations;
         this.totalTranslogOps = totalTranslogOps;
     }
 
@@ -53,10 +72,28 @@ public class RecoveryTranslogOperationsRequest extends TransportRequest {
         return shardId;
     }
 
-    public List<Translog.Operation> operations() {
+    /**
+     * Returns the operations of this request, decoding them if they were received in their serialized form.
+     */
+    public List<Translog.Operation> operations() throws IOException {
+        if (operations == null) {
+            operations = Translog.readOperations(serializedOperations.streamInput(), numberOfOperations);
+        }
         return operations;
     }
 
+    /**
+     * Returns the serialized operations of this request, see {@link Translog#readSerializedOperations}, or <code>null</code> if the
+     * operations were given as objects.
+     */
+    public BytesReference serializedOperations() {
+        return serializedOperations;
+    }
+
+    public int numberOfOperations() {
+        return numberOfOperations;
+    }
+
     public int totalTranslogOps() {
         return totalTranslogOps;
     }
@@ -66,7 +103,8 @@ public class RecoveryTranslogOperationsRequest extends TransportRequest {
         super.readFrom(in);
         recoveryId = in.readLong();
         shardId = ShardId.readShardId(in);
-        operations = Translog.readOperations(in);
+        numberOfOperations = in.readInt();
+        serializedOperations = Translog.readSerializedOperations(in, numberOfOperations);
         totalTranslogOps = in.readVInt();
     }
 
@@ -75,7 +113,12 @@ public class RecoveryTranslogOperationsRequest extends TransportRequest {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
-        Translog.writeOperations(out, operations);
+        if (serializedOperations != null) {
+            out.writeInt(numberOfOperations);
+            serializedOperations.writeTo(out);
+        } else {
+            Translog.writeOperations(out, operations);
+        }
         out.writeVInt(totalTranslogOps);
     }
 }
@@ -111,8 +111,16 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
 
     @Override
     public long indexTranslogOperations(List<Translog.Operation> operations, int totalTranslogOps) {
-        final RecoveryTranslogOperationsRequest translogOperationsRequest =
-                new RecoveryTranslogOperationsRequest(recoveryId, shardId, operations, totalTranslogOps);
+        return sendTranslogOperations(new RecoveryTranslogOperationsRequest(recoveryId, shardId, operations, totalTranslogOps));
+    }
+
+    @Override
+    public long indexTranslogOperations(BytesReference serializedOperations, int numberOfOperations, int totalTranslogOps) {
+        return sendTranslogOperations(
+            new RecoveryTranslogOperationsRequest(recoveryId, shardId, serializedOperations, numberOfOperations, totalTranslogOps));
+    }
+
+    private long sendTranslogOperations(RecoveryTranslogOperationsRequest translogOperationsRequest) {
         final TransportFuture<RecoveryTranslogOperationsResponse> future = transportService.submitRequest(
                 targetNode,
                 PeerRecoveryTargetService.Actions.TRANSLOG_OPS,
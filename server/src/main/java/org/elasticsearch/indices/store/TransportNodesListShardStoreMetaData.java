@@ -21,6 +21,7 @@ package org.elasticsearch.indices.store;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.nodes.BaseNodeRequest;
@@ -33,6 +34,8 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -42,6 +45,9 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.AsyncShardFetch;
+import org.elasticsearch.gateway.NodeShardsBatchHandler;
+import org.elasticsearch.gateway.NodeShardsBatchRequest;
+import org.elasticsearch.gateway.NodeShardsBatchResponse;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
@@ -51,6 +57,7 @@ import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -62,15 +69,27 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
     TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
     TransportNodesListShardStoreMetaData.NodeRequest,
     TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>
-    implements AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+    implements AsyncShardFetch.BatchLister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
     TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> {
 
     public static final String ACTION_NAME = "internal:cluster/nodes/indices/shard/store";
+    public static final String BATCH_ACTION_NAME = "internal:cluster/nodes/indices/shard/store_batch[n]";
 
     private final IndicesService indicesService;
 
     private final NodeEnvironment nodeEnv;
 
+    // the maximum number of files of all the shards in the closed shards metadata cache, a few hundred bytes of heap each
+    private static final long CLOSED_SHARDS_METADATA_MAX_FILES = 100_000;
+
+    // the store metadata of the shards that aren't open on this node, which is expensive to read as it needs the checksums of all
+    // files, but only changes once the shard is opened again. It is reused as long as the latest commit of the shard is the same.
+    private final Cache<ShardId, Store.MetadataSnapshot> closedShardsMetaData = CacheBuilder.<ShardId, Store.MetadataSnapshot>builder()
+        .setExpireAfterAccess(TimeValue.timeValueMinutes(30))
+        .setMaximumWeight(CLOSED_SHARDS_METADATA_MAX_FILES)
+        .weigher((shardId, metadataSnapshot) -> metadataSnapshot.size())
+        .build();
+
     @Inject
     public TransportNodesListShardStoreMetaData(Settings settings, ThreadPool threadPool,
                                                 ClusterService clusterService, TransportService transportService,
@@ -80,6 +99,8 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
             Request::new, NodeRequest::new, ThreadPool.Names.FETCH_SHARD_STORE, NodeStoreFilesMetaData.class);
         this.indicesService = indicesService;
         this.nodeEnv = nodeEnv;
+        transportService.registerRequestHandler(BATCH_ACTION_NAME, ThreadPool.Names.SAME, NodeShardsBatchRequest::new,
+            new NodeShardsBatchHandler<>(threadPool.executor(ThreadPool.Names.FETCH_SHARD_STORE), this::listNodeStoreMetaData));
     }
 
     @Override
@@ -87,6 +108,18 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
         execute(new Request(shardId, nodes), listener);
     }
 
+    @Override
+    public void listBatch(DiscoveryNode node, List<ShardId> shardIds,
+                          ActionListener<NodeShardsBatchResponse<NodeStoreFilesMetaData>> listener) {
+        transportService.sendRequest(node, BATCH_ACTION_NAME, new NodeShardsBatchRequest(shardIds), TransportRequestOptions.EMPTY,
+            new ActionListenerResponseHandler<>(listener, () -> new NodeShardsBatchResponse<>(NodeStoreFilesMetaData::new)));
+    }
+
+    @Override
+    public NodesStoreFilesMetaData newNodesResponse(List<NodeStoreFilesMetaData> responses, List<FailedNodeException> failures) {
+        return new NodesStoreFilesMetaData(clusterService.getClusterName(), responses, failures);
+    }
+
     @Override
     protected NodeRequest newNodeRequest(String nodeId, Request request) {
         return new NodeRequest(nodeId, request);
@@ -105,10 +138,14 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
 
     @Override
     protected NodeStoreFilesMetaData nodeOperation(NodeRequest request) {
+        return listNodeStoreMetaData(request.shardId);
+    }
+
+    private NodeStoreFilesMetaData listNodeStoreMetaData(ShardId shardId) {
         try {
-            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(request.shardId));
-        } catch (IOException e) {
-            throw new ElasticsearchException("Failed to list store metadata for shard [" + request.shardId + "]", e);
+            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(shardId));
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to list store metadata for shard [" + shardId + "]", e);
         }
     }
 
@@ -122,6 +159,7 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
                 IndexShard indexShard = indexService.getShardOrNull(shardId.id());
                 if (indexShard != null) {
                     exists = true;
+                    closedShardsMetaData.invalidate(shardId);
                     return new StoreFilesMetaData(shardId, indexShard.snapshotStoreMetadata());
                 }
             }
@@ -136,19 +174,27 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
             }
             if (metaData == null) {
                 logger.trace("{} node doesn't have meta data for the requests index, responding with empty", shardId);
+                closedShardsMetaData.invalidate(shardId);
                 return new StoreFilesMetaData(shardId, Store.MetadataSnapshot.EMPTY);
             }
             final IndexSettings indexSettings = indexService != null ? indexService.getIndexSettings() : new IndexSettings(metaData, settings);
             final ShardPath shardPath = ShardPath.loadShardPath(logger, nodeEnv, shardId, indexSettings);
             if (shardPath == null) {
+                closedShardsMetaData.invalidate(shardId);
                 return new StoreFilesMetaData(shardId, Store.MetadataSnapshot.EMPTY);
             }
             // note that this may fail if it can't get access to the shard lock. Since we check above there is an active shard, this means:
             // 1) a shard is being constructed, which means the master will not use a copy of this replica
             // 2) A shard is shutting down and has not cleared it's content within lock timeout. In this case the master may not
             //    reuse local resources.
-            return new StoreFilesMetaData(shardId, Store.readMetadataSnapshot(shardPath.resolveIndex(), shardId,
-                nodeEnv::shardLock, logger));
+            final Store.MetadataSnapshot metadataSnapshot = Store.readMetadataSnapshot(shardPath.resolveIndex(), shardId,
+                nodeEnv::shardLock, logger, closedShardsMetaData.get(shardId));
+            if (metadataSnapshot.size() == 0) {
+                closedShardsMetaData.invalidate(shardId);
+            } else {
+                closedShardsMetaData.put(shardId, metadataSnapshot);
+            }
+            return new StoreFilesMetaData(shardId, metadataSnapshot);
         } finally {
             TimeValue took = new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS);
             if (exists) {
@@ -26,13 +26,16 @@ import org.elasticsearch.action.admin.cluster.node.info.NodeInfo;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.search.SearchTransportService;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.ingest.IngestService;
@@ -60,6 +63,9 @@ public class NodeService extends AbstractComponent implements Closeable {
     private final HttpServerTransport httpServerTransport;
     private final ResponseCollectorService responseCollectorService;
     private final SearchTransportService searchTransportService;
+    private final PageCacheRecycler pageCacheRecycler;
+    private final IndexingPressure indexingPressure;
+    private volatile ShardStateAction shardStateAction;
 
     private final Discovery discovery;
 
@@ -68,7 +74,8 @@ public class NodeService extends AbstractComponent implements Closeable {
                 CircuitBreakerService circuitBreakerService, ScriptService scriptService,
                 @Nullable HttpServerTransport httpServerTransport, IngestService ingestService, ClusterService clusterService,
                 SettingsFilter settingsFilter, ResponseCollectorService responseCollectorService,
-                SearchTransportService searchTransportService) {
+                SearchTransportService searchTransportService, PageCacheRecycler pageCacheRecycler,
+                IndexingPressure indexingPressure) {
         super(settings);
         this.threadPool = threadPool;
         this.monitorService = monitorService;
@@ -83,6 +90,8 @@ public class NodeService extends AbstractComponent implements Closeable {
         this.scriptService = scriptService;
         this.responseCollectorService = responseCollectorService;
         this.searchTransportService = searchTransportService;
+        this.pageCacheRecycler = pageCacheRecycler;
+        this.indexingPressure = indexingPressure;
         clusterService.addStateApplier(ingestService.getPipelineStore());
         clusterService.addStateApplier(ingestService.getPipelineExecutionService());
     }
@@ -105,7 +114,8 @@ public class NodeService extends AbstractComponent implements Closeable {
 
     public NodeStats stats(CommonStatsFlags indices, boolean os, boolean process, boolean jvm, boolean threadPool,
                            boolean fs, boolean transport, boolean http, boolean circuitBreaker,
-                           boolean script, boolean discoveryStats, boolean ingest, boolean adaptiveSelection) {
+                           boolean script, boolean discoveryStats, boolean ingest, boolean adaptiveSelection,
+                           boolean pageCacheRecycler, boolean indexingPressure, boolean shardState) {
         // for indices stats we want to include previous allocated shards stats as well (it will
         // only be applied to the sensible ones to use, like refresh/merge/flush/indexing stats)
         return new NodeStats(transportService.getLocalNode(), System.currentTimeMillis(),
@@ -121,10 +131,20 @@ public class NodeService extends AbstractComponent implements Closeable {
                 script ? scriptService.stats() : null,
                 discoveryStats ? discovery.stats() : null,
                 ingest ? ingestService.getPipelineExecutionService().stats() : null,
-                adaptiveSelection ? responseCollectorService.getAdaptiveStats(searchTransportService.getPendingSearchRequests()) : null
+                adaptiveSelection ? responseCollectorService.getAdaptiveStats(searchTransportService.getPendingSearchRequests()) : null,
+                pageCacheRecycler ? this.pageCacheRecycler.stats() : null,
+                indexingPressure ? this.indexingPressure.stats() : null,
+                shardState ? (shardStateAction == null ? null : shardStateAction.stats()) : null
         );
     }
 
+    /**
+     * Sets the action whose batch statistics are reported. It is created by the injector, which is only built after this service.
+     */
+    public void setShardStateAction(ShardStateAction shardStateAction) {
+        this.shardStateAction = shardStateAction;
+    }
+
     public IngestService getIngestService() {
         return ingestService;
     }
@@ -36,10 +36,12 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.snapshots.RestoreService;
 import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.transport.TransportService;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -52,7 +54,7 @@ import java.util.stream.Collectors;
 /**
  * Service responsible for maintaining and providing access to snapshot repositories on nodes.
  */
-public class RepositoriesService extends AbstractComponent implements ClusterStateApplier {
+public class RepositoriesService extends AbstractComponent implements ClusterStateApplier, Closeable {
 
     private final Map<String, Repository.Factory> typesRegistry;
 
@@ -363,6 +365,17 @@ public class RepositoriesService extends AbstractComponent implements ClusterSta
         return true;
     }
 
+    /**
+     * Closes all repositories, repositories may hold resources such as the threads that transfer files that must be released
+     * when the node shuts down.
+     */
+    @Override
+    public void close() throws IOException {
+        final Map<String, Repository> repositories = this.repositories;
+        this.repositories = Collections.emptyMap();
+        IOUtils.close(repositories.values());
+    }
+
     /** Closes the given repository. */
     private void closeRepository(Repository repository) throws IOException {
         logger.debug("closing repository [{}][{}]", repository.getMetadata().type(), repository.getMetadata().name());
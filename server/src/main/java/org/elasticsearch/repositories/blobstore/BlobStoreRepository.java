@@ -43,6 +43,8 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -64,6 +66,9 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
@@ -101,6 +106,7 @@ import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.snapshots.SnapshotInfo;
 import org.elasticsearch.snapshots.SnapshotMissingException;
 import org.elasticsearch.snapshots.SnapshotShardFailure;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.FilterInputStream;
 import java.io.IOException;
@@ -113,9 +119,19 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
@@ -203,6 +219,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private static final String DATA_BLOB_PREFIX = "__";
 
+    private static final String SHARD_GENERATIONS_NAME_FORMAT = "shard-generations-%s.dat";
+
+    private static final String SHARD_GENERATIONS_CODEC = "shard-generations";
+
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
@@ -211,6 +231,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    private final int maxConcurrentFileChunks;
+
+    private volatile ExecutorService fileTransferExecutor;
+
     private ChecksumBlobStoreFormat<MetaData> globalMetaDataFormat;
 
     private ChecksumBlobStoreFormat<IndexMetaData> indexMetaDataFormat;
@@ -223,6 +247,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final ChecksumBlobStoreFormat<BlobStoreIndexShardSnapshots> indexShardSnapshotsFormat;
 
+    private final ChecksumBlobStoreFormat<ShardGenerations> shardGenerationsFormat;
+
+    private volatile Tuple<Long, ShardGenerations> latestShardGenerations;
+
     /**
      * Constructs new BlobStoreRepository
      *
@@ -236,11 +264,18 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         readOnly = metadata.settings().getAsBoolean("readonly", false);
+        maxConcurrentFileChunks = metadata.settings().getAsInt("max_concurrent_file_chunks", 4);
+        if (maxConcurrentFileChunks < 1) {
+            throw new IllegalArgumentException("the maximum number of concurrent file chunks must be at least 1: ["
+                + maxConcurrentFileChunks + "]");
+        }
 
         indexShardSnapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT,
             BlobStoreIndexShardSnapshot::fromXContent, namedXContentRegistry, isCompress());
         indexShardSnapshotsFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_INDEX_CODEC, SNAPSHOT_INDEX_NAME_FORMAT,
             BlobStoreIndexShardSnapshots::fromXContent, namedXContentRegistry, isCompress());
+        shardGenerationsFormat = new ChecksumBlobStoreFormat<>(SHARD_GENERATIONS_CODEC, SHARD_GENERATIONS_NAME_FORMAT,
+            ShardGenerations::fromXContent, namedXContentRegistry, isCompress());
         ByteSizeValue chunkSize = chunkSize();
         if (chunkSize != null && chunkSize.getBytes() <= 0) {
             throw new IllegalArgumentException("the chunk size cannot be negative: [" + chunkSize + "]");
@@ -256,6 +291,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             IndexMetaData::fromXContent, namedXContentRegistry, isCompress());
         snapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT,
             SnapshotInfo::fromXContent, namedXContentRegistry, isCompress());
+        if (maxConcurrentFileChunks > 1) {
+            fileTransferExecutor = EsExecutors.newScaling(metadata.name() + "/file_transfer", 0, maxConcurrentFileChunks,
+                30, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[repository_file_transfer]"), new ThreadContext(settings));
+        }
     }
 
     @Override
@@ -263,6 +302,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     @Override
     protected void doClose() {
+        if (fileTransferExecutor != null) {
+            ThreadPool.terminate(fileTransferExecutor, 10, TimeUnit.SECONDS);
+        }
         try {
             blobStore().close();
         } catch (Exception t) {
@@ -353,21 +395,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
 
         try {
-            // Delete snapshot from the index file, since it is the maintainer of truth of active snapshots
-            final RepositoryData updatedRepositoryData = repositoryData.removeSnapshot(snapshotId);
-            writeIndexGen(updatedRepositoryData, repositoryStateId);
-
-            // delete the snapshot file
-            deleteSnapshotBlobIgnoringErrors(snapshot, snapshotId.getUUID());
-            // delete the global metadata file
-            deleteGlobalMetaDataBlobIgnoringErrors(snapshot, snapshotId.getUUID());
-
-            // Now delete all indices
+            // Read the metadata of the snapshotted indices first, the shard generations written with the new index file
+            // need to know which shards will rewrite their index blob
+            final Map<IndexId, IndexMetaData> indicesMetaData = new LinkedHashMap<>();
             if (snapshot != null) {
-                final List<String> indices = snapshot.indices();
-                for (String index : indices) {
+                for (String index : snapshot.indices()) {
                     final IndexId indexId = repositoryData.resolveIndexId(index);
-
                     IndexMetaData indexMetaData = null;
                     try {
                         indexMetaData = getSnapshotIndexMetaData(snapshotId, indexId);
@@ -375,18 +408,46 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         logger.warn(() ->
                             new ParameterizedMessage("[{}] [{}] failed to read metadata for index", snapshotId, index), ex);
                     }
+                    indicesMetaData.put(indexId, indexMetaData);
+                }
+            }
+
+            // Delete snapshot from the index file, since it is the maintainer of truth of active snapshots
+            final RepositoryData updatedRepositoryData = repositoryData.removeSnapshot(snapshotId);
+            final ShardGenerations shardGenerations = getShardGenerations(repositoryData.getGenId());
+            final String newShardGeneration = UUIDs.randomBase64UUID();
+            final ShardGenerations.Builder updatedShardGenerations = ShardGenerations.builder(shardGenerations);
+            for (Map.Entry<IndexId, IndexMetaData> entry : indicesMetaData.entrySet()) {
+                if (entry.getValue() != null) {
+                    for (int shardId = 0; shardId < entry.getValue().getNumberOfShards(); shardId++) {
+                        updatedShardGenerations.put(entry.getKey(), shardId, newShardGeneration);
+                    }
+                }
+            }
+            updatedShardGenerations.retainIndices(updatedRepositoryData.getIndices().values());
+            writeIndexGen(updatedRepositoryData, updatedShardGenerations.build(), repositoryStateId);
 
-                    deleteIndexMetaDataBlobIgnoringErrors(snapshot, indexId);
+            // delete the snapshot file
+            deleteSnapshotBlobIgnoringErrors(snapshot, snapshotId.getUUID());
+            // delete the global metadata file
+            deleteGlobalMetaDataBlobIgnoringErrors(snapshot, snapshotId.getUUID());
 
-                    if (indexMetaData != null) {
-                        for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
-                            try {
-                                delete(snapshotId, snapshot.version(), indexId, new ShardId(indexMetaData.getIndex(), shardId));
-                            } catch (SnapshotException ex) {
-                                final int finalShardId = shardId;
-                                logger.warn(() -> new ParameterizedMessage("[{}] failed to delete shard data for shard [{}][{}]",
-                                    snapshotId, index, finalShardId), ex);
-                            }
+            // Now delete all indices
+            for (Map.Entry<IndexId, IndexMetaData> entry : indicesMetaData.entrySet()) {
+                final IndexId indexId = entry.getKey();
+                final IndexMetaData indexMetaData = entry.getValue();
+
+                deleteIndexMetaDataBlobIgnoringErrors(snapshot, indexId);
+
+                if (indexMetaData != null) {
+                    for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
+                        try {
+                            delete(snapshotId, snapshot.version(), indexId, new ShardId(indexMetaData.getIndex(), shardId),
+                                shardGenerations.getShardGen(indexId, shardId), newShardGeneration);
+                        } catch (SnapshotException ex) {
+                            final int finalShardId = shardId;
+                            logger.warn(() -> new ParameterizedMessage("[{}] failed to delete shard data for shard [{}][{}]",
+                                snapshotId, indexId.getName(), finalShardId), ex);
                         }
                     }
                 }
@@ -472,7 +533,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         try {
             snapshotFormat.write(blobStoreSnapshot, snapshotsBlobContainer, snapshotId.getUUID());
             final RepositoryData repositoryData = getRepositoryData();
-            writeIndexGen(repositoryData.addSnapshot(snapshotId, blobStoreSnapshot.state(), indices), repositoryStateId);
+            final ShardGenerations shardGenerations = snapshotShardGenerations(snapshotId, indices, totalShards, shardFailures,
+                getShardGenerations(repositoryData.getGenId()));
+            writeIndexGen(repositoryData.addSnapshot(snapshotId, blobStoreSnapshot.state(), indices), shardGenerations,
+                repositoryStateId);
         } catch (FileAlreadyExistsException ex) {
             // if another master was elected and took over finalizing the snapshot, it is possible
             // that both nodes try to finalize the snapshot and write to the same blobs, so we just
@@ -485,6 +549,67 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return blobStoreSnapshot;
     }
 
+    /**
+     * Returns the shard generations after the given snapshot, the shards that were snapshotted successfully wrote an index blob
+     * named after the UUID of the snapshot. Failed shards keep their previous index blob, as do the shards of an index whose
+     * metadata can't be read, a shard that can't find the index blob of its generation lists its blobs instead.
+     */
+    private ShardGenerations snapshotShardGenerations(final SnapshotId snapshotId, final List<IndexId> indices, final int totalShards,
+                                                      final List<SnapshotShardFailure> shardFailures, final ShardGenerations previous) {
+        final ShardGenerations.Builder builder = ShardGenerations.builder(previous);
+        if (totalShards == 0) {
+            // the snapshot failed before any of its shards started
+            return builder.build();
+        }
+        final Set<Tuple<String, Integer>> failedShards = new HashSet<>();
+        for (SnapshotShardFailure shardFailure : shardFailures) {
+            failedShards.add(new Tuple<>(shardFailure.index(), shardFailure.shardId()));
+        }
+        for (IndexId indexId : indices) {
+            final IndexMetaData indexMetaData;
+            try {
+                indexMetaData = getSnapshotIndexMetaData(snapshotId, indexId);
+            } catch (ElasticsearchParseException | IOException ex) {
+                logger.warn(() -> new ParameterizedMessage("[{}] [{}] failed to read metadata for index",
+                    snapshotId, indexId.getName()), ex);
+                continue;
+            }
+            for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
+                if (failedShards.contains(new Tuple<>(indexId.getName(), shardId)) == false) {
+                    builder.put(indexId, shardId, snapshotId.getUUID());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the shard generations that were written with the given generation of the index file. Repositories that were
+     * written by older versions don't have shard generations, the shards of these repositories list their blobs instead.
+     */
+    ShardGenerations getShardGenerations(final long indexGen) {
+        if (indexGen == RepositoryData.EMPTY_REPO_GEN) {
+            return ShardGenerations.EMPTY;
+        }
+        final Tuple<Long, ShardGenerations> latest = latestShardGenerations;
+        if (latest != null && latest.v1() == indexGen) {
+            return latest.v2();
+        }
+        ShardGenerations shardGenerations;
+        try {
+            shardGenerations = shardGenerationsFormat.read(snapshotsBlobContainer, Long.toString(indexGen));
+        } catch (NoSuchFileException e) {
+            logger.debug("[{}] no shard generations for index generation [{}]", metadata.name(), indexGen);
+            shardGenerations = ShardGenerations.EMPTY;
+        } catch (IOException | ElasticsearchParseException e) {
+            logger.warn(() -> new ParameterizedMessage("[{}] failed to read shard generations for index generation [{}]",
+                metadata.name(), indexGen), e);
+            shardGenerations = ShardGenerations.EMPTY;
+        }
+        latestShardGenerations = new Tuple<>(indexGen, shardGenerations);
+        return shardGenerations;
+    }
+
     @Override
     public SnapshotInfo getSnapshotInfo(final SnapshotId snapshotId) {
         try {
@@ -641,7 +766,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return snapshotsBlobContainer;
     }
 
-    protected void writeIndexGen(final RepositoryData repositoryData, final long repositoryStateId) throws IOException {
+    protected void writeIndexGen(final RepositoryData repositoryData, final ShardGenerations shardGenerations,
+                                 final long repositoryStateId) throws IOException {
         assert isReadOnly() == false; // can not write to a read only repository
         final long currentGen = latestIndexBlobId();
         if (repositoryStateId != SnapshotsInProgress.UNDEFINED_REPOSITORY_STATE_ID && currentGen != repositoryStateId) {
@@ -661,6 +787,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
             snapshotsBytes = bStream.bytes();
         }
+        // write the shard generations before the index file so they exist as soon as the new index file is visible
+        shardGenerationsFormat.writeAtomic(shardGenerations, snapshotsBlobContainer, Long.toString(newGen));
         // write the index file
         final String indexBlob = INDEX_FILE_PREFIX + Long.toString(newGen);
         logger.debug("Repository [{}] writing new index generational blob [{}]", metadata.name(), indexBlob);
@@ -671,7 +799,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             if (snapshotsBlobContainer.blobExists(oldSnapshotIndexFile)) {
                 snapshotsBlobContainer.deleteBlob(oldSnapshotIndexFile);
             }
+            final String oldShardGenerationsFile = shardGenerationsFormat.blobName(Long.toString(newGen - 2));
+            if (snapshotsBlobContainer.blobExists(oldShardGenerationsFile)) {
+                snapshotsBlobContainer.deleteBlob(oldShardGenerationsFile);
+            }
         }
+        latestShardGenerations = new Tuple<>(newGen, shardGenerations);
 
         // write the current generation to the index-latest file
         final BytesReference genBytes;
@@ -792,7 +925,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     public void snapshotShard(IndexShard shard, SnapshotId snapshotId, IndexId indexId, IndexCommit snapshotIndexCommit, IndexShardSnapshotStatus snapshotStatus) {
         SnapshotContext snapshotContext = new SnapshotContext(shard, snapshotId, indexId, snapshotStatus, System.currentTimeMillis());
         try {
-            snapshotContext.snapshot(snapshotIndexCommit);
+            snapshotContext.snapshot(snapshotIndexCommit, currentShardGenerations().getShardGen(indexId, shard.shardId().id()));
         } catch (Exception e) {
             snapshotStatus.moveToFailed(System.currentTimeMillis(), ExceptionsHelper.detailedMessage(e));
             if (e instanceof IndexShardSnapshotFailedException) {
@@ -839,15 +972,34 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Returns the shard generations of the current generation of the index file. Data nodes read the current generation from
+     * the index.latest blob rather than listing the root of the repository for every shard they snapshot. The index file
+     * can't change while a snapshot is running, if it can't be read the shards list their blobs instead.
+     */
+    private ShardGenerations currentShardGenerations() {
+        final long indexGen;
+        try {
+            indexGen = readSnapshotIndexLatestBlob();
+        } catch (IOException e) {
+            logger.debug(() -> new ParameterizedMessage("[{}] failed to read the current index generation", metadata.name()), e);
+            return ShardGenerations.EMPTY;
+        }
+        return getShardGenerations(indexGen);
+    }
+
     /**
      * Delete shard snapshot
      *
-     * @param snapshotId snapshot id
-     * @param shardId    shard id
+     * @param snapshotId         snapshot id
+     * @param shardId            shard id
+     * @param shardGeneration    the generation of the current index blob of the shard, or {@code null} if it is unknown
+     * @param newShardGeneration the generation of the index blob to write
      */
-    private void delete(SnapshotId snapshotId, Version version, IndexId indexId, ShardId shardId) {
+    private void delete(SnapshotId snapshotId, Version version, IndexId indexId, ShardId shardId,
+                        @Nullable String shardGeneration, String newShardGeneration) {
         Context context = new Context(snapshotId, version, indexId, shardId, shardId);
-        context.delete();
+        context.delete(shardGeneration, newShardGeneration);
     }
 
     @Override
@@ -888,18 +1040,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
         /**
          * Delete shard snapshot
+         *
+         * @param shardGeneration    the generation of the current index blob of the shard, or {@code null} if it is unknown
+         * @param newShardGeneration the generation of the index blob to write
          */
-        public void delete() {
-            final Map<String, BlobMetaData> blobs;
-            try {
-                blobs = blobContainer.listBlobs();
-            } catch (IOException e) {
-                throw new IndexShardSnapshotException(shardId, "Failed to list content of gateway", e);
-            }
-
-            Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
-            BlobStoreIndexShardSnapshots snapshots = tuple.v1();
-            int fileListGeneration = tuple.v2();
+        public void delete(@Nullable String shardGeneration, String newShardGeneration) {
+            final ShardSnapshots shardSnapshots = loadShardSnapshots(shardGeneration);
 
             try {
                 indexShardSnapshotFormat(version).delete(blobContainer, snapshotId.getUUID());
@@ -909,13 +1055,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
             // Build a list of snapshots that should be preserved
             List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
-            for (SnapshotFiles point : snapshots) {
+            for (SnapshotFiles point : shardSnapshots.snapshots) {
                 if (!point.snapshot().equals(snapshotId.getName())) {
                     newSnapshotsList.add(point);
                 }
             }
-            // finalize the snapshot and rewrite the snapshot index with the next sequential snapshot index
-            finalize(newSnapshotsList, fileListGeneration + 1, blobs);
+            // finalize the snapshot and rewrite the snapshot index with the new generation
+            finalize(newSnapshotsList, newShardGeneration, shardSnapshots);
         }
 
         /**
@@ -929,19 +1075,54 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
+        /**
+         * Loads the snapshots of the shard from the index blob of the given generation. The blobs of the shard are only listed
+         * if the generation is unknown or if its index blob can't be read, the snapshots are then loaded from the index blob
+         * that is found in the listing.
+         *
+         * @param generation the generation of the current index blob of the shard, or {@code null} if it is unknown
+         */
+        protected ShardSnapshots loadShardSnapshots(@Nullable String generation) {
+            if (generation != null) {
+                try {
+                    return new ShardSnapshots(indexShardSnapshotsFormat.read(blobContainer, generation), generation, null);
+                } catch (NoSuchFileException e) {
+                    logger.debug("[{}] [{}] index blob of generation [{}] doesn't exist, listing blobs", shardId, snapshotId, generation);
+                } catch (IOException e) {
+                    logger.warn(() -> new ParameterizedMessage("[{}] [{}] failed to read index blob of generation [{}], listing blobs",
+                        shardId, snapshotId, generation), e);
+                }
+            }
+            final Map<String, BlobMetaData> blobs;
+            try {
+                blobs = blobContainer.listBlobs();
+            } catch (IOException e) {
+                throw new IndexShardSnapshotFailedException(shardId, "failed to list blobs", e);
+            }
+            return new ShardSnapshots(buildBlobStoreIndexShardSnapshots(blobs), null, blobs);
+        }
+
         /**
          * Removes all unreferenced files from the repository and writes new index file
          *
          * We need to be really careful in handling index files in case of failures to make sure we have index file that
          * points to files that were deleted.
          *
+         * If the blobs of the shard weren't listed only the previous index blob and the files that it references but that
+         * aren't referenced anymore are deleted, files that were left behind by failed snapshots are cleaned up the next time
+         * the blobs of the shard are listed.
          *
-         * @param snapshots list of active snapshots in the container
-         * @param fileListGeneration the generation number of the snapshot index file
-         * @param blobs     list of blobs in the container
+         * @param snapshots      list of active snapshots in the container
+         * @param generation     the generation of the new snapshot index file
+         * @param shardSnapshots the current snapshots of the shard
          */
-        protected void finalize(List<SnapshotFiles> snapshots, int fileListGeneration, Map<String, BlobMetaData> blobs) {
+        protected void finalize(List<SnapshotFiles> snapshots, String generation, ShardSnapshots shardSnapshots) {
             BlobStoreIndexShardSnapshots newSnapshots = new BlobStoreIndexShardSnapshots(snapshots);
+            if (shardSnapshots.blobs == null) {
+                finalizeWithoutListing(newSnapshots, generation, shardSnapshots);
+                return;
+            }
+            final Map<String, BlobMetaData> blobs = shardSnapshots.blobs;
             // delete old index files first
             for (String blobName : blobs.keySet()) {
                 if (indexShardSnapshotsFormat.isTempBlobName(blobName) || blobName.startsWith(SNAPSHOT_INDEX_PREFIX)) {
@@ -974,7 +1155,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             // If we deleted all snapshots - we don't need to create the index file
             if (snapshots.size() > 0) {
                 try {
-                    indexShardSnapshotsFormat.writeAtomic(newSnapshots, blobContainer, Integer.toString(fileListGeneration));
+                    indexShardSnapshotsFormat.writeAtomic(newSnapshots, blobContainer, generation);
                 } catch (IOException e) {
                     throw new IndexShardSnapshotFailedException(shardId, "Failed to write file list", e);
                 }
@@ -982,68 +1163,92 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
 
         /**
-         * Generates blob name
-         *
-         * @param generation the blob number
-         * @return the blob name
+         * Writes the new index file before deleting the previous one, so that the shard always has an index file that only
+         * points to existing files, and then deletes the files that the previous index file referenced but the new one doesn't.
          */
-        protected String fileNameFromGeneration(long generation) {
-            return DATA_BLOB_PREFIX + Long.toString(generation, Character.MAX_RADIX);
-        }
-
-        /**
-         * Finds the next available blob number
-         *
-         * @param blobs list of blobs in the repository
-         * @return next available blob number
-         */
-        protected long findLatestFileNameGeneration(Map<String, BlobMetaData> blobs) {
-            long generation = -1;
-            for (String name : blobs.keySet()) {
-                if (!name.startsWith(DATA_BLOB_PREFIX)) {
-                    continue;
+        private void finalizeWithoutListing(BlobStoreIndexShardSnapshots newSnapshots, String generation,
+                                            ShardSnapshots shardSnapshots) {
+            if (newSnapshots.snapshots().isEmpty() == false) {
+                try {
+                    indexShardSnapshotsFormat.writeAtomic(newSnapshots, blobContainer, generation);
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to write file list", e);
                 }
-                name = BlobStoreIndexShardSnapshot.FileInfo.canonicalName(name);
+            }
+            if (generation.equals(shardSnapshots.generation) == false) {
                 try {
-                    long currentGen = Long.parseLong(name.substring(DATA_BLOB_PREFIX.length()), Character.MAX_RADIX);
-                    if (currentGen > generation) {
-                        generation = currentGen;
+                    indexShardSnapshotsFormat.delete(blobContainer, shardSnapshots.generation);
+                } catch (IOException e) {
+                    // the previous index file must not be used anymore, it might reference files that are deleted below
+                    throw new IndexShardSnapshotFailedException(shardId, "error deleting index file of generation ["
+                        + shardSnapshots.generation + "] during cleanup", e);
+                }
+            }
+            final Set<String> deletedFiles = new HashSet<>();
+            for (SnapshotFiles snapshotFiles : shardSnapshots.snapshots) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                    if (newSnapshots.findNameFile(fileInfo.name()) == null && deletedFiles.add(fileInfo.name())) {
+                        for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                            final String blobName = fileInfo.partName(part);
+                            try {
+                                blobContainer.deleteBlob(blobName);
+                            } catch (IOException e) {
+                                logger.debug(() -> new ParameterizedMessage("[{}] [{}] error deleting blob [{}] during cleanup",
+                                    snapshotId, shardId, blobName), e);
+                            }
+                        }
                     }
-                } catch (NumberFormatException e) {
-                    logger.warn("file [{}] does not conform to the '{}' schema", name, DATA_BLOB_PREFIX);
                 }
             }
-            return generation;
+        }
+
+        /**
+         * Generates a unique name for a new data blob, which doesn't require listing the blobs of the shard
+         *
+         * @return the blob name
+         */
+        protected String newDataBlobName() {
+            return DATA_BLOB_PREFIX + UUIDs.randomBase64UUID();
         }
 
         /**
          * Loads all available snapshots in the repository
          *
+         * Index blobs are named after a sequential generation by older versions and after a UUID otherwise. The latest
+         * sequential index blob is loaded if there are only sequential ones, an index blob named after a UUID is only loaded
+         * if it is the only index blob. The snapshots are loaded from the individual snapshot files otherwise.
+         *
          * @param blobs list of blobs in repository
-         * @return tuple of BlobStoreIndexShardSnapshots and the last snapshot index generation
+         * @return BlobStoreIndexShardSnapshots
          */
-        protected Tuple<BlobStoreIndexShardSnapshots, Integer> buildBlobStoreIndexShardSnapshots(Map<String, BlobMetaData> blobs) {
+        protected BlobStoreIndexShardSnapshots buildBlobStoreIndexShardSnapshots(Map<String, BlobMetaData> blobs) {
             int latest = -1;
+            final List<String> indexBlobs = new ArrayList<>();
             Set<String> blobKeys = blobs.keySet();
             for (String name : blobKeys) {
                 if (name.startsWith(SNAPSHOT_INDEX_PREFIX)) {
+                    indexBlobs.add(name.substring(SNAPSHOT_INDEX_PREFIX.length()));
                     try {
                         int gen = Integer.parseInt(name.substring(SNAPSHOT_INDEX_PREFIX.length()));
                         if (gen > latest) {
                             latest = gen;
                         }
                     } catch (NumberFormatException ex) {
-                        logger.warn("failed to parse index file name [{}]", name);
+                        logger.trace("index file name [{}] isn't a sequential generation", name);
                     }
                 }
             }
-            if (latest >= 0) {
+            String generation = null;
+            if (indexBlobs.size() == 1) {
+                generation = indexBlobs.get(0);
+            } else if (latest >= 0 && indexBlobs.stream().allMatch(name -> name.chars().allMatch(Character::isDigit))) {
+                generation = Integer.toString(latest);
+            }
+            if (generation != null) {
                 try {
-                    final BlobStoreIndexShardSnapshots shardSnapshots =
-                        indexShardSnapshotsFormat.read(blobContainer, Integer.toString(latest));
-                    return new Tuple<>(shardSnapshots, latest);
+                    return indexShardSnapshotsFormat.read(blobContainer, generation);
                 } catch (IOException e) {
-                    final String file = SNAPSHOT_INDEX_PREFIX + latest;
+                    final String file = SNAPSHOT_INDEX_PREFIX + generation;
                     logger.warn(() -> new ParameterizedMessage("failed to read index file [{}]", file), e);
                 }
             } else if (blobKeys.isEmpty() == false) {
@@ -1065,7 +1270,91 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     logger.warn(() -> new ParameterizedMessage("failed to read commit point [{}]", name), e);
                 }
             }
-            return new Tuple<>(new BlobStoreIndexShardSnapshots(snapshots), -1);
+            return new BlobStoreIndexShardSnapshots(snapshots);
+        }
+    }
+
+    /**
+     * The snapshots of a shard, together with the generation of the index blob they were loaded from if it was known or with
+     * the blobs of the shard if they had to be listed to find the latest index blob.
+     */
+    private static final class ShardSnapshots {
+
+        private final BlobStoreIndexShardSnapshots snapshots;
+
+        @Nullable
+        private final String generation;
+
+        @Nullable
+        private final Map<String, BlobMetaData> blobs;
+
+        ShardSnapshots(BlobStoreIndexShardSnapshots snapshots, @Nullable String generation, @Nullable Map<String, BlobMetaData> blobs) {
+            assert (generation == null) != (blobs == null) : "either the generation or the blobs of the shard must be known";
+            this.snapshots = snapshots;
+            this.generation = generation;
+            this.blobs = blobs;
+        }
+    }
+
+    /**
+     * Runs the given file transfers concurrently on the file transfer executor, or one after the other on the current thread
+     * if the repository doesn't transfer file chunks concurrently, and waits for all of them to complete. Transfers that didn't
+     * start yet are skipped once a transfer failed, the first failure is rethrown. All transfers share the rate limiter of
+     * the repository so concurrent transfers don't use more bandwidth than sequential ones.
+     */
+    private void runFileTransfers(List<CheckedRunnable<IOException>> transfers) throws IOException {
+        final ExecutorService executor = fileTransferExecutor;
+        if (executor == null || transfers.size() <= 1) {
+            for (CheckedRunnable<IOException> transfer : transfers) {
+                transfer.run();
+            }
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(transfers.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        for (CheckedRunnable<IOException> transfer : transfers) {
+            executor.execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    if (failure.get() == null) {
+                        transfer.run();
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                }
+
+                @Override
+                public void onAfter() {
+                    latch.countDown();
+                }
+            });
+        }
+        // we must not return before all transfers are done since they use the store of the shard
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                failure.compareAndSet(null, e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof InterruptedException) {
+            throw new IOException("interrupted while transferring files", e);
+        } else if (e != null) {
+            throw ExceptionsHelper.convertToRuntime(e);
         }
     }
 
@@ -1097,21 +1386,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          * Create snapshot from index commit point
          *
          * @param snapshotIndexCommit snapshot commit point
+         * @param shardGeneration     the generation of the current index blob of the shard, or {@code null} if it is unknown
          */
-        public void snapshot(final IndexCommit snapshotIndexCommit) {
+        public void snapshot(final IndexCommit snapshotIndexCommit, @Nullable final String shardGeneration) {
             logger.debug("[{}] [{}] snapshot to [{}] ...", shardId, snapshotId, metadata.name());
 
-            final Map<String, BlobMetaData> blobs;
-            try {
-                blobs = blobContainer.listBlobs();
-            } catch (IOException e) {
-                throw new IndexShardSnapshotFailedException(shardId, "failed to list blobs", e);
-            }
-
-            long generation = findLatestFileNameGeneration(blobs);
-            Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
-            BlobStoreIndexShardSnapshots snapshots = tuple.v1();
-            int fileListGeneration = tuple.v2();
+            final ShardSnapshots shardSnapshots = loadShardSnapshots(shardGeneration);
+            final BlobStoreIndexShardSnapshots snapshots = shardSnapshots.snapshots;
 
             if (snapshots.snapshots().stream().anyMatch(sf -> sf.snapshot().equals(snapshotId.getName()))) {
                 throw new IndexShardSnapshotFailedException(shardId,
@@ -1155,7 +1436,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             } catch (Exception e) {
                                 logger.warn(() -> new ParameterizedMessage("{} Can't calculate hash from blob for file [{}] [{}]", shardId, fileInfo.physicalName(), fileInfo.metadata()), e);
                             }
-                            if (fileInfo.isSame(md) && snapshotFileExistsInBlobs(fileInfo, blobs)) {
+                            if (fileInfo.isSame(md)
+                                    && (shardSnapshots.blobs == null || snapshotFileExistsInBlobs(fileInfo, shardSnapshots.blobs))) {
                                 // a commit point file with the same name, size and checksum was already copied to repository
                                 // we will reuse it for this snapshot
                                 existingFileInfo = fileInfo;
@@ -1167,7 +1449,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         indexNumberOfFiles++;
                         indexTotalFilesSize += md.length();
                         // create a new FileInfo
-                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(fileNameFromGeneration(++generation), md, chunkSize());
+                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo =
+                            new BlobStoreIndexShardSnapshot.FileInfo(newDataBlobName(), md, chunkSize());
                         indexCommitPointFiles.add(snapshotFileInfo);
                         filesToSnapshot.add(snapshotFileInfo);
                     } else {
@@ -1177,13 +1460,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
                 snapshotStatus.moveToStarted(startTime, indexNumberOfFiles, indexTotalFilesSize);
 
+                final List<CheckedRunnable<IOException>> transfers = new ArrayList<>();
                 for (BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo : filesToSnapshot) {
-                    try {
-                        snapshotFile(snapshotFileInfo);
-                    } catch (IOException e) {
-                        throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
+                    if (fileTransferExecutor != null && snapshotFileInfo.numberOfParts() > 1) {
+                        transfers.addAll(snapshotFileParts(snapshotFileInfo));
+                    } else {
+                        transfers.add(() -> snapshotFile(snapshotFileInfo));
                     }
                 }
+                try {
+                    runFileTransfers(transfers);
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
+                }
             } finally {
                 store.decRef();
             }
@@ -1216,8 +1505,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             for (SnapshotFiles point : snapshots) {
                 newSnapshotsList.add(point);
             }
-            // finalize the snapshot and rewrite the snapshot index with the next sequential snapshot index
-            finalize(newSnapshotsList, fileListGeneration + 1, blobs);
+            // finalize the snapshot and rewrite the snapshot index with a generation named after the snapshot
+            finalize(newSnapshotsList, snapshotId.getUUID(), shardSnapshots);
             snapshotStatus.moveToDone(System.currentTimeMillis());
 
         }
@@ -1232,21 +1521,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          */
         private void snapshotFile(final BlobStoreIndexShardSnapshot.FileInfo fileInfo) throws IOException {
             final String file = fileInfo.physicalName();
+            final long startTimeInNanos = System.nanoTime();
             try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
                 for (int i = 0; i < fileInfo.numberOfParts(); i++) {
-                    final long partBytes = fileInfo.partBytes(i);
-
-                    final InputStreamIndexInput inputStreamIndexInput = new InputStreamIndexInput(indexInput, partBytes);
-                    InputStream inputStream = inputStreamIndexInput;
-                    if (snapshotRateLimiter != null) {
-                        inputStream = new RateLimitingInputStream(inputStreamIndexInput, snapshotRateLimiter,
-                                                                  snapshotRateLimitingTimeInNanos::inc);
-                    }
-                    inputStream = new AbortableInputStream(inputStream, fileInfo.physicalName());
-                    blobContainer.writeBlob(fileInfo.partName(i), inputStream, partBytes);
+                    snapshotFilePart(indexInput, fileInfo, i);
                 }
                 Store.verify(indexInput);
-                snapshotStatus.addProcessedFile(fileInfo.length());
+                snapshotStatus.addProcessedFile(fileInfo.length(), System.nanoTime() - startTimeInNanos);
             } catch (Exception t) {
                 failStoreIfCorrupted(t);
                 snapshotStatus.addProcessedFile(0);
@@ -1254,6 +1535,70 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
+        /**
+         * Returns the transfers that snapshot the parts of a multi-part file concurrently. Every part reads the file from
+         * its own input that computes the checksum of the part, the transfer of the last part that completes combines them
+         * to verify the checksum of the whole file.
+         *
+         * @param fileInfo file to be snapshotted
+         */
+        private List<CheckedRunnable<IOException>> snapshotFileParts(final BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+            final int numberOfParts = Math.toIntExact(fileInfo.numberOfParts());
+            final AtomicReferenceArray<IndexInput> partInputs = new AtomicReferenceArray<>(numberOfParts);
+            final AtomicInteger pendingParts = new AtomicInteger(numberOfParts);
+            final AtomicBoolean failed = new AtomicBoolean();
+            final AtomicLong startTimeInNanos = new AtomicLong(Long.MAX_VALUE);
+            final List<CheckedRunnable<IOException>> transfers = new ArrayList<>(numberOfParts);
+            for (int i = 0; i < numberOfParts; i++) {
+                final int part = i;
+                transfers.add(() -> {
+                    startTimeInNanos.accumulateAndGet(System.nanoTime(), Math::min);
+                    boolean success = false;
+                    try (IndexInput indexInput = store.openVerifyingPartInput(fileInfo.physicalName(), IOContext.READONCE,
+                            fileInfo.metadata(), part * fileInfo.partSize().getBytes())) {
+                        partInputs.set(part, indexInput);
+                        snapshotFilePart(indexInput, fileInfo, part);
+                        success = true;
+                    } catch (IOException e) {
+                        failStoreIfCorrupted(e);
+                        throw e;
+                    } finally {
+                        if (success == false) {
+                            failed.set(true);
+                        }
+                        if (pendingParts.decrementAndGet() == 0 && failed.get() == false) {
+                            final List<IndexInput> inputs = new ArrayList<>(numberOfParts);
+                            for (int j = 0; j < numberOfParts; j++) {
+                                inputs.add(partInputs.get(j));
+                            }
+                            try {
+                                Store.verifyParts(fileInfo.metadata(), inputs);
+                            } catch (IOException e) {
+                                failStoreIfCorrupted(e);
+                                throw e;
+                            }
+                            snapshotStatus.addProcessedFile(fileInfo.length(), System.nanoTime() - startTimeInNanos.get());
+                        }
+                    }
+                });
+            }
+            return transfers;
+        }
+
+        private void snapshotFilePart(final IndexInput indexInput, final BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                      final int part) throws IOException {
+            final long partBytes = fileInfo.partBytes(part);
+
+            final InputStreamIndexInput inputStreamIndexInput = new InputStreamIndexInput(indexInput, partBytes);
+            InputStream inputStream = inputStreamIndexInput;
+            if (snapshotRateLimiter != null) {
+                inputStream = new RateLimitingInputStream(inputStreamIndexInput, snapshotRateLimiter,
+                                                          snapshotRateLimitingTimeInNanos::inc);
+            }
+            inputStream = new AbortableInputStream(inputStream, fileInfo.physicalName());
+            blobContainer.writeBlob(fileInfo.partName(part), inputStream, partBytes);
+        }
+
         private void failStoreIfCorrupted(Exception e) {
             if (e instanceof CorruptIndexException || e instanceof IndexFormatTooOldException || e instanceof IndexFormatTooNewException) {
                 try {
@@ -1488,6 +1833,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     final List<String> deleteIfExistFiles = Arrays.asList(store.directory().listAll());
 
                     // restore the files from the snapshot to the Lucene store
+                    final List<CheckedRunnable<IOException>> transfers = new ArrayList<>();
                     for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
                         // if a file with a same physical name already exist in the store we need to delete it
                         // before restoring it from the snapshot. We could be lenient and try to reuse the existing
@@ -1502,8 +1848,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         }
 
                         logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
-                        restoreFile(fileToRecover, store);
+                        // the parts of a multi-part file are streamed into the file in order, the files are restored concurrently
+                        transfers.add(() -> restoreFile(fileToRecover, store));
                     }
+                    runFileTransfers(transfers);
                 } catch (IOException ex) {
                     throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", ex);
                 }
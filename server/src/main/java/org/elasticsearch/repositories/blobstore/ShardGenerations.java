@@ -0,0 +1,190 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.repositories.IndexId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The generations of the index blobs of the shards in a blob store repository, keyed by the id of the index in the repository.
+ * <p>
+ * The shard level index blob lists the files of all the snapshots of a shard. Its generation is recorded here every time a
+ * snapshot or a delete writes a new one so that the shard can read it directly instead of listing all the blobs of the shard.
+ * A shard whose generation is unknown falls back to listing its blobs.
+ */
+public final class ShardGenerations implements ToXContentFragment {
+
+    public static final ShardGenerations EMPTY = new ShardGenerations(Collections.emptyMap());
+
+    private final Map<String, List<String>> generations;
+
+    private ShardGenerations(Map<String, List<String>> generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * Returns the generation of the index blob of the given shard, or {@code null} if it is unknown.
+     */
+    @Nullable
+    public String getShardGen(IndexId indexId, int shardId) {
+        final List<String> shardGenerations = generations.get(indexId.getId());
+        if (shardGenerations == null || shardId >= shardGenerations.size()) {
+            return null;
+        }
+        return shardGenerations.get(shardId);
+    }
+
+    /**
+     * Returns the ids of the indices that have shard generations.
+     */
+    public Set<String> getIndexIds() {
+        return Collections.unmodifiableSet(generations.keySet());
+    }
+
+    public static Builder builder(ShardGenerations shardGenerations) {
+        return new Builder(shardGenerations);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        for (Map.Entry<String, List<String>> entry : generations.entrySet()) {
+            builder.startArray(entry.getKey());
+            for (String generation : entry.getValue()) {
+                builder.value(generation);
+            }
+            builder.endArray();
+        }
+        return builder;
+    }
+
+    public static ShardGenerations fromXContent(XContentParser parser) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) { // New parser
+            token = parser.nextToken();
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new ElasticsearchParseException("unexpected token [{}]", token);
+        }
+        final Map<String, List<String>> generations = new HashMap<>();
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token != XContentParser.Token.FIELD_NAME) {
+                throw new ElasticsearchParseException("unexpected token [{}]", token);
+            }
+            final String indexId = parser.currentName();
+            if (parser.nextToken() != XContentParser.Token.START_ARRAY) {
+                throw new ElasticsearchParseException("expected the shard generations of index [{}] to be an array", indexId);
+            }
+            final List<String> shardGenerations = new ArrayList<>();
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                if (token == XContentParser.Token.VALUE_NULL) {
+                    shardGenerations.add(null);
+                } else if (token == XContentParser.Token.VALUE_STRING) {
+                    shardGenerations.add(parser.text());
+                } else {
+                    throw new ElasticsearchParseException("unexpected token [{}] in the shard generations of index [{}]", token, indexId);
+                }
+            }
+            generations.put(indexId, Collections.unmodifiableList(shardGenerations));
+        }
+        return new ShardGenerations(Collections.unmodifiableMap(generations));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return generations.equals(((ShardGenerations) o).generations);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(generations);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardGenerations{" + generations + "}";
+    }
+
+    /**
+     * Builds new shard generations from existing ones, only the generations of the shards that wrote a new index blob change.
+     */
+    public static final class Builder {
+
+        private final Map<String, List<String>> generations = new HashMap<>();
+
+        private Builder(ShardGenerations shardGenerations) {
+            for (Map.Entry<String, List<String>> entry : shardGenerations.generations.entrySet()) {
+                generations.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+
+        /**
+         * Sets the generation of the index blob of the given shard.
+         */
+        public Builder put(IndexId indexId, int shardId, String generation) {
+            final List<String> shardGenerations = generations.computeIfAbsent(indexId.getId(), k -> new ArrayList<>());
+            while (shardGenerations.size() <= shardId) {
+                shardGenerations.add(null);
+            }
+            shardGenerations.set(shardId, generation);
+            return this;
+        }
+
+        /**
+         * Removes the generations of the indices that aren't part of the repository anymore.
+         */
+        public Builder retainIndices(Collection<IndexId> indices) {
+            final Set<String> indexIds = new HashSet<>();
+            for (IndexId indexId : indices) {
+                indexIds.add(indexId.getId());
+            }
+            generations.keySet().retainAll(indexIds);
+            return this;
+        }
+
+        public ShardGenerations build() {
+            final Map<String, List<String>> copy = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : generations.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            return new ShardGenerations(Collections.unmodifiableMap(copy));
+        }
+    }
+}
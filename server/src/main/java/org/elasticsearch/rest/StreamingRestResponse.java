@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * A response whose body is serialized in chunks while it is sent instead of all at once, so that large responses don't need to be
+ * held in memory as a whole. Every chunk is serialized into the output of the builder, which is reset before the next chunk is
+ * serialized, so a response only holds the pages of a single chunk at a time. HTTP transports that support it send the chunks with
+ * chunked transfer encoding as the channel becomes writable, see {@link #nextChunk()}. Responses that fit into a single chunk and
+ * transports that don't support chunked responses use {@link #content()}, which serializes the whole body at once.
+ */
+public class StreamingRestResponse extends RestResponse {
+
+    /**
+     * The size at which a chunk is complete. A chunk can be larger if a single part of the body is larger.
+     */
+    public static final int CHUNK_SIZE = BigArrays.PAGE_SIZE_IN_BYTES;
+
+    private final RestStatus status;
+    private final String contentType;
+    private final XContentBuilder builder;
+    private final BytesStream output;
+    private final ToXContent.Params params;
+    private final Iterator<? extends ToXContent> parts;
+    private final boolean chunked;
+
+    private BytesReference pendingChunk;
+    private boolean complete;
+    private BytesReference content;
+
+    /**
+     * Creates a response for the given content that is written to the given builder, which must write to a {@link BytesStream} like
+     * the builders of a {@link RestChannel} do. The first chunk is serialized right away.
+     */
+    public StreamingRestResponse(RestStatus status, XContentBuilder builder, ToXContent.Params params,
+                                 ChunkedToXContent content) throws IOException {
+        if (builder.getOutputStream() instanceof BytesStream == false) {
+            throw new IllegalArgumentException("streaming responses require a builder that writes to a bytes stream");
+        }
+        this.status = status;
+        this.contentType = builder.contentType().mediaType();
+        this.builder = builder;
+        this.output = (BytesStream) builder.getOutputStream();
+        this.params = params;
+        this.parts = content.toXContentChunks();
+        this.pendingChunk = serializeNextChunk();
+        this.chunked = complete == false;
+    }
+
+    /**
+     * Returns whether the body is larger than a single chunk. Only these responses benefit from being sent in chunks.
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * Returns the next chunk of the body or <code>null</code> once the whole body was returned. The bytes of a chunk are only valid
+     * until the next chunk is requested. Chunks are never empty.
+     */
+    public BytesReference nextChunk() throws IOException {
+        if (pendingChunk != null) {
+            final BytesReference chunk = pendingChunk;
+            pendingChunk = null;
+            return chunk;
+        }
+        return complete ? null : serializeNextChunk();
+    }
+
+    private BytesReference serializeNextChunk() throws IOException {
+        output.reset();
+        while (output.bytes().length() < CHUNK_SIZE && parts.hasNext()) {
+            parts.next().toXContent(builder, params);
+            builder.flush();
+        }
+        if (parts.hasNext() == false) {
+            builder.close();
+            complete = true;
+        }
+        final BytesReference chunk = output.bytes();
+        return chunk.length() == 0 ? null : chunk;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the whole body. This must not be mixed with {@link #nextChunk()}.
+     */
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            if (chunked == false) {
+                content = pendingChunk == null ? BytesArray.EMPTY : pendingChunk;
+            } else {
+                try {
+                    final BytesStreamOutput copy = new BytesStreamOutput();
+                    for (BytesReference chunk = nextChunk(); chunk != null; chunk = nextChunk()) {
+                        chunk.writeTo(copy);
+                    }
+                    content = copy.bytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action;
+
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.StatusToXContentObject;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.StreamingRestResponse;
+
+/**
+ * Content listener for large responses that extracts the {@link org.elasticsearch.rest.RestStatus} from the response and serializes
+ * it in chunks while it is sent, see {@link StreamingRestResponse}.
+ */
+public class RestChunkedToXContentListener<Response extends StatusToXContentObject & ChunkedToXContent>
+        extends RestResponseListener<Response> {
+
+    public RestChunkedToXContentListener(RestChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public RestResponse buildResponse(Response response) throws Exception {
+        assert response.isFragment() == false; //would be nice if we could make default methods final
+        return new StreamingRestResponse(response.status(), channel.newBuilder(), channel.request(), response);
+    }
+}
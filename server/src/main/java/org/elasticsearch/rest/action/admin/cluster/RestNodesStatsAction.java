@@ -72,6 +72,9 @@ public class RestNodesStatsAction extends BaseRestHandler {
         metrics.put("discovery", r -> r.discovery(true));
         metrics.put("ingest", r -> r.ingest(true));
         metrics.put("adaptive_selection", r -> r.adaptiveSelection(true));
+        metrics.put("page_cache_recycler", r -> r.pageCacheRecycler(true));
+        metrics.put("indexing_pressure", r -> r.indexingPressure(true));
+        metrics.put("shard_state", r -> r.shardState(true));
         METRICS = Collections.unmodifiableMap(metrics);
     }
 
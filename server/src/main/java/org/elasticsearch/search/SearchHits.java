@@ -23,6 +23,8 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -31,13 +33,15 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
+import static org.elasticsearch.common.collect.Iterators.concat;
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
-public final class SearchHits implements Streamable, ToXContentFragment, Iterable<SearchHit> {
+public final class SearchHits implements Streamable, ToXContentFragment, ChunkedToXContent, Iterable<SearchHit> {
 
     public static SearchHits empty() {
         // We shouldn't use static final instance, since that could directly be returned by native transport clients
@@ -104,23 +108,33 @@ public final class SearchHits implements Streamable, ToXContentFragment, Iterabl
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
-        builder.startObject(Fields.HITS);
-        builder.field(Fields.TOTAL, totalHits);
-        if (Float.isNaN(maxScore)) {
-            builder.nullField(Fields.MAX_SCORE);
-        } else {
-            builder.field(Fields.MAX_SCORE, maxScore);
-        }
-        builder.field(Fields.HITS);
-        builder.startArray();
-        for (SearchHit hit : hits) {
-            hit.toXContent(builder, params);
+        for (Iterator<? extends ToXContent> chunks = toXContentChunks(); chunks.hasNext(); ) {
+            chunks.next().toXContent(builder, params);
         }
-        builder.endArray();
-        builder.endObject();
         return builder;
     }
 
+    /**
+     * Returns the XContent of these hits in parts, one part per hit.
+     */
+    @Override
+    public Iterator<ToXContent> toXContentChunks() {
+        final ToXContent header = (builder, params) -> {
+            builder.startObject(Fields.HITS);
+            builder.field(Fields.TOTAL, totalHits);
+            if (Float.isNaN(maxScore)) {
+                builder.nullField(Fields.MAX_SCORE);
+            } else {
+                builder.field(Fields.MAX_SCORE, maxScore);
+            }
+            builder.field(Fields.HITS);
+            return builder.startArray();
+        };
+        final ToXContent footer = (builder, params) -> builder.endArray().endObject();
+        return concat(Collections.singletonList(header).iterator(), Arrays.<ToXContent>asList(hits).iterator(),
+            Collections.singletonList(footer).iterator());
+    }
+
     public static SearchHits fromXContent(XContentParser parser) throws IOException {
         if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
             parser.nextToken();
@@ -61,7 +61,15 @@ public class AggregationPhase implements SearchPhase {
                 context.aggregations().aggregators(aggregators);
                 if (!collectors.isEmpty()) {
                     Collector collector = BucketCollector.wrap(collectors);
+                    if (context.getProfilers() == null) {
+                        // profiles report the time spent per collected doc
+                        collector = BlockBucketCollector.wrap((BucketCollector) collector);
+                    }
                     ((BucketCollector)collector).preCollection();
+                    if (context.aggregations().segmentCache() != null) {
+                        // every segment is collected by its own aggregators so that the partial results can be cached per segment
+                        collector = new SegmentCachingCollector(context, context.aggregations().segmentCache(), collector.needsScores());
+                    }
                     if (context.getProfilers() != null) {
                         collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
                                 // TODO: report on child aggs as well
@@ -98,6 +106,9 @@ public class AggregationPhase implements SearchPhase {
         // optimize the global collector based execution
         if (!globals.isEmpty()) {
             BucketCollector globalsCollector = BucketCollector.wrap(globals);
+            if (context.getProfilers() == null) {
+                globalsCollector = BlockBucketCollector.wrap(globalsCollector);
+            }
             Query query = context.buildFilteredQuery(Queries.newMatchAllQuery());
 
             try {
@@ -115,6 +126,9 @@ public class AggregationPhase implements SearchPhase {
                 }
                 globalsCollector.preCollection();
                 context.searcher().search(query, collector);
+                if (globalsCollector instanceof BlockBucketCollector) {
+                    ((BlockBucketCollector) globalsCollector).flush();
+                }
             } catch (Exception e) {
                 throw new QueryPhaseExecutionException(context, "Failed to execute global aggregators", e);
             } finally {
@@ -122,17 +136,40 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
-        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
-        context.aggregations().resetBucketMultiConsumer();
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        InternalAggregations segmentAggregations = null;
+        final Collector collector = context.queryCollectors().get(AggregationPhase.class);
+        if (collector instanceof SegmentCachingCollector) {
+            // a search that timed out or terminated early did not collect its last segment entirely
+            final boolean complete = context.queryResult().searchTimedOut() == false
+                && Boolean.TRUE.equals(context.queryResult().terminatedEarly()) == false;
             try {
-                aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
+                segmentAggregations = ((SegmentCachingCollector) collector).reduce(complete);
             } catch (IOException e) {
-                throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                throw new AggregationExecutionException("Failed to reduce the aggregations of the segments", e);
+            }
+        }
+        if (segmentAggregations != null) {
+            context.queryResult().aggregations(segmentAggregations);
+        } else {
+            if (collector instanceof BlockBucketCollector) {
+                try {
+                    ((BlockBucketCollector) collector).flush();
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("Failed to collect the buffered docs of the aggregations", e);
+                }
+            }
+            List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+            context.aggregations().resetBucketMultiConsumer();
+            for (Aggregator aggregator : context.aggregations().aggregators()) {
+                try {
+                    aggregator.postCollection();
+                    aggregations.add(aggregator.buildAggregation(0));
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                }
             }
+            context.queryResult().aggregations(new InternalAggregations(aggregations));
         }
-        context.queryResult().aggregations(new InternalAggregations(aggregations));
         try {
             List<PipelineAggregator> pipelineAggregators = context.aggregations().factories().createPipelineAggregators();
             List<SiblingPipelineAggregator> siblingPipelineAggregators = new ArrayList<>(pipelineAggregators.size());
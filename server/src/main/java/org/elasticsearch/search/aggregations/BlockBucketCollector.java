@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the docs that are collected in bucket <code>0</code>, like the docs that match the query
+ * of a top level aggregation, and passes them on in blocks to {@link LeafBucketCollector#collect(int[], long[], int)}. This saves
+ * a virtual call per doc and collector and lets the collectors keep their per bucket state in local variables for a whole block.
+ * <p>
+ * The buffered docs of a segment are collected once the block is full, when the next segment is collected, and on
+ * {@link #postCollection()}. Callers that build the results of the wrapped collectors without calling {@link #postCollection()}
+ * must {@link #flush()} first. Scores are only available for the doc that is currently collected, so collectors that need scores
+ * are not wrapped, see {@link #wrap(BucketCollector)}.
+ */
+final class BlockBucketCollector extends BucketCollector {
+
+    static final int BLOCK_SIZE = 1024;
+
+    private final BucketCollector in;
+    private final int[] docs = new int[BLOCK_SIZE];
+    // docs are always collected in bucket 0
+    private final long[] buckets = new long[BLOCK_SIZE];
+    private LeafBucketCollector leafCollector;
+    private int count;
+
+    private BlockBucketCollector(BucketCollector in) {
+        this.in = in;
+    }
+
+    /**
+     * Wraps the given collector unless it needs scores.
+     */
+    static BucketCollector wrap(BucketCollector in) {
+        return in.needsScores() ? in : new BlockBucketCollector(in);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        flush();
+        leafCollector = in.getLeafCollector(ctx);
+        if (leafCollector == LeafBucketCollector.NO_OP_COLLECTOR) {
+            return leafCollector;
+        }
+        return new LeafBucketCollector() {
+            @Override
+            public void setScorer(Scorer scorer) throws IOException {
+                leafCollector.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                assert bucket == 0 : "top level collectors collect in bucket 0 but got " + bucket;
+                docs[count++] = doc;
+                if (count == BLOCK_SIZE) {
+                    flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * Collects the buffered docs of the current segment.
+     */
+    void flush() throws IOException {
+        if (count > 0) {
+            final int toCollect = count;
+            // reset first so that a failure does not collect the same docs again
+            count = 0;
+            leafCollector.collect(docs, buckets, toCollect);
+        }
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        in.postCollection();
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return in.toString();
+    }
+}
@@ -68,6 +68,13 @@ public abstract class LeafBucketCollector implements LeafCollector {
                     }
                 }
 
+                @Override
+                public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                    for (LeafBucketCollector c : colls) {
+                        c.collect(docs, buckets, count);
+                    }
+                }
+
             };
         }
     }
@@ -77,6 +84,18 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long bucket) throws IOException;
 
+    /**
+     * Collect a block of docs, <code>docs[i]</code> in bucket <code>buckets[i]</code> for every <code>i &lt; count</code>. The docs
+     * of a block are in increasing order and usually all fall into the same bucket. The default implementation collects the docs
+     * one by one. Collectors that can amortize reading their state and growing their arrays over the docs of a block override it,
+     * see {@link BlockBucketCollector}.
+     */
+    public void collect(int[] docs, long[] buckets, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], buckets[i]);
+        }
+    }
+
     @Override
     public final void collect(int doc) throws IOException {
         collect(doc, 0);
@@ -86,4 +105,15 @@ public abstract class LeafBucketCollector implements LeafCollector {
     public void setScorer(Scorer scorer) throws IOException {
         // no-op by default
     }
+
+    /**
+     * Returns the highest of the first <code>count</code> buckets, so that block collectors can grow their arrays once per block.
+     */
+    protected static long maxBucket(long[] buckets, int count) {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, buckets[i]);
+        }
+        return max;
+    }
 }
@@ -18,6 +18,8 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
+
 import java.util.function.IntConsumer;
 
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
@@ -30,6 +32,7 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
     private Aggregator[] aggregators;
+    private SegmentAggregationCache segmentCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -56,6 +59,21 @@ public class SearchContextAggregations {
         this.aggregators = aggregators;
     }
 
+    /**
+     * Returns the cache for the partial results of the aggregations per segment, or <code>null</code> if they are not cached.
+     */
+    @Nullable
+    public SegmentAggregationCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Sets the cache for the partial results of the aggregations per segment. Must be set before the aggregators are created.
+     */
+    public void segmentCache(SegmentAggregationCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
     /**
      * Returns a consumer for multi bucket aggregation that checks the total number of buckets
      * created in the response
@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.LeafCollector;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the top level aggregations of a search request segment by segment so that the partial results of each segment can be
+ * cached in a {@link SegmentAggregationCache}. Segments whose partial results are cached are skipped, every other segment is
+ * collected by its own set of aggregators whose partial results are cached once the search moved on to the next segment. The
+ * partial results of all segments are reduced into the shard level results in {@link #reduce(boolean)}.
+ * <p>
+ * Segments are expected to be collected one after the other by a single thread, like {@link AggregationPhase} does.
+ */
+final class SegmentCachingCollector implements Collector {
+
+    private final SearchContext context;
+    private final SegmentAggregationCache cache;
+    private final boolean needsScores;
+    private final List<InternalAggregations> partials = new ArrayList<>();
+
+    private LeafReaderContext currentLeaf;
+    private Aggregator[] currentAggregators;
+    private BucketCollector currentCollector;
+
+    SegmentCachingCollector(SearchContext context, SegmentAggregationCache cache, boolean needsScores) {
+        this.context = context;
+        this.cache = cache;
+        this.needsScores = needsScores;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // the search only moves on to the next segment once the previous segment was collected entirely
+        finishSegment(true);
+        final InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            partials.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        currentLeaf = ctx;
+        currentAggregators = context.aggregations().factories().createTopLevelAggregators();
+        currentCollector = BlockBucketCollector.wrap(BucketCollector.wrap(Arrays.asList(currentAggregators)));
+        currentCollector.preCollection();
+        return currentCollector.getLeafCollector(ctx);
+    }
+
+    @Override
+    public boolean needsScores() {
+        return needsScores;
+    }
+
+    /**
+     * Builds the partial results of the segment that is currently collected, if any.
+     *
+     * @param cache whether the segment was collected entirely so that its partial results can be cached
+     */
+    private void finishSegment(boolean cache) throws IOException {
+        if (currentLeaf == null) {
+            return;
+        }
+        currentCollector.postCollection();
+        context.aggregations().resetBucketMultiConsumer();
+        final List<InternalAggregation> aggregations = new ArrayList<>(currentAggregators.length);
+        for (Aggregator aggregator : currentAggregators) {
+            aggregations.add(aggregator.buildAggregation(0));
+        }
+        final InternalAggregations partial = new InternalAggregations(aggregations);
+        partials.add(partial);
+        if (cache) {
+            this.cache.put(currentLeaf, partial);
+        }
+        currentLeaf = null;
+        currentAggregators = null;
+        currentCollector = null;
+    }
+
+    /**
+     * Returns the shard level results of the aggregations or <code>null</code> if no segment was collected.
+     *
+     * @param complete whether the last segment was collected entirely, which is not the case if the search timed out or
+     *                 terminated early
+     */
+    InternalAggregations reduce(boolean complete) throws IOException {
+        finishSegment(complete);
+        if (partials.isEmpty()) {
+            return null;
+        }
+        context.aggregations().resetBucketMultiConsumer();
+        // this is not the final reduction, so pipeline aggregations and scripts don't run here
+        final ReduceContext reduceContext = new ReduceContext(context.bigArrays(), null,
+            context.aggregations().multiBucketConsumer(), false);
+        return InternalAggregations.reduce(partials, reduceContext);
+    }
+}
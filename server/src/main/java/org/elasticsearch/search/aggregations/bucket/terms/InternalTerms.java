@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -36,7 +37,8 @@ import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -216,11 +218,38 @@ public abstract class InternalTerms<A extends InternalTerms<A, B>, B extends Int
     @Override
     public abstract B getBucketByKey(String term);
 
+    private static class IteratorAndCurrent<B extends Bucket<B>> {
+
+        private final Iterator<B> iterator;
+        private B current;
+
+        IteratorAndCurrent(Iterator<B> iterator) {
+            this.iterator = iterator;
+            current = iterator.next();
+        }
+
+    }
+
+    /**
+     * Reduces the buckets of all shards by merging them as streams sorted by key, so that the buckets of a term from
+     * the different shards are next to each other. Unlike building a map of all terms upfront this only needs to hold on
+     * to the buckets of the current term and to the top buckets, so the memory that is used on top of the shard responses
+     * is proportional to the size of the response.
+     */
     @Override
     public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
-        Map<Object, List<B>> buckets = new HashMap<>();
+        // merge in the order of the response when it is sorted by key so that the merge can stop once the top buckets are known
+        final Comparator<? super B> mergeOrder = InternalOrder.isKeyOrder(order) ? order.comparator(null)
+            : BucketOrder.key(true).comparator(null);
+        final PriorityQueue<IteratorAndCurrent<B>> pq = new PriorityQueue<IteratorAndCurrent<B>>(aggregations.size()) {
+            @Override
+            protected boolean lessThan(IteratorAndCurrent<B> a, IteratorAndCurrent<B> b) {
+                return mergeOrder.compare(a.current, b.current) < 0;
+            }
+        };
         long sumDocCountError = 0;
         long otherDocCount = 0;
+        int maxBuckets = 0;
         InternalTerms<A, B> referenceTerms = null;
         for (InternalAggregation aggregation : aggregations) {
             @SuppressWarnings("unchecked")
@@ -247,9 +276,9 @@ public abstract class InternalTerms<A extends InternalTerms<A, B>, B extends Int
                     // use this as the error for this aggregation
                     thisAggDocCountError = terms.getDocCountError();
                 } else {
-                    // otherwise use the doc count of the last term in the
-                    // aggregation
-                    thisAggDocCountError = terms.getBuckets().get(terms.getBuckets().size() - 1).docCount;
+                    // otherwise use the lowest doc count of the aggregation,
+                    // partially reduced aggregations are sorted by key
+                    thisAggDocCountError = lowestDocCount(terms.getBuckets());
                 }
             } else {
                 thisAggDocCountError = -1;
@@ -271,25 +300,57 @@ public abstract class InternalTerms<A extends InternalTerms<A, B>, B extends Int
                 // Note that if the error is unbounded (-1) this will be fixed
                 // later in this method.
                 bucket.docCountError -= thisAggDocCountError;
-                List<B> bucketList = buckets.get(bucket.getKey());
-                if (bucketList == null) {
-                    bucketList = new ArrayList<>();
-                    buckets.put(bucket.getKey(), bucketList);
-                }
-                bucketList.add(bucket);
+            }
+            if (terms.getBuckets().isEmpty() == false) {
+                pq.add(new IteratorAndCurrent<>(sortBuckets(terms.getBuckets(), mergeOrder).iterator()));
+                maxBuckets += terms.getBuckets().size();
             }
         }
 
-        final int size = reduceContext.isFinalReduce() == false ? buckets.size() : Math.min(requiredSize, buckets.size());
-        final BucketPriorityQueue<B> ordered = new BucketPriorityQueue<>(size, order.comparator(null));
-        for (List<B> sameTermBuckets : buckets.values()) {
+        final boolean isFinalReduce = reduceContext.isFinalReduce();
+        final int size = isFinalReduce == false ? maxBuckets : Math.min(requiredSize, maxBuckets);
+        final BucketPriorityQueue<B> ordered = isFinalReduce ? new BucketPriorityQueue<>(size, order.comparator(null)) : null;
+        final List<B> reducedBuckets = isFinalReduce ? null : new ArrayList<>();
+        // list of buckets coming from different shards that have the same key
+        final List<B> sameTermBuckets = new ArrayList<>();
+        while (pq.size() > 0) {
+            sameTermBuckets.clear();
+            final B first = pq.top().current;
+            do {
+                final IteratorAndCurrent<B> top = pq.top();
+                sameTermBuckets.add(top.current);
+                if (top.iterator.hasNext()) {
+                    final B next = top.iterator.next();
+                    assert mergeOrder.compare(next, top.current) > 0 : "the buckets of a shard must be sorted by key";
+                    top.current = next;
+                    pq.updateTop();
+                } else {
+                    pq.pop();
+                }
+            } while (pq.size() > 0 && mergeOrder.compare(pq.top().current, first) == 0);
+
+            if (isFinalReduce && InternalOrder.isKeyOrder(order) && ordered.size() == size) {
+                // the top buckets are known, the remaining terms only count as other docs so we don't reduce their sub aggregations
+                long docCount = 0;
+                for (B bucket : sameTermBuckets) {
+                    docCount += bucket.docCount;
+                }
+                if (docCount >= minDocCount) {
+                    otherDocCount += docCount;
+                }
+                continue;
+            }
             final B b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
             if (sumDocCountError == -1) {
                 b.docCountError = -1;
             } else {
                 b.docCountError += sumDocCountError;
             }
-            if (b.docCount >= minDocCount || reduceContext.isFinalReduce() == false) {
+            if (isFinalReduce == false) {
+                // partially reduced buckets stay sorted by key so that the next reduce can merge them as they are
+                reducedBuckets.add(b);
+                reduceContext.consumeBucketsAndMaybeBreak(1);
+            } else if (b.docCount >= minDocCount) {
                 B removed = ordered.insertWithOverflow(b);
                 if (removed != null) {
                     otherDocCount += removed.getDocCount();
@@ -301,9 +362,15 @@ public abstract class InternalTerms<A extends InternalTerms<A, B>, B extends Int
                 reduceContext.consumeBucketsAndMaybeBreak(-countInnerBucket(b));
             }
         }
-        B[] list = createBucketsArray(ordered.size());
-        for (int i = ordered.size() - 1; i >= 0; i--) {
-            list[i] = ordered.pop();
+        final List<B> list;
+        if (isFinalReduce) {
+            B[] array = createBucketsArray(ordered.size());
+            for (int i = ordered.size() - 1; i >= 0; i--) {
+                array[i] = ordered.pop();
+            }
+            list = Arrays.asList(array);
+        } else {
+            list = reducedBuckets;
         }
         long docCountError;
         if (sumDocCountError == -1) {
@@ -311,7 +378,32 @@ public abstract class InternalTerms<A extends InternalTerms<A, B>, B extends Int
         } else {
             docCountError = aggregations.size() == 1 ? 0 : sumDocCountError;
         }
-        return create(name, Arrays.asList(list), docCountError, otherDocCount);
+        return create(name, list, docCountError, otherDocCount);
+    }
+
+    /**
+     * Returns the buckets sorted with the provided comparator, the list is only copied if it isn't sorted already.
+     */
+    private static <B extends Bucket<B>> List<B> sortBuckets(List<B> buckets, Comparator<? super B> comparator) {
+        for (int i = 1; i < buckets.size(); i++) {
+            if (comparator.compare(buckets.get(i - 1), buckets.get(i)) > 0) {
+                List<B> sorted = new ArrayList<>(buckets);
+                sorted.sort(comparator);
+                return sorted;
+            }
+        }
+        return buckets;
+    }
+
+    private static long lowestDocCount(List<? extends Bucket<?>> buckets) {
+        if (buckets.isEmpty()) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (Bucket<?> bucket : buckets) {
+            min = Math.min(min, bucket.docCount);
+        }
+        return min;
     }
 
     protected abstract void setDocCountError(long docCountError);
@@ -103,6 +103,51 @@ public class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, compensation);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                final long size = maxBucket(buckets, count) + 1;
+                counts = bigArrays.grow(counts, size);
+                sums = bigArrays.grow(sums, size);
+                compensations = bigArrays.grow(compensations, size);
+                // the state of the current bucket stays in locals until the bucket changes
+                long bucket = buckets[0];
+                long valueCount = 0;
+                double sum = sums.get(bucket);
+                double compensation = compensations.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        counts.increment(bucket, valueCount);
+                        sums.set(bucket, sum);
+                        compensations.set(bucket, compensation);
+                        bucket = buckets[d];
+                        valueCount = 0;
+                        sum = sums.get(bucket);
+                        compensation = compensations.get(bucket);
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        final int docValueCount = values.docValueCount();
+                        valueCount += docValueCount;
+                        for (int i = 0; i < docValueCount; i++) {
+                            double value = values.nextValue();
+                            if (Double.isFinite(value) == false) {
+                                sum += value;
+                            } else if (Double.isFinite(sum)) {
+                                double corrected = value - compensation;
+                                double newSum = sum + corrected;
+                                compensation = (newSum - sum) - corrected;
+                                sum = newSum;
+                            }
+                        }
+                    }
+                }
+                counts.increment(bucket, valueCount);
+                sums.set(bucket, sum);
+                compensations.set(bucket, compensation);
+            }
         };
     }
 
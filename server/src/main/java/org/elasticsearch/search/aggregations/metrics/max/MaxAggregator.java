@@ -90,6 +90,33 @@ public class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                final long size = maxBucket(buckets, count) + 1;
+                if (size > maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays.grow(maxes, size);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                // the state of the current bucket stays in locals until the bucket changes
+                long bucket = buckets[0];
+                double max = maxes.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        maxes.set(bucket, max);
+                        bucket = buckets[d];
+                        max = maxes.get(bucket);
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        max = Math.max(max, values.doubleValue());
+                    }
+                }
+                maxes.set(bucket, max);
+            }
+
         };
     }
 
@@ -89,6 +89,33 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                final long size = maxBucket(buckets, count) + 1;
+                if (size > mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays.grow(mins, size);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                // the state of the current bucket stays in locals until the bucket changes
+                long bucket = buckets[0];
+                double min = mins.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        mins.set(bucket, min);
+                        bucket = buckets[d];
+                        min = mins.get(bucket);
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        min = Math.min(min, values.doubleValue());
+                    }
+                }
+                mins.set(bucket, min);
+            }
+
         };
     }
 
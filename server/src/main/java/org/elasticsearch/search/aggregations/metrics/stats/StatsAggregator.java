@@ -126,6 +126,69 @@ public class StatsAggregator extends NumericMetricsAggregator.MultiValue {
                     maxes.set(bucket, max);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                final long size = maxBucket(buckets, count) + 1;
+                if (size > counts.size()) {
+                    final long from = counts.size();
+                    final long overSize = BigArrays.overSize(size);
+                    counts = bigArrays.resize(counts, overSize);
+                    sums = bigArrays.resize(sums, overSize);
+                    compensations = bigArrays.resize(compensations, overSize);
+                    mins = bigArrays.resize(mins, overSize);
+                    maxes = bigArrays.resize(maxes, overSize);
+                    mins.fill(from, overSize, Double.POSITIVE_INFINITY);
+                    maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
+                }
+                // the state of the current bucket stays in locals until the bucket changes
+                long bucket = buckets[0];
+                long valueCount = 0;
+                double min = mins.get(bucket);
+                double max = maxes.get(bucket);
+                double sum = sums.get(bucket);
+                double compensation = compensations.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        counts.increment(bucket, valueCount);
+                        sums.set(bucket, sum);
+                        compensations.set(bucket, compensation);
+                        mins.set(bucket, min);
+                        maxes.set(bucket, max);
+                        bucket = buckets[d];
+                        valueCount = 0;
+                        min = mins.get(bucket);
+                        max = maxes.get(bucket);
+                        sum = sums.get(bucket);
+                        compensation = compensations.get(bucket);
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        final int valuesCount = values.docValueCount();
+                        valueCount += valuesCount;
+                        for (int i = 0; i < valuesCount; i++) {
+                            double value = values.nextValue();
+                            if (Double.isFinite(value) == false) {
+                                sum += value;
+                            } else if (Double.isFinite(sum)) {
+                                double corrected = value - compensation;
+                                double newSum = sum + corrected;
+                                compensation = (newSum - sum) - corrected;
+                                sum = newSum;
+                            }
+                            min = Math.min(min, value);
+                            max = Math.max(max, value);
+                        }
+                    }
+                }
+                counts.increment(bucket, valueCount);
+                sums.set(bucket, sum);
+                compensations.set(bucket, compensation);
+                mins.set(bucket, min);
+                maxes.set(bucket, max);
+            }
         };
     }
 
@@ -96,6 +96,45 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
                     sums.set(bucket, sum);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                final long size = maxBucket(buckets, count) + 1;
+                sums = bigArrays.grow(sums, size);
+                compensations = bigArrays.grow(compensations, size);
+                // the state of the current bucket stays in locals until the bucket changes
+                long bucket = buckets[0];
+                double sum = sums.get(bucket);
+                double compensation = compensations.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        sums.set(bucket, sum);
+                        compensations.set(bucket, compensation);
+                        bucket = buckets[d];
+                        sum = sums.get(bucket);
+                        compensation = compensations.get(bucket);
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        final int valuesCount = values.docValueCount();
+                        for (int i = 0; i < valuesCount; i++) {
+                            double value = values.nextValue();
+                            if (Double.isFinite(value) == false) {
+                                sum += value;
+                            } else if (Double.isFinite(sum)) {
+                                double corrected = value - compensation;
+                                double newSum = sum + corrected;
+                                compensation = (newSum - sum) - corrected;
+                                sum = newSum;
+                            }
+                        }
+                    }
+                }
+                sums.set(bucket, sum);
+                compensations.set(bucket, compensation);
+            }
         };
     }
 
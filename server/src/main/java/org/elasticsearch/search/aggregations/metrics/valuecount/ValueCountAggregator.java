@@ -78,6 +78,28 @@ public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, long[] buckets, int count) throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                counts = bigArrays.grow(counts, maxBucket(buckets, count) + 1);
+                // the count of the current bucket stays in a local until the bucket changes
+                long bucket = buckets[0];
+                long valueCount = 0;
+                for (int d = 0; d < count; d++) {
+                    if (buckets[d] != bucket) {
+                        counts.increment(bucket, valueCount);
+                        bucket = buckets[d];
+                        valueCount = 0;
+                    }
+                    if (values.advanceExact(docs[d])) {
+                        valueCount += values.docValueCount();
+                    }
+                }
+                counts.increment(bucket, valueCount);
+            }
+
         };
     }
 
@@ -34,7 +34,9 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -44,8 +46,13 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -149,8 +156,22 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Searches the given query like {@link #search(Query, Collector)} but in the leaf order of the given pruner, skipping the leaves
+     * that it prunes.
+     */
+    public void search(Query query, Collector collector, LeafPruner leafPruner) throws IOException {
+        final Weight weight = createNormalizedWeight(query, collector.needsScores());
+        search(leafPruner.order(leafContexts), weight, collector, leafPruner);
+    }
+
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        search(leaves, weight, collector, null);
+    }
+
+    private void search(List<LeafReaderContext> leaves, Weight weight, Collector collector,
+                        @Nullable LeafPruner leafPruner) throws IOException {
         final Weight cancellableWeight;
         if (checkCancelled != null) {
             cancellableWeight = new Weight(weight.getQuery()) {
@@ -188,7 +209,79 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         } else {
             cancellableWeight = weight;
         }
-        super.search(leaves, cancellableWeight, collector);
+        // leaves that can't match the ranges that the query requires are skipped before the leaf pruner is asked
+        final LeafPruner rangePruner = PointRangeLeafPruner.create(weight.getQuery());
+        if (rangePruner == null && leafPruner == null) {
+            super.search(leaves, cancellableWeight, collector);
+            return;
+        }
+        for (LeafReaderContext leaf : leaves) {
+            if ((rangePruner != null && rangePruner.canSkip(leaf)) || (leafPruner != null && leafPruner.canSkip(leaf))) {
+                if (profiler != null) {
+                    profiler.addSkippedSegment();
+                }
+                continue;
+            }
+            super.search(Collections.singletonList(leaf), cancellableWeight, collector);
+        }
+    }
+
+    /**
+     * Searches the given slices of the leaves of this searcher concurrently, each slice with the collector at the same position. The
+     * calling thread searches slices together with up to <code>slices.size() - 1</code> helpers that are forked to the given executor
+     * and returns once every slice was searched, so slices are searched even if the executor is busy or rejects the helpers. Slices
+     * that didn't start yet are skipped once a slice failed and the first failure is rethrown.
+     */
+    public void search(Query query, List<List<LeafReaderContext>> slices, List<? extends Collector> collectors,
+                       Executor executor) throws IOException {
+        assert slices.size() == collectors.size() : "got [" + slices.size() + "] slices but [" + collectors.size() + "] collectors";
+        final Weight weight = createNormalizedWeight(query, collectors.get(0).needsScores());
+        final AtomicInteger nextSlice = new AtomicInteger();
+        final CountDownLatch searched = new CountDownLatch(slices.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            for (int i = nextSlice.getAndIncrement(); i < slices.size(); i = nextSlice.getAndIncrement()) {
+                try {
+                    if (failure.get() == null) {
+                        search(slices.get(i), weight, collectors.get(i));
+                    }
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    searched.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < slices.size(); i++) {
+            try {
+                executor.execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread searches the slices that are left
+                break;
+            }
+        }
+        worker.run();
+        // helpers must be done with the reader before it can be released, even if we are interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                searched.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
     }
 
     @Override
@@ -0,0 +1,44 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decides in which order {@link ContextIndexSearcher} searches the leaves of its reader and which leaves it skips because none of
+ * their documents can be a hit.
+ */
+public interface LeafPruner {
+
+    /**
+     * Returns the leaves in the order they should be searched, in doc id order by default.
+     */
+    default List<LeafReaderContext> order(List<LeafReaderContext> leaves) throws IOException {
+        return leaves;
+    }
+
+    /**
+     * Returns true if the given leaf can be skipped. It is called right before the leaf would be searched, after every leaf that
+     * comes before it in the {@link #order(List) search order} was searched or skipped.
+     */
+    boolean canSkip(LeafReaderContext leaf) throws IOException;
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Skips the leaves whose points can't match one of the range queries that a query requires: if the range of a
+ * {@link PointRangeQuery} doesn't intersect the minimum and maximum {@link PointValues} of its field in a leaf, the query can't match
+ * any document of the leaf.
+ */
+final class PointRangeLeafPruner implements LeafPruner {
+
+    private final List<PointRangeQuery> ranges;
+
+    private PointRangeLeafPruner(List<PointRangeQuery> ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Creates a pruner for the range queries that the given query requires, or returns <code>null</code> if it doesn't require any.
+     */
+    @Nullable
+    static LeafPruner create(Query query) {
+        final List<PointRangeQuery> ranges = new ArrayList<>();
+        extractRequiredRanges(query, ranges);
+        return ranges.isEmpty() ? null : new PointRangeLeafPruner(ranges);
+    }
+
+    private static void extractRequiredRanges(Query query, List<PointRangeQuery> ranges) {
+        if (query instanceof PointRangeQuery) {
+            ranges.add((PointRangeQuery) query);
+        } else if (query instanceof IndexOrDocValuesQuery) {
+            extractRequiredRanges(((IndexOrDocValuesQuery) query).getIndexQuery(), ranges);
+        } else if (query instanceof ConstantScoreQuery) {
+            extractRequiredRanges(((ConstantScoreQuery) query).getQuery(), ranges);
+        } else if (query instanceof BoostQuery) {
+            extractRequiredRanges(((BoostQuery) query).getQuery(), ranges);
+        } else if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (clause.isRequired()) {
+                    extractRequiredRanges(clause.getQuery(), ranges);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean canSkip(LeafReaderContext leaf) throws IOException {
+        for (PointRangeQuery range : ranges) {
+            final PointValues values = leaf.reader().getPointValues(range.getField());
+            if (values == null) {
+                // no document of the leaf has points for the field
+                return true;
+            }
+            if (values.getNumDimensions() != range.getNumDims() || values.getBytesPerDimension() != range.getBytesPerDim()) {
+                // the query fails on such leaves, let it report the failure
+                continue;
+            }
+            final byte[] minPackedValue = values.getMinPackedValue();
+            final byte[] maxPackedValue = values.getMaxPackedValue();
+            final int bytesPerDim = range.getBytesPerDim();
+            for (int dim = 0; dim < range.getNumDims(); dim++) {
+                final int offset = dim * bytesPerDim;
+                if (StringHelper.compare(bytesPerDim, maxPackedValue, offset, range.getLowerPoint(), offset) < 0
+                        || StringHelper.compare(bytesPerDim, minPackedValue, offset, range.getUpperPoint(), offset) > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -68,6 +68,7 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
     private float indexBoost;
     private SearchSourceBuilder source;
     private Boolean requestCache;
+    private Boolean concurrentSegmentSearch;
     private long nowInMillis;
     private boolean allowPartialSearchResults;
     private String[] indexRoutings = Strings.EMPTY_ARRAY;
@@ -86,6 +87,7 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         // at this stage. Any NPEs in the above are therefore an error in request preparation logic.
         assert searchRequest.allowPartialSearchResults() != null;
         this.scroll = searchRequest.scroll();
+        this.concurrentSegmentSearch = searchRequest.concurrentSegmentSearch();
         this.nowInMillis = nowInMillis;
         this.clusterAlias = clusterAlias;
     }
@@ -175,6 +177,11 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         return allowPartialSearchResults;
     }
 
+    @Override
+    public Boolean concurrentSegmentSearch() {
+        return concurrentSegmentSearch;
+    }
+
 
     @Override
     public Scroll scroll() {
@@ -242,6 +249,9 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
             indexRoutings = Strings.EMPTY_ARRAY;
             preference = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            concurrentSegmentSearch = in.readOptionalBoolean();
+        }
     }
 
     protected void innerWriteTo(StreamOutput out, boolean asKey) throws IOException {
@@ -272,6 +282,10 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
                 out.writeStringArray(indexRoutings);
                 out.writeOptionalString(preference);
             }
+            // how segments are collected doesn't change the result of the request so it isn't part of the cache key
+            if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                out.writeOptionalBoolean(concurrentSegmentSearch);
+            }
         }
     }
 
@@ -71,6 +71,12 @@ public interface ShardSearchRequest {
 
     Boolean allowPartialSearchResults();
 
+    /**
+     * Returns whether the query phase should collect the segments of the shard concurrently, or <code>null</code> to use the
+     * index level default.
+     */
+    Boolean concurrentSegmentSearch();
+
     Scroll scroll();
 
     /**
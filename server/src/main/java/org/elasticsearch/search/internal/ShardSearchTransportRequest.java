@@ -155,6 +155,11 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
         return shardSearchLocalRequest.allowPartialSearchResults();
     }
 
+    @Override
+    public Boolean concurrentSegmentSearch() {
+        return shardSearchLocalRequest.concurrentSegmentSearch();
+    }
+
     @Override
     public Scroll scroll() {
         return shardSearchLocalRequest.scroll();
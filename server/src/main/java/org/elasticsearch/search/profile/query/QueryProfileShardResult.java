@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.profile.query;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -43,6 +44,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
     public static final String COLLECTOR = "collector";
     public static final String REWRITE_TIME = "rewrite_time";
     public static final String QUERY_ARRAY = "query";
+    public static final String SKIPPED_SEGMENTS = "skipped_segments";
 
     private final List<ProfileResult> queryProfileResults;
 
@@ -50,12 +52,20 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
     private final long rewriteTime;
 
+    private final long skippedSegments;
+
     public QueryProfileShardResult(List<ProfileResult> queryProfileResults, long rewriteTime,
                               CollectorResult profileCollector) {
+        this(queryProfileResults, rewriteTime, profileCollector, 0);
+    }
+
+    public QueryProfileShardResult(List<ProfileResult> queryProfileResults, long rewriteTime,
+                                   CollectorResult profileCollector, long skippedSegments) {
         assert(profileCollector != null);
         this.queryProfileResults = queryProfileResults;
         this.profileCollector = profileCollector;
         this.rewriteTime = rewriteTime;
+        this.skippedSegments = skippedSegments;
     }
 
     /**
@@ -70,6 +80,11 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
         profileCollector = new CollectorResult(in);
         rewriteTime = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            skippedSegments = in.readVLong();
+        } else {
+            skippedSegments = 0;
+        }
     }
 
     @Override
@@ -80,6 +95,9 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         profileCollector.writeTo(out);
         out.writeLong(rewriteTime);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(skippedSegments);
+        }
     }
 
 
@@ -91,6 +109,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         return rewriteTime;
     }
 
+    /**
+     * The number of segments that were skipped because none of their documents could be a hit.
+     */
+    public long getSkippedSegments() {
+        return skippedSegments;
+    }
+
     public CollectorResult getCollectorResult() {
         return profileCollector;
     }
@@ -104,6 +129,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         builder.endArray();
         builder.field(REWRITE_TIME, rewriteTime);
+        builder.field(SKIPPED_SEGMENTS, skippedSegments);
         builder.startArray(COLLECTOR);
         profileCollector.toXContent(builder, params);
         builder.endArray();
@@ -117,6 +143,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         String currentFieldName = null;
         List<ProfileResult> queryProfileResults = new ArrayList<>();
         long rewriteTime = 0;
+        long skippedSegments = 0;
         CollectorResult collector = null;
         while((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
@@ -124,6 +151,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
             } else if (token.isValue()) {
                 if (REWRITE_TIME.equals(currentFieldName)) {
                     rewriteTime = parser.longValue();
+                } else if (SKIPPED_SEGMENTS.equals(currentFieldName)) {
+                    skippedSegments = parser.longValue();
                 } else {
                     parser.skipChildren();
                 }
@@ -143,6 +172,6 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
                 parser.skipChildren();
             }
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector);
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector, skippedSegments);
     }
 }
@@ -42,6 +42,11 @@ public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown,
      */
     private InternalProfileCollector collector;
 
+    /**
+     * The number of segments that were skipped because none of their documents could be a hit
+     */
+    private long skippedSegments;
+
     public QueryProfiler() {
         super(new InternalQueryProfileTree());
     }
@@ -79,6 +84,20 @@ public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown,
         return ((InternalQueryProfileTree) profileTree).getRewriteTime();
     }
 
+    /**
+     * Record that a segment was skipped because none of its documents could be a hit.
+     */
+    public void addSkippedSegment() {
+        skippedSegments++;
+    }
+
+    /**
+     * @return the number of segments that were skipped in this search
+     */
+    public long getSkippedSegments() {
+        return skippedSegments;
+    }
+
     /**
      * Return the current root Collector for this search
      */
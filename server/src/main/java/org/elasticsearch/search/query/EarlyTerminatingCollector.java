@@ -27,6 +27,7 @@ import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.LeafCollector;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A {@link Collector} that early terminates collection after <code>maxCountHits</code> docs have been collected.
@@ -39,7 +40,7 @@ public class EarlyTerminatingCollector extends FilterCollector {
     }
 
     private final int maxCountHits;
-    private int numCollected;
+    private final AtomicInteger numCollected;
     private boolean forceTermination;
 
     /**
@@ -50,14 +51,27 @@ public class EarlyTerminatingCollector extends FilterCollector {
      *                         that is not caught by other {@link Collector} or with a {@link CollectionTerminatedException} otherwise.
      */
     EarlyTerminatingCollector(final Collector delegate, int maxCountHits, boolean forceTermination) {
+        this(delegate, maxCountHits, forceTermination, new AtomicInteger());
+    }
+
+    /**
+     * Ctr
+     * @param delegate The delegated collector.
+     * @param maxCountHits The number of documents to collect before termination.
+     * @param forceTermination Whether the collection should be terminated with an exception ({@link EarlyTerminationException})
+     *                         that is not caught by other {@link Collector} or with a {@link CollectionTerminatedException} otherwise.
+     * @param numCollected The number of collected documents, shared by the collectors of slices that are collected concurrently.
+     */
+    EarlyTerminatingCollector(final Collector delegate, int maxCountHits, boolean forceTermination, AtomicInteger numCollected) {
         super(delegate);
         this.maxCountHits = maxCountHits;
         this.forceTermination = forceTermination;
+        this.numCollected = numCollected;
     }
 
     @Override
     public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-        if (numCollected >= maxCountHits) {
+        if (numCollected.get() >= maxCountHits) {
             if (forceTermination) {
                 throw new EarlyTerminationException("early termination [CountBased]");
             } else {
@@ -67,7 +81,7 @@ public class EarlyTerminatingCollector extends FilterCollector {
         return new FilterLeafCollector(super.getLeafCollector(context)) {
             @Override
             public void collect(int doc) throws IOException {
-                if (++numCollected > maxCountHits) {
+                if (numCollected.incrementAndGet() > maxCountHits) {
                     if (forceTermination) {
                         throw new EarlyTerminationException("early termination [CountBased]");
                     } else {
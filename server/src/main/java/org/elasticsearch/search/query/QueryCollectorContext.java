@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
 
 import static org.elasticsearch.search.profile.query.CollectorResult.REASON_SEARCH_CANCELLED;
@@ -162,16 +163,17 @@ abstract class QueryCollectorContext {
     }
 
     /**
-     * Creates collector limiting the collection to the first <code>numHits</code> documents
+     * Creates collector limiting the collection to the first <code>numHits</code> documents, counting the collected documents
+     * with <code>numCollected</code> so that the collectors of slices that are collected concurrently share the limit
      */
-    static QueryCollectorContext createEarlyTerminationCollectorContext(int numHits) {
+    static QueryCollectorContext createEarlyTerminationCollectorContext(int numHits, AtomicInteger numCollected) {
         return new QueryCollectorContext(REASON_SEARCH_TERMINATE_AFTER_COUNT) {
             private EarlyTerminatingCollector collector;
 
             @Override
             Collector create(Collector in) throws IOException {
                 assert collector == null;
-                this.collector = new EarlyTerminatingCollector(in, numHits, true);
+                this.collector = new EarlyTerminatingCollector(in, numHits, true, numCollected);
                 return collector;
             }
         };
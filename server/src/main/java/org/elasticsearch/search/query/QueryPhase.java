@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.query;
 
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.queries.MinDocQuery;
@@ -34,13 +35,20 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.util.Counter;
 import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.common.CheckedRunnable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.QueueResizingEsThreadPoolExecutor;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.SearchService;
@@ -50,6 +58,7 @@ import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.profile.SearchProfileShardResults;
+import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.sort.SortAndFormats;
@@ -57,7 +66,16 @@ import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createCancellableCollectorContext;
@@ -74,6 +92,11 @@ import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDo
  */
 public class QueryPhase implements SearchPhase {
 
+    // the numeric field types whose points are encoded like the values that are sorted on
+    private static final Set<String> POINT_SORT_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        NumberFieldMapper.NumberType.LONG.typeName(), NumberFieldMapper.NumberType.INTEGER.typeName(),
+        NumberFieldMapper.NumberType.SHORT.typeName(), NumberFieldMapper.NumberType.BYTE.typeName())));
+
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private RescorePhase rescorePhase;
@@ -174,34 +197,6 @@ public class QueryPhase implements SearchPhase {
                 }
             }
 
-            final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
-            // whether the chain contains a collector that filters documents
-            boolean hasFilterCollector = false;
-            if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
-                // add terminate_after before the filter collectors
-                // it will only be applied on documents accepted by these filter collectors
-                collectors.add(createEarlyTerminationCollectorContext(searchContext.terminateAfter()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
-            if (searchContext.parsedPostFilter() != null) {
-                // add post filters before aggregations
-                // it will only be applied to top hits
-                collectors.add(createFilteredCollectorContext(searcher, searchContext.parsedPostFilter().query()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
-            if (searchContext.queryCollectors().isEmpty() == false) {
-                // plug in additional collectors, like aggregations
-                collectors.add(createMultiCollectorContext(searchContext.queryCollectors().values()));
-            }
-            if (searchContext.minimumScore() != null) {
-                // apply the minimum score after multi collector so we filter aggs as well
-                collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
-
             boolean timeoutSet = scrollContext == null && searchContext.timeout() != null &&
                 searchContext.timeout().equals(SearchService.NO_TIMEOUT) == false;
 
@@ -242,45 +237,37 @@ public class QueryPhase implements SearchPhase {
 
             checkCancellationSetter.accept(checkCancelled);
 
-            // add cancellable
-            // this only performs segment-level cancellation, which is cheap and checked regardless of
-            // searchContext.lowLevelCancellation()
-            collectors.add(createCancellableCollectorContext(searchContext.getTask()::isCancelled));
-
-            final boolean doProfile = searchContext.getProfilers() != null;
-            // create the top docs collector last when the other collectors are known
-            final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, reader, hasFilterCollector);
-            // add the top docs collector, the first collector context in the chain
-            collectors.addFirst(topDocsFactory);
-
-            final Collector queryCollector;
-            if (doProfile) {
-                InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
-                searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
-                queryCollector = profileCollector;
+            final Query searchQuery = query;
+            final SortedNumericSortField prunableSortField = prunableSortField(searchContext, searcher);
+            final List<List<LeafReaderContext>> slices = prunableSortField == null && useConcurrentSegmentSearch(searchContext, searcher,
+                query) ? slices(reader.leaves(), searchContext.indexShard().getThreadPool().info(ThreadPool.Names.SEARCH_WORKER).getMax())
+                : null;
+            final TopDocsCollectorContext topDocsFactory;
+            if (prunableSortField != null) {
+                topDocsFactory = searchSortedLeaves(searchContext, (ContextIndexSearcher) searcher, searchQuery, prunableSortField,
+                    timeoutSet);
+            } else if (slices != null && slices.size() > 1) {
+                topDocsFactory = searchSlices(searchContext, (ContextIndexSearcher) searcher, searchQuery, slices, timeoutSet);
             } else {
-               queryCollector = QueryCollectorContext.createQueryCollector(collectors);
-            }
+                final LinkedList<QueryCollectorContext> collectors =
+                    createCollectorContexts(searchContext, searcher, reader, new AtomicInteger(), false);
+                topDocsFactory = (TopDocsCollectorContext) collectors.getFirst();
 
-            try {
-                searcher.search(query, queryCollector);
-            } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
-                queryResult.terminatedEarly(true);
-            } catch (TimeExceededException e) {
-                assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
-                
-                if (searchContext.request().allowPartialSearchResults() == false) {
-                    // Can't rethrow TimeExceededException because not serializable
-                    throw new QueryPhaseExecutionException(searchContext, "Time exceeded");
+                final Collector queryCollector;
+                if (searchContext.getProfilers() != null) {
+                    InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
+                    searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
+                    queryCollector = profileCollector;
+                } else {
+                   queryCollector = QueryCollectorContext.createQueryCollector(collectors);
                 }
-                queryResult.searchTimedOut(true);
-            } finally {
-                searchContext.clearReleasables(SearchContext.Lifetime.COLLECTION);
-            }
 
-            final QuerySearchResult result = searchContext.queryResult();
-            for (QueryCollectorContext ctx : collectors) {
-                ctx.postProcess(result);
+                search(searchContext, timeoutSet, () -> searcher.search(searchQuery, queryCollector));
+
+                final QuerySearchResult result = searchContext.queryResult();
+                for (QueryCollectorContext ctx : collectors) {
+                    ctx.postProcess(result);
+                }
             }
             EsThreadPoolExecutor executor = (EsThreadPoolExecutor)
                     searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
@@ -291,7 +278,7 @@ public class QueryPhase implements SearchPhase {
             }
             if (searchContext.getProfilers() != null) {
                 ProfileShardResult shardResults = SearchProfileShardResults.buildShardResults(searchContext.getProfilers());
-                result.profileResults(shardResults);
+                queryResult.profileResults(shardResults);
             }
             return topDocsFactory.shouldRescore();
         } catch (Exception e) {
@@ -299,6 +286,255 @@ public class QueryPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Creates the chain of collector contexts that collects the query, the top docs collector context first.
+     * @param terminateAfterCount The number of documents collected so far for <code>terminate_after</code>
+     * @param slice True if the chain collects a slice of the leaves of the reader
+     */
+    private static LinkedList<QueryCollectorContext> createCollectorContexts(SearchContext searchContext, IndexSearcher searcher,
+                                                                             IndexReader reader, AtomicInteger terminateAfterCount,
+                                                                             boolean slice) throws IOException {
+        final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
+        if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // add terminate_after before the filter collectors
+            // it will only be applied on documents accepted by these filter collectors
+            collectors.add(createEarlyTerminationCollectorContext(searchContext.terminateAfter(), terminateAfterCount));
+        }
+        if (searchContext.parsedPostFilter() != null) {
+            // add post filters before aggregations
+            // it will only be applied to top hits
+            collectors.add(createFilteredCollectorContext(searcher, searchContext.parsedPostFilter().query()));
+        }
+        if (searchContext.queryCollectors().isEmpty() == false) {
+            // plug in additional collectors, like aggregations
+            collectors.add(createMultiCollectorContext(searchContext.queryCollectors().values()));
+        }
+        if (searchContext.minimumScore() != null) {
+            // apply the minimum score after multi collector so we filter aggs as well
+            collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+
+        // add cancellable
+        // this only performs segment-level cancellation, which is cheap and checked regardless of
+        // searchContext.lowLevelCancellation()
+        collectors.add(createCancellableCollectorContext(searchContext.getTask()::isCancelled));
+
+        // create the top docs collector last when the other collectors are known
+        // a slice only sees some of the leaves so it can't take its hit count from the statistics of the whole reader
+        final TopDocsCollectorContext topDocsFactory =
+            createTopDocsCollectorContext(searchContext, reader, slice || hasFilterCollector(searchContext));
+        // add the top docs collector, the first collector context in the chain
+        collectors.addFirst(topDocsFactory);
+        return collectors;
+    }
+
+    /**
+     * Returns true if the collector chain contains a collector that filters documents during the collection.
+     */
+    private static boolean hasFilterCollector(SearchContext searchContext) {
+        return searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+            || searchContext.parsedPostFilter() != null
+            || searchContext.minimumScore() != null;
+    }
+
+    /**
+     * Runs the given search and records in the query result whether it terminated early or timed out.
+     */
+    private static void search(SearchContext searchContext, boolean timeoutSet, CheckedRunnable<IOException> search) throws IOException {
+        try {
+            search.run();
+        } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
+            searchContext.queryResult().terminatedEarly(true);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext, "Time exceeded");
+            }
+            searchContext.queryResult().searchTimedOut(true);
+        } finally {
+            searchContext.clearReleasables(SearchContext.Lifetime.COLLECTION);
+        }
+    }
+
+    /**
+     * Returns true if the leaves of the reader should be collected concurrently. The request decides, or the index setting if the
+     * request doesn't say. Aggregations are collected sequentially since there are no per-slice aggregators that are reduced on the
+     * shard. Reducing them would also change the results of aggregations that prune buckets per slice, like the
+     * <code>shard_size</code> top terms of a <code>terms</code> aggregation. Profiled requests are collected sequentially since the
+     * profiler builds a single collector tree. Scrolls and field collapsing are collected sequentially as well since their
+     * collectors need to see all leaves.
+     */
+    static boolean useConcurrentSegmentSearch(SearchContext searchContext, IndexSearcher searcher, Query query) throws IOException {
+        if (searcher instanceof ContextIndexSearcher == false || searcher.getIndexReader().leaves().size() < 2) {
+            return false;
+        }
+        final Boolean requested = searchContext.request() == null ? null : searchContext.request().concurrentSegmentSearch();
+        if (requested == null ? searchContext.indexShard().indexSettings().isConcurrentSegmentSearch() == false : requested == false) {
+            return false;
+        }
+        if (searchContext.queryCollectors().isEmpty() == false || searchContext.scrollContext() != null
+                || searchContext.collapse() != null || searchContext.getProfilers() != null) {
+            return false;
+        }
+        // counts that can be taken from the statistics of the reader are cheaper than any collection
+        return searchContext.size() > 0 || searchContext.trackTotalHits() == false || hasFilterCollector(searchContext)
+            || TopDocsCollectorContext.shortcutTotalHitCount(searcher.getIndexReader(), query) == -1;
+    }
+
+    /**
+     * Splits the given leaves into at most <code>maxSlices</code> slices of consecutive leaves that hold roughly the same number of
+     * documents. Leaves are never split so a slice holds at least one leaf.
+     */
+    static List<List<LeafReaderContext>> slices(List<LeafReaderContext> leaves, int maxSlices) {
+        final int numSlices = Math.max(1, Math.min(maxSlices, leaves.size()));
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final List<List<LeafReaderContext>> slices = new ArrayList<>(numSlices);
+        List<LeafReaderContext> slice = new ArrayList<>();
+        long docs = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            final LeafReaderContext leaf = leaves.get(i);
+            slice.add(leaf);
+            docs += leaf.reader().maxDoc();
+            final int remainingLeaves = leaves.size() - i - 1;
+            final int remainingSlices = numSlices - slices.size() - 1;
+            // close the slice once the slices so far hold their share of the documents, or if the remaining slices need all
+            // remaining leaves
+            if (remainingSlices > 0 && remainingLeaves >= remainingSlices
+                    && (docs * numSlices >= totalDocs * (slices.size() + 1) || remainingLeaves == remainingSlices)) {
+                slices.add(slice);
+                slice = new ArrayList<>();
+            }
+        }
+        slices.add(slice);
+        return slices;
+    }
+
+    /**
+     * Collects the given slices of the leaves concurrently on the search worker thread pool, each slice with its own collector
+     * chain, and merges the top docs of the slices into the query result. Slices are consecutive leaves and merged in order, so
+     * hits that compare equal are still sorted by doc id.
+     * @return the top docs collector context of the first slice
+     */
+    private static TopDocsCollectorContext searchSlices(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                                        List<List<LeafReaderContext>> slices, boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        // the slices share the number of documents collected for terminate_after
+        final AtomicInteger terminateAfterCount = new AtomicInteger();
+        final List<TopDocsCollectorContext> topDocsFactories = new ArrayList<>(slices.size());
+        final List<Collector> sliceCollectors = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            final LinkedList<QueryCollectorContext> collectors =
+                createCollectorContexts(searchContext, searcher, reader, terminateAfterCount, true);
+            topDocsFactories.add((TopDocsCollectorContext) collectors.getFirst());
+            sliceCollectors.add(QueryCollectorContext.createQueryCollector(collectors));
+        }
+
+        final Executor executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH_WORKER);
+        search(searchContext, timeoutSet, () -> searcher.search(query, slices, sliceCollectors, executor));
+
+        final TopDocsCollectorContext topDocsFactory = topDocsFactories.get(0);
+        final int numHits = topDocsFactory.numHits();
+        // slices that only count return plain top docs even if the request is sorted, see EmptyTopDocsCollectorContext
+        final TopDocs[] sliceTopDocs = searchContext.sort() == null || numHits == 0
+            ? new TopDocs[slices.size()] : new TopFieldDocs[slices.size()];
+        DocValueFormat[] sortValueFormats = null;
+        for (int i = 0; i < slices.size(); i++) {
+            final QuerySearchResult sliceResult = new QuerySearchResult();
+            topDocsFactories.get(i).postProcess(sliceResult);
+            sliceTopDocs[i] = sliceResult.topDocs();
+            sortValueFormats = sliceResult.sortValueFormats();
+            for (ScoreDoc scoreDoc : sliceTopDocs[i].scoreDocs) {
+                scoreDoc.shardIndex = i;
+            }
+        }
+        final TopDocs topDocs;
+        if (numHits == 0) {
+            // only counts, see EmptyTopDocsCollectorContext
+            long totalHits = 0;
+            for (TopDocs slice : sliceTopDocs) {
+                totalHits += slice.totalHits;
+            }
+            topDocs = new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0);
+        } else if (searchContext.sort() == null) {
+            topDocs = TopDocs.merge(0, numHits, sliceTopDocs, false);
+        } else {
+            topDocs = TopDocs.merge(searchContext.sort().sort, 0, numHits, (TopFieldDocs[]) sliceTopDocs, false);
+        }
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        searchContext.queryResult().topDocs(topDocs, sortValueFormats);
+        return topDocsFactory;
+    }
+
+    /**
+     * Returns the primary sort field if the leaves of the reader can be collected in the order of their best value for it and
+     * leaves that can't compete with the hits collected so far can be skipped, see {@link SortedLeafCollector}. This requires a
+     * numeric or date field that is indexed with points, and a search that only collects top hits and doesn't track the total
+     * number of hits.
+     */
+    static SortedNumericSortField prunableSortField(SearchContext searchContext, IndexSearcher searcher) {
+        if (searcher instanceof ContextIndexSearcher == false || searcher.getIndexReader().leaves().size() < 2) {
+            return null;
+        }
+        if (searchContext.size() == 0 || searchContext.sort() == null || searchContext.trackTotalHits()
+                || searchContext.scrollContext() != null || searchContext.collapse() != null
+                || searchContext.queryCollectors().isEmpty() == false || searchContext.rescore().isEmpty() == false
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return null;
+        }
+        final SortField sortField = searchContext.sort().sort.getSort()[0];
+        if (sortField instanceof SortedNumericSortField == false
+                || ((SortedNumericSortField) sortField).getNumericType() != SortField.Type.LONG
+                || sortField.getMissingValue() instanceof Long == false) {
+            return null;
+        }
+        final MappedFieldType fieldType = searchContext.smartNameFieldType(sortField.getField());
+        if (fieldType == null || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        // the points of these fields hold the values that are sorted on
+        if (fieldType instanceof DateFieldMapper.DateFieldType
+                || (fieldType instanceof NumberFieldMapper.NumberFieldType && POINT_SORT_TYPES.contains(fieldType.typeName()))) {
+            return (SortedNumericSortField) sortField;
+        }
+        return null;
+    }
+
+    /**
+     * Collects the leaves in the order of their best value for the given primary sort field and skips the leaves that can't compete
+     * with the hits collected so far.
+     * @return the top docs collector context of the first leaf
+     */
+    private static TopDocsCollectorContext searchSortedLeaves(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                                              SortedNumericSortField sortField, boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        final AtomicInteger terminateAfterCount = new AtomicInteger();
+        final LinkedList<QueryCollectorContext> firstCollectors =
+            createCollectorContexts(searchContext, searcher, reader, terminateAfterCount, true);
+        final TopDocsCollectorContext topDocsFactory = (TopDocsCollectorContext) firstCollectors.getFirst();
+        final SortedLeafCollector sortedLeafCollector = new SortedLeafCollector(firstCollectors,
+            () -> createCollectorContexts(searchContext, searcher, reader, terminateAfterCount, true), searchContext.sort().sort,
+            sortField.getField(), (Long) sortField.getMissingValue(), topDocsFactory.numHits(), reader.leaves().size());
+        final Collector queryCollector;
+        if (searchContext.getProfilers() != null) {
+            final InternalProfileCollector profileCollector = new InternalProfileCollector(sortedLeafCollector,
+                CollectorResult.REASON_SEARCH_TOP_HITS, Collections.emptyList());
+            searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
+            queryCollector = profileCollector;
+        } else {
+            queryCollector = sortedLeafCollector;
+        }
+        search(searchContext, timeoutSet, () -> searcher.search(query, queryCollector, sortedLeafCollector));
+        searchContext.queryResult().topDocs(sortedLeafCollector.topDocs(), searchContext.sort().formats);
+        return topDocsFactory;
+    }
+
     /**
      * Returns true if the provided <code>query</code> returns docs in index order (internal doc ids).
      * @param query The query to execute
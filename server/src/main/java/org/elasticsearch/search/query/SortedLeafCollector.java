@@ -0,0 +1,203 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.search.internal.LeafPruner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the leaves of a reader in the order of the best value they hold for the primary sort field, a numeric field that is
+ * indexed with points, and skips the leaves whose minimum and maximum values can't beat the hits that were collected so far. A
+ * search for the latest hits on a time based index only collects the newest segments this way.
+ * <p>
+ * The top field collectors of Lucene break ties on doc ids and expect leaves in doc id order, so every leaf is collected with its
+ * own collector chain and the top docs of the leaves are merged in leaf order at the end. The total hit count only includes the
+ * leaves that were collected, which is fine since this only applies to searches that don't track the total number of hits.
+ */
+final class SortedLeafCollector implements Collector, LeafPruner {
+
+    private final CheckedSupplier<List<QueryCollectorContext>, IOException> collectorsSupplier;
+    private final Sort sort;
+    private final String field;
+    private final boolean reverse;
+    private final long missingValue;
+    private final int numHits;
+    private final boolean needsScores;
+    // the collector chain that was created upfront and is used for the first leaf
+    private List<QueryCollectorContext> firstCollectors;
+    // the primary sort values of the best hits so far, the worst of them first
+    private final PriorityQueue<Long> bestValues;
+    private final TopFieldDocs[] leafTopDocs;
+    private TopDocsCollectorContext pendingLeaf;
+    private int pendingLeafOrd;
+
+    /**
+     * @param firstCollectors the collector chain for the first leaf, the top docs collector context first
+     * @param collectorsSupplier creates the collector chains for the other leaves
+     * @param sort the sort of the search, sorting on the point values of <code>field</code> first
+     * @param missingValue the sort value of the documents that don't have a value
+     * @param numHits the number of hits to collect
+     * @param numLeaves the number of leaves of the reader
+     */
+    SortedLeafCollector(List<QueryCollectorContext> firstCollectors,
+                        CheckedSupplier<List<QueryCollectorContext>, IOException> collectorsSupplier,
+                        Sort sort, String field, long missingValue, int numHits, int numLeaves) throws IOException {
+        this.firstCollectors = firstCollectors;
+        this.collectorsSupplier = collectorsSupplier;
+        this.sort = sort;
+        this.field = field;
+        this.reverse = sort.getSort()[0].getReverse();
+        this.missingValue = missingValue;
+        this.numHits = numHits;
+        this.needsScores = QueryCollectorContext.createQueryCollector(firstCollectors).needsScores();
+        this.bestValues = new PriorityQueue<>(numHits, reverse ? Comparator.<Long>naturalOrder() : Comparator.<Long>reverseOrder());
+        this.leafTopDocs = new TopFieldDocs[numLeaves];
+    }
+
+    @Override
+    public List<LeafReaderContext> order(List<LeafReaderContext> leaves) throws IOException {
+        final long[] bestLeafValues = new long[leaves.size()];
+        final List<LeafReaderContext> ordered = new ArrayList<>(leaves);
+        for (LeafReaderContext leaf : leaves) {
+            bestLeafValues[leaf.ord] = bestValue(leaf);
+        }
+        // stable, leaves with the same best value stay in doc id order
+        ordered.sort((a, b) -> reverse ? Long.compare(bestLeafValues[b.ord], bestLeafValues[a.ord])
+            : Long.compare(bestLeafValues[a.ord], bestLeafValues[b.ord]));
+        return ordered;
+    }
+
+    @Override
+    public boolean canSkip(LeafReaderContext leaf) throws IOException {
+        finishPendingLeaf();
+        if (bestValues.size() < numHits) {
+            return false;
+        }
+        // hits with the same value might still win on the secondary sort or the doc id
+        final long bottom = bestValues.peek();
+        final long best = bestValue(leaf);
+        return reverse ? best < bottom : best > bottom;
+    }
+
+    /**
+     * Returns the best sort value that a document of the given leaf can have.
+     */
+    private long bestValue(LeafReaderContext leaf) throws IOException {
+        final PointValues values = leaf.reader().getPointValues(field);
+        if (values == null) {
+            // the field is indexed so documents without points don't have a value
+            return missingValue;
+        }
+        final byte[] packedValue = reverse ? values.getMaxPackedValue() : values.getMinPackedValue();
+        final long value;
+        if (values.getNumDimensions() == 1 && values.getBytesPerDimension() == Long.BYTES) {
+            value = LongPoint.decodeDimension(packedValue, 0);
+        } else if (values.getNumDimensions() == 1 && values.getBytesPerDimension() == Integer.BYTES) {
+            value = IntPoint.decodeDimension(packedValue, 0);
+        } else {
+            // unknown encoding, any value is possible
+            return reverse ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        if (values.getDocCount() < leaf.reader().maxDoc()) {
+            // some documents don't have a value
+            return reverse ? Math.max(value, missingValue) : Math.min(value, missingValue);
+        }
+        return value;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        finishPendingLeaf();
+        final List<QueryCollectorContext> collectors;
+        if (firstCollectors != null) {
+            collectors = firstCollectors;
+            firstCollectors = null;
+        } else {
+            collectors = collectorsSupplier.get();
+        }
+        final Collector collector = QueryCollectorContext.createQueryCollector(collectors);
+        pendingLeaf = (TopDocsCollectorContext) collectors.get(0);
+        pendingLeafOrd = context.ord;
+        return collector.getLeafCollector(context);
+    }
+
+    @Override
+    public boolean needsScores() {
+        return needsScores;
+    }
+
+    private void finishPendingLeaf() throws IOException {
+        if (pendingLeaf == null) {
+            return;
+        }
+        final QuerySearchResult result = new QuerySearchResult();
+        pendingLeaf.postProcess(result);
+        pendingLeaf = null;
+        final TopFieldDocs topDocs = (TopFieldDocs) result.topDocs();
+        leafTopDocs[pendingLeafOrd] = topDocs;
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            bestValues.add((Long) ((FieldDoc) scoreDoc).fields[0]);
+            if (bestValues.size() > numHits) {
+                bestValues.poll();
+            }
+        }
+    }
+
+    /**
+     * Merges the top docs of the collected leaves.
+     */
+    TopDocs topDocs() throws IOException {
+        finishPendingLeaf();
+        final List<TopFieldDocs> collected = new ArrayList<>();
+        for (TopFieldDocs topDocs : leafTopDocs) {
+            if (topDocs != null) {
+                // hits that compare equal are sorted by leaf and then by doc id
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    scoreDoc.shardIndex = collected.size();
+                }
+                collected.add(topDocs);
+            }
+        }
+        if (collected.isEmpty()) {
+            return new TopFieldDocs(0, new ScoreDoc[0], sort.getSort(), Float.NaN);
+        }
+        final TopDocs topDocs = TopDocs.merge(sort, 0, numHits, collected.toArray(new TopFieldDocs[0]), false);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        return topDocs;
+    }
+}
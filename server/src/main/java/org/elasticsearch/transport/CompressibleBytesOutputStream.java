@@ -21,6 +21,7 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
@@ -50,10 +51,14 @@ final class CompressibleBytesOutputStream extends StreamOutput {
     private final boolean shouldCompress;
 
     CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+        this(bytesStreamOutput, shouldCompress, CompressorFactory.COMPRESSOR);
+    }
+
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress, Compressor compressor) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
         this.shouldCompress = shouldCompress;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            this.stream = compressor.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
         } else {
             this.stream = bytesStreamOutput;
         }
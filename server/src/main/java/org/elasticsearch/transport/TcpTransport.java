@@ -48,6 +48,7 @@ import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.NetworkAddress;
@@ -182,6 +183,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         key -> new Setting<>(key, PORT, Function.identity(), Setting.Property.NodeScope));
     public static final Setting.AffixSetting<Integer> PUBLISH_PORT_PROFILE = affixKeySetting("transport.profiles.", "publish_port",
         key -> intSetting(key, -1, -1, Setting.Property.NodeScope));
+    public static final Setting.AffixSetting<Compressor> COMPRESSION_SCHEME_PROFILE = affixKeySetting("transport.profiles.",
+        "compression_scheme", key -> new Setting<>(key, Transport.TRANSPORT_TCP_COMPRESSION_SCHEME, CompressorFactory::compressor,
+            Setting.Property.NodeScope));
 
     // This is the number of bytes necessary to read the message size
     public static final int BYTES_NEEDED_FOR_MESSAGE_SIZE = TcpHeader.MARKER_BYTES_SIZE + TcpHeader.MESSAGE_LENGTH_SIZE;
@@ -213,6 +217,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     // connections while no connect operations is going on... (this might help with 100% CPU when stopping the transport?)
     private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     protected final boolean compress;
+    // the compressor of every profile, outgoing requests use the compressor of the default profile
+    private final Map<String, Compressor> profileCompressors;
     private volatile BoundTransportAddress boundAddress;
     private final String transportName;
     protected final ConnectionProfile defaultConnectionProfile;
@@ -237,6 +243,11 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         this.pingSchedule = PING_SCHEDULE.get(settings);
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
+        final Map<String, Compressor> profileCompressors = new HashMap<>();
+        for (ProfileSettings profile : profileSettings) {
+            profileCompressors.put(profile.profileName, profile.compressor);
+        }
+        this.profileCompressors = Collections.unmodifiableMap(profileCompressors);
         this.networkService = networkService;
         this.transportName = transportName;
         defaultConnectionProfile = buildDefaultConnectionProfile(settings);
@@ -1061,6 +1072,16 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     protected void stopInternal() {
     }
 
+    /**
+     * Returns the compressor for messages that are sent to a node of the given version over a channel of the given profile. The
+     * receiving node detects the compressor from the header of the compressed bytes, so the compressor only needs to be one
+     * that the version of the receiving node supports.
+     */
+    private Compressor compressor(String profileName, Version version) {
+        final Compressor compressor = profileCompressors.getOrDefault(profileName, profileCompressors.get(DEFAULT_PROFILE));
+        return CompressorFactory.compressor(compressor, version);
+    }
+
     public boolean canCompress(TransportRequest request) {
         return compress && (!(request instanceof BytesTransportRequest));
     }
@@ -1077,20 +1098,21 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         // the header part is compressed, and the "body" can't be extracted as compressed
         final boolean compressMessage = options.compress() && canCompress(request);
 
+        // we pick the smallest of the 2, to support both backward and forward compatibility
+        // note, this is the only place we need to do this, since from here on, we use the serialized version
+        // as the version to use also when the node receiving this request will send the response with
+        final Version version = Version.min(getCurrentVersion(), channelVersion);
+
         status = TransportStatus.setRequest(status);
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage);
+        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage,
+            compressor(channel.getProfile(), version));
         boolean addedReleaseListener = false;
         try {
             if (compressMessage) {
                 status = TransportStatus.setCompress(status);
             }
 
-            // we pick the smallest of the 2, to support both backward and forward compatibility
-            // note, this is the only place we need to do this, since from here on, we use the serialized version
-            // as the version to use also when the node receiving this request will send the response with
-            Version version = Version.min(getCurrentVersion(), channelVersion);
-
             stream.setVersion(version);
             threadPool.getThreadContext().writeTo(stream);
             stream.writeString(action);
@@ -1167,7 +1189,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         }
         status = TransportStatus.setResponse(status); // TODO share some code with sendRequest
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress());
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress(),
+            compressor(channel.getProfile(), nodeVersion));
         boolean addedReleaseListener = false;
         try {
             if (options.compress()) {
@@ -1392,6 +1415,17 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
      * This method handles the message receive part for both request and responses
      */
     public final void messageReceived(BytesReference reference, TcpChannel channel) throws IOException {
+        messageReceived(reference, channel, () -> {});
+    }
+
+    /**
+     * This method handles the message receive part for both request and responses. The given releasable releases the bytes of the
+     * message. The bytes of a request that shares them instead of copying them, see {@link StreamInput#readSharedBytesReference()},
+     * are released once the response to the request was sent. The bytes of all other messages are released once the message was read.
+     */
+    public final void messageReceived(BytesReference reference, TcpChannel channel, Releasable releasable) throws IOException {
+        final Releasable releaseOnce = Releasables.releaseOnce(releasable);
+        boolean releaseOnReturn = true;
         String profileName = channel.getProfile();
         InetSocketAddress remoteAddress = channel.getRemoteAddress();
         int messageLengthBytes = reference.length();
@@ -1429,7 +1463,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             streamIn.setVersion(version);
             threadPool.getThreadContext().readHeaders(streamIn);
             if (TransportStatus.isRequest(status)) {
-                handleRequest(channel, profileName, streamIn, requestId, messageLengthBytes, version, remoteAddress, status);
+                // the request releases the bytes once it was read or, if it shares them, once it was handled
+                releaseOnReturn = false;
+                handleRequest(channel, profileName, streamIn, requestId, messageLengthBytes, version, remoteAddress, status, releaseOnce);
             } else {
                 final TransportResponseHandler<?> handler;
                 if (isHandshake) {
@@ -1465,6 +1501,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             } else {
                 IOUtils.closeWhileHandlingException(streamIn);
             }
+            if (releaseOnReturn || success == false) {
+                releaseOnce.close();
+            }
         }
     }
 
@@ -1533,13 +1572,14 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     }
 
     protected String handleRequest(TcpChannel channel, String profileName, final StreamInput stream, long requestId,
-                                   int messageLengthBytes, Version version, InetSocketAddress remoteAddress, byte status)
-        throws IOException {
+                                   int messageLengthBytes, Version version, InetSocketAddress remoteAddress, byte status,
+                                   Releasable releasable) throws IOException {
         final String action = stream.readString();
         transportService.onRequestReceived(requestId, action);
         TransportChannel transportChannel = null;
         try {
             if (TransportStatus.isHandshake(status)) {
+                releasable.close();
                 final VersionHandshakeResponse response = new VersionHandshakeResponse(getCurrentVersion());
                 sendResponse(version, channel, response, requestId, HANDSHAKE_ACTION_NAME, TransportResponseOptions.EMPTY,
                     TransportStatus.setHandshake((byte) 0));
@@ -1554,17 +1594,22 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                     getInFlightRequestBreaker().addWithoutBreaking(messageLengthBytes);
                 }
                 transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, profileName,
-                    messageLengthBytes);
+                    messageLengthBytes, releasable);
                 final TransportRequest request = reg.newRequest(stream);
                 request.remoteAddress(new TransportAddress(remoteAddress));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
                 validateRequest(stream, requestId, action);
+                if (stream.hasSharedBytes() == false) {
+                    // the request copied everything it needs, so its bytes don't have to outlive it until the response was sent
+                    releasable.close();
+                }
                 threadPool.executor(reg.getExecutor()).execute(new RequestHandler(reg, request, transportChannel));
             }
         } catch (Exception e) {
             // the circuit breaker tripped
             if (transportChannel == null) {
-                transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, profileName, 0);
+                transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, profileName, 0,
+                    releasable);
             }
             try {
                 transportChannel.sendResponse(e);
@@ -1825,6 +1870,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         public final List<String> publishHosts;
         public final String portOrRange;
         public final int publishPort;
+        public final Compressor compressor;
         public final boolean isDefaultProfile;
 
         public ProfileSettings(Settings settings, String profileName) {
@@ -1846,6 +1892,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             portOrRange = PORT_PROFILE.getConcreteSettingForNamespace(profileName).get(settings);
             publishPort = isDefaultProfile ? PUBLISH_PORT.get(settings) :
                 PUBLISH_PORT_PROFILE.getConcreteSettingForNamespace(profileName).get(settings);
+            compressor = COMPRESSION_SCHEME_PROFILE.getConcreteSettingForNamespace(profileName).get(settings);
         }
     }
 }
@@ -19,6 +19,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasable;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -33,9 +34,10 @@ public final class TcpTransportChannel implements TransportChannel {
     private final AtomicBoolean released = new AtomicBoolean();
     private final String channelType;
     private final TcpChannel channel;
+    private final Releasable releasable;
 
     TcpTransportChannel(TcpTransport transport, TcpChannel channel, String channelType, String action,
-                        long requestId, Version version, String profileName, long reservedBytes) {
+                        long requestId, Version version, String profileName, long reservedBytes, Releasable releasable) {
         this.version = version;
         this.channel = channel;
         this.transport = transport;
@@ -44,6 +46,7 @@ public final class TcpTransportChannel implements TransportChannel {
         this.profileName = profileName;
         this.reservedBytes = reservedBytes;
         this.channelType = channelType;
+        this.releasable = releasable;
     }
 
     @Override
@@ -79,7 +82,12 @@ public final class TcpTransportChannel implements TransportChannel {
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            try {
+                transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            } finally {
+                // the request might share the bytes of the message it was read from, they are not needed anymore
+                releasable.close();
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
@@ -19,13 +19,19 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.action.shard.ShardStateActionStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.common.util.PageCacheRecyclerStats;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.discovery.zen.PendingClusterStateStats;
 import org.elasticsearch.discovery.zen.PublishClusterStateStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.IndexingPressureStats;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -298,6 +304,56 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                PageCacheRecyclerStats pageCacheRecyclerStats = nodeStats.getPageCacheRecyclerStats();
+                PageCacheRecyclerStats deserializedPageCacheRecyclerStats = deserializedNodeStats.getPageCacheRecyclerStats();
+                if (pageCacheRecyclerStats == null) {
+                    assertNull(deserializedPageCacheRecyclerStats);
+                } else {
+                    assertEquals(pageCacheRecyclerStats.getMemory(), deserializedPageCacheRecyclerStats.getMemory());
+                    assertEquals(pageCacheRecyclerStats.getOffHeapSizeInBytes(),
+                            deserializedPageCacheRecyclerStats.getOffHeapSizeInBytes());
+                }
+                IndexingPressureStats indexingPressureStats = nodeStats.getIndexingPressureStats();
+                IndexingPressureStats deserializedIndexingPressureStats = deserializedNodeStats.getIndexingPressureStats();
+                if (indexingPressureStats == null) {
+                    assertNull(deserializedIndexingPressureStats);
+                } else {
+                    assertEquals(indexingPressureStats.getTotalCombinedCoordinatingAndPrimaryBytes(),
+                            deserializedIndexingPressureStats.getTotalCombinedCoordinatingAndPrimaryBytes());
+                    assertEquals(indexingPressureStats.getTotalCoordinatingBytes(),
+                            deserializedIndexingPressureStats.getTotalCoordinatingBytes());
+                    assertEquals(indexingPressureStats.getTotalPrimaryBytes(), deserializedIndexingPressureStats.getTotalPrimaryBytes());
+                    assertEquals(indexingPressureStats.getTotalReplicaBytes(), deserializedIndexingPressureStats.getTotalReplicaBytes());
+                    assertEquals(indexingPressureStats.getCurrentCombinedCoordinatingAndPrimaryBytes(),
+                            deserializedIndexingPressureStats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+                    assertEquals(indexingPressureStats.getCurrentCoordinatingBytes(),
+                            deserializedIndexingPressureStats.getCurrentCoordinatingBytes());
+                    assertEquals(indexingPressureStats.getCurrentPrimaryBytes(),
+                            deserializedIndexingPressureStats.getCurrentPrimaryBytes());
+                    assertEquals(indexingPressureStats.getCurrentReplicaBytes(),
+                            deserializedIndexingPressureStats.getCurrentReplicaBytes());
+                    assertEquals(indexingPressureStats.getCoordinatingRejections(),
+                            deserializedIndexingPressureStats.getCoordinatingRejections());
+                    assertEquals(indexingPressureStats.getPrimaryRejections(), deserializedIndexingPressureStats.getPrimaryRejections());
+                    assertEquals(indexingPressureStats.getReplicaRejections(), deserializedIndexingPressureStats.getReplicaRejections());
+                    assertEquals(indexingPressureStats.getLimitInBytes(), deserializedIndexingPressureStats.getLimitInBytes());
+                    assertEquals(indexingPressureStats.getShardStats().keySet(),
+                            deserializedIndexingPressureStats.getShardStats().keySet());
+                    indexingPressureStats.getShardStats().forEach((shardId, shardStats) -> {
+                        IndexingPressureStats.ShardStats deserializedShardStats =
+                                deserializedIndexingPressureStats.getShardStats().get(shardId);
+                        assertEquals(shardStats.getPrimaryBytes(), deserializedShardStats.getPrimaryBytes());
+                        assertEquals(shardStats.getReplicaBytes(), deserializedShardStats.getReplicaBytes());
+                    });
+                }
+                ShardStateActionStats shardStateActionStats = nodeStats.getShardStateActionStats();
+                ShardStateActionStats deserializedShardStateActionStats = deserializedNodeStats.getShardStateActionStats();
+                if (shardStateActionStats == null) {
+                    assertNull(deserializedShardStateActionStats);
+                } else {
+                    assertBatchStats(shardStateActionStats.getStartedShards(), deserializedShardStateActionStats.getStartedShards());
+                    assertBatchStats(shardStateActionStats.getFailedShards(), deserializedShardStateActionStats.getFailedShards());
+                }
             }
         }
     }
@@ -421,6 +477,12 @@ public class NodeStatsTests extends ESTestCase {
                 : null,
                 randomBoolean()
                 ? new PublishClusterStateStats(
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
@@ -461,9 +523,42 @@ public class NodeStatsTests extends ESTestCase {
             }
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
+        PageCacheRecyclerStats pageCacheRecyclerStats = null;
+        if (frequently()) {
+            pageCacheRecyclerStats = new PageCacheRecyclerStats(randomFrom(PageCacheRecycler.Memory.values()), randomNonNegativeLong());
+        }
+        IndexingPressureStats indexingPressureStats = null;
+        if (frequently()) {
+            Map<ShardId, IndexingPressureStats.ShardStats> shardStats = new HashMap<>();
+            int numShards = randomIntBetween(0, 5);
+            for (int i = 0; i < numShards; i++) {
+                shardStats.put(new ShardId(randomAlphaOfLength(10), randomAlphaOfLength(10), i),
+                        new IndexingPressureStats.ShardStats(randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            indexingPressureStats = new IndexingPressureStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), shardStats);
+        }
+        ShardStateActionStats shardStateActionStats = null;
+        if (frequently()) {
+            shardStateActionStats = new ShardStateActionStats(randomBatchStats(), randomBatchStats());
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, pageCacheRecyclerStats, indexingPressureStats, shardStateActionStats);
+    }
+
+    private static ShardStateAction.BatchStats randomBatchStats() {
+        return new ShardStateAction.BatchStats(randomNonNegativeLong(), randomNonNegativeLong(), randomIntBetween(0, Integer.MAX_VALUE),
+                randomNonNegativeLong());
+    }
+
+    private static void assertBatchStats(ShardStateAction.BatchStats batchStats, ShardStateAction.BatchStats deserializedBatchStats) {
+        assertEquals(batchStats.getCount(), deserializedBatchStats.getCount());
+        assertEquals(batchStats.getTasks(), deserializedBatchStats.getTasks());
+        assertEquals(batchStats.getMaxTasks(), deserializedBatchStats.getMaxTasks());
+        assertEquals(batchStats.getTimeInMillis(), deserializedBatchStats.getTimeInMillis());
     }
 }
@@ -35,6 +35,7 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.ingest.IngestService;
 import org.elasticsearch.ingest.PipelineExecutionService;
 import org.elasticsearch.tasks.Task;
@@ -105,7 +106,7 @@ public class TransportBulkActionIngestTests extends ESTestCase {
         boolean isExecuted = false; // set when the "real" bulk execution happens
         TestTransportBulkAction() {
             super(Settings.EMPTY, null, transportService, clusterService, ingestService,
-                null, null, new ActionFilters(Collections.emptySet()), null, null);
+                null, null, new ActionFilters(Collections.emptySet()), null, null, new IndexingPressure(Settings.EMPTY));
         }
         @Override
         protected boolean needToCheck() {
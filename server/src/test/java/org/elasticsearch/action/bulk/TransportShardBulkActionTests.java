@@ -37,12 +37,16 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.shard.IndexShard;
@@ -52,9 +56,17 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.rest.RestStatus;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.LongSupplier;
 
 import static org.elasticsearch.action.bulk.TransportShardBulkAction.replicaItemExecutionMode;
@@ -63,6 +75,8 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
@@ -662,6 +676,169 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testMappingUpdatesOfIndexRunAreMerged() throws Exception {
+        final IndexShard shard = newStartedShard(true);
+        final IndexShard replica = newShard(shard.shardId(), false);
+        recoverReplica(replica, shard);
+        final int numItems = randomIntBetween(2, 10);
+        BulkItemRequest[] items = new BulkItemRequest[numItems];
+        for (int i = 0; i < numItems; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("index", "type", Integer.toString(i))
+                .source(Requests.INDEX_CONTENT_TYPE, "field_" + i, "value"));
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shard.shardId(), RefreshPolicy.NONE, items);
+
+        final List<Mapping> updates = new ArrayList<>();
+        TransportShardBulkAction.performOnPrimary(bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            new ApplyingMappingUpdatePerformer(shard, updates));
+
+        // all documents introduce a new field but a single update is sent for all of them
+        assertThat(updates, hasSize(1));
+        for (int i = 0; i < numItems; i++) {
+            assertThat(updates.get(0).toString(), containsString("\"field_" + i + "\""));
+            assertFalse(bulkShardRequest.items()[i].getPrimaryResponse().isFailed());
+        }
+        assertDocCount(shard, numItems);
+
+        // the documents are replicated without mapping updates once the replica knows the merged update
+        replica.mapperService().merge("type", new CompressedXContent(updates.get(0).toString()), MapperService.MergeReason.MAPPING_UPDATE);
+        TransportShardBulkAction.performOnReplica(bulkShardRequest, replica);
+        assertDocCount(replica, numItems);
+        closeShards(shard, replica);
+    }
+
+    public void testMappingUpdatesThatMapASharedFieldAlikeAreMerged() throws Exception {
+        final IndexShard shard = newStartedShard(true);
+        final int numItems = randomIntBetween(2, 10);
+        BulkItemRequest[] items = new BulkItemRequest[numItems];
+        for (int i = 0; i < numItems; i++) {
+            // every document maps the same text field with a keyword sub-field and an object next to a field of its own
+            items[i] = new BulkItemRequest(i, new IndexRequest("index", "type", Integer.toString(i))
+                .source(Requests.INDEX_CONTENT_TYPE, "shared", randomAlphaOfLength(10),
+                    "object", Collections.singletonMap("field_" + i, i)));
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shard.shardId(), RefreshPolicy.NONE, items);
+
+        final List<Mapping> updates = new ArrayList<>();
+        TransportShardBulkAction.performOnPrimary(bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            new ApplyingMappingUpdatePerformer(shard, updates));
+
+        assertThat(updates, hasSize(1));
+        assertThat(updates.get(0).toString(), containsString("\"shared\""));
+        for (int i = 0; i < numItems; i++) {
+            assertThat(updates.get(0).toString(), containsString("\"field_" + i + "\""));
+            assertFalse(bulkShardRequest.items()[i].getPrimaryResponse().isFailed());
+        }
+        assertDocCount(shard, numItems);
+        closeShards(shard);
+    }
+
+    public void testConflictingMappingUpdatesOfIndexRunAreNotMerged() throws Exception {
+        final IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[3];
+        items[0] = new BulkItemRequest(0, new IndexRequest("index", "type", "0").source(Requests.INDEX_CONTENT_TYPE, "foo", 1));
+        items[1] = new BulkItemRequest(1, new IndexRequest("index", "type", "1").source(Requests.INDEX_CONTENT_TYPE, "foo", 1.5));
+        items[2] = new BulkItemRequest(2, new IndexRequest("index", "type", "2").source(Requests.INDEX_CONTENT_TYPE, "foo", "bar"));
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shard.shardId(), RefreshPolicy.NONE, items);
+
+        final List<Mapping> updates = new ArrayList<>();
+        TransportShardBulkAction.performOnPrimary(bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            new ApplyingMappingUpdatePerformer(shard, updates));
+
+        // the first document determines the type of the field like it does when the items are executed one by one
+        assertThat(updates, hasSize(1));
+        assertThat(updates.get(0).toString(), containsString("long"));
+        assertFalse(bulkShardRequest.items()[0].getPrimaryResponse().isFailed());
+        assertFalse(bulkShardRequest.items()[1].getPrimaryResponse().isFailed());
+        assertTrue(bulkShardRequest.items()[2].getPrimaryResponse().isFailed());
+        assertThat(bulkShardRequest.items()[2].getPrimaryResponse().getFailure().getCause(),
+            instanceOf(MapperParsingException.class));
+        assertDocCount(shard, 2);
+        closeShards(shard);
+    }
+
+    public void testPerformOnPrimaryWithParallelParsing() throws Exception {
+        final IndexMetaData metaData = IndexMetaData.builder(indexMetaData())
+            .settings(Settings.builder().put(idxSettings).put(IndexSettings.BULK_PARSE_THREADS_SETTING.getKey(), randomIntBetween(2, 8)))
+            .build();
+        final IndexShard shard = newShard(new ShardId(metaData.getIndex(), 0), true, "n1", metaData, null);
+        recoverShardFromStore(shard);
+
+        final int numItems = randomIntBetween(1, 100);
+        final boolean[] expectFailure = new boolean[numItems];
+        BulkItemRequest[] items = new BulkItemRequest[numItems];
+        int expectedDocs = 0;
+        for (int i = 0; i < numItems; i++) {
+            final String id = Integer.toString(i);
+            if (rarely()) {
+                items[i] = new BulkItemRequest(i, new DeleteRequest("index", "type", Integer.toString(randomInt(i))));
+            } else if (rarely()) {
+                // objects can't be indexed into a text field
+                items[i] = new BulkItemRequest(i, new IndexRequest("index", "type", id)
+                    .source(Requests.INDEX_CONTENT_TYPE, "foo", Collections.singletonMap("bar", "baz")));
+                expectFailure[i] = true;
+            } else {
+                items[i] = new BulkItemRequest(i, new IndexRequest("index", "type", id)
+                    .source(Requests.INDEX_CONTENT_TYPE, "foo", randomAlphaOfLength(10)));
+            }
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shard.shardId(), RefreshPolicy.NONE, items);
+        TransportShardBulkAction.performOnPrimary(bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            new NoopMappingUpdatePerformer(), threadPool.generic());
+
+        final Set<String> indexed = new HashSet<>();
+        for (int i = 0; i < numItems; i++) {
+            final BulkItemResponse response = bulkShardRequest.items()[i].getPrimaryResponse();
+            assertThat(response.getItemId(), equalTo(i));
+            if (expectFailure[i]) {
+                assertTrue(response.isFailed());
+                assertThat(response.getFailure().getCause(), instanceOf(MapperParsingException.class));
+            } else {
+                assertFalse(response.isFailed());
+                if (response.getOpType() == DocWriteRequest.OpType.DELETE) {
+                    indexed.remove(response.getId());
+                } else {
+                    indexed.add(response.getId());
+                }
+            }
+        }
+        // documents are indexed in the order of the request
+        for (int i = 1; i < numItems; i++) {
+            final BulkItemResponse previous = bulkShardRequest.items()[i - 1].getPrimaryResponse();
+            final BulkItemResponse current = bulkShardRequest.items()[i].getPrimaryResponse();
+            if (previous.isFailed() == false && current.isFailed() == false) {
+                assertThat(current.getResponse().getSeqNo(), greaterThan(previous.getResponse().getSeqNo()));
+            }
+        }
+        assertDocCount(shard, indexed.size());
+        closeShards(shard);
+    }
+
+    public void testForEachInParallel() throws Exception {
+        final int startIndex = randomIntBetween(0, 10);
+        final int endIndex = startIndex + randomIntBetween(0, 100);
+        final AtomicIntegerArray calls = new AtomicIntegerArray(endIndex);
+        final Executor executor = randomBoolean() ? threadPool.generic() : command -> {
+            throw new EsRejectedExecutionException("rejected");
+        };
+        final int failingIndex = randomBoolean() && endIndex > startIndex ? randomIntBetween(startIndex, endIndex - 1) : -1;
+        try {
+            TransportShardBulkAction.forEachInParallel(startIndex, endIndex, randomIntBetween(1, 8), executor, i -> {
+                calls.incrementAndGet(i);
+                if (i == failingIndex) {
+                    throw new IllegalStateException("simulated");
+                }
+            });
+            assertThat(failingIndex, equalTo(-1));
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo("simulated"));
+            assertThat(failingIndex, not(-1));
+        }
+        for (int i = 0; i < endIndex; i++) {
+            assertThat("index [" + i + "]", calls.get(i), equalTo(i < startIndex ? 0 : 1));
+        }
+    }
+
     public class IndexResultWithLocation extends Engine.IndexResult {
         private final Translog.Location location;
         public IndexResultWithLocation(long version, long seqNo, boolean created, Translog.Location newLocation) {
@@ -894,6 +1071,30 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         }
     }
 
+    /** Applies mapping updates to the mappings of the given shard like the master would */
+    private static class ApplyingMappingUpdatePerformer implements MappingUpdatePerformer {
+        private final IndexShard shard;
+        private final List<Mapping> updates;
+
+        ApplyingMappingUpdatePerformer(IndexShard shard, List<Mapping> updates) {
+            this.shard = shard;
+            this.updates = updates;
+        }
+
+        public void updateMappings(Mapping update, ShardId shardId, String type) {
+            updates.add(update);
+            try {
+                shard.mapperService().merge(type, new CompressedXContent(update.toString()), MapperService.MergeReason.MAPPING_UPDATE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void verifyMappings(Mapping update, ShardId shardId) {
+            fail("mappings should have been updated");
+        }
+    }
+
     /** Always throw the given exception */
     private class ThrowingMappingUpdatePerformer implements MappingUpdatePerformer {
         private final RuntimeException e;
@@ -30,7 +30,7 @@ public class ClusterInfoTests extends ESTestCase {
 
     public void testSerialization() throws Exception {
         ClusterInfo clusterInfo = new ClusterInfo(
-                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath()
+                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath(), randomShardWriteLoads()
         );
         BytesStreamOutput output = new BytesStreamOutput();
         clusterInfo.writeTo(output);
@@ -40,6 +40,7 @@ public class ClusterInfoTests extends ESTestCase {
         assertEquals(clusterInfo.getNodeMostAvailableDiskUsages(), result.getNodeMostAvailableDiskUsages());
         assertEquals(clusterInfo.shardSizes, result.shardSizes);
         assertEquals(clusterInfo.routingToDataPath, result.routingToDataPath);
+        assertEquals(clusterInfo.shardWriteLoads, result.shardWriteLoads);
     }
 
     private static ImmutableOpenMap<String, DiskUsage> randomDiskUsage() {
@@ -67,6 +68,17 @@ public class ClusterInfoTests extends ESTestCase {
         return builder.build();
     }
 
+    private static ImmutableOpenMap<String, Double> randomShardWriteLoads() {
+        int numEntries = randomIntBetween(0, 128);
+        ImmutableOpenMap.Builder<String, Double> builder = ImmutableOpenMap.builder(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            String key = randomAlphaOfLength(32);
+            double writeLoad = randomDoubleBetween(0.0d, 16.0d, true);
+            builder.put(key, writeLoad);
+        }
+        return builder.build();
+    }
+
     private static ImmutableOpenMap<ShardRouting, String> randomRoutingToDataPath() {
         int numEntries = randomIntBetween(0, 128);
         ImmutableOpenMap.Builder<ShardRouting, String> builder = ImmutableOpenMap.builder(numEntries);
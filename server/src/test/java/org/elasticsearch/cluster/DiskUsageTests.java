@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.store.StoreStats;
@@ -131,6 +132,35 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testFillShardWriteLoads() {
+        final Index index = new Index("test", "0xdeadbeef");
+        ShardStats[] stats = new ShardStats[3];
+        long[] indexTimesInMillis = new long[] {30000, 1000, 500};
+        for (int i = 0; i < stats.length; i++) {
+            ShardRouting shard = ShardRouting.newUnassigned(new ShardId(index, i), true, PeerRecoverySource.INSTANCE,
+                new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+            shard = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(shard, "node1"));
+            Path path = createTempDir().resolve("indices").resolve(index.getUUID()).resolve(Integer.toString(i));
+            CommonStats commonStats = new CommonStats();
+            commonStats.indexing = new IndexingStats(
+                new IndexingStats.Stats(0, indexTimesInMillis[i], 0, 0, 0, 0, 0, 0, false, 0), null);
+            stats[i] = new ShardStats(shard, new ShardPath(false, path, path, shard.shardId()), commonStats, null, null);
+        }
+        ImmutableOpenMap.Builder<String, InternalClusterInfoService.IndexingTimeSample> previousSamples = ImmutableOpenMap.builder();
+        // the first shard indexed for 20 seconds in 10 seconds, the indexing time of the second shard was reset
+        previousSamples.put("[test][0][p]", new InternalClusterInfoService.IndexingTimeSample(10000, 5000));
+        previousSamples.put("[test][1][p]", new InternalClusterInfoService.IndexingTimeSample(2000, 5000));
+
+        ImmutableOpenMap.Builder<String, InternalClusterInfoService.IndexingTimeSample> samples = ImmutableOpenMap.builder();
+        ImmutableOpenMap.Builder<String, Double> shardWriteLoads = ImmutableOpenMap.builder();
+        InternalClusterInfoService.buildShardWriteLoads(logger, stats, 15000, previousSamples.build(), samples, shardWriteLoads);
+        assertEquals(3, samples.size());
+        assertEquals(500L, samples.get("[test][2][p]").indexTimeInMillis);
+        assertEquals(15000L, samples.get("[test][2][p]").timestampInMillis);
+        assertEquals(1, shardWriteLoads.size());
+        assertEquals(2.0d, shardWriteLoads.get("[test][0][p]"), 0.0d);
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
@@ -149,11 +179,11 @@ public class DiskUsageTests extends ESTestCase {
         };
         List<NodeStats> nodeStats = Arrays.asList(
                 new NodeStats(new DiscoveryNode("node_1", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_2", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_3", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null)
+                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null, null, null, null)
         );
         InternalClusterInfoService.fillDiskUsagePerNode(logger, nodeStats, newLeastAvaiableUsages, newMostAvaiableUsages);
         DiskUsage leastNode_1 = newLeastAvaiableUsages.get("node_1");
@@ -190,11 +220,11 @@ public class DiskUsageTests extends ESTestCase {
         };
         List<NodeStats> nodeStats = Arrays.asList(
                 new NodeStats(new DiscoveryNode("node_1", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_2", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_3", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null)
+                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null, null, null, null)
         );
         InternalClusterInfoService.fillDiskUsagePerNode(logger, nodeStats, newLeastAvailableUsages, newMostAvailableUsages);
         DiskUsage leastNode_1 = newLeastAvailableUsages.get("node_1");
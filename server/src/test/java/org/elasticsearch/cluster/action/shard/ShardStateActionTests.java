@@ -35,6 +35,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardsIterator;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -49,6 +50,8 @@ import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.NodeDisconnectedException;
 import org.elasticsearch.transport.NodeNotConnectedException;
+import org.elasticsearch.transport.RequestHandlerRegistry;
+import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
 import org.elasticsearch.transport.TransportResponse;
@@ -76,6 +79,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
 
 public class ShardStateActionTests extends ESTestCase {
     private static ThreadPool THREAD_POOL;
@@ -421,6 +425,46 @@ public class ShardStateActionTests extends ESTestCase {
         return new CorruptIndexException("simulated", (String) null);
     }
 
+    public void testShardStartedBatchedUpToMaxBatchSize() throws Exception {
+        // the initial state of the cluster service has the local node as master, so it applies the shard started requests itself
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(ShardStateAction.SHARD_STATE_MAX_BATCH_DELAY_SETTING.getKey(), "1h")
+            .put(ShardStateAction.SHARD_STATE_MAX_BATCH_SIZE_SETTING.getKey(), 3)
+            .build());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(shardStateAction.startedShardsBatchStats().getCount(), equalTo(0L));
+            receiveShardStarted(new StartedShardEntry(new ShardId("test", "_na_", i), UUIDs.randomBase64UUID(), "test"));
+        }
+        assertBusy(() -> assertThat(shardStateAction.startedShardsBatchStats().getCount(), equalTo(1L)));
+        ShardStateAction.BatchStats stats = shardStateAction.startedShardsBatchStats();
+        assertThat(stats.getTasks(), equalTo(3L));
+        assertThat(stats.getMaxTasks(), equalTo(3));
+    }
+
+    public void testShardStartedBatchedWithinMaxBatchDelay() throws Exception {
+        // the initial state of the cluster service has the local node as master, so it applies the shard started requests itself
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(ShardStateAction.SHARD_STATE_MAX_BATCH_DELAY_SETTING.getKey(), "500ms")
+            .build());
+
+        final int numberOfRequests = randomIntBetween(1, 10);
+        for (int i = 0; i < numberOfRequests; i++) {
+            receiveShardStarted(new StartedShardEntry(new ShardId("test", "_na_", i), UUIDs.randomBase64UUID(), "test"));
+        }
+        assertBusy(() -> assertThat(shardStateAction.startedShardsBatchStats().getCount(), equalTo(1L)));
+        ShardStateAction.BatchStats stats = shardStateAction.startedShardsBatchStats();
+        assertThat(stats.getTasks(), equalTo((long) numberOfRequests));
+        assertThat(stats.getMaxTasks(), equalTo(numberOfRequests));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receiveShardStarted(StartedShardEntry entry) throws Exception {
+        RequestHandlerRegistry<StartedShardEntry> handler =
+            transportService.getRequestHandler(ShardStateAction.SHARD_STARTED_ACTION_NAME);
+        handler.processMessageReceived(entry, mock(TransportChannel.class));
+    }
+
     public void testShardEntryBWCSerialize() throws Exception {
         final Version bwcVersion = randomValueOtherThanMany(
             version -> version.onOrAfter(Version.V_6_3_0), () -> VersionUtils.randomVersion(random()));
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RoutingNodeTests extends ESTestCase {
+
+    private final ShardRouting startedShard = TestShardRouting.newShardRouting("test", 0, "node-1", true, ShardRoutingState.STARTED);
+    private final ShardRouting initializingShard =
+        TestShardRouting.newShardRouting("test", 1, "node-1", false, ShardRoutingState.INITIALIZING);
+    private final ShardRouting relocatingShard =
+        TestShardRouting.newShardRouting("test", 2, "node-1", "node-2", true, ShardRoutingState.RELOCATING);
+
+    private RoutingNode newRoutingNode(ShardRouting... shards) {
+        DiscoveryNode node = new DiscoveryNode("node-1", buildNewFakeTransportAddress(), Collections.emptyMap(),
+            Collections.emptySet(), Version.CURRENT);
+        return new RoutingNode("node-1", node, shards);
+    }
+
+    public void testShardsWithState() {
+        RoutingNode routingNode = newRoutingNode(startedShard, initializingShard, relocatingShard);
+        assertThat(routingNode.size(), equalTo(3));
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.INITIALIZING), equalTo(1));
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.RELOCATING), equalTo(1));
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.STARTED), equalTo(1));
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.INITIALIZING, ShardRoutingState.RELOCATING), equalTo(2));
+        assertThat(routingNode.shardsWithState(ShardRoutingState.INITIALIZING), contains(initializingShard));
+        assertThat(routingNode.shardsWithState(ShardRoutingState.RELOCATING), contains(relocatingShard));
+        assertThat(routingNode.shardsWithState(ShardRoutingState.STARTED, ShardRoutingState.RELOCATING),
+            containsInAnyOrder(startedShard, relocatingShard));
+        assertThat(routingNode.initializing(), contains(initializingShard));
+        assertThat(routingNode.relocating(), contains(relocatingShard));
+        assertThat(routingNode.numberOfOwningShards(), equalTo(2));
+    }
+
+    public void testAdd() {
+        RoutingNode routingNode = newRoutingNode(startedShard);
+        assertThat(routingNode.initializing(), empty());
+        assertThat(routingNode.relocating(), empty());
+
+        routingNode.add(initializingShard);
+        routingNode.add(relocatingShard);
+        assertThat(routingNode.initializing(), contains(initializingShard));
+        assertThat(routingNode.relocating(), contains(relocatingShard));
+        assertThat(routingNode.numberOfOwningShards(), equalTo(2));
+    }
+
+    public void testUpdate() {
+        RoutingNode routingNode = newRoutingNode(startedShard, initializingShard);
+
+        ShardRouting startedReplica = initializingShard.moveToStarted();
+        routingNode.update(initializingShard, startedReplica);
+        assertThat(routingNode.initializing(), empty());
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.STARTED), equalTo(2));
+
+        ShardRouting relocatingPrimary = startedShard.relocate("node-2", 0);
+        routingNode.update(startedShard, relocatingPrimary);
+        assertThat(routingNode.relocating(), contains(relocatingPrimary));
+        assertThat(routingNode.numberOfOwningShards(), equalTo(1));
+
+        ShardRouting cancelledRelocation = relocatingPrimary.cancelRelocation();
+        routingNode.update(relocatingPrimary, cancelledRelocation);
+        assertThat(routingNode.relocating(), empty());
+        assertThat(routingNode.numberOfOwningShards(), equalTo(2));
+    }
+
+    public void testRemove() {
+        RoutingNode routingNode = newRoutingNode(startedShard, initializingShard, relocatingShard);
+
+        routingNode.remove(initializingShard);
+        assertThat(routingNode.initializing(), empty());
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.INITIALIZING), equalTo(0));
+
+        routingNode.remove(relocatingShard);
+        assertThat(routingNode.relocating(), empty());
+        assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.RELOCATING), equalTo(0));
+        assertThat(routingNode.numberOfOwningShards(), equalTo(1));
+    }
+}
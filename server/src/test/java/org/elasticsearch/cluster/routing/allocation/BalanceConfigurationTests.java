@@ -23,6 +23,7 @@ import com.carrotsearch.hppc.cursors.ObjectCursor;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -38,6 +39,7 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -108,6 +110,59 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
 
     }
 
+    public void testWriteLoadBalance() {
+        /* Tests that the shards with a high write load are spread over the nodes even if the number of shards is balanced */
+        ImmutableOpenMap.Builder<String, Double> shardWriteLoads = ImmutableOpenMap.builder();
+        shardWriteLoads.put("[hot1][0][p]", 4.0d);
+        shardWriteLoads.put("[hot2][0][p]", 4.0d);
+        final ClusterInfo clusterInfo = new ClusterInfo(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), shardWriteLoads.build());
+        AllocationService countStrategy = createAllocationService(Settings.EMPTY, () -> clusterInfo);
+        AllocationService writeLoadStrategy = createAllocationService(Settings.builder()
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f).build(), () -> clusterInfo);
+
+        logger.info("allocate the hot indices on the first node");
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (String index : new String[] {"hot1", "hot2"}) {
+            IndexMetaData indexMetaData = IndexMetaData.builder(index).settings(settings(Version.CURRENT))
+                .numberOfShards(1).numberOfReplicas(0).build();
+            metaDataBuilder.put(indexMetaData, false);
+            routingTableBuilder.addAsNew(indexMetaData);
+        }
+        ClusterState clusterState = ClusterState.builder(
+            org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaDataBuilder).routingTable(routingTableBuilder.build())
+            .nodes(DiscoveryNodes.builder().add(newNode("node0"))).build();
+        clusterState = countStrategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, countStrategy);
+
+        logger.info("add a second node and allocate the cold indices on it");
+        metaDataBuilder = MetaData.builder(clusterState.metaData());
+        routingTableBuilder = RoutingTable.builder(clusterState.routingTable());
+        for (String index : new String[] {"cold1", "cold2"}) {
+            IndexMetaData indexMetaData = IndexMetaData.builder(index).settings(settings(Version.CURRENT))
+                .numberOfShards(1).numberOfReplicas(0).build();
+            metaDataBuilder.put(indexMetaData, false);
+            routingTableBuilder.addAsNew(indexMetaData);
+        }
+        clusterState = ClusterState.builder(clusterState).metaData(metaDataBuilder).routingTable(routingTableBuilder.build())
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node1"))).build();
+        clusterState = countStrategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, countStrategy);
+        assertThat(clusterState.getRoutingNodes().node("node0").shardsWithState("hot1", STARTED).size(), Matchers.equalTo(1));
+        assertThat(clusterState.getRoutingNodes().node("node0").shardsWithState("hot2", STARTED).size(), Matchers.equalTo(1));
+        assertThat(clusterState.getRoutingNodes().node("node1").size(), Matchers.equalTo(2));
+
+        logger.info("rebalance taking the write load into account");
+        clusterState = writeLoadStrategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, writeLoadStrategy);
+        for (RoutingNode node : clusterState.getRoutingNodes()) {
+            assertThat(node.shardsWithState("hot1", STARTED).size() + node.shardsWithState("hot2", STARTED).size(),
+                Matchers.equalTo(1));
+        }
+    }
+
     private ClusterState initCluster(AllocationService strategy) {
         MetaData.Builder metaDataBuilder = MetaData.builder();
         RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
@@ -28,7 +28,10 @@ import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.allocation.decider.ConcurrentRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
@@ -42,10 +45,13 @@ public class ConcurrentRebalanceRoutingTests extends ESAllocationTestCase {
     private final Logger logger = Loggers.getLogger(ConcurrentRebalanceRoutingTests.class);
 
     public void testClusterConcurrentRebalance() {
-        AllocationService strategy = createAllocationService(Settings.builder()
+        Settings settings = Settings.builder()
                 .put("cluster.routing.allocation.node_concurrent_recoveries", 10)
                 .put("cluster.routing.allocation.cluster_concurrent_rebalance", 3)
-                .build());
+                .build();
+        AllocationService strategy = createAllocationService(settings);
+        ConcurrentRebalanceAllocationDecider decider = new ConcurrentRebalanceAllocationDecider(settings,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
 
         logger.info("Building initial routing table");
 
@@ -107,6 +113,9 @@ public class ConcurrentRebalanceRoutingTests extends ESAllocationTestCase {
         // we only allow one relocation at a time
         assertThat(clusterState.routingTable().shardsWithState(STARTED).size(), equalTo(7));
         assertThat(clusterState.routingTable().shardsWithState(RELOCATING).size(), equalTo(3));
+        // the limit is reached so no shard may be rebalanced at all
+        assertThat(decider.canRebalance(new RoutingAllocation(null, clusterState.getRoutingNodes(), clusterState, null, 0)).type(),
+            equalTo(Decision.Type.THROTTLE));
 
         logger.info("finalize this session relocation, 3 more should relocate now");
         routingNodes = clusterState.getRoutingNodes();
@@ -131,5 +140,7 @@ public class ConcurrentRebalanceRoutingTests extends ESAllocationTestCase {
         // we only allow one relocation at a time
         assertThat(clusterState.routingTable().shardsWithState(STARTED).size(), equalTo(10));
         assertThat(clusterState.routingTable().shardsWithState(RELOCATING).size(), equalTo(0));
+        assertThat(decider.canRebalance(new RoutingAllocation(null, clusterState.getRoutingNodes(), clusterState, null, 0)).type(),
+            equalTo(Decision.Type.YES));
     }
 }
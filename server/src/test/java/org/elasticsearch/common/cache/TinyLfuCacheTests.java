@@ -0,0 +1,484 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+public class TinyLfuCacheTests extends ESTestCase {
+    private int numberOfEntries;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        numberOfEntries = randomIntBetween(1000, 10000);
+        logger.debug("numberOfEntries: {}", numberOfEntries);
+    }
+
+    private static <K, V> CacheBuilder<K, V> builder() {
+        return CacheBuilder.<K, V>builder().setEvictionPolicy(Cache.EvictionPolicy.TINY_LFU);
+    }
+
+    public void testBuilder() {
+        assertThat(CacheBuilder.builder().build(), not(instanceOf(TinyLfuCache.class)));
+        assertThat(builder().build(), instanceOf(TinyLfuCache.class));
+    }
+
+    // cache some entries, then randomly lookup keys that do not exist, then check the stats
+    public void testCacheStats() {
+        AtomicLong evictions = new AtomicLong();
+        Set<Integer> keys = new HashSet<>();
+        Cache<Integer, String> cache =
+                TinyLfuCacheTests.<Integer, String>builder()
+                        .setMaximumWeight(numberOfEntries / 2)
+                        .removalListener(notification -> {
+                            assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+                            keys.remove(notification.getKey());
+                            evictions.incrementAndGet();
+                        })
+                        .build();
+
+        for (int i = 0; i < numberOfEntries; i++) {
+            // track the keys, which will be removed upon eviction (see the RemovalListener)
+            keys.add(i);
+            cache.put(i, Integer.toString(i));
+        }
+        assertEquals(numberOfEntries / 2, cache.count());
+        long hits = 0;
+        long misses = 0;
+        Integer missingKey = 0;
+        for (Integer key : keys) {
+            --missingKey;
+            if (rarely()) {
+                misses++;
+                assertNull(cache.get(missingKey));
+            } else {
+                hits++;
+                assertEquals(Integer.toString(key), cache.get(key));
+            }
+        }
+        assertEquals(hits, cache.stats().getHits());
+        assertEquals(misses, cache.stats().getMisses());
+        assertEquals((long) Math.ceil(numberOfEntries / 2.0), evictions.get());
+        assertEquals(evictions.get(), cache.stats().getEvictions());
+    }
+
+    // a scan over keys that are only accessed once must not evict the keys that are accessed frequently; with an LRU policy every
+    // access to a hot key would be a miss since more scanned keys than fit in the cache are added in between two accesses
+    public void testFrequentlyAccessedEntriesSurviveScan() {
+        int maximumWeight = randomIntBetween(100, 1000);
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().setMaximumWeight(maximumWeight).build();
+        int hotKeys = maximumWeight / 2;
+        // the hot keys need a few rounds to build up a higher frequency than the scanned keys
+        int warmupRounds = 10;
+        int rounds = warmupRounds + randomIntBetween(1, 10);
+        int scanKey = hotKeys;
+        int misses = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int hotKey = 0; hotKey < hotKeys; hotKey++) {
+                if (cache.get(hotKey) == null) {
+                    if (round >= warmupRounds) {
+                        misses++;
+                    }
+                    cache.put(hotKey, Integer.toString(hotKey));
+                }
+                for (int i = 0; i < 3; i++) {
+                    cache.put(scanKey, Integer.toString(scanKey));
+                    scanKey++;
+                }
+            }
+        }
+        cache.refresh();
+        assertEquals(maximumWeight, cache.count());
+        assertEquals(0, misses);
+        for (int hotKey = 0; hotKey < hotKeys; hotKey++) {
+            assertEquals(Integer.toString(hotKey), cache.get(hotKey));
+        }
+    }
+
+    public void testWeigher() {
+        int maximumWeight = 2 * numberOfEntries;
+        int weight = randomIntBetween(2, 10);
+        AtomicLong evictions = new AtomicLong();
+        Cache<Integer, String> cache =
+                TinyLfuCacheTests.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .weigher((k, v) -> weight)
+                        .removalListener(notification -> evictions.incrementAndGet())
+                        .build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        // cache weight should be the largest multiple of weight less than maximumWeight
+        assertEquals(weight * (maximumWeight / weight), cache.weight());
+        // the number of evicted entries should be the number of entries that fit in the excess weight
+        assertEquals((int) Math.ceil((weight - 2) * numberOfEntries / (1.0 * weight)), evictions.get());
+        assertEquals(evictions.get(), cache.stats().getEvictions());
+    }
+
+    public void testWeightAndCount() {
+        Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().weigher((k, v) -> k).build();
+        long expectedWeight = 0;
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+            expectedWeight += i;
+            assertEquals(i + 1, cache.count());
+            assertEquals(expectedWeight, cache.weight());
+        }
+        for (int i = 0; i < numberOfEntries; i++) {
+            // replacing an entry must not change the weight or the count
+            cache.put(i, Integer.toString(-i));
+        }
+        assertEquals(numberOfEntries, cache.count());
+        assertEquals(expectedWeight, cache.weight());
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.invalidate(i);
+            expectedWeight -= i;
+            assertEquals(numberOfEntries - i - 1, cache.count());
+            assertEquals(expectedWeight, cache.weight());
+        }
+    }
+
+    public void testExpirationAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new TinyLfuCache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(2);
+        List<Integer> evictedKeys = new ArrayList<>();
+        cache.setRemovalListener(notification -> {
+            assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+            evictedKeys.add(notification.getKey());
+        });
+        now.set(0);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        now.set(2);
+        // touch the even entries, an expired entry is a miss
+        for (int i = 0; i < numberOfEntries; i += 2) {
+            assertNotNull(cache.get(i));
+        }
+        now.set(3);
+        assertNull(cache.get(1));
+        cache.refresh();
+        assertEquals(numberOfEntries / 2 + numberOfEntries % 2, cache.count());
+        assertEquals(numberOfEntries / 2, evictedKeys.size());
+        for (Integer key : evictedKeys) {
+            assertEquals(1, key % 2);
+        }
+        for (Integer key : cache.keys()) {
+            assertEquals(0, key % 2);
+        }
+    }
+
+    public void testExpirationAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new TinyLfuCache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterWriteNanos(1);
+        List<Integer> evictedKeys = new ArrayList<>();
+        cache.setRemovalListener(notification -> {
+            assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+            evictedKeys.add(notification.getKey());
+        });
+        now.set(0);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        now.set(1);
+        for (int i = numberOfEntries; i < 2 * numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        // accessing an entry does not prevent its expiration after write
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertNotNull(cache.get(i));
+        }
+        now.set(2);
+        cache.refresh();
+        assertEquals(numberOfEntries, cache.count());
+        // entries expire in write order
+        for (int i = 0; i < evictedKeys.size(); i++) {
+            assertEquals(i, (int) evictedKeys.get(i));
+        }
+        Set<Integer> remainingKeys = new HashSet<>();
+        for (Integer key : cache.keys()) {
+            remainingKeys.add(key);
+        }
+        for (int i = numberOfEntries; i < 2 * numberOfEntries; i++) {
+            assertTrue(remainingKeys.contains(i));
+        }
+    }
+
+    public void testComputeIfAbsentAfterExpiration() throws ExecutionException {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new TinyLfuCache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(1);
+        List<RemovalNotification<Integer, String>> notifications = new ArrayList<>();
+        cache.setRemovalListener(notifications::add);
+        now.set(0);
+        cache.put(0, "0");
+        now.set(2);
+        assertEquals("1", cache.computeIfAbsent(0, k -> "1"));
+        assertEquals(1, notifications.size());
+        assertEquals(RemovalNotification.RemovalReason.EVICTED, notifications.get(0).getRemovalReason());
+        assertEquals("0", notifications.get(0).getValue());
+        assertEquals(1, cache.count());
+    }
+
+    public void testNotificationOnInvalidateAndReplace() {
+        Set<Integer> invalidated = new HashSet<>();
+        Set<Integer> replaced = new HashSet<>();
+        Cache<Integer, String> cache =
+                TinyLfuCacheTests.<Integer, String>builder()
+                        .removalListener(notification -> {
+                            switch (notification.getRemovalReason()) {
+                                case INVALIDATED:
+                                    assertTrue(invalidated.add(notification.getKey()));
+                                    break;
+                                case REPLACED:
+                                    assertEquals(Integer.toString(notification.getKey()), notification.getValue());
+                                    assertTrue(replaced.add(notification.getKey()));
+                                    break;
+                                default:
+                                    fail("unexpected removal " + notification.getRemovalReason());
+                            }
+                        })
+                        .build();
+        Set<Integer> expectedInvalidated = new HashSet<>();
+        Set<Integer> expectedReplaced = new HashSet<>();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+            if (rarely()) {
+                cache.put(i, "replaced");
+                expectedReplaced.add(i);
+            }
+            if (rarely()) {
+                cache.invalidate(i);
+                expectedInvalidated.add(i);
+            }
+        }
+        assertEquals(expectedReplaced, replaced);
+        assertEquals(expectedInvalidated, invalidated);
+        assertEquals(numberOfEntries - expectedInvalidated.size(), cache.count());
+
+        cache.invalidateAll();
+        assertEquals(numberOfEntries, invalidated.size());
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertNull(cache.get(i));
+        }
+    }
+
+    public void testRemoveUsingKeysIterator() {
+        Set<Integer> invalidated = new HashSet<>();
+        Cache<Integer, String> cache =
+                TinyLfuCacheTests.<Integer, String>builder()
+                        .removalListener(notification -> invalidated.add(notification.getKey()))
+                        .build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        Set<Integer> expected = new HashSet<>();
+        for (Iterator<Integer> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+            Integer key = iterator.next();
+            if (randomBoolean()) {
+                iterator.remove();
+                expected.add(key);
+            }
+        }
+        assertEquals(expected, invalidated);
+        assertEquals(numberOfEntries - expected.size(), cache.count());
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertEquals(expected.contains(i), cache.get(i) == null);
+        }
+    }
+
+    public void testComputeIfAbsentThrowsExceptionIfLoaderReturnsANullValue() {
+        final Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        ExecutionException e = expectThrows(ExecutionException.class, () -> cache.computeIfAbsent(1, k -> null));
+        assertThat(e.getCause(), instanceOf(NullPointerException.class));
+        assertNull(cache.get(1));
+    }
+
+    public void testComputeIfAbsentCallsOnce() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache = TinyLfuCacheTests.<Integer, String>builder().build();
+        AtomicInteger[] loads = new AtomicInteger[numberOfEntries];
+        for (int j = 0; j < numberOfEntries; j++) {
+            loads[j] = new AtomicInteger();
+        }
+        CopyOnWriteArrayList<Exception> failures = new CopyOnWriteArrayList<>();
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        String value = cache.computeIfAbsent(j, key -> {
+                            loads[key].incrementAndGet();
+                            return Integer.toString(key);
+                        });
+                        assertEquals(Integer.toString(j), value);
+                    }
+                    barrier.await();
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        assertThat(failures, is(empty()));
+        for (int j = 0; j < numberOfEntries; j++) {
+            assertEquals(1, loads[j].get());
+        }
+    }
+
+    public void testExceptionThrownDuringConcurrentComputeIfAbsent() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<String, String> cache = TinyLfuCacheTests.<String, String>builder().build();
+        CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<>();
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        final String key = randomAlphaOfLengthBetween(2, 32);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        try {
+                            String value = cache.computeIfAbsent(key, k -> {
+                                throw new RuntimeException("failed to load");
+                            });
+                            fail("expected exception but got: " + value);
+                        } catch (ExecutionException e) {
+                            assertNotNull(e.getCause());
+                            assertThat(e.getCause(), instanceOf(RuntimeException.class));
+                            assertEquals(e.getCause().getMessage(), "failed to load");
+                        }
+                    }
+                    barrier.await();
+                } catch (Exception | AssertionError e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        assertThat(failures, is(empty()));
+        assertEquals(0, cache.count());
+    }
+
+    // test that the policy is not corrupted under lots of concurrent reads and writes, even hitting the same key
+    public void testTorture() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        AtomicLong removals = new AtomicLong();
+        final Cache<Integer, String> cache =
+                TinyLfuCacheTests.<Integer, String>builder()
+                        .setMaximumWeight(1000)
+                        .weigher((k, v) -> 2)
+                        .removalListener(notification -> removals.incrementAndGet())
+                        .build();
+        AtomicLong puts = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        int operation = random.nextInt(10);
+                        if (operation == 0) {
+                            cache.invalidate(key);
+                        } else if (operation < 4) {
+                            cache.put(key, Integer.toString(j));
+                            puts.incrementAndGet();
+                        } else {
+                            cache.get(key);
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertThat(cache.count(), lessThanOrEqualTo(500));
+        assertEquals(2L * cache.count(), cache.weight());
+        // every put either is still cached or was removed with a notification
+        assertEquals(puts.get(), cache.count() + removals.get());
+        int cached = 0;
+        for (String ignored : cache.values()) {
+            cached++;
+        }
+        assertEquals(cache.count(), cached);
+    }
+}
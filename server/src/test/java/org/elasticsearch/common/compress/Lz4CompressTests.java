@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Runs the streaming compression tests with the LZ4 compressor
+ */
+public class Lz4CompressTests extends DeflateCompressTests {
+
+    @Override
+    protected Compressor newCompressor() {
+        return new Lz4Compressor();
+    }
+
+    public void testFlushInTheMiddleOfTheStream() throws IOException {
+        final Compressor compressor = newCompressor();
+        // repeated values so that the blocks actually compress
+        final byte[] bytes = new byte[randomIntBetween(1, 200000)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 37);
+        }
+        final int flushAt = randomIntBetween(0, bytes.length);
+
+        final BytesStreamOutput bytesOut = new BytesStreamOutput();
+        try (StreamOutput out = compressor.streamOutput(bytesOut)) {
+            out.writeBytes(bytes, 0, flushAt);
+            out.flush();
+            out.writeBytes(bytes, flushAt, bytes.length - flushAt);
+        }
+
+        final BytesReference compressed = bytesOut.bytes();
+        assertSame(compressor.getClass(), CompressorFactory.compressor(compressed).getClass());
+        final byte[] uncompressed = new byte[bytes.length];
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            in.readBytes(uncompressed, 0, uncompressed.length);
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(bytes, uncompressed);
+    }
+
+    public void testNotCompressed() throws IOException {
+        final Compressor compressor = newCompressor();
+        final BytesReference bytes = new BytesArray(randomAlphaOfLengthBetween(0, 3));
+        assertFalse(compressor.isCompressed(bytes));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> compressor.streamInput(bytes.streamInput()));
+        assertThat(e.getMessage(), containsString("not compressed with LZ4"));
+    }
+
+    public void testCompressorForScheme() {
+        assertThat(CompressorFactory.compressor("lz4"), instanceOf(Lz4Compressor.class));
+        assertThat(CompressorFactory.compressor("deflate"), instanceOf(DeflateCompressor.class));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> CompressorFactory.compressor("snappy"));
+        assertThat(e.getMessage(), containsString("[snappy]"));
+    }
+
+    public void testCompressorForVersion() {
+        final Compressor lz4 = CompressorFactory.compressor("lz4");
+        assertThat(CompressorFactory.compressor(lz4, Version.CURRENT), sameInstance(lz4));
+        final Version oldVersion = VersionUtils.randomVersionBetween(random(), Version.V_6_0_0,
+            VersionUtils.getPreviousVersion(Version.V_7_0_0_alpha1));
+        assertThat(CompressorFactory.compressor(lz4, oldVersion), sameInstance(CompressorFactory.COMPRESSOR));
+    }
+}
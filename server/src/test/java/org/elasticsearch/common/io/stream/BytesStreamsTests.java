@@ -297,6 +297,7 @@ public class BytesStreamsTests extends ESTestCase {
         out.writeStringArray(new String[] {"a", "b", "cat"});
         out.writeBytesReference(new BytesArray("test"));
         out.writeOptionalBytesReference(new BytesArray("test"));
+        out.writeBytesReference(new BytesArray("shared"));
         out.writeOptionalDouble(null);
         out.writeOptionalDouble(1.2);
         out.writeTimeZone(DateTimeZone.forID("CET"));
@@ -327,6 +328,8 @@ public class BytesStreamsTests extends ESTestCase {
         assertThat(in.readStringArray(), equalTo(new String[] {"a", "b", "cat"}));
         assertThat(in.readBytesReference(), equalTo(new BytesArray("test")));
         assertThat(in.readOptionalBytesReference(), equalTo(new BytesArray("test")));
+        assertThat(in.readSharedBytesReference(), equalTo(new BytesArray("shared")));
+        assertFalse(in.hasSharedBytes());
         assertNull(in.readOptionalDouble());
         assertThat(in.readOptionalDouble(), closeTo(1.2, 0.0001));
         assertEquals(DateTimeZone.forID("CET"), in.readTimeZone());
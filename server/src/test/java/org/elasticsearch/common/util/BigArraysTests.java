@@ -22,6 +22,7 @@ package org.elasticsearch.common.util;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
@@ -38,11 +39,18 @@ import java.util.function.Function;
 
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class BigArraysTests extends ESTestCase {
 
     private BigArrays randombigArrays() {
-        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        return new MockBigArrays(new MockPageCacheRecycler(randomPageCacheRecyclerSettings()), new NoneCircuitBreakerService());
+    }
+
+    static Settings randomPageCacheRecyclerSettings() {
+        return Settings.builder()
+            .put(PageCacheRecycler.MEMORY_SETTING.getKey(), randomFrom(PageCacheRecycler.Memory.values()).name())
+            .build();
     }
 
     private BigArrays bigArrays;
@@ -377,6 +385,58 @@ public class BigArraysTests extends ESTestCase {
         }
     }
 
+    public void testDirectPages() {
+        final Settings settings = Settings.builder()
+            .put(PageCacheRecycler.MEMORY_SETTING.getKey(), "direct")
+            .put(PageCacheRecycler.TYPE_SETTING.getKey(), randomFrom(PageCacheRecycler.Type.values()))
+            .build();
+        final PageCacheRecycler recycler = new PageCacheRecycler(settings);
+        final HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final BigArrays bigArrays = new BigArrays(recycler, hcbs, false);
+        assertTrue(recycler.isDirect());
+        assertEquals(PageCacheRecycler.Memory.DIRECT, recycler.stats().getMemory());
+        assertEquals(0, recycler.stats().getOffHeapSizeInBytes());
+
+        final long size = randomIntBetween(BigArrays.LONG_PAGE_SIZE / 2, 1 << 18);
+        final LongArray longs = bigArrays.newLongArray(size);
+        final DoubleArray doubles = bigArrays.newDoubleArray(size);
+        final IntArray ints = bigArrays.newIntArray(size);
+        final FloatArray floats = bigArrays.newFloatArray(size);
+        assertTrue(longs instanceof DirectLongArray);
+        assertTrue(doubles instanceof DirectDoubleArray);
+        assertTrue(ints instanceof DirectIntArray);
+        assertTrue(floats instanceof DirectFloatArray);
+        // the breaker accounts for direct pages the same way as for heap pages
+        final long expectedBytes = DirectLongArray.estimateRamBytes(size) + DirectDoubleArray.estimateRamBytes(size)
+            + DirectIntArray.estimateRamBytes(size) + DirectFloatArray.estimateRamBytes(size);
+        assertEquals(expectedBytes, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        assertEquals(expectedBytes, recycler.stats().getOffHeapSizeInBytes());
+        // byte arrays are always allocated on the heap
+        final ByteArray bytes = bigArrays.newByteArray(size);
+        assertEquals(expectedBytes, recycler.stats().getOffHeapSizeInBytes());
+
+        for (long i = 0; i < size; ++i) {
+            longs.set(i, i);
+            doubles.set(i, i);
+            ints.set(i, (int) i);
+            floats.set(i, i);
+        }
+        for (long i = 0; i < size; ++i) {
+            assertEquals(i, longs.get(i));
+            assertEquals(i, doubles.get(i), 0d);
+            assertEquals(i, ints.get(i));
+            assertEquals(i, floats.get(i), 0f);
+        }
+
+        Releasables.close(longs, doubles, ints, floats, bytes);
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        // released pages are either recycled or dropped
+        assertThat(recycler.stats().getOffHeapSizeInBytes(), lessThanOrEqualTo(expectedBytes));
+        recycler.close();
+        assertEquals(0, recycler.stats().getOffHeapSizeInBytes());
+    }
+
     public void testEstimatedBytesSameAsActualBytes() throws Exception {
         final int maxSize = 1 << scaledRandomIntBetween(15, 22);
         final long size = randomIntBetween((1 << 14) + 1, maxSize);
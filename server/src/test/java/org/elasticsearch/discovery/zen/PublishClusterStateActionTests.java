@@ -30,18 +30,23 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.block.ClusterBlocks;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.discovery.DiscoverySettings;
 import org.elasticsearch.node.Node;
@@ -76,6 +81,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -419,7 +425,8 @@ public class PublishClusterStateActionTests extends ESTestCase {
     public void testSimultaneousClusterStatePublishing() throws Exception {
         int numberOfNodes = randomIntBetween(2, 10);
         int numberOfIterations = scaledRandomIntBetween(5, 50);
-        Settings settings = Settings.builder().put(DiscoverySettings.PUBLISH_DIFF_ENABLE_SETTING.getKey(), randomBoolean()).build();
+        Settings settings = Settings.builder().put(DiscoverySettings.PUBLISH_DIFF_ENABLE_SETTING.getKey(), randomBoolean())
+            .put(DiscoverySettings.PUBLISH_COMPRESSION_SCHEME_SETTING.getKey(), randomFrom("deflate", "lz4")).build();
         MockNode master = createMockNode("node0", settings, new ClusterStateListener() {
             @Override
             public void clusterChanged(ClusterChangedEvent event) {
@@ -486,23 +493,8 @@ public class PublishClusterStateActionTests extends ESTestCase {
         clusterState = ClusterState.builder(clusterState).blocks(ClusterBlocks.builder()
             .addGlobalBlock(MetaData.CLUSTER_READ_ONLY_BLOCK)).incrementVersion().build();
 
-        ClusterState unserializableClusterState = new ClusterState(clusterState.version(), clusterState.stateUUID(), clusterState) {
-            @Override
-            public Diff<ClusterState> diff(ClusterState previousState) {
-                return new Diff<ClusterState>() {
-                    @Override
-                    public ClusterState apply(ClusterState part) {
-                        fail("this diff shouldn't be applied");
-                        return part;
-                    }
-
-                    @Override
-                    public void writeTo(StreamOutput out) throws IOException {
-                        throw new IOException("Simulated failure of diff serialization");
-                    }
-                };
-            }
-        };
+        ClusterState unserializableClusterState = ClusterState.builder(clusterState)
+            .putCustom(UnserializableCustom.TYPE, new UnserializableCustom()).build();
         try {
             publishStateAndWait(nodeA.action, unserializableClusterState, previousClusterState);
             fail("cluster state published despite of diff errors");
@@ -715,12 +707,29 @@ public class PublishClusterStateActionTests extends ESTestCase {
             equalTo(expectedCompatibleDiffs));
     }
 
+    private void assertPublishedClusterStateStats(String description, MockNode node, long expectedSentFull, long expectedSentDiffs,
+                                                  long expectedSerializedFull, long expectedSerializedDiffs) {
+        PublishClusterStateStats stats = node.action.stats();
+        assertThat(description + ": sent full cluster states", stats.getFullClusterStateSentCount(), equalTo(expectedSentFull));
+        assertThat(description + ": sent cluster state diffs", stats.getClusterStateDiffSentCount(), equalTo(expectedSentDiffs));
+        assertThat(description + ": serialized full cluster states", stats.getFullClusterStateSerializedCount(),
+            equalTo(expectedSerializedFull));
+        assertThat(description + ": serialized cluster state diffs", stats.getClusterStateDiffSerializedCount(),
+            equalTo(expectedSerializedDiffs));
+        if (expectedSentFull + expectedSentDiffs > 0) {
+            assertThat(description + ": sent bytes", stats.getSentBytes(), greaterThan(0L));
+        } else {
+            assertThat(description + ": sent bytes", stats.getSentBytes(), equalTo(0L));
+        }
+    }
+
     public void testPublishClusterStateStats() throws Exception {
         MockNode nodeA = createMockNode("nodeA").setAsMaster();
         MockNode nodeB = createMockNode("nodeB");
 
         assertPublishClusterStateStats("nodeA: initial state", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: initial state", nodeB, 0, 0, 0);
+        assertPublishedClusterStateStats("nodeA: initial state", nodeA, 0, 0, 0, 0);
 
         // Initial cluster state
         ClusterState clusterState = nodeA.clusterState;
@@ -734,6 +743,8 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent as a full cluster state update
         assertPublishClusterStateStats("nodeA: after full update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after full update", nodeB, 1, 0, 0);
+        assertPublishedClusterStateStats("nodeA: after full update", nodeA, 1, 0, 1, 0);
+        assertPublishedClusterStateStats("nodeB: after full update", nodeB, 0, 0, 0, 0);
 
         // Increment cluster state version
         previousClusterState = clusterState;
@@ -743,6 +754,7 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent, successfully, as a cluster state diff
         assertPublishClusterStateStats("nodeA: after successful diff update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after successful diff update", nodeB, 1, 0, 1);
+        assertPublishedClusterStateStats("nodeA: after successful diff update", nodeA, 1, 1, 1, 1);
 
         // Increment cluster state version twice
         previousClusterState = ClusterState.builder(clusterState).incrementVersion().build();
@@ -752,6 +764,7 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent, unsuccessfully, as a diff and then retried as a full update
         assertPublishClusterStateStats("nodeA: after unsuccessful diff update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after unsuccessful diff update", nodeB, 2, 1, 1);
+        assertPublishedClusterStateStats("nodeA: after unsuccessful diff update", nodeA, 2, 2, 2, 2);
 
         // node A steps down from being master
         nodeA.resetMasterId();
@@ -771,6 +784,119 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent, unsuccessfully, as a diff, and then retried as a full update
         assertPublishClusterStateStats("nodeA: B became master", nodeA, 1, 1, 0);
         assertPublishClusterStateStats("nodeB: B became master", nodeB, 2, 1, 1);
+        assertPublishedClusterStateStats("nodeA: B became master", nodeA, 2, 2, 2, 2);
+        assertPublishedClusterStateStats("nodeB: B became master", nodeB, 1, 1, 1, 1);
+    }
+
+    public void testPublishedStatesAreSerializedOncePerVersion() throws Exception {
+        MockNode master = createMockNode("master").setAsMaster();
+        final int numberOfNodes = randomIntBetween(2, 5);
+        DiscoveryNodes.Builder discoveryNodesBuilder = DiscoveryNodes.builder(master.clusterState.nodes());
+        for (int i = 0; i < numberOfNodes; i++) {
+            discoveryNodesBuilder.add(createMockNode("node" + i).discoveryNode);
+        }
+
+        // all nodes are new so they receive the same full cluster state
+        ClusterState previousClusterState = master.clusterState;
+        ClusterState clusterState = ClusterState.builder(previousClusterState).nodes(discoveryNodesBuilder).incrementVersion().build();
+        publishStateAndWait(master.action, clusterState, previousClusterState);
+        assertPublishedClusterStateStats("after full update", master, numberOfNodes, 0, 1, 0);
+        final long sentBytesAfterFullUpdate = master.action.stats().getSentBytes();
+        assertThat(sentBytesAfterFullUpdate % numberOfNodes, equalTo(0L));
+
+        // all nodes know the previous state so they receive the same diff
+        previousClusterState = clusterState;
+        clusterState = ClusterState.builder(clusterState)
+            .metaData(buildMetaDataForVersion(clusterState.metaData(), 1)).incrementVersion().build();
+        publishStateAndWait(master.action, clusterState, previousClusterState);
+        assertPublishedClusterStateStats("after diff update", master, numberOfNodes, numberOfNodes, 1, 1);
+        assertThat((master.action.stats().getSentBytes() - sentBytesAfterFullUpdate) % numberOfNodes, equalTo(0L));
+        for (MockNode node : nodes.values()) {
+            if (node != master) {
+                assertSameStateFromDiff(node.clusterState, clusterState);
+            }
+        }
+    }
+
+    public void testPublishingInChunks() throws Exception {
+        final Settings settings = Settings.builder().put(DiscoverySettings.PUBLISH_CHUNK_SIZE_SETTING.getKey(), "1b").build();
+        MockNode nodeA = createMockNode("nodeA", settings, null).setAsMaster();
+        MockNode nodeB = createMockNode("nodeB");
+
+        final int numberOfIndices = randomIntBetween(2, 10);
+        MetaData.Builder metaData = MetaData.builder(nodeA.clusterState.metaData());
+        RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (int i = 0; i < numberOfIndices; i++) {
+            IndexMetaData indexMetaData = IndexMetaData.builder("test" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(randomIntBetween(1, 3)).numberOfReplicas(1).build();
+            metaData.put(indexMetaData, false);
+            routingTable.addAsNew(indexMetaData);
+        }
+        ClusterState previousClusterState = nodeA.clusterState;
+        ClusterState clusterState = ClusterState.builder(previousClusterState)
+            .nodes(DiscoveryNodes.builder(previousClusterState.nodes()).add(nodeB.discoveryNode))
+            .metaData(metaData).routingTable(routingTable.build()).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromFull(nodeB.clusterState, clusterState);
+        assertSameIndices(nodeB.clusterState, clusterState);
+        // the chunk size is exceeded by every index, so the indices are sent in their own chunks after the one with the rest
+        assertThat(nodeA.action.stats().getSentChunks(), equalTo(numberOfIndices + 1L));
+
+        // delete, update and create an index
+        previousClusterState = clusterState;
+        IndexMetaData newIndexMetaData = IndexMetaData.builder("new").settings(settings(Version.CURRENT))
+            .numberOfShards(1).numberOfReplicas(0).build();
+        metaData = MetaData.builder(clusterState.metaData()).remove("test0")
+            .put(IndexMetaData.builder(clusterState.metaData().index("test1")).putAlias(AliasMetaData.builder("alias")))
+            .put(newIndexMetaData, false);
+        routingTable = RoutingTable.builder(clusterState.routingTable()).remove("test0").addAsNew(newIndexMetaData);
+        clusterState = ClusterState.builder(clusterState).metaData(metaData).routingTable(routingTable.build()).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromDiff(nodeB.clusterState, clusterState);
+        assertSameIndices(nodeB.clusterState, clusterState);
+        assertThat(nodeB.clusterState.metaData().index("test1").getAliases().containsKey("alias"), equalTo(true));
+        // only the changed indices are sent
+        assertThat(nodeA.action.stats().getSentChunks(), equalTo(numberOfIndices + 1L + 4L));
+    }
+
+    public void testUnexpectedChunksAreRejected() throws Exception {
+        MockNode node = createMockNode("node").setAsMaster();
+        final CapturingTransportChannel channel = new CapturingTransportChannel();
+
+        MetaData.Builder metaData = MetaData.builder(node.clusterState.metaData());
+        for (int i = 0; i < 2; i++) {
+            metaData.put(IndexMetaData.builder("test" + i).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0));
+        }
+        ClusterState state = ClusterState.builder(node.clusterState).metaData(metaData).incrementVersion().build();
+        List<BytesReference> chunks = ClusterStateChunks.writeFullState(state, Version.CURRENT, CompressorFactory.COMPRESSOR, 1);
+        assertThat(chunks.size(), equalTo(3));
+
+        // chunks that don't continue the cluster state that is being received are rejected
+        expectThrows(IllegalStateException.class, () -> node.action.handleIncomingClusterStateChunk(
+            new BytesTransportRequest(chunks.get(1), Version.CURRENT), channel));
+        node.action.handleIncomingClusterStateChunk(new BytesTransportRequest(chunks.get(0), Version.CURRENT), channel);
+        assertThat(channel.response.get(), equalTo((TransportResponse) TransportResponse.Empty.INSTANCE));
+        channel.clear();
+        expectThrows(IllegalStateException.class, () -> node.action.handleIncomingClusterStateChunk(
+            new BytesTransportRequest(chunks.get(2), Version.CURRENT), channel));
+
+        // the first chunk starts receiving the cluster state again
+        for (BytesReference chunk : chunks) {
+            node.action.handleIncomingClusterStateChunk(new BytesTransportRequest(chunk, Version.CURRENT), channel);
+            assertThat(channel.response.get(), equalTo((TransportResponse) TransportResponse.Empty.INSTANCE));
+            channel.clear();
+        }
+        node.action.handleCommitRequest(new PublishClusterStateAction.CommitClusterStateRequest(state.stateUUID()), channel);
+        assertThat(channel.error.get(), nullValue());
+        assertSameStateFromFull(node.clusterState, state);
+        assertSameIndices(node.clusterState, state);
+    }
+
+    private void assertSameIndices(ClusterState actual, ClusterState expected) {
+        assertThat(actual.metaData().version(), equalTo(expected.metaData().version()));
+        assertThat(actual.metaData().indices(), equalTo(expected.metaData().indices()));
+        assertThat(actual.routingTable().version(), equalTo(expected.routingTable().version()));
+        assertThat(actual.routingTable().indicesRouting(), equalTo(expected.routingTable().indicesRouting()));
     }
 
     private MetaData buildMetaDataForVersion(MetaData metaData, long version) {
@@ -892,6 +1018,17 @@ public class PublishClusterStateActionTests extends ESTestCase {
             super.handleIncomingClusterStateRequest(request, channel);
         }
 
+        @Override
+        protected void handleIncomingClusterStateChunk(BytesTransportRequest request, TransportChannel channel) throws IOException {
+            if (errorOnSend.get()) {
+                throw new ElasticsearchException("forced error on incoming cluster state");
+            }
+            if (timeoutOnSend.get()) {
+                return;
+            }
+            super.handleIncomingClusterStateChunk(request, channel);
+        }
+
         @Override
         protected void handleCommitRequest(PublishClusterStateAction.CommitClusterStateRequest request, TransportChannel channel) {
             if (errorOnCommit.get()) {
@@ -904,6 +1041,45 @@ public class PublishClusterStateActionTests extends ESTestCase {
         }
     }
 
+    /**
+     * A cluster state custom that fails to serialize
+     */
+    static class UnserializableCustom implements ClusterState.Custom {
+
+        static final String TYPE = "unserializable";
+
+        @Override
+        public Diff<ClusterState.Custom> diff(ClusterState.Custom previousState) {
+            return new Diff<ClusterState.Custom>() {
+                @Override
+                public ClusterState.Custom apply(ClusterState.Custom part) {
+                    fail("this diff shouldn't be applied");
+                    return part;
+                }
+
+                @Override
+                public void writeTo(StreamOutput out) throws IOException {
+                    throw new IOException("Simulated failure of diff serialization");
+                }
+            };
+        }
+
+        @Override
+        public String getWriteableName() {
+            return TYPE;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            throw new IOException("Simulated failure of diff serialization");
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) {
+            return builder;
+        }
+    }
+
     static class CapturingTransportChannel implements TransportChannel {
 
         AtomicReference<TransportResponse> response = new AtomicReference<>();
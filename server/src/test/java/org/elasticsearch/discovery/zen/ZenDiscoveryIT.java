@@ -256,7 +256,13 @@ public class ZenDiscoveryIT extends ESIntegTestCase {
                 "    \"published_cluster_states\" : {\n" +
                 "      \"full_states\" : 0,\n" +
                 "      \"incompatible_diffs\" : 0,\n" +
-                "      \"compatible_diffs\" : 0\n" +
+                "      \"compatible_diffs\" : 0,\n" +
+                "      \"sent_full_states\" : 0,\n" +
+                "      \"sent_diffs\" : 0,\n" +
+                "      \"sent_bytes\" : 0,\n" +
+                "      \"sent_chunks\" : 0,\n" +
+                "      \"serialized_full_states\" : 0,\n" +
+                "      \"serialized_diffs\" : 0\n" +
                 "    }\n" +
                 "  }\n" +
                 "}";
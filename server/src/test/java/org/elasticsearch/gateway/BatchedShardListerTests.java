@@ -0,0 +1,204 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.gateway.AsyncShardFetchTests.Response;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BatchedShardListerTests extends ESTestCase {
+    private final DiscoveryNode node1 = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+    private final DiscoveryNode node2 = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+
+    private final TestBatchLister action = new TestBatchLister();
+    private final Map<ShardId, Responses> responses = new HashMap<>();
+
+    public void testListsShardsInBatchesPerNode() {
+        BatchedShardLister<Responses, Response> lister = new BatchedShardLister<>(action, () -> 2);
+        List<ShardId> shardIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ShardId shardId = new ShardId("test", "_na_", i);
+            shardIds.add(shardId);
+            lister.list(shardId, new DiscoveryNode[] { node1, node2 }, listener(shardId));
+        }
+        assertThat(action.batches, empty());
+
+        lister.flush();
+        assertThat(action.batches, hasSize(6));
+        for (int node = 0; node < 2; node++) {
+            assertThat(action.batches.get(node * 3).node, sameInstance(node == 0 ? node1 : node2));
+            assertThat(action.batches.get(node * 3).shardIds, equalTo(shardIds.subList(0, 2)));
+            assertThat(action.batches.get(node * 3 + 1).shardIds, equalTo(shardIds.subList(2, 4)));
+            assertThat(action.batches.get(node * 3 + 2).shardIds, equalTo(shardIds.subList(4, 5)));
+        }
+
+        // a shard is only done once all its nodes responded
+        for (int i = 0; i < 3; i++) {
+            action.batches.get(i).respond();
+        }
+        assertThat(responses.isEmpty(), equalTo(true));
+        for (int i = 3; i < 6; i++) {
+            action.batches.get(i).respond();
+        }
+        for (ShardId shardId : shardIds) {
+            assertThat(responses.get(shardId).getNodes(), hasSize(2));
+            assertThat(responses.get(shardId).failures(), empty());
+        }
+
+        // the next flush only sends what was listed since
+        lister.flush();
+        assertThat(action.batches, hasSize(6));
+    }
+
+    public void testFailures() {
+        BatchedShardLister<Responses, Response> lister = new BatchedShardLister<>(action, () -> 10);
+        ShardId shardId1 = new ShardId("test", "_na_", 1);
+        ShardId shardId2 = new ShardId("test", "_na_", 2);
+        lister.list(shardId1, new DiscoveryNode[] { node1, node2 }, listener(shardId1));
+        lister.list(shardId2, new DiscoveryNode[] { node1, node2 }, listener(shardId2));
+        lister.flush();
+        assertThat(action.batches, hasSize(2));
+
+        // the first node fails to list the second shard, the second node fails altogether
+        action.batches.get(0).listener.onResponse(new NodeShardsBatchResponse<>(
+            new ArrayList<>(Arrays.asList(new Response(node1), null)),
+            new ArrayList<>(Arrays.asList(null, new Exception("simulated shard failure")))));
+        action.batches.get(1).listener.onFailure(new Exception("simulated node failure"));
+
+        assertThat(responses.get(shardId1).getNodes(), hasSize(1));
+        assertThat(responses.get(shardId1).failures(), hasSize(1));
+        assertThat(responses.get(shardId1).failures().get(0).nodeId(), equalTo(node2.getId()));
+        assertThat(responses.get(shardId2).getNodes(), empty());
+        assertThat(responses.get(shardId2).failures(), hasSize(2));
+        assertThat(responses.get(shardId2).failures().get(0).nodeId(), equalTo(node1.getId()));
+        assertThat(responses.get(shardId2).failures().get(0).getCause().getMessage(), equalTo("simulated shard failure"));
+    }
+
+    public void testListsShardsOneByOneOnOlderNodes() {
+        DiscoveryNode oldNode = new DiscoveryNode("old_node", buildNewFakeTransportAddress(), Collections.emptyMap(),
+            Collections.singleton(DiscoveryNode.Role.DATA), VersionUtils.getPreviousVersion(Version.V_7_0_0_alpha1));
+        BatchedShardLister<Responses, Response> lister = new BatchedShardLister<>(action, () -> 10);
+        ShardId shardId1 = new ShardId("test", "_na_", 1);
+        ShardId shardId2 = new ShardId("test", "_na_", 2);
+        lister.list(shardId1, new DiscoveryNode[] { node1, oldNode }, listener(shardId1));
+        lister.list(shardId2, new DiscoveryNode[] { oldNode }, listener(shardId2));
+        lister.flush();
+
+        assertThat(action.batches, hasSize(1));
+        assertThat(action.batches.get(0).shardIds, contains(shardId1));
+        assertThat(action.singleListings, contains(shardId1, shardId2));
+        action.batches.get(0).respond();
+        assertThat(responses.get(shardId1).getNodes(), hasSize(2));
+        assertThat(responses.get(shardId2).getNodes(), hasSize(1));
+    }
+
+    private ActionListener<Responses> listener(ShardId shardId) {
+        return ActionListener.wrap(response -> responses.put(shardId, response), e -> { throw new AssertionError(e); });
+    }
+
+    static class Responses extends BaseNodesResponse<Response> {
+
+        Responses(List<Response> nodes, List<FailedNodeException> failures) {
+            super(ClusterName.DEFAULT, nodes, failures);
+        }
+
+        @Override
+        protected List<Response> readNodesFrom(StreamInput in) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<Response> nodes) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class Batch {
+        final DiscoveryNode node;
+        final List<ShardId> shardIds;
+        final ActionListener<NodeShardsBatchResponse<Response>> listener;
+
+        Batch(DiscoveryNode node, List<ShardId> shardIds, ActionListener<NodeShardsBatchResponse<Response>> listener) {
+            this.node = node;
+            this.shardIds = shardIds;
+            this.listener = listener;
+        }
+
+        void respond() {
+            List<Response> responses = new ArrayList<>();
+            List<Exception> failures = new ArrayList<>();
+            for (int i = 0; i < shardIds.size(); i++) {
+                responses.add(new Response(node));
+                failures.add(null);
+            }
+            listener.onResponse(new NodeShardsBatchResponse<>(responses, failures));
+        }
+    }
+
+    static class TestBatchLister implements AsyncShardFetch.BatchLister<Responses, Response> {
+        final List<Batch> batches = new ArrayList<>();
+        final List<ShardId> singleListings = new ArrayList<>();
+
+        @Override
+        public void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<Responses> listener) {
+            singleListings.add(shardId);
+            List<Response> responses = new ArrayList<>();
+            for (DiscoveryNode node : nodes) {
+                responses.add(new Response(node));
+            }
+            listener.onResponse(new Responses(responses, Collections.emptyList()));
+        }
+
+        @Override
+        public void listBatch(DiscoveryNode node, List<ShardId> shardIds,
+                              ActionListener<NodeShardsBatchResponse<Response>> listener) {
+            batches.add(new Batch(node, new ArrayList<>(shardIds), listener));
+        }
+
+        @Override
+        public Responses newNodesResponse(List<Response> responses, List<FailedNodeException> failures) {
+            return new Responses(responses, failures);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.gateway.AsyncShardFetchTests.Response;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseOptions;
+import org.junit.After;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class NodeShardsBatchHandlerTests extends ESTestCase {
+    private final DiscoveryNode node = new DiscoveryNode("node", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+    private final ThreadPool threadPool = new TestThreadPool(getTestName());
+
+    @After
+    public void terminateThreadPool() throws InterruptedException {
+        terminate(threadPool);
+    }
+
+    public void testListsShardsInParallel() throws Exception {
+        final int numShards = randomIntBetween(2, 5);
+        final List<ShardId> shardIds = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            shardIds.add(new ShardId("test", "_na_", i));
+        }
+        final ShardId failingShard = randomFrom(shardIds);
+        final IllegalStateException failure = new IllegalStateException("boom");
+        // every shard waits for all others to be listed at the same time, which only works if the batch doesn't list them one by one
+        final CountDownLatch listing = new CountDownLatch(numShards);
+        final NodeShardsBatchHandler<Response> handler = new NodeShardsBatchHandler<>(threadPool.generic(), shardId -> {
+            listing.countDown();
+            assertTrue(listing.await(10, TimeUnit.SECONDS));
+            if (shardId.equals(failingShard)) {
+                throw failure;
+            }
+            return new Response(node);
+        });
+
+        final TestChannel channel = new TestChannel();
+        handler.messageReceived(new NodeShardsBatchRequest(shardIds), channel);
+        assertTrue(channel.responded.await(10, TimeUnit.SECONDS));
+        assertThat(channel.failure, nullValue());
+        final NodeShardsBatchResponse<?> response = (NodeShardsBatchResponse<?>) channel.response;
+        assertThat(response.size(), equalTo(numShards));
+        for (int i = 0; i < numShards; i++) {
+            if (shardIds.get(i).equals(failingShard)) {
+                assertThat(response.getResponse(i), nullValue());
+                assertThat(response.getFailure(i), sameInstance(failure));
+            } else {
+                assertThat(response.getResponse(i).getNode(), sameInstance(node));
+                assertThat(response.getFailure(i), nullValue());
+            }
+        }
+    }
+
+    public void testRespondsToEmptyBatch() throws Exception {
+        final NodeShardsBatchHandler<Response> handler = new NodeShardsBatchHandler<>(threadPool.generic(), shardId -> {
+            throw new AssertionError("no shard to list");
+        });
+        final TestChannel channel = new TestChannel();
+        handler.messageReceived(new NodeShardsBatchRequest(Collections.emptyList()), channel);
+        assertTrue(channel.responded.await(10, TimeUnit.SECONDS));
+        assertThat(((NodeShardsBatchResponse<?>) channel.response).size(), equalTo(0));
+    }
+
+    private static class TestChannel implements TransportChannel {
+        private final CountDownLatch responded = new CountDownLatch(1);
+        private volatile TransportResponse response;
+        private volatile Exception failure;
+
+        @Override
+        public String getProfileName() {
+            return "";
+        }
+
+        @Override
+        public String getChannelType() {
+            return "test";
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) {
+            this.response = response;
+            responded.countDown();
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response, TransportResponseOptions options) {
+            sendResponse(response);
+        }
+
+        @Override
+        public void sendResponse(Exception exception) {
+            this.failure = exception;
+            responded.countDown();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndexingPressureTests extends ESTestCase {
+
+    private final Settings settings = Settings.builder().put(IndexingPressure.MAX_INDEXING_BYTES.getKey(), "10KB").build();
+    private final ShardId shardId = new ShardId("index", "_na_", 0);
+
+    public void testMemoryBytesMarkedAndReleased() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+             Releasable coordinating2 = indexingPressure.markCoordinatingOperationStarted(50);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(shardId, 15, true);
+             Releasable primary2 = indexingPressure.markPrimaryOperationStarted(shardId, 5, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(shardId, 25)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(65, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            assertEquals(60, stats.getCurrentCoordinatingBytes());
+            assertEquals(20, stats.getCurrentPrimaryBytes());
+            assertEquals(25, stats.getCurrentReplicaBytes());
+            assertEquals(20, stats.getShardStats().get(shardId).getPrimaryBytes());
+            assertEquals(25, stats.getShardStats().get(shardId).getReplicaBytes());
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(0, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(0, stats.getCurrentCoordinatingBytes());
+        assertEquals(0, stats.getCurrentPrimaryBytes());
+        assertEquals(0, stats.getCurrentReplicaBytes());
+        assertEquals(65, stats.getTotalCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(60, stats.getTotalCoordinatingBytes());
+        assertEquals(20, stats.getTotalPrimaryBytes());
+        assertEquals(25, stats.getTotalReplicaBytes());
+        assertTrue(stats.getShardStats().isEmpty());
+    }
+
+    public void testReleaseIsIdempotent() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+        coordinating.close();
+        coordinating.close();
+        assertEquals(0, indexingPressure.stats().getCurrentCoordinatingBytes());
+        assertEquals(0, indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes());
+    }
+
+    public void testCoordinatingPrimaryRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(1024 * 3);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(shardId, 1024 * 3, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(shardId, 1024 * 3)) {
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markCoordinatingOperationStarted(1024 * 5));
+            expectThrows(EsRejectedExecutionException.class,
+                () -> indexingPressure.markPrimaryOperationStarted(shardId, 1024 * 5, false));
+            // primary operations that are local to the coordinating node are already accounted for
+            indexingPressure.markPrimaryOperationStarted(shardId, 1024 * 5, true).close();
+
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(1, stats.getCoordinatingRejections());
+            assertEquals(1, stats.getPrimaryRejections());
+            assertEquals(0, stats.getReplicaRejections());
+            assertEquals(1024 * 6, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            assertEquals(1024 * 3, stats.getShardStats().get(shardId).getPrimaryBytes());
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(1024 * 6, stats.getTotalCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(1024 * 8, stats.getTotalPrimaryBytes());
+    }
+
+    public void testReplicaRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(1024 * 8);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(shardId, 1024 * 14)) {
+            // replica operations are allowed 1.5 times the limit, independently of coordinating and primary operations
+            indexingPressure.markReplicaOperationStarted(shardId, 1024).close();
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markReplicaOperationStarted(shardId, 1024 * 2));
+
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(1, stats.getReplicaRejections());
+            assertEquals(1024 * 14, stats.getCurrentReplicaBytes());
+        }
+        assertEquals(1024 * 15, indexingPressure.stats().getTotalReplicaBytes());
+    }
+}
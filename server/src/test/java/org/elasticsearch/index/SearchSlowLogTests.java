@@ -117,6 +117,11 @@ public class SearchSlowLogTests extends ESSingleNodeTestCase {
                     return null;
                 }
 
+                @Override
+                public Boolean concurrentSegmentSearch() {
+                    return null;
+                }
+
                 @Override
                 public Scroll scroll() {
                     return null;
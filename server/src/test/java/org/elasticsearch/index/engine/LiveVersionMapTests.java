@@ -24,8 +24,16 @@ import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
@@ -41,6 +49,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.nullValue;
 
 public class LiveVersionMapTests extends ESTestCase {
@@ -98,8 +107,19 @@ public class LiveVersionMapTests extends ESTestCase {
         return BytesRef.deepCopyOf(builder.get());
     }
 
+    /**
+     * Returns a version map that randomly keeps its live maps on the heap or in pages. Paged maps must be cleared at the end of the test
+     * so that their pages are released.
+     */
+    private LiveVersionMap newLiveVersionMap() {
+        if (randomBoolean()) {
+            return new LiveVersionMap();
+        }
+        return new LiveVersionMap(new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService()));
+    }
+
     public void testBasics() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         try (Releasable r = map.acquireLock(uid("test"))) {
             Translog.Location tlogLoc = randomTranslogLocation();
             map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
@@ -120,6 +140,43 @@ public class LiveVersionMapTests extends ESTestCase {
             map.pruneTombstones(2, 1);
             assertNull(map.getUnderLock(uid("test")));
         }
+        map.clear();
+    }
+
+    public void testPagedMapsAreReleasedOnRefresh() throws IOException {
+        HierarchyCircuitBreakerService breakerService = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.ACCOUNTING);
+        LiveVersionMap map = new LiveVersionMap(new BigArrays(null, breakerService, CircuitBreaker.ACCOUNTING));
+        map.enforceSafeAccess();
+        int numDocs = scaledRandomIntBetween(100, 10000);
+        for (int i = 0; i < numDocs; i++) {
+            BytesRef uid = uid(Integer.toString(i));
+            try (Releasable r = map.acquireLock(uid)) {
+                map.putIndexUnderLock(uid, randomIndexVersionValue());
+            }
+        }
+        assertEquals(numDocs, map.getAllCurrent().size());
+        assertThat(map.ramBytesUsedForRefresh(), greaterThan(0L));
+        assertEquals(map.ramBytesUsedForRefresh(), breaker.getUsed());
+
+        map.beforeRefresh();
+        assertEquals(0, map.ramBytesUsedForRefresh());
+        try (Releasable r = map.acquireLock(uid("0"))) {
+            assertNotNull(map.getUnderLock(uid("0")));
+        }
+        map.afterRefresh(randomBoolean());
+        try (Releasable r = map.acquireLock(uid("0"))) {
+            assertNull(map.getUnderLock(uid("0")));
+        }
+        assertEquals(0, breaker.getUsed());
+
+        try (Releasable r = map.acquireLock(uid("0"))) {
+            map.putIndexUnderLock(uid("0"), randomIndexVersionValue());
+        }
+        assertThat(breaker.getUsed(), greaterThan(0L));
+        map.clear();
+        assertEquals(0, breaker.getUsed());
     }
 
     public void testConcurrently() throws IOException, InterruptedException {
@@ -131,7 +188,7 @@ public class LiveVersionMapTests extends ESTestCase {
         List<BytesRef> keyList = new ArrayList<>(keySet);
         ConcurrentHashMap<BytesRef, VersionValue> values = new ConcurrentHashMap<>();
         ConcurrentHashMap<BytesRef, DeleteVersionValue> deletes = new ConcurrentHashMap<>();
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         int numThreads = randomIntBetween(2, 5);
 
         Thread[] threads = new Thread[numThreads];
@@ -256,6 +313,7 @@ public class LiveVersionMapTests extends ESTestCase {
         });
         map.pruneTombstones(clock.incrementAndGet(), maxSeqNo.get());
         assertThat(map.getAllTombstones().entrySet(), empty());
+        map.clear();
     }
 
     public void testCarryOnSafeAccess() throws IOException {
@@ -399,7 +457,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
-        final LiveVersionMap versionMap = new LiveVersionMap();
+        final LiveVersionMap versionMap = newLiveVersionMap();
         final BytesRef uid = uid("1");
         final long versions = between(10, 1000);
         VersionValue latestVersion = null;
@@ -430,6 +488,7 @@ public class LiveVersionMapTests extends ESTestCase {
                 }
             }
         }
+        versionMap.clear();
     }
 
     IndexVersionValue randomIndexVersionValue() {
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    private static BigArrays randomBigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    public void testPutGetRemove() {
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        final int numUids = randomIntBetween(1, 1000);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(new BytesRef(TestUtil.randomSimpleString(random(), 1, 20)));
+        }
+        try (PagedVersionMap map = new PagedVersionMap(randomBigArrays(), randomIntBetween(0, 100))) {
+            final int iters = scaledRandomIntBetween(100, 10000);
+            for (int i = 0; i < iters; i++) {
+                final BytesRef uid = randomFrom(uids);
+                if (rarely()) {
+                    assertEquals(expected.remove(uid), map.remove(uid));
+                } else {
+                    final VersionValue value = randomIndexVersionValue();
+                    assertEquals(expected.put(uid, value), map.put(uid, value));
+                }
+                assertEquals(expected.get(uid), map.get(uid));
+                assertEquals(expected.size(), map.size());
+            }
+            for (BytesRef uid : uids) {
+                assertEquals(expected.get(uid), map.get(uid));
+            }
+            assertEquals(expected, new HashMap<>(map));
+        }
+    }
+
+    public void testClosedMap() {
+        final PagedVersionMap map = new PagedVersionMap(randomBigArrays(), 0);
+        final BytesRef uid = new BytesRef("1");
+        map.put(uid, randomIndexVersionValue());
+        assertNotNull(map.get(uid));
+        map.close();
+        assertNull(map.get(uid));
+        assertNull(map.remove(uid));
+        assertEquals(0, map.ramBytesUsed());
+        assertNull(map.put(uid, randomIndexVersionValue()));
+        assertNull(map.get(uid));
+        assertEquals(0, map.ramBytesUsed());
+    }
+
+    public void testMemoryIsAccountedInBreaker() {
+        final HierarchyCircuitBreakerService breakerService = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.ACCOUNTING);
+        final BigArrays bigArrays = new BigArrays(null, breakerService, CircuitBreaker.ACCOUNTING);
+        final PagedVersionMap map = new PagedVersionMap(bigArrays, 0);
+        final int numUids = scaledRandomIntBetween(1000, 100000);
+        for (int i = 0; i < numUids; i++) {
+            map.put(new BytesRef(Integer.toString(i)), randomIndexVersionValue());
+        }
+        assertThat(map.ramBytesUsed(), greaterThan(0L));
+        assertThat(breaker.getUsed(), equalTo(map.ramBytesUsed()));
+        assertEquals(0, breakerService.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        map.close();
+        assertEquals(0, breaker.getUsed());
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location = randomBoolean() ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
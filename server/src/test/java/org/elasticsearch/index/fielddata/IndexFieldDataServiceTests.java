@@ -22,17 +22,22 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedNumericDVIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedSetDVOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.BooleanFieldMapper;
@@ -152,6 +157,55 @@ public class IndexFieldDataServiceTests extends ESSingleNodeTestCase {
         ifdService.clear();
     }
 
+    public void testIncrementalGlobalOrdinals() throws Exception {
+        final IndexService indexService = createIndex("test");
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexFieldDataService ifdService = new IndexFieldDataService(indexService.getIndexSettings(),
+                indicesService.getIndicesFieldDataCache(), indicesService.getCircuitBreakerService(), indexService.mapperService());
+        final ShardFieldData shardFieldData = new ShardFieldData();
+        ifdService.setListener(shardFieldData);
+
+        final BuilderContext ctx = new BuilderContext(indexService.getIndexSettings().getSettings(), new ContentPath(1));
+        final MappedFieldType mapper = new KeywordFieldMapper.Builder("s").build(ctx).fieldType();
+        final IndexWriter writer = new IndexWriter(new RAMDirectory(),
+            new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int i = 0; i < 3; i++) {
+            for (String value : new String[] {"b", "d", "f", "h"}) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("s", new BytesRef(value)));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+        }
+        final DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("test", "_na_", 1));
+        final IndexOrdinalsFieldData ifd = ifdService.getForField(mapper);
+        assertEquals(4, ifd.loadGlobal(reader).getOrdinalMap().getValueCount());
+
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField("s", new BytesRef("a")));
+        doc.add(new SortedSetDocValuesField("s", new BytesRef("d")));
+        writer.addDocument(doc);
+        final DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+        final IndexOrdinalsFieldData global = ifd.loadGlobal(newReader);
+        assertTrue(((GlobalOrdinalsIndexFieldData) global).getIncrementalOrdinalMap().isIncremental());
+        final SortedSetDocValues values = global.load(newReader.leaves().get(3)).getOrdinalsValues();
+        assertEquals(5, values.getValueCount());
+        assertTrue(values.advanceExact(0));
+        assertEquals(0, values.nextOrd());
+        assertEquals(new BytesRef("a"), values.lookupOrd(0));
+        assertEquals(2, values.nextOrd());
+        assertEquals(new BytesRef("d"), values.lookupOrd(2));
+        assertEquals(new BytesRef("f"), values.lookupOrd(3));
+
+        final FieldDataStats stats = shardFieldData.stats();
+        assertEquals(2, stats.getGlobalOrdinalsBuilds());
+        assertEquals(1, stats.getGlobalOrdinalsIncrementalBuilds());
+        newReader.close();
+        reader.close();
+        writer.close();
+        ifdService.clear();
+    }
+
     public void testSetCacheListenerTwice() {
         final IndexService indexService = createIndex("test");
         final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogDocMergePolicy;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class IncrementalOrdinalMapTests extends ESTestCase {
+
+    public void testIncrementalBuild() throws IOException {
+        // segments are only merged when forced to
+        final LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+        mergePolicy.setMergeFactor(1000);
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(mergePolicy))) {
+            addSegment(writer);
+            addSegment(writer);
+            DirectoryReader reader = DirectoryReader.open(writer);
+            IncrementalOrdinalMap map = IncrementalOrdinalMap.build(segmentKeys(reader), subs(reader), null);
+            assertFalse(map.isIncremental());
+            assertNotNull(map.getOrdinalMap());
+            assertSameGlobalOrdinals(reader, map);
+
+            final int numRefreshes = randomIntBetween(1, 10);
+            for (int i = 0; i < numRefreshes; i++) {
+                final int numSegments = randomIntBetween(0, 2);
+                for (int j = 0; j < numSegments; j++) {
+                    addSegment(writer);
+                }
+                final DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+                if (newReader == null) {
+                    continue;
+                }
+                reader.close();
+                reader = newReader;
+                final IncrementalOrdinalMap previous = map;
+                map = IncrementalOrdinalMap.build(segmentKeys(reader), subs(reader), previous);
+                assertSameGlobalOrdinals(reader, map);
+            }
+
+            writer.forceMerge(1);
+            addSegment(writer);
+            final DirectoryReader mergedReader = DirectoryReader.openIfChanged(reader, writer);
+            reader.close();
+            reader = mergedReader;
+            // the segments of the previous map were merged away, global ordinals are built from all segments
+            map = IncrementalOrdinalMap.build(segmentKeys(reader), subs(reader), map);
+            assertFalse(map.isIncremental());
+            assertSameGlobalOrdinals(reader, map);
+            reader.close();
+        }
+    }
+
+    public void testSegmentsWithoutKeys() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            addSegment(writer);
+            addSegment(writer);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final IncrementalOrdinalMap previous = IncrementalOrdinalMap.build(null, subs(reader), null);
+                final IncrementalOrdinalMap map = IncrementalOrdinalMap.build(segmentKeys(reader), subs(reader), previous);
+                assertFalse(map.isIncremental());
+                assertSameGlobalOrdinals(reader, map);
+            }
+        }
+    }
+
+    private void addSegment(IndexWriter writer) throws IOException {
+        final int numDocs = randomIntBetween(1, 50);
+        for (int i = 0; i < numDocs; i++) {
+            final Document doc = new Document();
+            final int numValues = randomIntBetween(0, 3);
+            for (int j = 0; j < numValues; j++) {
+                // a small alphabet so that segments share terms
+                doc.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLengthBetween(1, 2))));
+            }
+            writer.addDocument(doc);
+        }
+        writer.flush();
+    }
+
+    private static IndexReader.CacheKey[] segmentKeys(IndexReader reader) {
+        final IndexReader.CacheKey[] keys = new IndexReader.CacheKey[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            keys[context.ord] = context.reader().getCoreCacheHelper().getKey();
+        }
+        return keys;
+    }
+
+    private static SortedSetDocValues[] subs(IndexReader reader) throws IOException {
+        final SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            subs[context.ord] = context.reader().getSortedSetDocValues("field");
+            if (subs[context.ord] == null) {
+                subs[context.ord] = DocValues.emptySortedSet();
+            }
+        }
+        return subs;
+    }
+
+    private static void assertSameGlobalOrdinals(IndexReader reader, IncrementalOrdinalMap map) throws IOException {
+        final SortedSetDocValues[] subs = subs(reader);
+        final OrdinalMap expected = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        assertEquals(expected.getValueCount(), map.getValueCount());
+        for (int i = 0; i < subs.length; i++) {
+            final LongValues expectedGlobalOrds = expected.getGlobalOrds(i);
+            final LongValues globalOrds = map.getGlobalOrds(i);
+            for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                assertEquals(expectedGlobalOrds.get(ord), globalOrds.get(ord));
+            }
+        }
+        final SortedSetDocValues[] lookups = subs(reader);
+        for (long globalOrd = 0; globalOrd < map.getValueCount(); globalOrd++) {
+            final BytesRef expectedTerm = BytesRef.deepCopyOf(
+                lookups[expected.getFirstSegmentNumber(globalOrd)].lookupOrd(expected.getFirstSegmentOrd(globalOrd)));
+            assertEquals(expectedTerm, lookups[map.getFirstSegmentNumber(globalOrd)].lookupOrd(map.getFirstSegmentOrd(globalOrd)));
+        }
+    }
+}
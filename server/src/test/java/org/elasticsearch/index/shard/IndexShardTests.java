@@ -59,6 +59,7 @@ import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -1595,6 +1596,7 @@ public class IndexShardTests extends IndexShardTestCase {
         assertEquals(translogOps, newShard.recoveryState().getTranslog().totalOperations());
         assertEquals(translogOps, newShard.recoveryState().getTranslog().totalOperationsOnStart());
         assertEquals(100.0f, newShard.recoveryState().getTranslog().recoveredPercent(), 0.01f);
+        assertEquals(translogOps > 0, newShard.recoveryState().getTranslog().recoveredBytes() > 0);
         IndexShardTestCase.updateRoutingEntry(newShard, newShard.routingEntry().moveToStarted());
         // check that local checkpoint of new primary is properly tracked after recovery
         assertThat(newShard.getLocalCheckpoint(), equalTo(totalOps - 1L));
@@ -1953,6 +1955,56 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testPreparedIndexOperationIsTimedWhenApplied() throws IOException {
+        IndexShard shard = newStartedShard(true);
+        final AtomicLong startTime = new AtomicLong();
+        shard.close("simon says", true);
+        shard = reinitShard(shard, new IndexingOperationListener() {
+            @Override
+            public Engine.Index preIndex(ShardId shardId, Engine.Index operation) {
+                startTime.set(operation.startTime());
+                return operation;
+            }
+        });
+        recoverShardFromStore(shard);
+
+        final Engine.Index operation = shard.prepareIndexOnPrimary(Versions.MATCH_ANY, VersionType.INTERNAL,
+            SourceToParse.source(shard.shardId().getIndexName(), "test", "1", new BytesArray("{}"), XContentType.JSON),
+            IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP, false);
+        final long beforeApply = System.nanoTime();
+        final Engine.IndexResult result = shard.applyIndexOperation(operation, update -> {});
+        assertFalse(result.hasFailure());
+        // the time between parsing and indexing the document, e.g. spent on the preceding items of a bulk request, isn't counted
+        assertThat(startTime.get(), greaterThanOrEqualTo(beforeApply));
+        assertThat(operation.startTime(), lessThanOrEqualTo(beforeApply));
+        closeShards(shard);
+    }
+
+    public void testParsedDocumentsAreCountedAndTimed() throws IOException {
+        IndexShard shard = newStartedShard(true);
+        final StringBuilder source = new StringBuilder("{\"foo\" : [");
+        for (int i = 0; i < 1000; i++) {
+            source.append(i == 0 ? "" : ",").append(i);
+        }
+        source.append("]}");
+        int numDocs = 0;
+        IndexingStats.Stats stats = shard.indexingStats().getTotal();
+        // parse documents until the parse time adds up to at least a millisecond
+        while (stats.getParseTime().millis() == 0 && numDocs < 100_000) {
+            shard.prepareIndexOnPrimary(Versions.MATCH_ANY, VersionType.INTERNAL, SourceToParse.source(shard.shardId().getIndexName(),
+                "test", Integer.toString(numDocs), new BytesArray(source.toString()), XContentType.JSON),
+                IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP, false);
+            numDocs++;
+            stats = shard.indexingStats().getTotal();
+        }
+        assertThat(stats.getParseTime().millis(), greaterThan(0L));
+        assertEquals(numDocs, stats.getParseCount());
+        assertEquals(numDocs, shard.indexingStats("test").getTypeStats().get("test").getParseCount());
+        // parsing isn't indexing
+        assertEquals(0, stats.getIndexCount());
+        closeShards(shard);
+    }
+
     public void testIndexingOperationListenersIsInvokedOnRecovery() throws IOException {
         IndexShard shard = newStartedShard(true);
         indexDoc(shard, "test", "0", "{\"foo\" : \"bar\"}");
@@ -1997,6 +2049,7 @@ public class IndexShardTests extends IndexShardTestCase {
         assertEquals(0, indexingStats.getTotal().getIndexCount());
         assertEquals(0, indexingStats.getTotal().getIndexCurrent());
         assertEquals(0, indexingStats.getTotal().getIndexFailedCount());
+        assertEquals(0, indexingStats.getTotal().getParseTime().millis());
         assertEquals(2, preIndex.get());
         assertEquals(2, postIndex.get());
         assertEquals(1, preDelete.get());
@@ -86,6 +86,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
 import static java.util.Collections.unmodifiableMap;
 import static org.elasticsearch.test.VersionUtils.randomVersion;
@@ -423,6 +424,77 @@ public class StoreTests extends ESTestCase {
         IOUtils.close(dir);
     }
 
+    public void testVerifyParts() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        DirectoryService directoryService = new LuceneManagedDirectoryService(random());
+        Store store = new Store(shardId, INDEX_SETTINGS, directoryService, new DummyShardLock(shardId));
+        try (IndexOutput output = store.directory().createOutput("foo.bar", IOContext.DEFAULT)) {
+            int iters = scaledRandomIntBetween(10, 100);
+            for (int i = 0; i < iters; i++) {
+                BytesRef bytesRef = new BytesRef(TestUtil.randomRealisticUnicodeString(random(), 10, 1024));
+                output.writeBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+            }
+            CodecUtil.writeFooter(output);
+        }
+        final StoreFileMetaData metaData;
+        try (IndexInput indexInput = store.directory().openInput("foo.bar", IOContext.DEFAULT)) {
+            metaData = new StoreFileMetaData("foo.bar", indexInput.length(), Store.digestToString(CodecUtil.retrieveChecksum(indexInput)),
+                MIN_SUPPORTED_LUCENE_VERSION);
+        }
+        final long partSize = randomIntBetween(1, Math.toIntExact(metaData.length()));
+        final List<IndexInput> parts = readParts(store, metaData, partSize);
+        Store.verifyParts(metaData, parts);
+        if (parts.size() > 1) {
+            expectThrows(CorruptIndexException.class, () -> Store.verifyParts(metaData, parts.subList(0, parts.size() - 1)));
+            expectThrows(IllegalStateException.class, () -> Store.verifyParts(metaData, parts.subList(1, parts.size())));
+        }
+
+        // Corrupt file and check again
+        corruptFile(store.directory(), "foo.bar", "foo1.bar");
+        final StoreFileMetaData corruptedMetaData = new StoreFileMetaData("foo1.bar", metaData.length(), metaData.checksum(),
+            MIN_SUPPORTED_LUCENE_VERSION);
+        final List<IndexInput> corruptedParts = readParts(store, corruptedMetaData, partSize);
+        expectThrows(CorruptIndexException.class, () -> Store.verifyParts(corruptedMetaData, corruptedParts));
+
+        assertDeleteContent(store, directoryService);
+        IOUtils.close(store);
+    }
+
+    private List<IndexInput> readParts(Store store, StoreFileMetaData metaData, long partSize) throws IOException {
+        final List<IndexInput> parts = new ArrayList<>();
+        for (long start = 0; start < metaData.length(); start += partSize) {
+            try (IndexInput part = store.openVerifyingPartInput(metaData.name(), IOContext.READONCE, metaData, start)) {
+                final long end = Math.min(start + partSize, metaData.length());
+                final byte[] buffer = new byte[scaledRandomIntBetween(1, 1024)];
+                while (part.getFilePointer() < end) {
+                    if (rarely()) {
+                        // seeking back, like a retrying repository does, must not count the bytes twice
+                        part.seek(randomLongBetween(start, part.getFilePointer()));
+                    } else if (randomBoolean()) {
+                        part.readByte();
+                    } else {
+                        part.readBytes(buffer, 0, (int) Math.min(buffer.length, end - part.getFilePointer()));
+                    }
+                }
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    public void testCrc32Combine() {
+        final byte[] bytes = new byte[randomIntBetween(0, 4096)];
+        random().nextBytes(bytes);
+        final int split = randomIntBetween(0, bytes.length);
+        final CRC32 whole = new CRC32();
+        whole.update(bytes, 0, bytes.length);
+        final CRC32 first = new CRC32();
+        first.update(bytes, 0, split);
+        final CRC32 second = new CRC32();
+        second.update(bytes, split, bytes.length - split);
+        assertEquals(whole.getValue(), Store.crc32Combine(first.getValue(), second.getValue(), bytes.length - split));
+    }
+
     private void readIndexInputFullyWithRandomSeeks(IndexInput indexInput) throws IOException {
         BytesRef ref = new BytesRef(scaledRandomIntBetween(1, 1024));
         long pos = 0;
@@ -970,6 +1042,34 @@ public class StoreTests extends ESTestCase {
         store.close();
     }
 
+    public void testReadMetadataSnapshotReusesPreviousSnapshotOfLatestCommit() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        Path tempDir = createTempDir();
+        final BaseDirectoryWrapper dir = newFSDirectory(tempDir);
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        Document doc = new Document();
+        doc.add(new StringField("id", "1", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+
+        Store.MetadataSnapshot snapshot = Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger);
+        assertThat(snapshot.size(), greaterThan(0));
+        assertSame(snapshot, Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger, snapshot));
+
+        doc = new Document();
+        doc.add(new StringField("id", "2", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+        writer.close();
+
+        Store.MetadataSnapshot newSnapshot =
+            Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger, snapshot);
+        assertNotSame(snapshot, newSnapshot);
+        assertThat(newSnapshot.getSegmentsFile().name(), not(equalTo(snapshot.getSegmentsFile().name())));
+        assertThat(newSnapshot.getNumDocs(), equalTo(2L));
+        dir.close();
+    }
+
     public void testDeserializeCorruptionException() throws IOException {
         final ShardId shardId = new ShardId("index", "_na_", 1);
         final Directory dir = new RAMDirectory(); // I use ram dir to prevent that virusscanner being a PITA
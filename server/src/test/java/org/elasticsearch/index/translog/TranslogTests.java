@@ -80,6 +80,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -584,6 +585,106 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testSnapshotCurrentOperationBytes() throws IOException {
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final int numOps = randomIntBetween(1, 100);
+        for (int i = 0; i < numOps; i++) {
+            final byte[] source = randomUnicodeOfLengthBetween(1, 2048).getBytes(StandardCharsets.UTF_8);
+            addToTranslogAndList(translog, ops, new Translog.Index("test", Integer.toString(i), i, primaryTerm.get(), source));
+            if (rarely()) {
+                translog.rollGeneration();
+            }
+        }
+
+        final BytesStreamOutput serializedOperations = new BytesStreamOutput();
+        final List<Translog.Operation> snapshotOps = new ArrayList<>();
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            Translog.Operation op;
+            while ((op = snapshot.next()) != null) {
+                final BytesReference bytes = snapshot.currentOperationBytes();
+                assertThat(Translog.readOperations(bytes.streamInput(), 1), equalTo(Collections.singletonList(op)));
+                bytes.writeTo(serializedOperations);
+                snapshotOps.add(op);
+            }
+        }
+        assertThat(snapshotOps.size(), equalTo(numOps));
+
+        // the bytes of the snapshot are serialized like writeOperations serializes the operations
+        final BytesStreamOutput out = new BytesStreamOutput();
+        Translog.writeOperations(out, snapshotOps);
+        final StreamInput in = out.bytes().streamInput();
+        assertThat(in.readInt(), equalTo(numOps));
+        final BytesReference readOperations = Translog.readSerializedOperations(in, numOps);
+        assertThat(readOperations, equalTo(serializedOperations.bytes()));
+        assertThat(Translog.readOperations(readOperations.streamInput(), numOps), equalTo(snapshotOps));
+
+        // checksums are verified when the operations are decoded
+        final byte[] corrupted = BytesReference.toBytes(readOperations);
+        // only corrupt the first operation or its checksum, the operation sizes are not checksummed
+        final int firstOpSize = new BytesArray(corrupted, 0, Integer.BYTES).streamInput().readInt();
+        final int corruptedByte = randomIntBetween(Integer.BYTES, Integer.BYTES + firstOpSize - 1);
+        corrupted[corruptedByte] = (byte) (corrupted[corruptedByte] ^ 0xFF);
+        final BytesReference corruptedOperations = Translog.readSerializedOperations(new BytesArray(corrupted).streamInput(), numOps);
+        expectThrows(TranslogCorruptedException.class, () -> Translog.readOperations(corruptedOperations.streamInput(), numOps));
+    }
+
+    public void testMappedSnapshot() throws IOException {
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final int numOps = randomIntBetween(1, 100);
+        for (int i = 0; i < numOps; i++) {
+            final byte[] source = randomUnicodeOfLengthBetween(1, 2048).getBytes(StandardCharsets.UTF_8);
+            addToTranslogAndList(translog, ops, new Translog.Index("test", Integer.toString(i), i, primaryTerm.get(), source));
+            if (rarely()) {
+                translog.rollGeneration();
+            }
+        }
+        if (randomBoolean()) {
+            // the current generation is never mapped
+            translog.rollGeneration();
+        }
+
+        try (Translog.Snapshot snapshot = translog.newSnapshotFromGen(translog.getMinFileGeneration(), true)) {
+            assertThat(snapshot, SnapshotMatchers.containsOperationsInAnyOrder(ops));
+            assertThat(snapshot.totalOperations(), equalTo(numOps));
+        }
+
+        try (Translog.Snapshot mapped = translog.newSnapshotFromGen(translog.getMinFileGeneration(), true);
+             Translog.Snapshot snapshot = translog.newSnapshotFromGen(translog.getMinFileGeneration(), false)) {
+            Translog.Operation op;
+            while ((op = snapshot.next()) != null) {
+                assertThat(mapped.next(), equalTo(op));
+                assertThat(mapped.currentOperationBytes(), equalTo(snapshot.currentOperationBytes()));
+            }
+            assertNull(mapped.next());
+        }
+    }
+
+    public void testMappedSnapshotChecksums() throws Exception {
+        int translogOperations = randomIntBetween(10, 100);
+        for (int op = 0; op < translogOperations; op++) {
+            String ascii = randomAlphaOfLengthBetween(1, 50);
+            translog.add(new Translog.Index("test", "" + op, op, primaryTerm.get(), ascii.getBytes("UTF-8")));
+        }
+        translog.rollGeneration();
+        translog.sync();
+
+        corruptTranslogs(translogDir);
+
+        AtomicInteger corruptionsCaught = new AtomicInteger(0);
+        try (Translog.Snapshot snapshot = translog.newSnapshotFromGen(translog.getMinFileGeneration(), true)) {
+            for (int op = 0; op < translogOperations; op++) {
+                try {
+                    Translog.Operation next = snapshot.next();
+                    assertNotNull(next);
+                } catch (TranslogCorruptedException e) {
+                    corruptionsCaught.incrementAndGet();
+                }
+            }
+            expectThrows(TranslogCorruptedException.class, snapshot::next);
+            assertThat("at least one corruption was caused and caught", corruptionsCaught.get(), greaterThanOrEqualTo(1));
+        }
+    }
+
     public void testReadLocation() throws IOException {
         ArrayList<Translog.Operation> ops = new ArrayList<>();
         ArrayList<Translog.Location> locs = new ArrayList<>();
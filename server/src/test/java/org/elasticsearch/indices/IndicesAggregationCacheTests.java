@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndicesAggregationCacheTests extends ESTestCase {
+
+    public void testBasicOperations() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, logger);
+        IndicesAggregationCache cache = new IndicesAggregationCache(Settings.EMPTY, breaker);
+        ShardRequestCache shard = new ShardRequestCache();
+        Directory dir = newDirectory();
+        // segments must not be merged away
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc("0"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        IndexReader.CacheHelper segment = reader.leaves().get(0).reader().getReaderCacheHelper();
+        BytesReference requestKey = new BytesArray("request");
+        BytesReference value = new BytesArray("value");
+
+        assertNull(cache.get(shard, segment, requestKey));
+        assertEquals(0, shard.stats().getSegmentAggregationsHitCount());
+        assertEquals(1, shard.stats().getSegmentAggregationsMissCount());
+
+        cache.put(shard, segment, requestKey, value);
+        assertEquals(value, cache.get(shard, segment, requestKey));
+        assertEquals(1, shard.stats().getSegmentAggregationsHitCount());
+        assertEquals(1, shard.stats().getSegmentAggregationsMissCount());
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+        assertTrue(shard.stats().getSegmentAggregationsMemorySizeInBytes() > value.length());
+        assertEquals(shard.stats().getSegmentAggregationsMemorySizeInBytes(), breaker.getUsed());
+
+        // other requests and other shards don't share entries
+        assertNull(cache.get(shard, segment, new BytesArray("other_request")));
+        assertNull(cache.get(new ShardRequestCache(), segment, requestKey));
+
+        // a new reader shares the unchanged segment
+        writer.addDocument(newDoc("1"));
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertEquals(2, newReader.leaves().size());
+        assertEquals(value, cache.get(shard, newReader.leaves().get(0).reader().getReaderCacheHelper(), requestKey));
+        assertNull(cache.get(shard, newReader.leaves().get(1).reader().getReaderCacheHelper(), requestKey));
+
+        // deletes change the segment reader
+        writer.deleteDocuments(new Term("id", "0"));
+        DirectoryReader readerWithDeletes = DirectoryReader.openIfChanged(newReader);
+        assertNull(cache.get(shard, readerWithDeletes.leaves().get(0).reader().getReaderCacheHelper(), requestKey));
+
+        // entries are invalidated once the segment is closed
+        IOUtils.close(reader, newReader);
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        assertEquals(0, shard.stats().getSegmentAggregationsMemorySizeInBytes());
+        assertEquals(0, breaker.getUsed());
+
+        IOUtils.close(readerWithDeletes, writer, dir, cache);
+    }
+
+    public void testClearShard() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, logger);
+        IndicesAggregationCache cache = new IndicesAggregationCache(Settings.EMPTY, breaker);
+        ShardRequestCache shard = new ShardRequestCache();
+        ShardRequestCache otherShard = new ShardRequestCache();
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        IndexReader.CacheHelper segment = reader.leaves().get(0).reader().getReaderCacheHelper();
+        BytesReference requestKey = new BytesArray("request");
+
+        cache.put(shard, segment, requestKey, new BytesArray("value"));
+        cache.put(otherShard, segment, requestKey, new BytesArray("other_value"));
+        assertEquals(2, cache.count());
+
+        cache.clear(shard);
+        assertEquals(1, cache.count());
+        assertNull(cache.get(shard, segment, requestKey));
+        assertEquals(new BytesArray("other_value"), cache.get(otherShard, segment, requestKey));
+        assertEquals(0, shard.stats().getSegmentAggregationsMemorySizeInBytes());
+        assertEquals(otherShard.stats().getSegmentAggregationsMemorySizeInBytes(), breaker.getUsed());
+
+        cache.close();
+        assertEquals(0, cache.count());
+        assertEquals(0, breaker.getUsed());
+        IOUtils.close(reader, writer, dir);
+    }
+
+    public void testCircuitBreaker() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(100), 1.0, logger);
+        IndicesAggregationCache cache = new IndicesAggregationCache(Settings.EMPTY, breaker);
+        ShardRequestCache shard = new ShardRequestCache();
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        IndexReader.CacheHelper segment = reader.leaves().get(0).reader().getReaderCacheHelper();
+        BytesReference requestKey = new BytesArray("request");
+
+        // values that would trip the breaker are not cached
+        cache.put(shard, segment, requestKey, new BytesArray(new byte[200]));
+        assertEquals(0, cache.count());
+        assertEquals(0, breaker.getUsed());
+        assertEquals(0, shard.stats().getSegmentAggregationsMemorySizeInBytes());
+        assertNull(cache.get(shard, segment, requestKey));
+
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    public void testCanCache() {
+        assertTrue(IndicesAggregationCache.canCache(new AggregatorFactories.Builder()
+            .addAggregator(AggregationBuilders.dateHistogram("histo").field("date")
+                .subAggregation(AggregationBuilders.stats("stats").field("value")))
+            .addAggregator(AggregationBuilders.cardinality("cardinality").field("value"))));
+        assertFalse(IndicesAggregationCache.canCache(new AggregatorFactories.Builder()
+            .addAggregator(AggregationBuilders.terms("terms").field("keyword"))));
+        assertFalse(IndicesAggregationCache.canCache(new AggregatorFactories.Builder()
+            .addAggregator(AggregationBuilders.histogram("histo").field("value")
+                .subAggregation(AggregationBuilders.topHits("top")))));
+        assertFalse(IndicesAggregationCache.canCache(new AggregatorFactories.Builder()
+            .addAggregator(AggregationBuilders.global("global")
+                .subAggregation(AggregationBuilders.max("max").field("value")))));
+    }
+
+    private static Document newDoc(String id) {
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        return doc;
+    }
+}
@@ -25,10 +25,12 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.aggregations.metrics.stats.Stats;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -40,6 +42,7 @@ import java.util.List;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateRange;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.filter;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.stats;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.equalTo;
@@ -501,4 +504,61 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
             equalTo(2L));
     }
 
+
+    public void testCacheAggsPerSegment() throws Exception {
+        Client client = client();
+        assertAcked(client.admin().indices().prepareCreate("index").addMapping("type", "f", "type=date", "v", "type=long")
+            .setSettings(Settings.builder().put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+                .put(IndicesAggregationCache.INDEX_CACHE_ENABLED_SETTING.getKey(), true)
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)).get());
+        // every refresh creates a new segment
+        for (int i = 0; i < 3; i++) {
+            client.prepareIndex("index", "type").setSource("f", "2016-03-1" + i, "v", i).get();
+            client.prepareIndex("index", "type").setSource("f", "2016-04-1" + i, "v", 10 + i).get();
+            refresh("index");
+        }
+        ensureSearchable("index");
+
+        assertSameAggs(client);
+        RequestCacheStats stats = client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache();
+        assertThat(stats.getSegmentAggregationsHitCount(), equalTo(0L));
+        assertThat(stats.getSegmentAggregationsMissCount(), greaterThan(0L));
+        assertThat(stats.getSegmentAggregationsMemorySizeInBytes(), greaterThan(0L));
+
+        // the new segment is collected, the results of the other segments are reused
+        client.prepareIndex("index", "type").setSource("f", "2016-05-10", "v", 20).get();
+        refresh("index");
+        assertSameAggs(client);
+        stats = client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache();
+        assertThat(stats.getSegmentAggregationsHitCount(), greaterThan(0L));
+    }
+
+    private static void assertSameAggs(Client client) {
+        final SearchResponse cached = client.prepareSearch("index").setSize(0)
+            .addAggregation(dateHistogram("histo").field("f").dateHistogramInterval(DateHistogramInterval.MONTH)
+                .subAggregation(stats("stats").field("v")))
+            .get();
+        assertSearchResponse(cached);
+        final SearchResponse uncached = client.prepareSearch("index").setSize(0).setRequestCache(false)
+            .addAggregation(dateHistogram("histo").field("f").dateHistogramInterval(DateHistogramInterval.MONTH)
+                .subAggregation(stats("stats").field("v")))
+            .get();
+        assertSearchResponse(uncached);
+        Histogram h1 = cached.getAggregations().get("histo");
+        Histogram h2 = uncached.getAggregations().get("histo");
+        assertEquals(h2.getBuckets().size(), h1.getBuckets().size());
+        for (int i = 0; i < h1.getBuckets().size(); i++) {
+            final Bucket b1 = h1.getBuckets().get(i);
+            final Bucket b2 = h2.getBuckets().get(i);
+            assertEquals(b2.getKey(), b1.getKey());
+            assertEquals(b2.getDocCount(), b1.getDocCount());
+            final Stats s1 = b1.getAggregations().get("stats");
+            final Stats s2 = b2.getAggregations().get("stats");
+            assertEquals(s2.getCount(), s1.getCount());
+            assertEquals(s2.getSum(), s1.getSum(), 0d);
+            assertEquals(s2.getMin(), s1.getMin(), 0d);
+            assertEquals(s2.getMax(), s1.getMax(), 0d);
+        }
+    }
 }
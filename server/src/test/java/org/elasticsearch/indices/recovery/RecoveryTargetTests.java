@@ -395,6 +395,7 @@ public class RecoveryTargetTests extends ESTestCase {
         // force one
         streamer.serializeDeserialize();
         int ops = 0;
+        long bytes = 0;
         int totalOps = 0;
         int totalOpsOnStart = randomIntBetween(10, 200);
         translog.totalOperationsOnStart(totalOpsOnStart);
@@ -411,11 +412,16 @@ public class RecoveryTargetTests extends ESTestCase {
                     translog.incrementRecoveredOperations();
                 }
             }
+            final long iterationBytes = randomIntBetween(iterationOps, 1024 * iterationOps);
+            bytes += iterationBytes;
+            translog.incrementRecoveredBytes(iterationBytes);
             assertThat(translog.recoveredOperations(), equalTo(ops));
+            assertThat(translog.recoveredBytes(), equalTo(bytes));
             assertThat(translog.totalOperations(), equalTo(totalOps));
             assertThat(translog.recoveredPercent(), equalTo(100.f));
             assertThat(streamer.lastRead().recoveredOperations(), greaterThanOrEqualTo(0));
             assertThat(streamer.lastRead().recoveredOperations(), lessThanOrEqualTo(ops));
+            assertThat(streamer.lastRead().recoveredBytes(), lessThanOrEqualTo(bytes));
             assertThat(streamer.lastRead().totalOperations(), lessThanOrEqualTo(totalOps));
             assertThat(streamer.lastRead().totalOperationsOnStart(), lessThanOrEqualTo(totalOpsOnStart));
             assertThat(streamer.lastRead().recoveredPercent(), either(greaterThanOrEqualTo(0.f)).or(equalTo(-1.f)));
@@ -430,9 +436,11 @@ public class RecoveryTargetTests extends ESTestCase {
         if (randomBoolean()) {
             translog.reset();
             ops = 0;
+            bytes = 0;
             totalOps = Translog.UNKNOWN;
             totalOpsOnStart = Translog.UNKNOWN;
             assertThat(translog.recoveredOperations(), equalTo(0));
+            assertThat(translog.recoveredBytes(), equalTo(0L));
             assertThat(translog.totalOperationsOnStart(), equalTo(Translog.UNKNOWN));
             assertThat(translog.totalOperations(), equalTo(Translog.UNKNOWN));
         }
@@ -441,6 +449,7 @@ public class RecoveryTargetTests extends ESTestCase {
         streamer.join();
         final Translog lastRead = streamer.lastRead();
         assertThat(lastRead.recoveredOperations(), equalTo(ops));
+        assertThat(lastRead.recoveredBytes(), equalTo(bytes));
         assertThat(lastRead.totalOperations(), equalTo(totalOps));
         assertThat(lastRead.totalOperationsOnStart(), equalTo(totalOpsOnStart));
         assertThat(lastRead.startTime(), equalTo(translog.startTime()));
@@ -448,6 +457,10 @@ public class RecoveryTargetTests extends ESTestCase {
 
         if (stopped) {
             assertThat(lastRead.time(), equalTo(translog.time()));
+            if (lastRead.time() > 0) {
+                assertThat(lastRead.recoveredOperationsPerSecond(), closeTo(ops * 1000.0 / lastRead.time(), 0.001));
+                assertThat(lastRead.recoveredBytesPerSecond(), closeTo(bytes * 1000.0 / lastRead.time(), 0.001));
+            }
         } else {
             assertThat(lastRead.time(), lessThanOrEqualTo(translog.time()));
         }
@@ -52,6 +52,7 @@ import java.util.concurrent.Future;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 
@@ -295,6 +296,11 @@ public class RecoveryTests extends ESIndexLevelReplicationTestCase {
                 assertThat("Sequence based recovery should keep existing translog", snapshot, SnapshotMatchers.size(initDocs + moreDocs));
             }
             assertThat(newReplica.recoveryState().getTranslog().recoveredOperations(), equalTo(uncommittedDocs + moreDocs));
+            if (uncommittedDocs + moreDocs > 0) {
+                assertThat(newReplica.recoveryState().getTranslog().recoveredBytes(), greaterThan(0L));
+            } else {
+                assertThat(newReplica.recoveryState().getTranslog().recoveredBytes(), equalTo(0L));
+            }
             assertThat(newReplica.recoveryState().getIndex().fileDetails(), empty());
         }
     }
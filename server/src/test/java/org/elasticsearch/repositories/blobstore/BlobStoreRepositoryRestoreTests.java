@@ -27,6 +27,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
 import org.elasticsearch.index.shard.IndexShard;
@@ -67,6 +68,7 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
 
         IndexShard shard = newShard(shardId, true);
+        Repository repository = null;
         try {
             // index documents in the shards
             final int numDocs = scaledRandomIntBetween(1, 500);
@@ -80,7 +82,7 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
             assertDocCount(shard, numDocs);
 
             // snapshot the shard
-            final Repository repository = createRepository();
+            repository = createRepository();
             final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
             snapshotShard(shard, snapshot, repository);
 
@@ -117,7 +119,14 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
                 assertTrue("File [" + fileName + "] does not exist in store directory", directoryFiles.contains(fileName));
                 assertEquals(storeFile.length(), shard.store().directory().fileLength(fileName));
             }
+            // check that the parts of multi-part files were cleaned up
+            for (String directoryFile : directoryFiles) {
+                assertFalse("Temporary file [" + directoryFile + "] left in store directory", directoryFile.endsWith(".tmp"));
+            }
         } finally {
+            if (repository != null) {
+                repository.close();
+            }
             if (shard != null && shard.state() != IndexShardState.CLOSED) {
                 try {
                     shard.close("test", false);
@@ -154,6 +163,7 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
             IndexShardSnapshotFailedException isfe = expectThrows(IndexShardSnapshotFailedException.class,
                 () -> snapshotShard(shard, snapshotWithSameName, repository));
             assertThat(isfe.getMessage(), containsString("Duplicate snapshot name"));
+            repository.close();
         } finally {
             if (shard != null && shard.state() != IndexShardState.CLOSED) {
                 try {
@@ -165,11 +175,17 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
-    /** Create a {@link Repository} with a random name **/
+    /** Create and start a {@link Repository} with a random name, chunk size and number of concurrent file chunks **/
     private Repository createRepository() throws IOException {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
-        RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings);
-        return new FsRepository(repositoryMetaData, createEnvironment(), xContentRegistry());
+        Settings.Builder settings = Settings.builder().put("location", randomAlphaOfLength(10));
+        if (randomBoolean()) {
+            settings.put("chunk_size", randomIntBetween(100, 1000), ByteSizeUnit.BYTES);
+        }
+        settings.put("max_concurrent_file_chunks", randomIntBetween(1, 5));
+        RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings.build());
+        Repository repository = new FsRepository(repositoryMetaData, createEnvironment(), xContentRegistry());
+        repository.start();
+        return repository;
     }
 
     /** Create a {@link Environment} with random path.home and path.repo **/
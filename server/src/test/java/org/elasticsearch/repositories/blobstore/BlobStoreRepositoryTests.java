@@ -21,8 +21,10 @@ package org.elasticsearch.repositories.blobstore;
 
 import org.elasticsearch.action.admin.cluster.repositories.put.PutRepositoryResponse;
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
@@ -42,7 +44,10 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.repositories.RepositoryDataTests.generateRandomRepoData;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 
 /**
  * Tests for the {@link BlobStoreRepository} and its subclasses.
@@ -108,7 +113,7 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         // write to and read from a index file with no entries
         assertThat(repository.getRepositoryData().getSnapshotIds().size(), equalTo(0));
         final RepositoryData emptyData = RepositoryData.EMPTY;
-        repository.writeIndexGen(emptyData, emptyData.getGenId());
+        repository.writeIndexGen(emptyData, ShardGenerations.EMPTY, emptyData.getGenId());
         RepositoryData repoData = repository.getRepositoryData();
         assertEquals(repoData, emptyData);
         assertEquals(repoData.getIndices().size(), 0);
@@ -117,12 +122,12 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
 
         // write to and read from an index file with snapshots but no indices
         repoData = addRandomSnapshotsToRepoData(repoData, false);
-        repository.writeIndexGen(repoData, repoData.getGenId());
+        repository.writeIndexGen(repoData, ShardGenerations.EMPTY, repoData.getGenId());
         assertEquals(repoData, repository.getRepositoryData());
 
         // write to and read from a index file with random repository data
         repoData = addRandomSnapshotsToRepoData(repository.getRepositoryData(), true);
-        repository.writeIndexGen(repoData, repoData.getGenId());
+        repository.writeIndexGen(repoData, ShardGenerations.EMPTY, repoData.getGenId());
         assertEquals(repoData, repository.getRepositoryData());
     }
 
@@ -131,21 +136,21 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
 
         // write to index generational file
         RepositoryData repositoryData = generateRandomRepoData();
-        repository.writeIndexGen(repositoryData, repositoryData.getGenId());
+        repository.writeIndexGen(repositoryData, ShardGenerations.EMPTY, repositoryData.getGenId());
         assertThat(repository.getRepositoryData(), equalTo(repositoryData));
         assertThat(repository.latestIndexBlobId(), equalTo(0L));
         assertThat(repository.readSnapshotIndexLatestBlob(), equalTo(0L));
 
         // adding more and writing to a new index generational file
         repositoryData = addRandomSnapshotsToRepoData(repository.getRepositoryData(), true);
-        repository.writeIndexGen(repositoryData, repositoryData.getGenId());
+        repository.writeIndexGen(repositoryData, ShardGenerations.EMPTY, repositoryData.getGenId());
         assertEquals(repository.getRepositoryData(), repositoryData);
         assertThat(repository.latestIndexBlobId(), equalTo(1L));
         assertThat(repository.readSnapshotIndexLatestBlob(), equalTo(1L));
 
         // removing a snapshot and writing to a new index generational file
         repositoryData = repository.getRepositoryData().removeSnapshot(repositoryData.getSnapshotIds().iterator().next());
-        repository.writeIndexGen(repositoryData, repositoryData.getGenId());
+        repository.writeIndexGen(repositoryData, ShardGenerations.EMPTY, repositoryData.getGenId());
         assertEquals(repository.getRepositoryData(), repositoryData);
         assertThat(repository.latestIndexBlobId(), equalTo(2L));
         assertThat(repository.readSnapshotIndexLatestBlob(), equalTo(2L));
@@ -156,11 +161,12 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
 
         // write to index generational file
         RepositoryData repositoryData = generateRandomRepoData();
-        repository.writeIndexGen(repositoryData, repositoryData.getGenId());
+        repository.writeIndexGen(repositoryData, ShardGenerations.EMPTY, repositoryData.getGenId());
 
         // write repo data again to index generational file, errors because we already wrote to the
         // N+1 generation from which this repository data instance was created
-        expectThrows(RepositoryException.class, () -> repository.writeIndexGen(repositoryData, repositoryData.getGenId()));
+        expectThrows(RepositoryException.class,
+            () -> repository.writeIndexGen(repositoryData, ShardGenerations.EMPTY, repositoryData.getGenId()));
     }
 
     public void testReadAndWriteIncompatibleSnapshots() throws Exception {
@@ -169,7 +175,7 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         // write to and read from incompatible snapshots file with no entries
         assertEquals(0, repository.getRepositoryData().getIncompatibleSnapshotIds().size());
         RepositoryData emptyData = RepositoryData.EMPTY;
-        repository.writeIndexGen(emptyData, emptyData.getGenId());
+        repository.writeIndexGen(emptyData, ShardGenerations.EMPTY, emptyData.getGenId());
         repository.writeIncompatibleSnapshots(emptyData);
         RepositoryData readData = repository.getRepositoryData();
         assertEquals(emptyData, readData);
@@ -193,15 +199,91 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
     public void testIncompatibleSnapshotsBlobExists() throws Exception {
         final BlobStoreRepository repository = setupRepo();
         RepositoryData emptyData = RepositoryData.EMPTY;
-        repository.writeIndexGen(emptyData, emptyData.getGenId());
+        repository.writeIndexGen(emptyData, ShardGenerations.EMPTY, emptyData.getGenId());
         RepositoryData repoData = repository.getRepositoryData();
         assertEquals(emptyData, repoData);
         assertTrue(repository.blobContainer().blobExists("incompatible-snapshots"));
         repoData = addRandomSnapshotsToRepoData(repository.getRepositoryData(), true);
-        repository.writeIndexGen(repoData, repoData.getGenId());
+        repository.writeIndexGen(repoData, ShardGenerations.EMPTY, repoData.getGenId());
         assertEquals(0, repository.getRepositoryData().getIncompatibleSnapshotIds().size());
     }
 
+    public void testShardGenerationsThroughIndexFile() throws Exception {
+        final BlobStoreRepository repository = setupRepo();
+
+        RepositoryData repositoryData = generateRandomRepoData();
+        ShardGenerations shardGenerations = randomShardGenerations(repositoryData);
+        repository.writeIndexGen(repositoryData, shardGenerations, repositoryData.getGenId());
+        assertEquals(shardGenerations, repository.getShardGenerations(repository.latestIndexBlobId()));
+
+        for (int i = 0; i < 2; i++) {
+            repositoryData = repository.getRepositoryData();
+            shardGenerations = randomShardGenerations(repositoryData);
+            repository.writeIndexGen(repositoryData, shardGenerations, repositoryData.getGenId());
+            assertEquals(shardGenerations, repository.getShardGenerations(repository.latestIndexBlobId()));
+        }
+
+        // the shard generations are cleaned up with the index file of the same generation
+        assertThat(repository.latestIndexBlobId(), equalTo(2L));
+        assertFalse(repository.blobContainer().blobExists("shard-generations-0.dat"));
+        assertTrue(repository.blobContainer().blobExists("shard-generations-1.dat"));
+        assertTrue(repository.blobContainer().blobExists("shard-generations-2.dat"));
+    }
+
+    public void testSnapshotAndDeleteRecordShardGenerations() throws Exception {
+        final Client client = client();
+        final BlobStoreRepository repository = setupRepo();
+        final String indexName = "test-idx";
+        createIndex(indexName, Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build());
+        ensureGreen();
+
+        final List<SnapshotId> snapshotIds = new ArrayList<>();
+        int numDocs = 0;
+        for (int i = 0; i < 2; i++) {
+            final int numNewDocs = randomIntBetween(10, 20);
+            for (int doc = 0; doc < numNewDocs; doc++) {
+                client.prepareIndex(indexName, "type1", i + "-" + doc).setSource("text", "sometext").get();
+            }
+            numDocs += numNewDocs;
+            client.admin().indices().prepareFlush(indexName).get();
+            snapshotIds.add(client.admin().cluster().prepareCreateSnapshot("test-repo", "test-snap-" + i)
+                .setWaitForCompletion(true).setIndices(indexName).get().getSnapshotInfo().snapshotId());
+        }
+
+        RepositoryData repositoryData = repository.getRepositoryData();
+        final IndexId indexId = repositoryData.resolveIndexId(indexName);
+        final BlobContainer shardContainer = repository.blobStore().blobContainer(repository.basePath().add("indices")
+            .add(indexId.getId()).add("0"));
+        // every snapshot writes an index blob named after itself and removes the previous one
+        assertThat(repository.getShardGenerations(repositoryData.getGenId()).getShardGen(indexId, 0),
+            equalTo(snapshotIds.get(1).getUUID()));
+        assertTrue(shardContainer.blobExists("index-" + snapshotIds.get(1).getUUID()));
+        assertFalse(shardContainer.blobExists("index-" + snapshotIds.get(0).getUUID()));
+
+        logger.info("--> delete the first snapshot");
+        client.admin().cluster().prepareDeleteSnapshot("test-repo", snapshotIds.get(0).getName()).get();
+        repositoryData = repository.getRepositoryData();
+        final String shardGeneration = repository.getShardGenerations(repositoryData.getGenId()).getShardGen(indexId, 0);
+        assertNotNull(shardGeneration);
+        assertThat(shardGeneration, not(equalTo(snapshotIds.get(1).getUUID())));
+        assertTrue(shardContainer.blobExists("index-" + shardGeneration));
+        assertFalse(shardContainer.blobExists("index-" + snapshotIds.get(1).getUUID()));
+
+        logger.info("--> restore the second snapshot");
+        final RestoreSnapshotResponse restoreSnapshotResponse = client.admin().cluster()
+            .prepareRestoreSnapshot("test-repo", snapshotIds.get(1).getName())
+            .setRenamePattern(indexName).setRenameReplacement("restored-idx").setWaitForCompletion(true).get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        assertHitCount(client.prepareSearch("restored-idx").setSize(0).get(), numDocs);
+
+        logger.info("--> delete the second snapshot");
+        client.admin().cluster().prepareDeleteSnapshot("test-repo", snapshotIds.get(1).getName()).get();
+        repositoryData = repository.getRepositoryData();
+        assertThat(repository.getShardGenerations(repositoryData.getGenId()).getIndexIds(), empty());
+        // the index isn't part of the repository anymore so its blobs are deleted
+        assertFalse(repository.blobStore().blobContainer(repository.basePath().add("indices")).blobExists(indexId.getId()));
+    }
+
     private BlobStoreRepository setupRepo() {
         final Client client = client();
         final Path location = ESIntegTestCase.randomRepoPath(node().settings());
@@ -235,4 +317,17 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         return repoData;
     }
 
+    private ShardGenerations randomShardGenerations(RepositoryData repositoryData) {
+        final ShardGenerations.Builder builder = ShardGenerations.builder(ShardGenerations.EMPTY);
+        for (IndexId indexId : repositoryData.getIndices().values()) {
+            final int numberOfShards = randomIntBetween(1, 5);
+            for (int shardId = 0; shardId < numberOfShards; shardId++) {
+                if (randomBoolean()) {
+                    builder.put(indexId, shardId, UUIDs.randomBase64UUID());
+                }
+            }
+        }
+        return builder.build();
+    }
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class StreamingRestResponseTests extends ESTestCase {
+
+    public void testSmallResponseIsNotChunked() throws Exception {
+        final SearchResponse searchResponse = searchResponse(randomIntBetween(0, 10));
+        final RestChannel channel = new FakeRestChannel(new FakeRestRequest(), randomBoolean(), 1);
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, channel.newBuilder(), channel.request(), searchResponse);
+        assertFalse(response.isChunked());
+        assertThat(response.status(), equalTo(RestStatus.OK));
+        assertThat(response.content().utf8ToString(), equalTo(expectedContent(searchResponse).utf8ToString()));
+    }
+
+    public void testChunksAreEquivalentToContent() throws Exception {
+        final SearchResponse searchResponse = searchResponse(randomIntBetween(1000, 5000));
+        final RestChannel channel = new FakeRestChannel(new FakeRestRequest(), randomBoolean(), 1);
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, channel.newBuilder(), channel.request(), searchResponse);
+        assertTrue(response.isChunked());
+        final RestChannel otherChannel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        assertThat(response.contentType(), equalTo(otherChannel.newBuilder().contentType().mediaType()));
+
+        final BytesStreamOutput chunks = new BytesStreamOutput();
+        int numberOfChunks = 0;
+        for (BytesReference chunk = response.nextChunk(); chunk != null; chunk = response.nextChunk()) {
+            assertThat(chunk.length(), greaterThan(0));
+            // a chunk only exceeds the chunk size by a single hit
+            assertThat(chunk.length(), lessThan(StreamingRestResponse.CHUNK_SIZE + 1024));
+            chunk.writeTo(chunks);
+            numberOfChunks++;
+        }
+        assertThat(numberOfChunks, greaterThan(1));
+        assertNull(response.nextChunk());
+        assertThat(chunks.bytes().utf8ToString(), equalTo(expectedContent(searchResponse).utf8ToString()));
+    }
+
+    public void testContentOfChunkedResponse() throws Exception {
+        final SearchResponse searchResponse = searchResponse(randomIntBetween(1000, 5000));
+        final RestChannel channel = new FakeRestChannel(new FakeRestRequest(), randomBoolean(), 1);
+        final StreamingRestResponse response =
+            new StreamingRestResponse(RestStatus.OK, channel.newBuilder(), channel.request(), searchResponse);
+        assertTrue(response.isChunked());
+        assertThat(response.content().utf8ToString(), equalTo(expectedContent(searchResponse).utf8ToString()));
+    }
+
+    private static SearchResponse searchResponse(int numberOfHits) {
+        final SearchHit[] hits = new SearchHit[numberOfHits];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new SearchHit(i, Integer.toString(i), new Text("type"), Collections.emptyMap());
+            hits[i].score(randomFloat());
+            hits[i].sourceRef(new BytesArray("{\"field\":\"" + randomAlphaOfLength(100) + "\"}"));
+        }
+        final InternalSearchResponse internalResponse =
+            new InternalSearchResponse(new SearchHits(hits, numberOfHits, 1.0f), null, null, null, false, null, 1);
+        return new SearchResponse(internalResponse, null, 1, 1, 0, randomNonNegativeLong(), ShardSearchFailure.EMPTY_ARRAY,
+            SearchResponse.Clusters.EMPTY);
+    }
+
+    private static BytesReference expectedContent(SearchResponse searchResponse) throws Exception {
+        final RestChannel channel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        try (XContentBuilder builder = channel.newBuilder()) {
+            searchResponse.toXContent(builder, channel.request());
+            return BytesReference.bytes(builder);
+        }
+    }
+}
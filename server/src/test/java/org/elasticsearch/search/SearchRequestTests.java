@@ -139,6 +139,8 @@ public class SearchRequestTests extends AbstractSearchTestCase {
         mutators.add(() -> mutation.preference(randomValueOtherThan(searchRequest.preference(), () -> randomAlphaOfLengthBetween(3, 10))));
         mutators.add(() -> mutation.routing(randomValueOtherThan(searchRequest.routing(), () -> randomAlphaOfLengthBetween(3, 10))));
         mutators.add(() -> mutation.requestCache((randomValueOtherThan(searchRequest.requestCache(), () -> randomBoolean()))));
+        mutators.add(() -> mutation.concurrentSegmentSearch(
+            randomValueOtherThan(searchRequest.concurrentSegmentSearch(), () -> randomBoolean())));
         mutators.add(() -> mutation
                 .scroll(randomValueOtherThan(searchRequest.scroll(), () -> new Scroll(new TimeValue(randomNonNegativeLong() % 100000)))));
         mutators.add(() -> mutation.searchType(randomValueOtherThan(searchRequest.searchType(),
@@ -158,6 +160,7 @@ public class SearchRequestTests extends AbstractSearchTestCase {
         result.routing(searchRequest.routing());
         result.requestCache(searchRequest.requestCache());
         result.allowPartialSearchResults(searchRequest.allowPartialSearchResults());
+        result.concurrentSegmentSearch(searchRequest.concurrentSegmentSearch());
         result.scroll(searchRequest.scroll());
         if (searchRequest.source() != null) {
             result.source(searchRequest.source());
@@ -0,0 +1,114 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.min.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.stats.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValueType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class BlockBucketCollectorTests extends AggregatorTestCase {
+
+    public void testBlocksMatchSingleDocs() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(1, 3000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    // some docs have no value at all
+                    final int numValues = randomIntBetween(0, 3);
+                    for (int j = 0; j < numValues; j++) {
+                        document.add(new SortedNumericDocValuesField("number", randomIntBetween(-1000, 1000)));
+                    }
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                fieldType.setName("number");
+                List<AggregationBuilder> builders = Arrays.asList(
+                    new SumAggregationBuilder("sum").field("number"),
+                    new AvgAggregationBuilder("avg").field("number"),
+                    new MinAggregationBuilder("min").field("number"),
+                    new MaxAggregationBuilder("max").field("number"),
+                    new StatsAggregationBuilder("stats").field("number"),
+                    new ValueCountAggregationBuilder("value_count", ValueType.NUMERIC).field("number"));
+                for (AggregationBuilder builder : builders) {
+                    assertBlocksMatchSingleDocs(builder, indexSearcher, fieldType);
+                }
+            }
+        }
+    }
+
+    private void assertBlocksMatchSingleDocs(AggregationBuilder builder, IndexSearcher indexSearcher,
+                                             MappedFieldType fieldType) throws IOException {
+        final int numBuckets = randomIntBetween(1, 5);
+        Aggregator singleDocs = createAggregator(builder, indexSearcher, fieldType);
+        Aggregator blocks = createAggregator(builder, indexSearcher, fieldType);
+        singleDocs.preCollection();
+        blocks.preCollection();
+        for (LeafReaderContext ctx : indexSearcher.getIndexReader().leaves()) {
+            LeafBucketCollector singleDocsCollector = singleDocs.getLeafCollector(ctx);
+            LeafBucketCollector blocksCollector = blocks.getLeafCollector(ctx);
+            final int[] docs = new int[ctx.reader().maxDoc()];
+            final long[] buckets = new long[docs.length];
+            int count = 0;
+            for (int doc = 0; doc < ctx.reader().maxDoc(); doc++) {
+                if (randomBoolean()) {
+                    docs[count] = doc;
+                    // runs of docs in the same bucket as well as buckets that change from doc to doc
+                    buckets[count] = count > 0 && randomBoolean() ? buckets[count - 1] : randomIntBetween(0, numBuckets - 1);
+                    singleDocsCollector.collect(docs[count], buckets[count]);
+                    count++;
+                }
+            }
+            int from = 0;
+            while (from < count) {
+                final int blockSize = randomIntBetween(1, count - from);
+                blocksCollector.collect(Arrays.copyOfRange(docs, from, from + blockSize),
+                    Arrays.copyOfRange(buckets, from, from + blockSize), blockSize);
+                from += blockSize;
+            }
+        }
+        singleDocs.postCollection();
+        blocks.postCollection();
+        for (long bucket = 0; bucket < numBuckets; bucket++) {
+            assertEquals(builder.getName(), singleDocs.buildAggregation(bucket), blocks.buildAggregation(bucket));
+        }
+    }
+}
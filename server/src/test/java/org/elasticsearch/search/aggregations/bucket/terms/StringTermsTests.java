@@ -23,16 +23,21 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.Writeable.Reader;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.ParsedMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class StringTermsTests extends InternalTermsTestCase {
 
@@ -61,6 +66,50 @@ public class StringTermsTests extends InternalTermsTestCase {
                 metaData, format, shardSize, showTermDocCountError, otherDocCount, buckets, docCountError);
     }
 
+    public void testPartialReduceSortsByKey() {
+        StringTerms first = stringTerms(BucketOrder.count(false), 10, bucket("c", 5), bucket("a", 3));
+        StringTerms second = stringTerms(BucketOrder.count(false), 10, bucket("b", 4), bucket("a", 2));
+        InternalTerms<?, ?> partial = (InternalTerms<?, ?>) first.reduce(Arrays.asList(first, second), reduceContext(false));
+        assertEquals(Arrays.asList("a", "b", "c"), keys(partial));
+        assertEquals(5L, partial.getBuckets().get(0).getDocCount());
+
+        StringTerms third = stringTerms(BucketOrder.count(false), 10, bucket("c", 1), bucket("d", 1));
+        InternalTerms<?, ?> reduced = (InternalTerms<?, ?>) first.reduce(Arrays.asList(partial, third), reduceContext(true));
+        assertEquals(Arrays.asList("c", "a", "b", "d"), keys(reduced));
+        assertEquals(6L, reduced.getBuckets().get(0).getDocCount());
+    }
+
+    public void testReduceKeyOrderCountsOtherDocs() {
+        StringTerms first = stringTerms(BucketOrder.key(true), 2, bucket("a", 3), bucket("c", 5), bucket("d", 1));
+        StringTerms second = stringTerms(BucketOrder.key(true), 2, bucket("b", 4), bucket("c", 2));
+        InternalTerms<?, ?> reduced = (InternalTerms<?, ?>) first.reduce(Arrays.asList(first, second), reduceContext(true));
+        assertEquals(Arrays.asList("a", "b"), keys(reduced));
+        assertEquals(8L, reduced.getSumOfOtherDocCounts());
+
+        first = stringTerms(BucketOrder.key(false), 2, bucket("d", 1), bucket("a", 3));
+        second = stringTerms(BucketOrder.key(false), 2, bucket("c", 2), bucket("b", 4));
+        reduced = (InternalTerms<?, ?>) first.reduce(Arrays.asList(first, second), reduceContext(true));
+        assertEquals(Arrays.asList("d", "c"), keys(reduced));
+        assertEquals(7L, reduced.getSumOfOtherDocCounts());
+    }
+
+    private static StringTerms.Bucket bucket(String term, long docCount) {
+        return new StringTerms.Bucket(new BytesRef(term), docCount, InternalAggregations.EMPTY, false, 0, DocValueFormat.RAW);
+    }
+
+    private static StringTerms stringTerms(BucketOrder order, int requiredSize, StringTerms.Bucket... buckets) {
+        return new StringTerms("terms", order, requiredSize, 1, Collections.emptyList(), null, DocValueFormat.RAW,
+            requiredSize + 10, false, 0, Arrays.asList(buckets), 0);
+    }
+
+    private static InternalAggregation.ReduceContext reduceContext(boolean isFinalReduce) {
+        return new InternalAggregation.ReduceContext(null, null, new MultiBucketConsumer(DEFAULT_MAX_BUCKETS), isFinalReduce);
+    }
+
+    private static List<String> keys(InternalTerms<?, ?> terms) {
+        return terms.getBuckets().stream().map(Terms.Bucket::getKeyAsString).collect(Collectors.toList());
+    }
+
     @Override
     protected Reader<InternalTerms<?, ?>> instanceReader() {
         return StringTerms::new;
@@ -76,6 +76,7 @@ public class ShardSearchTransportRequestTests extends AbstractSearchTestCase {
                 assertEquals(deserializedRequest.numberOfShards(), shardSearchTransportRequest.numberOfShards());
                 assertEquals(deserializedRequest.indexRoutings(), shardSearchTransportRequest.indexRoutings());
                 assertEquals(deserializedRequest.preference(), shardSearchTransportRequest.preference());
+                assertEquals(deserializedRequest.concurrentSegmentSearch(), shardSearchTransportRequest.concurrentSegmentSearch());
                 assertEquals(deserializedRequest.cacheKey(), shardSearchTransportRequest.cacheKey());
                 assertNotSame(deserializedRequest, shardSearchTransportRequest);
                 assertEquals(deserializedRequest.getAliasFilter(), shardSearchTransportRequest.getAliasFilter());
@@ -48,7 +48,7 @@ public class QueryProfileShardResultTests extends ESTestCase {
         if (randomBoolean()) {
             rewriteTime = rewriteTime % 1000; // make sure to often test this with small values too
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector);
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector, randomIntBetween(0, 100));
     }
 
     public void testFromXContent() throws IOException {
@@ -65,6 +65,7 @@ public class QueryProfileShardResultTests extends ESTestCase {
             assertNull(parser.nextToken());
         }
         assertToXContentEquivalent(originalBytes, toXContent(parsed, xContentType, humanReadable), xContentType);
+        assertEquals(profileResult.getSkippedSegments(), parsed.getSkippedSegments());
     }
 
 }
@@ -21,10 +21,14 @@ package org.elasticsearch.search.query;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
@@ -46,17 +50,27 @@ import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
+import org.elasticsearch.search.profile.Profilers;
+import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.test.TestSearchContext;
 
@@ -67,6 +81,7 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 
@@ -76,7 +91,8 @@ public class QueryPhaseTests extends IndexShardTestCase {
 
     @Override
     public Settings threadPoolSettings() {
-        return Settings.builder().put(super.threadPoolSettings()).put("thread_pool.search.min_queue_size", 10).build();
+        return Settings.builder().put(super.threadPoolSettings()).put("thread_pool.search.min_queue_size", 10)
+            .put("thread_pool.search_worker.size", 4).build();
     }
 
     @Override
@@ -539,6 +555,334 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numDocs = scaledRandomIntBetween(200, 400);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            if (randomBoolean()) {
+                doc.add(new StringField("foo", "bar", Store.NO));
+            }
+            if (randomBoolean()) {
+                doc.add(new StringField("foo", "baz", Store.NO));
+            }
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 10)));
+            w.addDocument(doc);
+            if (i % 50 == 49) {
+                w.commit();
+            }
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), greaterThan(1));
+        final IndexSearcher sequentialSearcher = new IndexSearcher(reader);
+        final ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+
+        TestSearchContext context = new TestSearchContext(null, indexShard);
+        context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+        context.parsedQuery(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+        context.setSize(10);
+        assertFalse(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+        updateConcurrentSegmentSearch(true);
+        assertTrue(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+        assertFalse(QueryPhase.useConcurrentSegmentSearch(context, sequentialSearcher, context.query()));
+
+        // top hits by score
+        assertSameTopDocs(context, sequentialSearcher, concurrentSearcher);
+
+        // top hits by a field with ties that are broken by doc id
+        context.sort(new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)), new DocValueFormat[] {DocValueFormat.RAW}));
+        assertSameTopDocs(context, sequentialSearcher, concurrentSearcher);
+        context.sort(null);
+
+        // post filters
+        context.parsedPostFilter(new ParsedQuery(new TermQuery(new Term("foo", "baz"))));
+        assertSameTopDocs(context, sequentialSearcher, concurrentSearcher);
+        context.parsedPostFilter(null);
+
+        // counts that need to be collected
+        context.setSize(0);
+        context.parsedQuery(new ParsedQuery(new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+            .build()));
+        assertTrue(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+        assertSameTopDocs(context, sequentialSearcher, concurrentSearcher);
+
+        // counts that are taken from the statistics of the reader
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        assertFalse(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+
+        // aggregations
+        context.setSize(10);
+        context.queryCollectors().put(TotalHitCountCollector.class, new TotalHitCountCollector());
+        assertFalse(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+        context.queryCollectors().clear();
+
+        // the slices share terminate_after
+        final int terminateAfter = randomIntBetween(10, numDocs / 2);
+        context.terminateAfter(terminateAfter);
+        QueryPhase.execute(context, concurrentSearcher, checkCancelled -> {});
+        assertTrue(context.queryResult().terminatedEarly());
+        assertThat(context.queryResult().topDocs().totalHits, equalTo((long) terminateAfter));
+        assertThat(context.queryResult().topDocs().scoreDocs.length, equalTo(10));
+
+        updateConcurrentSegmentSearch(false);
+        reader.close();
+        dir.close();
+    }
+
+    public void testConcurrentSegmentSearchCountsSortedHits() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numDocs = scaledRandomIntBetween(200, 400);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            doc.add(new LongPoint("timestamp", i));
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 10)));
+            w.addDocument(doc);
+            if (i % 50 == 49) {
+                w.commit();
+            }
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), greaterThan(1));
+        final IndexSearcher sequentialSearcher = new IndexSearcher(reader);
+        final ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        updateConcurrentSegmentSearch(true);
+
+        TestSearchContext context = new TestSearchContext(null, indexShard);
+        context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+        // the count of a range query can't be taken from the statistics of the reader so the slices collect it
+        context.parsedQuery(new ParsedQuery(LongPoint.newRangeQuery("timestamp", randomIntBetween(0, 50), randomIntBetween(100, 350))));
+        context.sort(new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)), new DocValueFormat[] {DocValueFormat.RAW}));
+        context.setSize(0);
+        assertTrue(QueryPhase.useConcurrentSegmentSearch(context, concurrentSearcher, context.query()));
+        assertSameTopDocs(context, sequentialSearcher, concurrentSearcher);
+        assertThat(context.queryResult().topDocs().scoreDocs.length, equalTo(0));
+
+        updateConcurrentSegmentSearch(false);
+        reader.close();
+        dir.close();
+    }
+
+    public void testConcurrentSegmentSearchFallsBackForProfiling() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        for (int i = 0; i < 10; ++i) {
+            Document doc = new Document();
+            doc.add(new StringField("foo", "bar", Store.NO));
+            w.addDocument(doc);
+            w.commit();
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), greaterThan(1));
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        updateConcurrentSegmentSearch(true);
+
+        final Profilers profilers = new Profilers(searcher);
+        TestSearchContext context = new TestSearchContext(null, indexShard) {
+            @Override
+            public Profilers getProfilers() {
+                return profilers;
+            }
+        };
+        context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+        context.parsedQuery(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+        context.setSize(10);
+        // profiled requests are collected sequentially so that the profile tree covers all leaves
+        assertFalse(QueryPhase.useConcurrentSegmentSearch(context, searcher, context.query()));
+
+        updateConcurrentSegmentSearch(false);
+        reader.close();
+        dir.close();
+    }
+
+    public void testSlices() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numSegments = randomIntBetween(1, 20);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; ++j) {
+                w.addDocument(new Document());
+            }
+            w.commit();
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        final List<LeafReaderContext> leaves = reader.leaves();
+        final int maxSlices = randomIntBetween(1, 10);
+        final List<List<LeafReaderContext>> slices = QueryPhase.slices(leaves, maxSlices);
+        assertThat(slices.size(), equalTo(Math.min(maxSlices, leaves.size())));
+        final List<LeafReaderContext> sliced = new ArrayList<>();
+        for (List<LeafReaderContext> slice : slices) {
+            assertFalse(slice.isEmpty());
+            sliced.addAll(slice);
+        }
+        assertEquals(leaves, sliced);
+        reader.close();
+        dir.close();
+    }
+
+    public void testSortedLeafPruning() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        // every segment holds newer timestamps than the segments before it, like the segments of a time based index
+        final int numSegments = randomIntBetween(3, 10);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(10, 50);
+            for (int j = 0; j < numDocs; ++j) {
+                Document doc = new Document();
+                // enough documents with a value to fill the top hits in every segment
+                if (j < 10 || randomBoolean()) {
+                    final long timestamp = i * 1000 + randomIntBetween(0, 999);
+                    doc.add(new LongPoint("timestamp", timestamp));
+                    doc.add(new SortedNumericDocValuesField("timestamp", timestamp));
+                }
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertEquals(numSegments, reader.leaves().size());
+        final IndexSearcher sequentialSearcher = new IndexSearcher(reader);
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        final QueryProfiler profiler = new QueryProfiler();
+        searcher.setProfiler(profiler);
+
+        final NumberFieldMapper.NumberFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("timestamp");
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        TestSearchContext context = new TestSearchContext(null, indexShard) {
+            @Override
+            public MappedFieldType smartNameFieldType(String name) {
+                return fieldType.name().equals(name) ? fieldType : null;
+            }
+        };
+        context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(10);
+        final boolean reverse = randomBoolean();
+        final SortField sortField = new SortedNumericSortField("timestamp", SortField.Type.LONG, reverse);
+        sortField.setMissingValue(reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+        context.sort(new SortAndFormats(new Sort(sortField), new DocValueFormat[] {DocValueFormat.RAW}));
+        assertNull(QueryPhase.prunableSortField(context, searcher));
+        context.trackTotalHits(false);
+        assertNull(QueryPhase.prunableSortField(context, sequentialSearcher));
+        assertNotNull(QueryPhase.prunableSortField(context, searcher));
+
+        assertSameHits(context, sequentialSearcher, searcher);
+        // the first or last segment holds the best hits, the other segments are skipped
+        assertEquals(numSegments - 1, profiler.getSkippedSegments());
+
+        // pages after the first
+        context.from(randomIntBetween(1, 20));
+        assertSameHits(context, sequentialSearcher, searcher);
+        context.from(0);
+
+        // a secondary sort on the doc id
+        context.sort(new SortAndFormats(new Sort(sortField, SortField.FIELD_DOC),
+            new DocValueFormat[] {DocValueFormat.RAW, DocValueFormat.RAW}));
+        assertSameHits(context, sequentialSearcher, searcher);
+        reader.close();
+        dir.close();
+    }
+
+    public void testRangeLeafPruning() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numSegments = randomIntBetween(3, 10);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; ++j) {
+                Document doc = new Document();
+                doc.add(new LongPoint("timestamp", i * 1000 + randomIntBetween(0, 999)));
+                doc.add(new StringField("foo", randomFrom("bar", "baz"), Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        final IndexSearcher sequentialSearcher = new IndexSearcher(reader);
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        final QueryProfiler profiler = new QueryProfiler();
+        searcher.setProfiler(profiler);
+
+        TestSearchContext context = new TestSearchContext(null, indexShard);
+        context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+        final int segment = randomIntBetween(0, numSegments - 1);
+        context.parsedQuery(new ParsedQuery(new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+            .add(LongPoint.newRangeQuery("timestamp", segment * 1000, segment * 1000 + 999), Occur.FILTER)
+            .build()));
+        context.setSize(10);
+        assertSameTopDocs(context, sequentialSearcher, searcher);
+        assertEquals(numSegments - 1, profiler.getSkippedSegments());
+        reader.close();
+        dir.close();
+    }
+
+    private static void assertSameHits(TestSearchContext context, IndexSearcher expectedSearcher, IndexSearcher searcher) {
+        QueryPhase.execute(context, expectedSearcher, checkCancelled -> {});
+        final TopDocs expected = context.queryResult().topDocs();
+        QueryPhase.execute(context, searcher, checkCancelled -> {});
+        final TopDocs topDocs = context.queryResult().topDocs();
+        assertEquals(expected.scoreDocs.length, topDocs.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals(expected.scoreDocs[i].doc, topDocs.scoreDocs[i].doc);
+            assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) topDocs.scoreDocs[i]).fields);
+        }
+    }
+
+    private void updateConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        final IndexMetaData metaData = indexShard.indexSettings().getIndexMetaData();
+        indexShard.indexSettings().updateIndexMetaData(IndexMetaData.builder(metaData)
+            .settings(Settings.builder().put(metaData.getSettings())
+                .put(IndexSettings.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey(), concurrentSegmentSearch))
+            .build());
+    }
+
+    private static void assertSameTopDocs(TestSearchContext context, IndexSearcher expectedSearcher, IndexSearcher searcher) {
+        QueryPhase.execute(context, expectedSearcher, checkCancelled -> {});
+        final TopDocs expected = context.queryResult().topDocs();
+        QueryPhase.execute(context, searcher, checkCancelled -> {});
+        final TopDocs topDocs = context.queryResult().topDocs();
+        assertEquals(expected.totalHits, topDocs.totalHits);
+        assertEquals(expected.getMaxScore(), topDocs.getMaxScore(), 0f);
+        assertEquals(expected.scoreDocs.length, topDocs.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals(expected.scoreDocs[i].doc, topDocs.scoreDocs[i].doc);
+            assertEquals(expected.scoreDocs[i].score, topDocs.scoreDocs[i].score, 0f);
+            assertEquals(expected.scoreDocs[i].shardIndex, topDocs.scoreDocs[i].shardIndex);
+            if (expected.scoreDocs[i] instanceof FieldDoc) {
+                assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) topDocs.scoreDocs[i]).fields);
+            }
+        }
+    }
+
     static IndexSearcher getAssertingEarlyTerminationSearcher(IndexReader reader, int size) {
         return new IndexSearcher(reader) {
             protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
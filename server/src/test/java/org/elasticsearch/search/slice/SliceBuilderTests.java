@@ -167,6 +167,11 @@ public class SliceBuilderTests extends ESTestCase {
             return null;
         }
 
+        @Override
+        public Boolean concurrentSegmentSearch() {
+            return null;
+        }
+
         @Override
         public Scroll scroll() {
             return null;
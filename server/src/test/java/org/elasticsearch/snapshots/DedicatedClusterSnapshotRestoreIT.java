@@ -446,13 +446,15 @@ public class DedicatedClusterSnapshotRestoreIT extends AbstractSnapshotIntegTest
 
         logger.info("--> making sure that snapshot no longer exists");
         assertThrows(client().admin().cluster().prepareGetSnapshots("test-repo").setSnapshots("test-snap").execute(), SnapshotMissingException.class);
-        // Subtract four files that will remain in the repository:
+        // Subtract six files that will remain in the repository:
         //   (1) index-1
         //   (2) index-0 (because we keep the previous version) and
         //   (3) index-latest
         //   (4) incompatible-snapshots
+        //   (5) shard-generations-1.dat
+        //   (6) shard-generations-0.dat (written with index-0)
         assertThat("not all files were deleted during snapshot cancellation",
-            numberOfFilesBeforeSnapshot, equalTo(numberOfFiles(repo) - 4));
+            numberOfFilesBeforeSnapshot, equalTo(numberOfFiles(repo) - 6));
         logger.info("--> done");
     }
 
@@ -23,6 +23,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -32,6 +33,7 @@ import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.TestThreadPool;
@@ -42,6 +44,7 @@ import java.io.StreamCorruptedException;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -176,12 +179,14 @@ public class TcpTransportTests extends ESTestCase {
 
     public void testCompressRequest() throws IOException {
         final boolean compressed = randomBoolean();
+        final String compressionScheme = randomFrom("deflate", "lz4");
         Req request = new Req(randomRealisticUnicodeOfLengthBetween(10, 100));
         ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
         AtomicReference<BytesReference> messageCaptor = new AtomicReference<>();
         try {
             TcpTransport transport = new TcpTransport(
-                "test", Settings.builder().put("transport.tcp.compress", compressed).build(), threadPool,
+                "test", Settings.builder().put("transport.tcp.compress", compressed)
+                    .put("transport.tcp.compression_scheme", compressionScheme).build(), threadPool,
                 new BigArrays(new PageCacheRecycler(Settings.EMPTY), null), null, null, null) {
 
                 @Override
@@ -223,9 +228,11 @@ public class TcpTransportTests extends ESTestCase {
             assertEquals(compressed, TransportStatus.isCompress(status));
             if (compressed) {
                 final int bytesConsumed = TcpHeader.HEADER_SIZE;
-                streamIn = CompressorFactory.compressor(reference.slice(bytesConsumed, reference.length() - bytesConsumed))
-                    .streamInput(streamIn);
-                }
+                final Compressor compressor = CompressorFactory.compressor(
+                    reference.slice(bytesConsumed, reference.length() - bytesConsumed));
+                assertSame(CompressorFactory.compressor(compressionScheme), compressor);
+                streamIn = compressor.streamInput(streamIn);
+            }
             threadPool.getThreadContext().readHeaders(streamIn);
             assertEquals("foobar", streamIn.readString());
             Req readReq = new Req("");
@@ -237,6 +244,39 @@ public class TcpTransportTests extends ESTestCase {
         }
     }
 
+    public void testRequestBytesAreReleasedOnceTheResponseIsSent() throws IOException {
+        ThreadPool threadPool = new TestThreadPool(TcpTransportTests.class.getName());
+        AtomicReference<BytesReference> messageCaptor = new AtomicReference<>();
+        try {
+            TcpTransport transport = new TcpTransport("test", Settings.EMPTY, threadPool,
+                new BigArrays(new PageCacheRecycler(Settings.EMPTY), null), new NoneCircuitBreakerService(), null, null) {
+
+                @Override
+                protected FakeChannel bind(String name, InetSocketAddress address) throws IOException {
+                    return null;
+                }
+
+                @Override
+                protected FakeChannel initiateChannel(InetSocketAddress address, ActionListener<Void> connectListener) throws IOException {
+                    return new FakeChannel(messageCaptor);
+                }
+            };
+
+            AtomicInteger released = new AtomicInteger();
+            TcpTransportChannel channel = new TcpTransportChannel(transport, new FakeChannel(messageCaptor), "test", "action", 42,
+                Version.CURRENT, TcpTransport.DEFAULT_PROFILE, randomIntBetween(0, 1024), released::incrementAndGet);
+            assertEquals(0, released.get());
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            assertNotNull(messageCaptor.get());
+            assertEquals(1, released.get());
+            // sending another response doesn't release the bytes twice
+            expectThrows(IllegalStateException.class, () -> channel.sendResponse(TransportResponse.Empty.INSTANCE));
+            assertEquals(1, released.get());
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     private static final class FakeChannel implements TcpChannel {
 
         private final AtomicReference<BytesReference> messageCaptor;
@@ -26,6 +26,7 @@ import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.test.ESTestCase;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -95,6 +96,8 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
                     Arrays.fill((double[])ref, 0, Array.getLength(ref), random.nextDouble() - 0.5);
                 } else if (ref instanceof float[]) {
                     Arrays.fill((float[])ref, 0, Array.getLength(ref), random.nextFloat() - 0.5f);
+                } else if (ref instanceof ByteBuffer) {
+                    fill((ByteBuffer) ref);
                 } else {
                     for (int i = 0; i < Array.getLength(ref); ++i) {
                             Array.set(ref, i, (byte) random.nextInt(256));
@@ -143,6 +146,21 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
         return wrap(page);
     }
 
+    @Override
+    public V<ByteBuffer> directPage(boolean clear) {
+        final V<ByteBuffer> page = super.directPage(clear);
+        if (!clear) {
+            fill(page.v());
+        }
+        return wrap(page);
+    }
+
+    private void fill(ByteBuffer page) {
+        for (int i = 0; i < page.capacity(); i += Long.BYTES) {
+            page.putLong(i, random.nextLong());
+        }
+    }
+
     @Override
     public V<Object[]> objectPage() {
         return wrap(super.objectPage());
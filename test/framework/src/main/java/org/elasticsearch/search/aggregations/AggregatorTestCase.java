@@ -284,9 +284,11 @@ public abstract class AggregatorTestCase extends ESTestCase {
                                                                              MappedFieldType... fieldTypes) throws IOException {
         MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(maxBucket);
         C a = createAggregator(query, builder, searcher, bucketConsumer, fieldTypes);
-        a.preCollection();
-        searcher.search(query, a);
-        a.postCollection();
+        // the query phase collects the docs of top level aggregations in blocks
+        BucketCollector collector = randomBoolean() ? BlockBucketCollector.wrap(a) : a;
+        collector.preCollection();
+        searcher.search(query, collector);
+        collector.postCollection();
         @SuppressWarnings("unchecked")
         A internalAgg = (A) a.buildAggregation(0L);
         InternalAggregationTestCase.assertMultiBucketConsumer(internalAgg, bucketConsumer);
@@ -335,9 +337,10 @@ public abstract class AggregatorTestCase extends ESTestCase {
         for (ShardSearcher subSearcher : subSearchers) {
             MultiBucketConsumer shardBucketConsumer = new MultiBucketConsumer(maxBucket);
             C a = createAggregator(query, builder, subSearcher, shardBucketConsumer, fieldTypes);
-            a.preCollection();
-            subSearcher.search(weight, a);
-            a.postCollection();
+            BucketCollector collector = randomBoolean() ? BlockBucketCollector.wrap(a) : a;
+            collector.preCollection();
+            subSearcher.search(weight, collector);
+            collector.postCollection();
             InternalAggregation agg = a.buildAggregation(0L);
             aggs.add(agg);
             InternalAggregationTestCase.assertMultiBucketConsumer(agg, shardBucketConsumer);